@@ -2,12 +2,23 @@ package com.jamesswafford.chess4j;
 
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.book.SQLiteBook;
+import com.jamesswafford.chess4j.eval.EvalParameters;
+import com.jamesswafford.chess4j.eval.nnue.NnueEval;
+import com.jamesswafford.chess4j.eval.nnue.NnueNetwork;
 import com.jamesswafford.chess4j.hash.TTHolder;
 import com.jamesswafford.chess4j.init.Initializer;
 import com.jamesswafford.chess4j.io.XBoardHandler;
 import com.jamesswafford.chess4j.search.AlphaBetaSearch;
+import com.jamesswafford.chess4j.search.MctsSearchIterator;
+import com.jamesswafford.chess4j.search.SearchConfig;
 import com.jamesswafford.chess4j.search.SearchOptions;
 import com.jamesswafford.chess4j.search.SearchParameters;
+import com.jamesswafford.chess4j.tuner.TexelTuner;
+import com.jamesswafford.chess4j.utils.EvalBatch;
+import com.jamesswafford.chess4j.utils.MateSuiteProcessor;
+import com.jamesswafford.chess4j.utils.MctsScalingBenchmark;
+import com.jamesswafford.chess4j.utils.NnueBenchmark;
+import com.jamesswafford.chess4j.utils.SearchIteratorComparison;
 import com.jamesswafford.chess4j.utils.TestSuiteProcessor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,14 +26,35 @@ import org.apache.logging.log4j.Logger;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 
 public final class App {
     private static final  Logger LOGGER = LogManager.getLogger(App.class);
 
+    private static final int DEFAULT_COMPARISON_DEPTH = 6;
+    private static final int DEFAULT_MATE_MOVES = 5;
+    private static final int DEFAULT_NNUE_BENCH_DEPTH = 6;
+
     private static String bookPath = null;
     private static String testSuiteFile = null;
+    private static String compareSuiteFile = null;
+    private static String mateSuiteFile = null;
+    private static String mctsBenchFile = null;
+    private static String nnueFile = null;
+    private static String nnueBenchFile = null;
+    private static String evalParamsFile = null;
+    private static String tuneFile = null;
+    private static String tuneOutFile = "eval.params";
+    private static int tuneIterations = TexelTuner.DEFAULT_ITERATIONS;
+    private static String evalBatchFile = null;
+    private static String evalOutFile = null;
+    private static EvalBatch.Format evalFormat = EvalBatch.Format.JSONL;
+    private static boolean mcts = false;
+    private static int numThreads = Runtime.getRuntime().availableProcessors();
+    private static int mateMoves = DEFAULT_MATE_MOVES;
     private static int testSuiteTime = 10; // default to ten seconds
     private static int maxDepth = 0;
+    private static long maxNodes = 0;
 
     private App() { }
 
@@ -31,8 +63,42 @@ public final class App {
             Initializer.attemptToUseNative = true;
         } else if (arg.startsWith("-suite=")) {
             testSuiteFile = arg.substring(7);
+        } else if (arg.startsWith("-compare=")) {
+            compareSuiteFile = arg.substring(9);
+        } else if (arg.startsWith("-matesuite=")) {
+            mateSuiteFile = arg.substring(11);
+        } else if (arg.startsWith("-mate=")) {
+            mateMoves = Integer.parseInt(arg.substring(6));
+        } else if (arg.startsWith("-mctsbench=")) {
+            mctsBenchFile = arg.substring(11);
+        } else if (arg.startsWith("-mcts")) {
+            mcts = true;
+        } else if (arg.startsWith("-nnue=")) {
+            nnueFile = arg.substring(6);
+        } else if (arg.startsWith("-nnuebench=")) {
+            nnueBenchFile = arg.substring(11);
+        } else if (arg.startsWith("-evalparams=")) {
+            evalParamsFile = arg.substring(12);
+        } else if (arg.startsWith("-tune=")) {
+            tuneFile = arg.substring(6);
+        } else if (arg.startsWith("-tuneout=")) {
+            tuneOutFile = arg.substring(9);
+        } else if (arg.startsWith("-tuneiters=")) {
+            tuneIterations = Integer.parseInt(arg.substring(11));
+        } else if (arg.startsWith("-evalbatch=")) {
+            evalBatchFile = arg.substring(11);
+        } else if (arg.startsWith("-evalout=")) {
+            evalOutFile = arg.substring(9);
+        } else if (arg.startsWith("-evalformat=")) {
+            evalFormat = EvalBatch.Format.valueOf(arg.substring(12).toUpperCase());
+        } else if (arg.startsWith("-threads=")) {
+            numThreads = Integer.parseInt(arg.substring(9));
         } else if (arg.startsWith("-depth=")) {
             maxDepth = Integer.parseInt(arg.substring(7));
+        } else if (arg.startsWith("-nodes=")) {
+            maxNodes = Long.parseLong(arg.substring(7));
+        } else if (arg.startsWith("-nps=")) {
+            SearchConfig.maxNps = Long.parseLong(arg.substring(5));
         } else if (arg.startsWith("-time=")) {
             testSuiteTime = Integer.parseInt(arg.substring(6));
         } else if (arg.startsWith("-book=")) {
@@ -43,6 +109,38 @@ public final class App {
         } else if (arg.startsWith("-phash=")) {
             int szBytes = Integer.parseInt(arg.substring(7)) * 1024 * 1024;
             TTHolder.getInstance().resizePawnTable(szBytes);
+        } else if (arg.startsWith("-history=")) {
+            SearchConfig.historyOrdering = Boolean.parseBoolean(arg.substring(9));
+        } else if (arg.startsWith("-deferlosing=")) {
+            SearchConfig.deferLosingCaptures = Boolean.parseBoolean(arg.substring(13));
+        } else if (arg.startsWith("-futility=")) {
+            SearchConfig.futilityPruning = Boolean.parseBoolean(arg.substring(10));
+        } else if (arg.startsWith("-rfp=")) {
+            SearchConfig.reverseFutilityPruning = Boolean.parseBoolean(arg.substring(5));
+        } else if (arg.startsWith("-razoring=")) {
+            SearchConfig.razoring = Boolean.parseBoolean(arg.substring(10));
+        } else if (arg.startsWith("-qhash=")) {
+            SearchConfig.qsearchHashTable = Boolean.parseBoolean(arg.substring(7));
+        } else if (arg.startsWith("-extensions=")) {
+            SearchConfig.extensions = Boolean.parseBoolean(arg.substring(12));
+        } else if (arg.startsWith("-iid=")) {
+            SearchConfig.internalIterativeDeepening = Boolean.parseBoolean(arg.substring(5));
+        } else if (arg.startsWith("-iiddepth=")) {
+            SearchConfig.iidMinDepth = Integer.parseInt(arg.substring(10));
+        } else if (arg.startsWith("-iidreduction=")) {
+            SearchConfig.iidReduction = Integer.parseInt(arg.substring(14));
+        } else if (arg.startsWith("-etc=")) {
+            SearchConfig.enhancedTranspositionCutoffs = Boolean.parseBoolean(arg.substring(5));
+        } else if (arg.startsWith("-qchecks=")) {
+            SearchConfig.qsearchChecks = Boolean.parseBoolean(arg.substring(9));
+        } else if (arg.startsWith("-lazyeval=")) {
+            SearchConfig.lazyEval = Boolean.parseBoolean(arg.substring(10));
+        } else if (arg.startsWith("-lazymargin=")) {
+            SearchConfig.lazyEvalMargin = Integer.parseInt(arg.substring(12));
+        } else if (arg.startsWith("-etcdepth=")) {
+            SearchConfig.etcMinDepth = Integer.parseInt(arg.substring(10));
+        } else if (arg.startsWith("-ponderreplies=")) {
+            SearchConfig.ponderReplies = Integer.parseInt(arg.substring(15));
         }
     }
 
@@ -53,6 +151,11 @@ public final class App {
         BufferedReader bin = new BufferedReader(new InputStreamReader(System.in));
         String input = "";
         XBoardHandler XBoardHandler = new XBoardHandler();
+        if (mcts) {
+            MctsSearchIterator searchIterator = new MctsSearchIterator();
+            searchIterator.setNumThreads(numThreads);
+            XBoardHandler.setSearchIterator(searchIterator);
+        }
 
         while (true) {
             try {
@@ -95,11 +198,60 @@ public final class App {
             processArgument(arg);
         }
 
+        if (nnueFile != null) {
+            NnueNetwork network = NnueNetwork.load(Paths.get(nnueFile));
+            Globals.setNnueNetwork(network);
+            LOGGER.info("# loaded network " + nnueFile + " (" + network.getAccumulatorSize() + "x2-"
+                    + network.getHiddenSize() + "-1, " + NnueEval.getKernelsName() + ")");
+        }
+
+        if (evalParamsFile != null) {
+            EvalParameters.load(Paths.get(evalParamsFile));
+            LOGGER.info("# loaded evaluation parameters " + evalParamsFile);
+        }
+
         warmUp();
 
         if (testSuiteFile != null) {
             TestSuiteProcessor tp = new TestSuiteProcessor();
-            tp.processTestSuite(testSuiteFile, maxDepth, testSuiteTime);
+            tp.processTestSuite(testSuiteFile, maxDepth, maxNodes, testSuiteTime);
+            System.exit(0);
+        }
+
+        if (compareSuiteFile != null) {
+            SearchIteratorComparison comparison = new SearchIteratorComparison();
+            comparison.compareTestSuite(compareSuiteFile, maxDepth > 0 ? maxDepth : DEFAULT_COMPARISON_DEPTH);
+            System.exit(0);
+        }
+
+        if (mateSuiteFile != null) {
+            MateSuiteProcessor mateSuiteProcessor = new MateSuiteProcessor();
+            mateSuiteProcessor.processTestSuite(mateSuiteFile, mateMoves, maxNodes);
+            System.exit(0);
+        }
+
+        if (mctsBenchFile != null) {
+            MctsScalingBenchmark benchmark = new MctsScalingBenchmark();
+            benchmark.benchmarkTestSuite(mctsBenchFile, numThreads, testSuiteTime * 1000L);
+            System.exit(0);
+        }
+
+        if (nnueBenchFile != null) {
+            NnueBenchmark benchmark = new NnueBenchmark(Globals.getNnueNetwork()
+                    .orElseThrow(() -> new IllegalArgumentException("nnuebench needs a network, e.g. -nnue=<file>")));
+            benchmark.benchmarkTestSuite(nnueBenchFile, maxDepth > 0 ? maxDepth : DEFAULT_NNUE_BENCH_DEPTH);
+            System.exit(0);
+        }
+
+        if (tuneFile != null) {
+            TexelTuner.tuneFile(tuneFile, tuneOutFile, tuneIterations, numThreads);
+            System.exit(0);
+        }
+
+        if (evalBatchFile != null) {
+            String outFile = evalOutFile != null ? evalOutFile
+                    : evalBatchFile + "." + evalFormat.name().toLowerCase();
+            EvalBatch.evaluateFile(evalBatchFile, outFile, evalFormat, maxDepth, numThreads);
             System.exit(0);
         }
 
@@ -8,4 +8,5 @@ public final class Constants {
     public static final int CHECKMATE =  65535;
 
     public static final int MAX_ITERATIONS = 100;
+    public static final int MAX_PLY = 1000;
 }
@@ -3,6 +3,7 @@ package com.jamesswafford.chess4j;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.Undo;
 import com.jamesswafford.chess4j.book.OpeningBook;
+import com.jamesswafford.chess4j.eval.nnue.NnueNetwork;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +14,7 @@ public class Globals {
     private static Board board = new Board();
     private static List<Undo> gameUndos = new ArrayList<>();
     private static OpeningBook openingBook;
+    private static NnueNetwork nnueNetwork;
 
     public static Board getBoard() {
         return board;
@@ -29,4 +31,15 @@ public class Globals {
     public static void setOpeningBook(OpeningBook openingBook) {
         Globals.openingBook = openingBook;
     }
+
+    /**
+     * @return the network to evaluate with in place of the handcrafted evaluation, if one has been loaded
+     */
+    public static Optional<NnueNetwork> getNnueNetwork() {
+        return Optional.ofNullable(nnueNetwork);
+    }
+
+    public static void setNnueNetwork(NnueNetwork nnueNetwork) {
+        Globals.nnueNetwork = nnueNetwork;
+    }
 }
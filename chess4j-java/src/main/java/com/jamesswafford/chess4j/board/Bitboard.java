@@ -19,6 +19,8 @@ public class Bitboard {
     public static long[] knightMoves = new long[64];
     public static long[] kingMoves = new long[64];
     public static long[][] pawnAttacks = new long[64][2];
+    public static long[][] between = new long[64][64];
+    public static long[][] line = new long[64][64];
 
     static {
         for (int i=0; i<64; i++) {
@@ -57,6 +59,26 @@ public class Bitboard {
         }
     }
 
+    // initialize between and line.  between[sq1][sq2] holds the squares strictly between two squares
+    // that share a rank, file or diagonal, and line[sq1][sq2] the entire line through them, edge to edge.
+    // both are empty for unaligned squares.
+    static {
+        for (int i=0; i<64; i++) {
+            for (int j=0; j<64; j++) {
+                between[i][j] = 0;
+                line[i][j] = 0;
+                if (i != j) {
+                    Optional<Direction> dir = Direction.getDirectionTo(i,j);
+                    Optional<Direction> back = Direction.getDirectionTo(j,i);
+                    if (dir.isPresent() && back.isPresent()) {
+                        between[i][j] = rays[i][dir.get().value()] & rays[j][back.get().value()];
+                        line[i][j] = rays[i][dir.get().value()] | rays[j][back.get().value()];
+                    }
+                }
+            }
+        }
+    }
+
     // initialize knight moves
     static {
         Square.allSquares().forEach(sq -> {
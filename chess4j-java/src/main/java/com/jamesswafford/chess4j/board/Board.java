@@ -49,6 +49,7 @@ public final class Board {
     private long whitePieces, blackPieces;
     private long zobristKey;
     private long pawnKey;
+    private PieceListener pieceListener;
 
     public Board() {
         this(INITIAL_POS);
@@ -77,6 +78,9 @@ public final class Board {
         assert(verify());
 
         Undo undo = new Undo(move, fiftyCounter, castlingRights.getValue(), epSquare, zobristKey);
+        if (pieceListener != null) {
+            pieceListener.movingPieces();
+        }
 
         swapPlayer();
         moveCounter++;
@@ -327,6 +331,18 @@ public final class Board {
         return blackRooks;
     }
 
+    public PieceListener getPieceListener() {
+        return pieceListener;
+    }
+
+    /**
+     * Have the listener told about every piece added to or removed from the board from now on, in place of
+     * any listener set before.  Copies of the board don't inherit the listener.
+     */
+    public void setPieceListener(PieceListener pieceListener) {
+        this.pieceListener = pieceListener;
+    }
+
     public Square getEPSquare() {
         return epSquare;
     }
@@ -507,6 +523,11 @@ public final class Board {
     public void undoMove(Undo undo) {
         assert(verify());
 
+        PieceListener listener = pieceListener;
+        if (listener != null && listener.unmovingPieces()) {
+            pieceListener = null;
+        }
+
         swapPlayer();
         epSquare = undo.getEpSquare();
         moveCounter--;
@@ -557,6 +578,7 @@ public final class Board {
             }
         }
 
+        pieceListener = listener;
         zobristKey = undo.getZobristKey();
         assert(verify());
     }
@@ -592,6 +614,9 @@ public final class Board {
         assert(getPiece(s)==null);
 
         pieceMap.put(s, p);
+        if (pieceListener != null) {
+            pieceListener.pieceAdded(p, s);
+        }
         long bb = Bitboard.squares[s.value()];
 
         if (p.isWhite()) {
@@ -805,6 +830,9 @@ public final class Board {
         Piece p = getPiece(sq);
         assert(p != null);
 
+        if (pieceListener != null) {
+            pieceListener.pieceRemoved(p, sq);
+        }
         long bb_sq = Bitboard.squares[sq.value()];
         if (p.isWhite()) {
             whitePieces ^= bb_sq;
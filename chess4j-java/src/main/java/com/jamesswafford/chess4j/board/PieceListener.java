@@ -0,0 +1,32 @@
+package com.jamesswafford.chess4j.board;
+
+import com.jamesswafford.chess4j.board.squares.Square;
+import com.jamesswafford.chess4j.pieces.Piece;
+
+/**
+ * Told about every piece put on or taken off a board, so anything that keeps its own view of the position
+ * can update it as moves are made and unmade rather than starting over.  A move is seen as the pieces it
+ * removes and adds, e.g. a capture is the captured piece and the mover being taken off and the mover being
+ * put on its destination.
+ */
+public interface PieceListener {
+
+    void pieceAdded(Piece piece, Square square);
+
+    void pieceRemoved(Piece piece, Square square);
+
+    /**
+     * Told when a move is about to be made, before any of its pieces are.
+     */
+    default void movingPieces() {
+    }
+
+    /**
+     * Told when a move is about to be unmade.  A listener that has put its view of the position back to how
+     * it was before the move returns true, and then isn't told about the pieces the undo puts back.
+     */
+    default boolean unmovingPieces() {
+        return false;
+    }
+
+}
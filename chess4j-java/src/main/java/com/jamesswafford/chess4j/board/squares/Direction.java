@@ -7,14 +7,19 @@ public abstract class Direction {
 
     public abstract boolean isDiagonal();
     public abstract int value();
-    private static Direction[][] directionTo = new Direction[64][64];
-
-    static {
-        for (int i=0; i<64; i++) {
-            Square sq = Square.valueOf(i);
-            for (int j=0; j<64; j++) {
-                Square sq2 = Square.valueOf(j);
-                directionTo[i][j] = calculateDirectionTo(sq,sq2);
+
+    // the table is built in a holder class so that initializing Direction does not depend on its
+    // subclasses, which would otherwise leave null entries if a subclass were initialized first.
+    private static class DirectionTable {
+        private static final Direction[][] directionTo = new Direction[64][64];
+
+        static {
+            for (int i=0; i<64; i++) {
+                Square sq = Square.valueOf(i);
+                for (int j=0; j<64; j++) {
+                    Square sq2 = Square.valueOf(j);
+                    directionTo[i][j] = calculateDirectionTo(sq,sq2);
+                }
             }
         }
     }
@@ -24,7 +29,7 @@ public abstract class Direction {
     }
 
     public static Optional<Direction> getDirectionTo(int sq1, int sq2) {
-        return Optional.ofNullable(directionTo[sq1][sq2]);
+        return Optional.ofNullable(DirectionTable.directionTo[sq1][sq2]);
     }
 
     private static Direction calculateDirectionTo(Square from, Square to) {
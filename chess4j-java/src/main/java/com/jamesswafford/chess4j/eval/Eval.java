@@ -1,9 +1,12 @@
 package com.jamesswafford.chess4j.eval;
 
+import com.jamesswafford.chess4j.Globals;
 import com.jamesswafford.chess4j.board.Bitboard;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.Color;
 import com.jamesswafford.chess4j.board.squares.Square;
+import com.jamesswafford.chess4j.eval.nnue.NnueEval;
+import com.jamesswafford.chess4j.hash.PawnTranspositionTable;
 import com.jamesswafford.chess4j.hash.PawnTranspositionTableEntry;
 import com.jamesswafford.chess4j.hash.TTHolder;
 import com.jamesswafford.chess4j.init.Initializer;
@@ -22,30 +25,60 @@ public final class Eval implements Evaluator {
         Initializer.init();
     }
 
-    public Eval() { }
+    private static final int THREAD_PAWN_TABLE_BYTES = 4 * 1024 * 1024;
+
+    // null to use the shared pawn hash
+    private final PawnTranspositionTable pawnTable;
+
+    public Eval() {
+        this(null);
+    }
+
+    /**
+     * An evaluator that caches pawn structure scores in a table of its own rather than the shared one, so
+     * it can be used on one thread while others evaluate.
+     */
+    public Eval(PawnTranspositionTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * An evaluator for one of several threads that evaluate at once.  Neither the shared pawn hash nor a
+     * network's accumulators can be shared, so it has a pawn hash of its own, or is a network evaluator of its
+     * own if a network is loaded.
+     */
+    public static Evaluator createThreadEvaluator() {
+        return Globals.getNnueNetwork().<Evaluator>map(NnueEval::new)
+                .orElseGet(() -> new Eval(new PawnTranspositionTable(THREAD_PAWN_TABLE_BYTES)));
+    }
 
     public static int eval(Board board) {
         return eval(board,false);
     }
 
     public static int eval(Board board, boolean materialOnly) {
+        return eval(board, materialOnly, TTHolder.getInstance().getPawnHashTable());
+    }
 
-        int evalScore = evalHelper(board, materialOnly);
+    private static int eval(Board board, boolean materialOnly, PawnTranspositionTable pawnTable) {
+
+        int evalScore = evalHelper(board, materialOnly, pawnTable);
 
         // if we are running with assertions enabled, test symmetry
-        assert(ensureEvalSymmetry(evalScore, board, materialOnly));
+        assert(ensureEvalSymmetry(evalScore, board, materialOnly, pawnTable));
 
-        // if we are running with assertions enabled and the native library is loaded, verify equality
-        assert(evalsAreEqual(evalScore, board, materialOnly));
+        // if we are running with assertions enabled and the native library is loaded, verify equality.  the
+        // native evaluation only knows the default weights.
+        assert(!EvalParameters.isDefault() || evalsAreEqual(evalScore, board, materialOnly));
 
         return evalScore;
     }
 
-    private static int evalHelper(Board board, boolean materialOnly) {
+    private static int evalHelper(Board board, boolean materialOnly, PawnTranspositionTable pawnTable) {
         int score = EvalMaterial.evalMaterial(board);
 
         if (!materialOnly) {
-            score += evalPawns(board);
+            score += evalPawns(board, pawnTable);
             score += evalPieces(board.getWhiteKnights(), board, EvalKnight::evalKnight)
                     - evalPieces(board.getBlackKnights(), board, EvalKnight::evalKnight);
             score += evalPieces(board.getWhiteBishops(), board, EvalBishop::evalBishop)
@@ -93,10 +126,14 @@ public final class Eval implements Evaluator {
         return score;
     }
 
-    private static int evalPawns(Board board) {
+    static int evalPawns(Board board) {
+        return evalPawns(board, TTHolder.getInstance().getPawnHashTable());
+    }
+
+    private static int evalPawns(Board board, PawnTranspositionTable pawnTable) {
 
         // try the pawn hash
-        PawnTranspositionTableEntry pte = TTHolder.getInstance().getPawnHashTable().probe(board.getPawnKey());
+        PawnTranspositionTableEntry pte = pawnTable.probe(board.getPawnKey());
         if (pte != null) {
             assert(pte.getScore() == evalPawnsNoHash(board));
             return pte.getScore();
@@ -104,14 +141,16 @@ public final class Eval implements Evaluator {
 
         int score = evalPawnsNoHash(board);
 
-        TTHolder.getInstance().getPawnHashTable().store(board.getPawnKey(), score);
+        pawnTable.store(board.getPawnKey(), score);
 
         return score;
     }
 
     private static int evalPawnsNoHash(Board board) {
-        return evalPieces(board.getWhitePawns(), board, EvalPawn::evalPawn)
-                - evalPieces(board.getBlackPawns(), board, EvalPawn::evalPawn);
+        int score = EvalPawn.evalPawns(board);
+        assert(score == evalPieces(board.getWhitePawns(), board, EvalPawn::evalPawn)
+                - evalPieces(board.getBlackPawns(), board, EvalPawn::evalPawn));
+        return score;
     }
 
     public static int scale(int score, int material) {
@@ -125,7 +164,7 @@ public final class Eval implements Evaluator {
 
     @Override
     public int evaluateBoard(Board board) {
-        return eval(board);
+        return pawnTable == null ? eval(board) : eval(board, false, pawnTable);
     }
 
     /**
@@ -134,13 +173,15 @@ public final class Eval implements Evaluator {
      * @param evalScore - the score the board has been evaulated at
      * @param board - the chess board
      * @param materialOnly - whether to evaulate material only
+     * @param pawnTable - the pawn hash to use
      *
      * @return - true if the eval is symmetric in the given position
      */
-    private static boolean ensureEvalSymmetry(int evalScore, Board board, boolean materialOnly) {
+    private static boolean ensureEvalSymmetry(int evalScore, Board board, boolean materialOnly,
+                                              PawnTranspositionTable pawnTable) {
         Board flipBoard = board.deepCopy();
         flipBoard.flipVertical();
-        int flipScore = evalHelper(flipBoard, materialOnly);
+        int flipScore = evalHelper(flipBoard, materialOnly, pawnTable);
         boolean retVal = flipScore == evalScore;
         flipBoard.flipVertical();
         assert(board.equals(flipBoard));
@@ -16,10 +16,11 @@ public class EvalBishop {
             0, 0,  0,  0,  0,  0, 0, 0 };
 
     public static int evalBishop(Board board, Square sq) {
+        int[] pst = EvalParameters.getWeights().bishopPst;
         if (board.getPiece(sq).isWhite()) {
-            return BISHOP_PST[sq.value()];
+            return pst[sq.value()];
         } else {
-            return BISHOP_PST[sq.flipVertical().value()];
+            return pst[sq.flipVertical().value()];
         }
     }
 
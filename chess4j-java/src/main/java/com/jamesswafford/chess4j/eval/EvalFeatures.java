@@ -0,0 +1,197 @@
+package com.jamesswafford.chess4j.eval;
+
+import com.jamesswafford.chess4j.board.Bitboard;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Color;
+import com.jamesswafford.chess4j.board.squares.East;
+import com.jamesswafford.chess4j.board.squares.Square;
+import com.jamesswafford.chess4j.movegen.Magic;
+
+import java.util.Arrays;
+
+/**
+ * Breaks the evaluation of a position down into how many times each of the {@link EvalParameters} weights
+ * counts towards it.  With the material values fixed the evaluation is linear in the weights, so the score is
+ * the material plus the sum of each coefficient times its weight.  That is what lets a tuner score millions
+ * of positions under new weights without setting up a board for any of them.
+ *
+ * This has to follow the evaluation term for term; EvalFeaturesTest checks the two agree.  King safety is
+ * scaled by the enemy's material and the pawns on the a and h files count half, so those coefficients are
+ * fractional, and the score computed from them differs from the evaluation by the integer rounding the
+ * evaluation does.
+ */
+public final class EvalFeatures {
+
+    private static final int PAWN_PST = EvalParameters.indexOf("PAWN_PST");
+    private static final int KNIGHT_PST = EvalParameters.indexOf("KNIGHT_PST");
+    private static final int BISHOP_PST = EvalParameters.indexOf("BISHOP_PST");
+    private static final int ROOK_PST = EvalParameters.indexOf("ROOK_PST");
+    private static final int QUEEN_PST = EvalParameters.indexOf("QUEEN_PST");
+    private static final int KING_PST = EvalParameters.indexOf("KING_PST");
+    private static final int KING_ENDGAME_PST = EvalParameters.indexOf("KING_ENDGAME_PST");
+    private static final int PASSED_PAWN = EvalParameters.indexOf("PASSED_PAWN");
+    private static final int ISOLATED_PAWN = EvalParameters.indexOf("ISOLATED_PAWN");
+    private static final int DOUBLED_PAWN = EvalParameters.indexOf("DOUBLED_PAWN");
+    private static final int BACKWARD_PAWN = EvalParameters.indexOf("BACKWARD_PAWN");
+    private static final int KNIGHT_TROPISM = EvalParameters.indexOf("KNIGHT_TROPISM");
+    private static final int ROOK_OPEN_FILE = EvalParameters.indexOf("ROOK_OPEN_FILE");
+    private static final int ROOK_HALF_OPEN_FILE = EvalParameters.indexOf("ROOK_HALF_OPEN_FILE");
+    private static final int MAJOR_ON_7TH = EvalParameters.indexOf("MAJOR_ON_7TH");
+    private static final int CONNECTED_MAJORS_ON_7TH = EvalParameters.indexOf("CONNECTED_MAJORS_ON_7TH");
+    private static final int KING_SAFETY_PAWN_ONE_AWAY = EvalParameters.indexOf("KING_SAFETY_PAWN_ONE_AWAY");
+    private static final int KING_SAFETY_PAWN_TWO_AWAY = EvalParameters.indexOf("KING_SAFETY_PAWN_TWO_AWAY");
+    private static final int KING_SAFETY_PAWN_FAR_AWAY = EvalParameters.indexOf("KING_SAFETY_PAWN_FAR_AWAY");
+    private static final int KING_SAFETY_MIDDLE_OPEN_FILE = EvalParameters.indexOf("KING_SAFETY_MIDDLE_OPEN_FILE");
+
+    // the shelter files on either wing, the edge file last as it counts half
+    private static final int[] KINGSIDE_FILES = { 5, 6, 7 };
+    private static final int[] QUEENSIDE_FILES = { 2, 1, 0 };
+
+    private EvalFeatures() { }
+
+    /**
+     * @param coefficients - cleared, then filled with the number of times each weight counts, from white's
+     *                     point of view
+     * @return - the material, which doesn't depend on the weights, from white's point of view
+     */
+    public static int extract(Board board, double[] coefficients) {
+        Arrays.fill(coefficients, 0);
+
+        extractPawns(board.getWhitePawns(), board.getBlackPawns(), true, coefficients);
+        extractPawns(board.getBlackPawns(), board.getWhitePawns(), false, coefficients);
+
+        long whiteMajors = board.getWhiteRooks() | board.getWhiteQueens();
+        long blackMajors = board.getBlackRooks() | board.getBlackQueens();
+        int whiteKing = board.getKingSquare(Color.WHITE).value();
+        int blackKing = board.getKingSquare(Color.BLACK).value();
+
+        extractPst(board.getWhiteKnights(), KNIGHT_PST, 0, 1, coefficients);
+        extractPst(board.getBlackKnights(), KNIGHT_PST, 56, -1, coefficients);
+        coefficients[KNIGHT_TROPISM] += sumDistances(board.getWhiteKnights(), blackKing)
+                - sumDistances(board.getBlackKnights(), whiteKing);
+
+        extractPst(board.getWhiteBishops(), BISHOP_PST, 0, 1, coefficients);
+        extractPst(board.getBlackBishops(), BISHOP_PST, 56, -1, coefficients);
+
+        extractPst(board.getWhiteRooks(), ROOK_PST, 0, 1, coefficients);
+        extractPst(board.getBlackRooks(), ROOK_PST, 56, -1, coefficients);
+        extractRookFiles(board.getWhiteRooks(), board.getWhitePawns(), board.getBlackPawns(), 1, coefficients);
+        extractRookFiles(board.getBlackRooks(), board.getBlackPawns(), board.getWhitePawns(), -1, coefficients);
+
+        extractPst(board.getWhiteQueens(), QUEEN_PST, 0, 1, coefficients);
+        extractPst(board.getBlackQueens(), QUEEN_PST, 56, -1, coefficients);
+        extractMajorsOn7th(board, whiteMajors, blackKing, 0, 1, coefficients);
+        extractMajorsOn7th(board, blackMajors, whiteKing, 56, -1, coefficients);
+
+        extractKing(board.getWhitePawns(), board.getWhitePawns() | board.getBlackPawns(), whiteKing,
+                EvalMaterial.evalNonPawnMaterial(board, false), 0, 1, coefficients);
+        extractKing(board.getBlackPawns(), board.getWhitePawns() | board.getBlackPawns(), blackKing,
+                EvalMaterial.evalNonPawnMaterial(board, true), 56, -1, coefficients);
+
+        return EvalMaterial.evalMaterial(board);
+    }
+
+    /**
+     * @return - the score the coefficients give with the weights, from white's point of view
+     */
+    public static double score(int material, double[] coefficients, int[] weights) {
+        double score = material;
+        for (int i=0;i<coefficients.length;i++) {
+            score += coefficients[i] * weights[i];
+        }
+        return score;
+    }
+
+    private static void extractPawns(long pawns, long enemyPawns, boolean isWhite, double[] coefficients) {
+        int sign = isWhite ? 1 : -1;
+        extractPst(pawns, PAWN_PST, isWhite ? 0 : 56, sign, coefficients);
+        coefficients[PASSED_PAWN] += sign * Long.bitCount(PawnUtils.getPassedPawns(pawns, enemyPawns, isWhite));
+        coefficients[ISOLATED_PAWN] += sign * Long.bitCount(PawnUtils.getIsolatedPawns(pawns));
+        coefficients[DOUBLED_PAWN] += sign * Long.bitCount(PawnUtils.getDoubledPawns(pawns));
+        coefficients[BACKWARD_PAWN] += sign * Long.bitCount(PawnUtils.getBackwardPawns(pawns, enemyPawns, isWhite));
+    }
+
+    // the tables are from white's point of view; flipping the rank (sq ^ 56) mirrors them for black
+    private static void extractPst(long pieces, int table, int flip, int sign, double[] coefficients) {
+        while (pieces != 0) {
+            coefficients[table + (Bitboard.lsb(pieces) ^ flip)] += sign;
+            pieces &= pieces - 1;
+        }
+    }
+
+    private static int sumDistances(long pieces, int kingSq) {
+        int sum = 0;
+        while (pieces != 0) {
+            sum += Square.valueOf(Bitboard.lsb(pieces)).distance(Square.valueOf(kingSq));
+            pieces &= pieces - 1;
+        }
+        return sum;
+    }
+
+    private static void extractRookFiles(long rooks, long friends, long enemies, int sign, double[] coefficients) {
+        while (rooks != 0) {
+            int sq = Bitboard.lsb(rooks);
+            long fileMask = Bitboard.files[sq & 7] ^ Bitboard.squares[sq];
+            if ((fileMask & friends) == 0) {
+                coefficients[(fileMask & enemies) != 0 ? ROOK_HALF_OPEN_FILE : ROOK_OPEN_FILE] += sign;
+            }
+            rooks &= rooks - 1;
+        }
+    }
+
+    // the 7th rank is the second row of the board from the player's point of view, the 8th the first
+    private static void extractMajorsOn7th(Board board, long majors, int enemyKingSq, int flip, int sign,
+                                           double[] coefficients) {
+        if (((enemyKingSq ^ flip) >> 3) != 0) {
+            return;
+        }
+        long pieces = majors;
+        while (pieces != 0) {
+            int sq = Bitboard.lsb(pieces);
+            if (((sq ^ flip) >> 3) == 1) {
+                coefficients[MAJOR_ON_7TH] += sign;
+                long eastMoves = Magic.getRookMoves(board, sq, Bitboard.rays[sq][East.getInstance().value()]);
+                if ((eastMoves & majors) != 0) {
+                    coefficients[CONNECTED_MAJORS_ON_7TH] += sign;
+                }
+            }
+            pieces &= pieces - 1;
+        }
+    }
+
+    private static void extractKing(long pawns, long allPawns, int kingSq, int enemyNonPawnMat, int flip, int sign,
+                                    double[] coefficients) {
+        final int ENDGAME_THRESHOLD = EvalMaterial.KNIGHT_VAL * 2 + EvalMaterial.ROOK_VAL;
+        final int ALL_NONPAWN_PIECES_VAL = EvalMaterial.QUEEN_VAL +
+                EvalMaterial.ROOK_VAL*2 + EvalMaterial.KNIGHT_VAL*2 + EvalMaterial.BISHOP_VAL*2;
+
+        if (enemyNonPawnMat < ENDGAME_THRESHOLD) {
+            coefficients[KING_ENDGAME_PST + (kingSq ^ flip)] += sign;
+            return;
+        }
+        coefficients[KING_PST + (kingSq ^ flip)] += sign;
+
+        double scale = sign * (double) enemyNonPawnMat / ALL_NONPAWN_PIECES_VAL;
+        int file = kingSq & 7;
+        if (file > 4 || file < 3) {
+            int[] shelterFiles = file > 4 ? KINGSIDE_FILES : QUEENSIDE_FILES;
+            for (int i=0;i<shelterFiles.length;i++) {
+                double weight = i == 2 ? scale / 2 : scale;
+                // the 2nd, 3rd and 4th ranks from the player's point of view
+                int f = shelterFiles[i];
+                if ((pawns & Bitboard.squares[(48 + f) ^ flip]) != 0) {
+                    continue;
+                }
+                if ((pawns & Bitboard.squares[(40 + f) ^ flip]) != 0) {
+                    coefficients[KING_SAFETY_PAWN_ONE_AWAY] += weight;
+                } else if ((pawns & Bitboard.squares[(32 + f) ^ flip]) != 0) {
+                    coefficients[KING_SAFETY_PAWN_TWO_AWAY] += weight;
+                } else {
+                    coefficients[KING_SAFETY_PAWN_FAR_AWAY] += weight;
+                }
+            }
+        } else if ((allPawns & Bitboard.files[file]) == 0) {
+            coefficients[KING_SAFETY_MIDDLE_OPEN_FILE] += scale;
+        }
+    }
+}
@@ -45,6 +45,7 @@ public class EvalKing {
 
         assert(kingSq == b.getKingSquare(Color.WHITE) || kingSq == b.getKingSquare(Color.BLACK));
 
+        EvalWeights weights = EvalParameters.getWeights();
         int score = 0;
 
         final int ENDGAME_THRESHOLD = EvalMaterial.KNIGHT_VAL * 2 + EvalMaterial.ROOK_VAL;
@@ -54,19 +55,19 @@ public class EvalKing {
             // if black has little material then skip the king safety eval and centralize the king.
             int enemyNonPawnMat = EvalMaterial.evalNonPawnMaterial(b, false);
             if (enemyNonPawnMat >= ENDGAME_THRESHOLD) {
-                score += KING_PST[kingSq.value()];
+                score += weights.kingPst[kingSq.value()];
                 score += Eval.scale(evalKingSafety(b, true), enemyNonPawnMat);
             } else {
-                score += KING_ENDGAME_PST[kingSq.value()];
+                score += weights.kingEndgamePst[kingSq.value()];
             }
         } else {
 
             int enemyNonPawnMat = EvalMaterial.evalNonPawnMaterial(b, true);
             if (enemyNonPawnMat >= ENDGAME_THRESHOLD) {
-                score += KING_PST[kingSq.flipVertical().value()];
+                score += weights.kingPst[kingSq.flipVertical().value()];
                 score += Eval.scale(evalKingSafety(b, false), enemyNonPawnMat);
             } else {
-                score += KING_ENDGAME_PST[kingSq.flipVertical().value()];
+                score += weights.kingEndgamePst[kingSq.flipVertical().value()];
             }
         }
 
@@ -75,6 +76,7 @@ public class EvalKing {
 
     // this will return a score from the perspective of the player
     public static int evalKingSafety(Board board, boolean forWhite) {
+        EvalWeights weights = EvalParameters.getWeights();
         int score = 0;
 
         Square kingSq;
@@ -85,64 +87,64 @@ public class EvalKing {
                 // check that pawns on f,g,h are not too far away
                 if (board.getPiece(F2) == WHITE_PAWN);
                 else if (board.getPiece(F3) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(F4) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(G2) == WHITE_PAWN);
                 else if (board.getPiece(G3) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(G4) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(H2) == WHITE_PAWN);
                 else if (board.getPiece(H3) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY /2;
+                    score += weights.kingSafetyPawnOneAway /2;
                 } else if (board.getPiece(H4) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY /2;
+                    score += weights.kingSafetyPawnTwoAway /2;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY /2;
+                    score += weights.kingSafetyPawnFarAway /2;
                 }
 
             } else if (kingSq.file().westOf(FILE_D)) {
                 if (board.getPiece(C2) == WHITE_PAWN);
                 else if (board.getPiece(C3) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(C4) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(B2) == WHITE_PAWN);
                 else if (board.getPiece(B3) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(B4) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(A2) == WHITE_PAWN);
                 else if (board.getPiece(A3) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY /2;
+                    score += weights.kingSafetyPawnOneAway /2;
                 } else if (board.getPiece(A4) == WHITE_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY /2;
+                    score += weights.kingSafetyPawnTwoAway /2;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY /2;
+                    score += weights.kingSafetyPawnFarAway /2;
                 }
             } else {
                 // check if open file
                 if ( ((board.getWhitePawns() | board.getBlackPawns())
                         & Bitboard.files[kingSq.file().getValue()])==0)
                 {
-                    score += KING_SAFETY_MIDDLE_OPEN_FILE;
+                    score += weights.kingSafetyMiddleOpenFile;
                 }
             }
             // scale down with material?
@@ -151,63 +153,63 @@ public class EvalKing {
             if (kingSq.file().eastOf(FILE_E)) {
                 if (board.getPiece(F7) == BLACK_PAWN);
                 else if (board.getPiece(F6) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(F5) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(G7) == BLACK_PAWN);
                 else if (board.getPiece(G6) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(G5) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(H7) == BLACK_PAWN);
                 else if (board.getPiece(H6) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY /2;
+                    score += weights.kingSafetyPawnOneAway /2;
                 } else if (board.getPiece(H5) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY /2;
+                    score += weights.kingSafetyPawnTwoAway /2;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY /2;
+                    score += weights.kingSafetyPawnFarAway /2;
                 }
             } else if (kingSq.file().westOf(FILE_D)) {
                 if (board.getPiece(C7) == BLACK_PAWN);
                 else if (board.getPiece(C6) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(C5) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(B7) == BLACK_PAWN);
                 else if (board.getPiece(B6) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY;
+                    score += weights.kingSafetyPawnOneAway;
                 } else if (board.getPiece(B5) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY;
+                    score += weights.kingSafetyPawnTwoAway;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY;
+                    score += weights.kingSafetyPawnFarAway;
                 }
 
                 if (board.getPiece(A7) == BLACK_PAWN);
                 else if (board.getPiece(A6) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_ONE_AWAY /2;
+                    score += weights.kingSafetyPawnOneAway /2;
                 } else if (board.getPiece(A5) == BLACK_PAWN) {
-                    score += KING_SAFETY_PAWN_TWO_AWAY /2;
+                    score += weights.kingSafetyPawnTwoAway /2;
                 } else {
-                    score += KING_SAFETY_PAWN_FAR_AWAY /2;
+                    score += weights.kingSafetyPawnFarAway /2;
                 }
             } else {
                 // check if open file
                 if ( ((board.getWhitePawns() | board.getBlackPawns())
                         & Bitboard.files[kingSq.file().getValue()])==0)
                 {
-                    score += KING_SAFETY_MIDDLE_OPEN_FILE;
+                    score += weights.kingSafetyMiddleOpenFile;
                 }
             }
         }
@@ -19,14 +19,15 @@ public class EvalKnight {
     public static final int KNIGHT_TROPISM = -2;
 
     public static int evalKnight(Board board, Square sq) {
+        EvalWeights weights = EvalParameters.getWeights();
         int score = 0;
 
         if (board.getPiece(sq).isWhite()) {
-            score = KNIGHT_PST[sq.value()];
-            score += KNIGHT_TROPISM * sq.distance(board.getKingSquare(Color.BLACK));
+            score = weights.knightPst[sq.value()];
+            score += weights.knightTropism * sq.distance(board.getKingSquare(Color.BLACK));
         } else {
-            score = KNIGHT_PST[sq.flipVertical().value()];
-            score += KNIGHT_TROPISM * sq.distance(board.getKingSquare(Color.WHITE));
+            score = weights.knightPst[sq.flipVertical().value()];
+            score += weights.knightTropism * sq.distance(board.getKingSquare(Color.WHITE));
         }
 
         return score;
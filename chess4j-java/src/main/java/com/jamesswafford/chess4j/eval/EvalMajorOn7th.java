@@ -16,24 +16,25 @@ public class EvalMajorOn7th {
     public static final int CONNECTED_MAJORS_ON_7TH = 80;
 
     public static int evalMajorOn7th(Board board, boolean isWhite, Square sq) {
+        EvalWeights weights = EvalParameters.getWeights();
         int score = 0;
 
         if (isWhite) {
             if (sq.rank() == RANK_7 && board.getKingSquare(Color.BLACK).rank() == RANK_8) {
-                score += MAJOR_ON_7TH;
-                score += evalConnectedMajorOn7th(board, isWhite, sq);
+                score += weights.majorOn7th;
+                score += evalConnectedMajorOn7th(weights, board, isWhite, sq);
             }
         } else {
             if (sq.rank() == RANK_2 && board.getKingSquare(Color.WHITE).rank() == RANK_1) {
-                score += MAJOR_ON_7TH;
-                score += evalConnectedMajorOn7th(board,isWhite,sq);
+                score += weights.majorOn7th;
+                score += evalConnectedMajorOn7th(weights, board, isWhite, sq);
             }
         }
 
         return score;
     }
 
-    private static int evalConnectedMajorOn7th(Board board, boolean isWhite, Square sq) {
+    private static int evalConnectedMajorOn7th(EvalWeights weights, Board board, boolean isWhite, Square sq) {
         int score = 0;
 
         long rookMoves = Magic.getRookMoves(board,sq.value(),
@@ -41,11 +42,11 @@ public class EvalMajorOn7th {
 
         if (isWhite) {
             if ((rookMoves & (board.getWhiteRooks() | board.getWhiteQueens())) != 0) {
-                score += CONNECTED_MAJORS_ON_7TH;
+                score += weights.connectedMajorsOn7th;
             }
         } else {
             if ((rookMoves & (board.getBlackRooks() | board.getBlackQueens())) != 0) {
-                score += CONNECTED_MAJORS_ON_7TH;
+                score += weights.connectedMajorsOn7th;
             }
         }
 
@@ -0,0 +1,233 @@
+package com.jamesswafford.chess4j.eval;
+
+import com.jamesswafford.chess4j.hash.TTHolder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The weights of the evaluation that can be tuned, seen as one vector of ints so a tuner doesn't need to know
+ * where each one lives, and the text file they're saved to and loaded from.
+ *
+ * The file has a line per term, "NAME = value" for a single weight and "NAME = v0, v1, ..." for a table, in
+ * square order a1..h8 from white's point of view.  Lines starting with '#' are comments.  Terms left out of
+ * a file keep the value they had.
+ *
+ * The constants in EvalPawn, EvalKing and the rest are the built in weights.  The evaluation reads the
+ * current ones from getWeights(), which setValues() replaces as a whole.
+ *
+ * The material values aren't here.  They're shared with the search -- SEE, the pruning margins, scaling
+ * king safety -- so they stay fixed and everything else is measured against them.
+ */
+public final class EvalParameters {
+
+    private static final class Term {
+        final String name;
+        final int offset;
+        final int size;
+        final int[] defaults;
+        final boolean isTable;
+
+        Term(String name, int offset, int[] defaults, boolean isTable) {
+            this.name = name;
+            this.offset = offset;
+            this.size = defaults.length;
+            this.defaults = defaults;
+            this.isTable = isTable;
+        }
+    }
+
+    private static final List<Term> terms = new ArrayList<>();
+    private static final Map<String, Term> termsByName = new HashMap<>();
+    private static int size;
+
+    static {
+        addTable("PAWN_PST", EvalPawn.PAWN_PST);
+        addTable("KNIGHT_PST", EvalKnight.KNIGHT_PST);
+        addTable("BISHOP_PST", EvalBishop.BISHOP_PST);
+        addTable("ROOK_PST", EvalRook.ROOK_PST);
+        addTable("QUEEN_PST", EvalQueen.QUEEN_PST);
+        addTable("KING_PST", EvalKing.KING_PST);
+        addTable("KING_ENDGAME_PST", EvalKing.KING_ENDGAME_PST);
+
+        addValue("PASSED_PAWN", EvalPawn.PASSED_PAWN);
+        addValue("ISOLATED_PAWN", EvalPawn.ISOLATED_PAWN);
+        addValue("DOUBLED_PAWN", EvalPawn.DOUBLED_PAWN);
+        addValue("BACKWARD_PAWN", EvalPawn.BACKWARD_PAWN);
+        addValue("KNIGHT_TROPISM", EvalKnight.KNIGHT_TROPISM);
+        addValue("ROOK_OPEN_FILE", EvalRook.ROOK_OPEN_FILE);
+        addValue("ROOK_HALF_OPEN_FILE", EvalRook.ROOK_HALF_OPEN_FILE);
+        addValue("MAJOR_ON_7TH", EvalMajorOn7th.MAJOR_ON_7TH);
+        addValue("CONNECTED_MAJORS_ON_7TH", EvalMajorOn7th.CONNECTED_MAJORS_ON_7TH);
+        addValue("KING_SAFETY_PAWN_ONE_AWAY", EvalKing.KING_SAFETY_PAWN_ONE_AWAY);
+        addValue("KING_SAFETY_PAWN_TWO_AWAY", EvalKing.KING_SAFETY_PAWN_TWO_AWAY);
+        addValue("KING_SAFETY_PAWN_FAR_AWAY", EvalKing.KING_SAFETY_PAWN_FAR_AWAY);
+        addValue("KING_SAFETY_MIDDLE_OPEN_FILE", EvalKing.KING_SAFETY_MIDDLE_OPEN_FILE);
+    }
+
+    private static final EvalWeights DEFAULTS = new EvalWeights(getDefaultValues());
+    private static volatile EvalWeights weights = DEFAULTS;
+
+    private EvalParameters() { }
+
+    private static void addTable(String name, int[] table) {
+        add(new Term(name, size, table.clone(), true));
+    }
+
+    private static void addValue(String name, int value) {
+        add(new Term(name, size, new int[] { value }, false));
+    }
+
+    private static void add(Term term) {
+        terms.add(term);
+        termsByName.put(term.name, term);
+        size += term.size;
+    }
+
+    private static int[] getDefaultValues() {
+        int[] values = new int[size];
+        for (Term term : terms) {
+            System.arraycopy(term.defaults, 0, values, term.offset, term.size);
+        }
+        return values;
+    }
+
+    /**
+     * @return the weights the evaluation uses now.  Read them once per evaluation, so it doesn't mix two sets.
+     */
+    public static EvalWeights getWeights() {
+        return weights;
+    }
+
+    /**
+     * @return the number of weights, counting each entry of a table
+     */
+    public static int size() {
+        return size;
+    }
+
+    /**
+     * @return the names of the terms, in the order their weights appear in the vector
+     */
+    public static List<String> getTermNames() {
+        List<String> names = new ArrayList<>();
+        for (Term term : terms) {
+            names.add(term.name);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return the index of a term's first weight in the vector
+     */
+    public static int indexOf(String name) {
+        Term term = termsByName.get(name);
+        if (term == null) {
+            throw new IllegalArgumentException("no such evaluation term: " + name);
+        }
+        return term.offset;
+    }
+
+    /**
+     * @return the name of the weight at an index, e.g. "PASSED_PAWN" or "KNIGHT_PST[27]"
+     */
+    public static String getName(int index) {
+        for (Term term : terms) {
+            if (index >= term.offset && index < term.offset + term.size) {
+                return term.isTable ? term.name + "[" + (index - term.offset) + "]" : term.name;
+            }
+        }
+        throw new IndexOutOfBoundsException("no weight at " + index);
+    }
+
+    public static int[] getValues() {
+        return weights.getValues();
+    }
+
+    /**
+     * Change the weights the evaluation uses.  The hash tables are cleared, since the scores in them were
+     * computed with the old ones.
+     */
+    public static void setValues(int[] values) {
+        if (values.length != size) {
+            throw new IllegalArgumentException("expected " + size + " values, got " + values.length);
+        }
+        weights = Arrays.equals(values, DEFAULTS.getValues()) ? DEFAULTS : new EvalWeights(values);
+        TTHolder.getInstance().clearTables();
+    }
+
+    /**
+     * @return true if the weights last set here are the ones the evaluation was built with, which the native
+     * evaluation shares
+     */
+    public static boolean isDefault() {
+        return weights == DEFAULTS;
+    }
+
+    public static void reset() {
+        setValues(DEFAULTS.getValues());
+    }
+
+    public static void save(Path path) throws IOException {
+        int[] values = getValues();
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            out.write("# chess4j evaluation parameters");
+            out.newLine();
+            for (Term term : terms) {
+                StringBuilder sb = new StringBuilder(term.name).append(" = ");
+                for (int i=0;i<term.size;i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(values[term.offset + i]);
+                }
+                out.write(sb.toString());
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Load weights saved with save().  Nothing changes unless the whole file is good.
+     */
+    public static void load(Path path) throws IOException {
+        int[] values = getValues();
+        int lineNo = 0;
+        for (String line : Files.readAllLines(path)) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int eq = line.indexOf('=');
+            if (eq == -1) {
+                throw new IOException(path + ":" + lineNo + ": expected NAME = value");
+            }
+            Term term = termsByName.get(line.substring(0, eq).trim());
+            if (term == null) {
+                throw new IOException(path + ":" + lineNo + ": unknown term " + line.substring(0, eq).trim());
+            }
+            String[] fields = line.substring(eq + 1).split(",");
+            if (fields.length != term.size) {
+                throw new IOException(path + ":" + lineNo + ": expected " + term.size + " values for "
+                        + term.name + ", got " + fields.length);
+            }
+            for (int i=0;i<fields.length;i++) {
+                try {
+                    values[term.offset + i] = Integer.parseInt(fields[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException(path + ":" + lineNo + ": bad value '" + fields[i].trim() + "'", e);
+                }
+            }
+        }
+        setValues(values);
+    }
+}
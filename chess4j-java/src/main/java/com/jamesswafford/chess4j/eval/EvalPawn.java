@@ -1,5 +1,6 @@
 package com.jamesswafford.chess4j.eval;
 
+import com.jamesswafford.chess4j.board.Bitboard;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.squares.Square;
 
@@ -25,24 +26,65 @@ public class EvalPawn {
     // note this would get "awarded" to both pawns
     public static final int DOUBLED_PAWN = -10;
 
+    // a backward pawn is one that can't be defended by a friendly pawn and can't safely advance.
+    // it isn't penalized yet, to keep the score in line with the native evaluation.
+    public static final int BACKWARD_PAWN = 0;
+
 
     public static int evalPawn(Board board, Square sq) {
+        EvalWeights weights = EvalParameters.getWeights();
         int score=0;
 
         boolean isWhite = board.getPiece(sq).isWhite();
 
-        score += PAWN_PST[isWhite ? sq.value() : sq.flipVertical().value()];
+        score += weights.pawnPst[isWhite ? sq.value() : sq.flipVertical().value()];
         if (PawnUtils.isPassedPawn(board, sq, isWhite)) {
-            score += PASSED_PAWN;
+            score += weights.passedPawn;
         }
         if (PawnUtils.isIsolated(board, sq, isWhite)) {
-            score += ISOLATED_PAWN;
+            score += weights.isolatedPawn;
         }
         if (PawnUtils.isDoubled(board, sq, isWhite)) {
-            score += DOUBLED_PAWN;
+            score += weights.doubledPawn;
+        }
+        long pawns = isWhite ? board.getWhitePawns() : board.getBlackPawns();
+        long enemyPawns = isWhite ? board.getBlackPawns() : board.getWhitePawns();
+        if ((PawnUtils.getBackwardPawns(pawns, enemyPawns, isWhite) & Bitboard.squares[sq.value()]) != 0) {
+            score += weights.backwardPawn;
         }
 
         return score;
     }
 
+    /**
+     * Evaluate all the pawns at once, set-wise.  This gives the same score as adding up evalPawn() over
+     * every pawn, with white's pawns counting positive and black's negative.
+     *
+     * @return - the score from white's perspective
+     */
+    public static int evalPawns(Board board) {
+        EvalWeights weights = EvalParameters.getWeights();
+        return evalPawns(weights, board.getWhitePawns(), board.getBlackPawns(), true)
+                - evalPawns(weights, board.getBlackPawns(), board.getWhitePawns(), false);
+    }
+
+    private static int evalPawns(EvalWeights weights, long pawns, long enemyPawns, boolean isWhite) {
+        int score = 0;
+
+        // the table is from white's point of view; flipping the rank mirrors it for black
+        long pstPawns = pawns;
+        int flip = isWhite ? 0 : 56;
+        while (pstPawns != 0) {
+            score += weights.pawnPst[Bitboard.lsb(pstPawns) ^ flip];
+            pstPawns &= pstPawns - 1;
+        }
+
+        score += weights.passedPawn * Long.bitCount(PawnUtils.getPassedPawns(pawns, enemyPawns, isWhite));
+        score += weights.isolatedPawn * Long.bitCount(PawnUtils.getIsolatedPawns(pawns));
+        score += weights.doubledPawn * Long.bitCount(PawnUtils.getDoubledPawns(pawns));
+        score += weights.backwardPawn * Long.bitCount(PawnUtils.getBackwardPawns(pawns, enemyPawns, isWhite));
+
+        return score;
+    }
+
 }
@@ -19,7 +19,7 @@ public class EvalQueen {
 
     public static int evalQueen(Board board, Square sq) {
         boolean isWhite = board.getPiece(sq).isWhite();
-        int score = QUEEN_PST[isWhite?sq.value():sq.flipVertical().value()];
+        int score = EvalParameters.getWeights().queenPst[isWhite?sq.value():sq.flipVertical().value()];
         score += evalMajorOn7th(board, isWhite, sq);
         return score;
     }
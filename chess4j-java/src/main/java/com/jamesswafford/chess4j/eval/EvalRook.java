@@ -27,13 +27,14 @@ public class EvalRook {
 
     public static int evalRook(Board board, Square sq) {
         boolean isWhite = board.getPiece(sq).isWhite();
-        int score = ROOK_PST[isWhite?sq.value():sq.flipVertical().value()];
+        EvalWeights weights = EvalParameters.getWeights();
+        int score = weights.rookPst[isWhite?sq.value():sq.flipVertical().value()];
         score += evalMajorOn7th(board, isWhite, sq);
-        score += evalRookOpenFile(board, isWhite, sq);
+        score += evalRookOpenFile(weights, board, isWhite, sq);
         return score;
     }
 
-    private static int evalRookOpenFile(Board board, boolean isWhite, Square sq) {
+    private static int evalRookOpenFile(EvalWeights weights, Board board, boolean isWhite, Square sq) {
         int score = 0;
 
         long friends,enemies;
@@ -48,9 +49,9 @@ public class EvalRook {
         long fileMask = Bitboard.files[sq.file().getValue()] ^ Bitboard.squares[sq.value()];
         if ((fileMask & friends)==0) {
             if ((fileMask & enemies)!=0) {
-                score += ROOK_HALF_OPEN_FILE;
+                score += weights.rookHalfOpenFile;
             } else {
-                score += ROOK_OPEN_FILE;
+                score += weights.rookOpenFile;
             }
         }
 
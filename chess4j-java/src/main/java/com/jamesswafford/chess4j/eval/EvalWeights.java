@@ -0,0 +1,82 @@
+package com.jamesswafford.chess4j.eval;
+
+import java.util.Arrays;
+
+/**
+ * One set of the tunable evaluation weights.  A set is never changed once it's built: EvalParameters makes a
+ * new one and publishes it whole, so an evaluation that reads the weights once sees them all from the same
+ * set, even if they're being changed from another thread.
+ *
+ * The tables are from white's point of view and mustn't be written to.
+ */
+public final class EvalWeights {
+
+    private final int[] values;
+
+    public final int[] pawnPst;
+    public final int[] knightPst;
+    public final int[] bishopPst;
+    public final int[] rookPst;
+    public final int[] queenPst;
+    public final int[] kingPst;
+    public final int[] kingEndgamePst;
+
+    public final int passedPawn;
+    public final int isolatedPawn;
+    public final int doubledPawn;
+    public final int backwardPawn;
+    public final int knightTropism;
+    public final int rookOpenFile;
+    public final int rookHalfOpenFile;
+    public final int majorOn7th;
+    public final int connectedMajorsOn7th;
+    public final int kingSafetyPawnOneAway;
+    public final int kingSafetyPawnTwoAway;
+    public final int kingSafetyPawnFarAway;
+    public final int kingSafetyMiddleOpenFile;
+
+    /**
+     * @param values - the weights in the order EvalParameters lays them out
+     */
+    EvalWeights(int[] values) {
+        this.values = values.clone();
+
+        pawnPst = table("PAWN_PST");
+        knightPst = table("KNIGHT_PST");
+        bishopPst = table("BISHOP_PST");
+        rookPst = table("ROOK_PST");
+        queenPst = table("QUEEN_PST");
+        kingPst = table("KING_PST");
+        kingEndgamePst = table("KING_ENDGAME_PST");
+
+        passedPawn = value("PASSED_PAWN");
+        isolatedPawn = value("ISOLATED_PAWN");
+        doubledPawn = value("DOUBLED_PAWN");
+        backwardPawn = value("BACKWARD_PAWN");
+        knightTropism = value("KNIGHT_TROPISM");
+        rookOpenFile = value("ROOK_OPEN_FILE");
+        rookHalfOpenFile = value("ROOK_HALF_OPEN_FILE");
+        majorOn7th = value("MAJOR_ON_7TH");
+        connectedMajorsOn7th = value("CONNECTED_MAJORS_ON_7TH");
+        kingSafetyPawnOneAway = value("KING_SAFETY_PAWN_ONE_AWAY");
+        kingSafetyPawnTwoAway = value("KING_SAFETY_PAWN_TWO_AWAY");
+        kingSafetyPawnFarAway = value("KING_SAFETY_PAWN_FAR_AWAY");
+        kingSafetyMiddleOpenFile = value("KING_SAFETY_MIDDLE_OPEN_FILE");
+    }
+
+    private int[] table(String name) {
+        int from = EvalParameters.indexOf(name);
+        return Arrays.copyOfRange(values, from, from + 64);
+    }
+
+    private int value(String name) {
+        return values[EvalParameters.indexOf(name)];
+    }
+
+    /**
+     * @return the weights in the order EvalParameters lays them out
+     */
+    int[] getValues() {
+        return values.clone();
+    }
+}
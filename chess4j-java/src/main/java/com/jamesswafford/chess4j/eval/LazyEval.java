@@ -0,0 +1,114 @@
+package com.jamesswafford.chess4j.eval;
+
+import com.jamesswafford.chess4j.board.Bitboard;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Color;
+
+/**
+ * An evaluator that works in two stages when it's told the score only matters inside a window.  The first
+ * stage is material, pawn structure and the piece square tables, which is cheap since the pawn structure
+ * usually comes from the pawn hash.  If that is so far outside the window that the rest of the evaluation --
+ * king safety, rooks on open files, majors on the 7th and knight tropism -- couldn't bring it back by
+ * <margin>, a bound is returned without doing the rest.
+ *
+ * The margin is a guess rather than a guarantee.  A king in trouble and two rooks on the 7th can be worth
+ * more than the default, in which case the bound returned is wrong, though only ever in positions that are
+ * already lopsided.
+ */
+public final class LazyEval implements Evaluator {
+
+    public static final int DEFAULT_MARGIN = 200;
+
+    private final int margin;
+    private long numEvals;
+    private long numLazyExits;
+
+    public LazyEval() {
+        this(DEFAULT_MARGIN);
+    }
+
+    public LazyEval(int margin) {
+        this.margin = margin;
+    }
+
+    public int getMargin() {
+        return margin;
+    }
+
+    /**
+     * @return the number of times the evaluator has been asked for a score inside a window
+     */
+    public long getNumEvals() {
+        return numEvals;
+    }
+
+    /**
+     * @return the number of those times the evaluator was able to stop after the first stage
+     */
+    public long getNumLazyExits() {
+        return numLazyExits;
+    }
+
+    public void resetStats() {
+        numEvals = 0;
+        numLazyExits = 0;
+    }
+
+    @Override
+    public int evaluateBoard(Board board) {
+        return Eval.eval(board);
+    }
+
+    /**
+     * Evaluate the board, when all that matters is whether the score is inside (alpha, beta).  A score inside
+     * the window is exact.  Otherwise the score may be a bound: at most alpha if the position is worse than
+     * the window, or at least beta if it's better.
+     *
+     * @return - the score from the perspective of the player to move
+     */
+    public int evaluateBoard(Board board, int alpha, int beta) {
+        numEvals++;
+
+        int estimate = evalFirstStage(board);
+        if (estimate + margin <= alpha) {
+            numLazyExits++;
+            return estimate + margin;
+        }
+        if (estimate - margin >= beta) {
+            numLazyExits++;
+            return estimate - margin;
+        }
+
+        return Eval.eval(board);
+    }
+
+    /**
+     * @return - material, pawn structure and the piece square tables, from the perspective of the player
+     * to move
+     */
+    public static int evalFirstStage(Board board) {
+        EvalWeights weights = EvalParameters.getWeights();
+        int score = EvalMaterial.evalMaterial(board) + Eval.evalPawns(board);
+
+        score += evalPst(board.getWhiteKnights(), weights.knightPst, 0)
+                - evalPst(board.getBlackKnights(), weights.knightPst, 56);
+        score += evalPst(board.getWhiteBishops(), weights.bishopPst, 0)
+                - evalPst(board.getBlackBishops(), weights.bishopPst, 56);
+        score += evalPst(board.getWhiteRooks(), weights.rookPst, 0)
+                - evalPst(board.getBlackRooks(), weights.rookPst, 56);
+        score += evalPst(board.getWhiteQueens(), weights.queenPst, 0)
+                - evalPst(board.getBlackQueens(), weights.queenPst, 56);
+
+        return board.getPlayerToMove() == Color.WHITE ? score : -score;
+    }
+
+    // the tables are from white's point of view; flipping the rank (sq ^ 56) mirrors them for black
+    private static int evalPst(long pieces, int[] pst, int flip) {
+        int score = 0;
+        while (pieces != 0) {
+            score += pst[Bitboard.lsb(pieces) ^ flip];
+            pieces &= pieces - 1;
+        }
+        return score;
+    }
+}
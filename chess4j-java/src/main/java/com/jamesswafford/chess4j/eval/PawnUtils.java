@@ -10,6 +10,9 @@ import com.jamesswafford.chess4j.board.squares.Square;
 
 public class PawnUtils {
 
+    private static final long NOT_FILE_A = ~Bitboard.files[File.FILE_A.getValue()];
+    private static final long NOT_FILE_H = ~Bitboard.files[File.FILE_H.getValue()];
+
     private static long[] isolated = new long[64];
     private static long[][] passed = new long[64][2];
 
@@ -68,4 +71,79 @@ public class PawnUtils {
         long friends = isWhite ? board.getWhitePawns() : board.getBlackPawns();
         return (isolated[pawnSq.value()] & friends)==0;
     }
+
+    /*
+     * The set-wise versions below work on all of a side's pawns at once.  Square A8 is bit 0, so north
+     * (towards rank 8) is a shift right by 8 and east (towards the h-file) a shift left by 1.
+     */
+
+    private static long northFill(long bb) {
+        bb |= bb >>> 8;
+        bb |= bb >>> 16;
+        bb |= bb >>> 32;
+        return bb;
+    }
+
+    private static long southFill(long bb) {
+        bb |= bb << 8;
+        bb |= bb << 16;
+        bb |= bb << 32;
+        return bb;
+    }
+
+    private static long fileFill(long bb) {
+        return northFill(bb) | southFill(bb);
+    }
+
+    private static long eastOne(long bb) {
+        return (bb & NOT_FILE_H) << 1;
+    }
+
+    private static long westOne(long bb) {
+        return (bb & NOT_FILE_A) >>> 1;
+    }
+
+    private static long frontSpan(long pawns, boolean isWhite) {
+        return isWhite ? northFill(pawns >>> 8) : southFill(pawns << 8);
+    }
+
+    private static long pawnAttacks(long pawns, boolean isWhite) {
+        return isWhite ? westOne(pawns) >>> 8 | eastOne(pawns) >>> 8 : westOne(pawns) << 8 | eastOne(pawns) << 8;
+    }
+
+    /**
+     * @return the passed pawns among <pawns>: those with no enemy pawns in front of them on the same or an
+     * adjacent file
+     */
+    public static long getPassedPawns(long pawns, long enemyPawns, boolean isWhite) {
+        long enemySpans = frontSpan(enemyPawns, !isWhite);
+        return pawns & ~(enemySpans | eastOne(enemySpans) | westOne(enemySpans));
+    }
+
+    /**
+     * @return the isolated pawns among <pawns>: those with no friendly pawn on an adjacent file
+     */
+    public static long getIsolatedPawns(long pawns) {
+        long files = fileFill(pawns);
+        return pawns & ~(eastOne(files) | westOne(files));
+    }
+
+    /**
+     * @return the doubled pawns among <pawns>: every pawn that shares its file with another
+     */
+    public static long getDoubledPawns(long pawns) {
+        return pawns & (northFill(pawns >>> 8) | southFill(pawns << 8));
+    }
+
+    /**
+     * @return the backward pawns among <pawns>: those that no friendly pawn can ever defend, because
+     * none are beside or behind them on an adjacent file, and that can't safely advance, because an enemy
+     * pawn guards the square in front of them
+     */
+    public static long getBackwardPawns(long pawns, long enemyPawns, boolean isWhite) {
+        long stops = isWhite ? pawns >>> 8 : pawns << 8;
+        long defendable = frontSpan(pawnAttacks(pawns, isWhite), isWhite) | pawnAttacks(pawns, isWhite);
+        long backwardStops = stops & pawnAttacks(enemyPawns, !isWhite) & ~defendable;
+        return isWhite ? backwardStops << 8 : backwardStops >>> 8;
+    }
 }
@@ -0,0 +1,230 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.board.Bitboard;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Color;
+import com.jamesswafford.chess4j.board.PieceListener;
+import com.jamesswafford.chess4j.board.squares.Square;
+import com.jamesswafford.chess4j.eval.Evaluator;
+import com.jamesswafford.chess4j.pieces.King;
+import com.jamesswafford.chess4j.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jamesswafford.chess4j.pieces.Bishop.*;
+import static com.jamesswafford.chess4j.pieces.Knight.*;
+import static com.jamesswafford.chess4j.pieces.Pawn.*;
+import static com.jamesswafford.chess4j.pieces.Queen.*;
+import static com.jamesswafford.chess4j.pieces.Rook.*;
+
+/**
+ * Evaluates with an {@link NnueNetwork}.
+ *
+ * The evaluator listens to the board it evaluates, so the accumulators follow the moves made during the
+ * search a column of weights at a time.  Moving a king changes every feature of that side, so its
+ * accumulator is marked stale instead, and rebuilt from scratch when the position is next evaluated.  The
+ * accumulators from before each move are kept, and copied back when the move is unmade, so unmaking a king
+ * move doesn't cost a rebuild.  Evaluating a different board starts over with it.
+ *
+ * An instance belongs to one search thread, as the board it listens to does.
+ */
+public final class NnueEval implements Evaluator, PieceListener {
+
+    private static final NnueKernels KERNELS = NnueKernels.load();
+    private static final int MAX_SAVED_MOVES = Constants.MAX_PLY;
+
+    private static final Piece[] FEATURE_PIECES = {
+            WHITE_PAWN, BLACK_PAWN, WHITE_KNIGHT, BLACK_KNIGHT, WHITE_BISHOP, BLACK_BISHOP,
+            WHITE_ROOK, BLACK_ROOK, WHITE_QUEEN, BLACK_QUEEN
+    };
+
+    private final NnueNetwork network;
+
+    // indexed by color value
+    private final short[][] accumulators;
+    private final int[] kingSquares = new int[2];
+    private final boolean[] stale = { true, true };
+
+    // the accumulators from before each move made since attaching to the board, as far as MAX_SAVED_MOVES.
+    // the moves after that are unmade by updating.
+    private final List<SavedAccumulators> saved = new ArrayList<>();
+    private int numSaved;
+    private int numUnsaved;
+
+    private final int[] input;
+    private Board board;
+    private long numEvals;
+    private long numRefreshes;
+
+    public NnueEval(NnueNetwork network) {
+        this.network = network;
+        this.accumulators = new short[2][network.getAccumulatorSize()];
+        this.input = new int[2 * network.getAccumulatorSize()];
+    }
+
+    /**
+     * @return the name of the loops in use, scalar or vector
+     */
+    public static String getKernelsName() {
+        return KERNELS.getName();
+    }
+
+    public long getNumEvals() {
+        return numEvals;
+    }
+
+    /**
+     * @return the number of times an accumulator had to be rebuilt from scratch
+     */
+    public long getNumRefreshes() {
+        return numRefreshes;
+    }
+
+    public void resetStats() {
+        numEvals = 0;
+        numRefreshes = 0;
+    }
+
+    @Override
+    public int evaluateBoard(Board board) {
+        if (board != this.board || board.getPieceListener() != this) {
+            attach(board);
+        }
+        numEvals++;
+
+        for (Color color : Color.values()) {
+            if (stale[color.getColor()]) {
+                refresh(color);
+            }
+        }
+
+        int us = board.getPlayerToMove().getColor();
+        return network.propagate(KERNELS, accumulators[us], accumulators[us ^ 1], input);
+    }
+
+    private void attach(Board board) {
+        if (this.board != null && this.board.getPieceListener() == this) {
+            this.board.setPieceListener(null);
+        }
+        this.board = board;
+        board.setPieceListener(this);
+        stale[0] = true;
+        stale[1] = true;
+        numSaved = 0;
+        numUnsaved = 0;
+    }
+
+    private void refresh(Color color) {
+        int perspective = color.getColor();
+        int kingSq = board.getKingSquare(color).value();
+        short[] acc = accumulators[perspective];
+        System.arraycopy(network.featureBiases, 0, acc, 0, acc.length);
+
+        long[] pieces = {
+                board.getWhitePawns(), board.getBlackPawns(), board.getWhiteKnights(), board.getBlackKnights(),
+                board.getWhiteBishops(), board.getBlackBishops(), board.getWhiteRooks(), board.getBlackRooks(),
+                board.getWhiteQueens(), board.getBlackQueens()
+        };
+        for (int i=0;i<pieces.length;i++) {
+            long bb = pieces[i];
+            while (bb != 0) {
+                int sq = Bitboard.lsb(bb);
+                int feature = NnueNetwork.getFeatureIndex(perspective, kingSq, FEATURE_PIECES[i], sq);
+                KERNELS.add(acc, network.featureWeights, feature * acc.length);
+                bb &= bb - 1;
+            }
+        }
+
+        kingSquares[perspective] = kingSq;
+        stale[perspective] = false;
+        numRefreshes++;
+    }
+
+    @Override
+    public void movingPieces() {
+        if (numUnsaved > 0 || numSaved == MAX_SAVED_MOVES) {
+            numUnsaved++;
+            return;
+        }
+        if (numSaved == saved.size()) {
+            saved.add(new SavedAccumulators(accumulators[0].length));
+        }
+        saved.get(numSaved++).save(this);
+    }
+
+    @Override
+    public boolean unmovingPieces() {
+        if (numUnsaved > 0) {
+            numUnsaved--;
+            return false;
+        }
+        if (numSaved == 0) { // made before the evaluator attached
+            return false;
+        }
+        saved.get(--numSaved).restore(this);
+        return true;
+    }
+
+    @Override
+    public void pieceAdded(Piece piece, Square square) {
+        update(piece, square, true);
+    }
+
+    @Override
+    public void pieceRemoved(Piece piece, Square square) {
+        update(piece, square, false);
+    }
+
+    private void update(Piece piece, Square square, boolean added) {
+        if (piece instanceof King) {
+            stale[piece.getColor().getColor()] = true;
+            return;
+        }
+        for (int perspective=0;perspective<2;perspective++) {
+            if (!stale[perspective]) {
+                short[] acc = accumulators[perspective];
+                int feature = NnueNetwork.getFeatureIndex(perspective, kingSquares[perspective], piece,
+                        square.value());
+                if (added) {
+                    KERNELS.add(acc, network.featureWeights, feature * acc.length);
+                } else {
+                    KERNELS.subtract(acc, network.featureWeights, feature * acc.length);
+                }
+            }
+        }
+    }
+
+    private static final class SavedAccumulators {
+        private final short[][] accumulators;
+        private final int[] kingSquares = new int[2];
+        private final boolean[] stale = new boolean[2];
+
+        SavedAccumulators(int accumulatorSize) {
+            accumulators = new short[2][accumulatorSize];
+        }
+
+        void save(NnueEval eval) {
+            for (int perspective=0;perspective<2;perspective++) {
+                stale[perspective] = eval.stale[perspective];
+                kingSquares[perspective] = eval.kingSquares[perspective];
+                if (!stale[perspective]) {
+                    System.arraycopy(eval.accumulators[perspective], 0, accumulators[perspective], 0,
+                            accumulators[perspective].length);
+                }
+            }
+        }
+
+        void restore(NnueEval eval) {
+            for (int perspective=0;perspective<2;perspective++) {
+                eval.stale[perspective] = stale[perspective];
+                eval.kingSquares[perspective] = kingSquares[perspective];
+                if (!stale[perspective]) {
+                    System.arraycopy(accumulators[perspective], 0, eval.accumulators[perspective], 0,
+                            accumulators[perspective].length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The loops that make up nearly all of the work of evaluating with a network.  The scalar versions always
+ * work; on Java 17 or later, built with the java17 profile and run with the jdk.incubator.vector module
+ * added, versions written with the Vector API are used instead.
+ */
+interface NnueKernels {
+
+    String VECTOR_KERNELS = "com.jamesswafford.chess4j.eval.nnue.VectorNnueKernels";
+
+    /**
+     * Add weights[offset .. offset + acc.length) to the accumulator
+     */
+    void add(short[] acc, short[] weights, int offset);
+
+    void subtract(short[] acc, short[] weights, int offset);
+
+    /**
+     * Copy the accumulator into dest, starting at destOffset, with each value clipped to [0, 127]
+     */
+    void clip(short[] acc, int[] dest, int destOffset);
+
+    /**
+     * @return the dot product of input with weights[offset .. offset + input.length)
+     */
+    int dot(int[] input, int[] weights, int offset);
+
+    String getName();
+
+    static NnueKernels load() {
+        Logger logger = LogManager.getLogger(NnueKernels.class);
+        try {
+            NnueKernels kernels = (NnueKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            // make sure the vector classes are really there before relying on them
+            kernels.dot(new int[1], new int[1], 0);
+            return kernels;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.debug("# vector kernels unavailable, using scalar: " + e);
+            return new ScalarNnueKernels();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import com.jamesswafford.chess4j.board.Color;
+import com.jamesswafford.chess4j.pieces.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The weights of a small efficiently updatable network, in the style of the HalfKP networks.
+ *
+ * Each side's view of the position is a set of features, one per piece other than the kings, made up of the
+ * side's own king square, the piece and the square it stands on.  Black's view is flipped vertically, with
+ * the colors swapped, so both sides see the board as white does.  The feature transformer sums a column of
+ * 16 bit weights per feature into an accumulator for each side.  The two accumulators, the side to move's
+ * first, are clipped to [0, 127] and fed to a hidden layer with 8 bit weights, whose outputs are clipped the
+ * same way and summed into the score.
+ *
+ * The file format is big endian: the magic number and version, the accumulator and hidden layer sizes, then
+ * the feature weights (feature by feature) and biases as shorts, the hidden weights (neuron by neuron) as
+ * bytes, the hidden biases as ints, the output weights as shorts and the output bias as an int.
+ */
+public final class NnueNetwork {
+
+    public static final int NUM_FEATURES = 64 * 10 * 64;
+
+    // the hidden layer sums are scaled down by 2^6 before being clipped, and the output by 16 to get
+    // centipawns
+    static final int HIDDEN_SHIFT = 6;
+    static final int OUTPUT_SCALE = 16;
+
+    private static final int MAGIC = 0x43344e4e; // "C4NN"
+    private static final int VERSION = 1;
+
+    private final int accumulatorSize;
+    private final int hiddenSize;
+    final short[] featureWeights;
+    final short[] featureBiases;
+    final int[] hiddenWeights;
+    final int[] hiddenBiases;
+    final short[] outputWeights;
+    final int outputBias;
+
+    public NnueNetwork(int accumulatorSize, int hiddenSize, short[] featureWeights, short[] featureBiases,
+                       byte[] hiddenWeights, int[] hiddenBiases, short[] outputWeights, int outputBias) {
+        if (accumulatorSize <= 0 || hiddenSize <= 0) {
+            throw new IllegalArgumentException("invalid layer sizes: " + accumulatorSize + ", " + hiddenSize);
+        }
+        checkLength("feature weights", featureWeights.length, NUM_FEATURES * accumulatorSize);
+        checkLength("feature biases", featureBiases.length, accumulatorSize);
+        checkLength("hidden weights", hiddenWeights.length, hiddenSize * 2 * accumulatorSize);
+        checkLength("hidden biases", hiddenBiases.length, hiddenSize);
+        checkLength("output weights", outputWeights.length, hiddenSize);
+
+        this.accumulatorSize = accumulatorSize;
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        // widened once here, so the hidden layer works in int lanes throughout
+        this.hiddenWeights = new int[hiddenWeights.length];
+        for (int i=0;i<hiddenWeights.length;i++) {
+            this.hiddenWeights[i] = hiddenWeights[i];
+        }
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    private static void checkLength(String what, int length, int expected) {
+        if (length != expected) {
+            throw new IllegalArgumentException("expected " + expected + " " + what + ", got " + length);
+        }
+    }
+
+    public int getAccumulatorSize() {
+        return accumulatorSize;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    public static NnueNetwork load(Path path) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("not a network file: " + path);
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported network version " + version + ": " + path);
+            }
+            int accumulatorSize = buf.getInt();
+            int hiddenSize = buf.getInt();
+            if (accumulatorSize <= 0 || hiddenSize <= 0
+                    || (long) NUM_FEATURES * accumulatorSize * 2 > buf.remaining()) {
+                throw new IOException("invalid layer sizes " + accumulatorSize + ", " + hiddenSize + ": " + path);
+            }
+
+            short[] featureWeights = new short[NUM_FEATURES * accumulatorSize];
+            buf.asShortBuffer().get(featureWeights);
+            buf.position(buf.position() + featureWeights.length * 2);
+            short[] featureBiases = new short[accumulatorSize];
+            buf.asShortBuffer().get(featureBiases);
+            buf.position(buf.position() + featureBiases.length * 2);
+            byte[] hiddenWeights = new byte[hiddenSize * 2 * accumulatorSize];
+            buf.get(hiddenWeights);
+            int[] hiddenBiases = new int[hiddenSize];
+            buf.asIntBuffer().get(hiddenBiases);
+            buf.position(buf.position() + hiddenBiases.length * 4);
+            short[] outputWeights = new short[hiddenSize];
+            buf.asShortBuffer().get(outputWeights);
+            buf.position(buf.position() + outputWeights.length * 2);
+            int outputBias = buf.getInt();
+            if (buf.hasRemaining()) {
+                throw new IOException("unexpected data at the end of " + path);
+            }
+
+            return new NnueNetwork(accumulatorSize, hiddenSize, featureWeights, featureBiases, hiddenWeights,
+                    hiddenBiases, outputWeights, outputBias);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("network file is truncated: " + path, e);
+        }
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(accumulatorSize);
+            out.writeInt(hiddenSize);
+            for (short w : featureWeights) {
+                out.writeShort(w);
+            }
+            for (short b : featureBiases) {
+                out.writeShort(b);
+            }
+            for (int w : hiddenWeights) {
+                out.writeByte(w);
+            }
+            for (int b : hiddenBiases) {
+                out.writeInt(b);
+            }
+            for (short w : outputWeights) {
+                out.writeShort(w);
+            }
+            out.writeInt(outputBias);
+        }
+    }
+
+    /**
+     * @return the index of the feature for a piece other than a king, as seen by the player with the given
+     * color value, whose king is on kingSq
+     */
+    static int getFeatureIndex(int perspective, int kingSq, Piece piece, int sq) {
+        int flip = perspective == Color.WHITE.getColor() ? 0 : 56;
+        int pieceIndex = getPieceType(piece) * 2 + (piece.getColor().getColor() == perspective ? 0 : 1);
+        return (((kingSq ^ flip) * 10 + pieceIndex) << 6) + (sq ^ flip);
+    }
+
+    private static int getPieceType(Piece piece) {
+        if (piece instanceof Pawn) {
+            return 0;
+        } else if (piece instanceof Knight) {
+            return 1;
+        } else if (piece instanceof Bishop) {
+            return 2;
+        } else if (piece instanceof Rook) {
+            return 3;
+        } else if (piece instanceof Queen) {
+            return 4;
+        }
+        throw new IllegalArgumentException("no feature for piece " + piece);
+    }
+
+    /**
+     * Run the layers after the feature transformer.
+     *
+     * @param input - scratch space for the clipped accumulators, twice the accumulator size
+     * @return - the score in centipawns, from the perspective of the player whose accumulator is first
+     */
+    int propagate(NnueKernels kernels, short[] ours, short[] theirs, int[] input) {
+        kernels.clip(ours, input, 0);
+        kernels.clip(theirs, input, accumulatorSize);
+
+        int output = outputBias;
+        for (int i=0;i<hiddenSize;i++) {
+            int sum = hiddenBiases[i] + kernels.dot(input, hiddenWeights, i * input.length);
+            output += Math.max(0, Math.min(127, sum >> HIDDEN_SHIFT)) * outputWeights[i];
+        }
+        return output / OUTPUT_SCALE;
+    }
+}
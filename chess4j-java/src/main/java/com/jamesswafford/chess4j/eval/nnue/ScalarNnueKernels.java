@@ -0,0 +1,39 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+final class ScalarNnueKernels implements NnueKernels {
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset) {
+        for (int i=0;i<acc.length;i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset) {
+        for (int i=0;i<acc.length;i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public void clip(short[] acc, int[] dest, int destOffset) {
+        for (int i=0;i<acc.length;i++) {
+            dest[destOffset + i] = Math.max(0, Math.min(127, acc[i]));
+        }
+    }
+
+    @Override
+    public int dot(int[] input, int[] weights, int offset) {
+        int sum = 0;
+        for (int i=0;i<input.length;i++) {
+            sum += input[i] * weights[offset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -107,8 +107,10 @@ public class TranspositionTable extends AbstractTranspositionTable {
     public TranspositionTableEntry probe(Board board) {
 
         if (Initializer.nativeCodeInitialized()) {
+            // the native table returns 0 when it doesn't have the position.  no entry it holds is 0, since
+            // quiescence search entries aren't stored in it.
             long nativeVal = probeNative(board);
-            return new TranspositionTableEntry(board.getZobristKey(), nativeVal);
+            return nativeVal == 0 ? null : new TranspositionTableEntry(board.getZobristKey(), nativeVal);
         } else {
             return probe(board.getZobristKey());
         }
@@ -119,18 +121,31 @@ public class TranspositionTable extends AbstractTranspositionTable {
     /**
      * Store an entry in the transposition table, Gerbil style.  Meaning, for now I'm skirting around
      * dealing with the headache that is storing mate scores by storing them as bounds only.
+     *
+     * Entries from the full width search always replace whatever is in the slot.  Quiescence search entries
+     * (depth 0) are much cheaper to reproduce, so they never replace an entry from the full width search.
      */
     public void store(long zobristKey, TranspositionTableEntryType entryType, int score, int depth, Move move) {
-        table[getTableIndex(zobristKey)] = buildHashTableEntry(zobristKey, entryType, score, depth, move);
+        int index = getTableIndex(zobristKey);
+        if (depth == 0 && table[index] != null && table[index].getDepth() > 0) {
+            return;
+        }
+        table[index] = buildHashTableEntry(zobristKey, entryType, score, depth, move);
     }
 
     /*
      * This is a convenience method, wrapping the previous "store".  It also serves as a hook into the native
-     * code.  The only time this method would be used when native code is enabled is when assertions are on,
-     * to verify search equality.
+     * code.  When native code is enabled this method is used when assertions are on, to verify search
+     * equality, and by the searches the native search can't do, e.g. multi-PV or node limited searches.
+     *
+     * The native table can't say how deep the entry a position would replace is, so quiescence search entries
+     * (depth 0) are never stored in it.  Otherwise they could replace entries from the full width search.
      */
     public void store(Board board, TranspositionTableEntryType entryType, int score, int depth, Move move) {
         if (Initializer.nativeCodeInitialized()) {
+            if (depth == 0) {
+                return;
+            }
             TranspositionTableEntry entry = buildHashTableEntry(board.getZobristKey(), entryType, score, depth, move);
             storeNative(board, entry.getVal());
         } else {
@@ -3,6 +3,7 @@ package com.jamesswafford.chess4j.hash;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.CastlingRights;
 import com.jamesswafford.chess4j.board.Color;
+import com.jamesswafford.chess4j.board.Move;
 import com.jamesswafford.chess4j.board.squares.Square;
 import com.jamesswafford.chess4j.pieces.*;
 import com.jamesswafford.chess4j.utils.PieceFactory;
@@ -101,6 +102,84 @@ public final class Zobrist {
         return key;
     }
 
+    /**
+     * Calculate the key of the position after a move, without making the move.  This follows the key
+     * updates Board.applyMove makes, so the result is the key the board would have after the move.
+     *
+     * @param b - the board, which is not modified
+     * @param m - a pseudo-legal move
+     *
+     * @return - the key after the move
+     */
+    public static long getKeyAfterMove(Board b, Move m) {
+        long key = b.getZobristKey();
+        Color mover = b.getPlayerToMove();
+
+        key ^= playerMap.get(mover) ^ playerMap.get(Color.swap(mover));
+
+        Square epSquare = b.getEPSquare();
+        if (epSquare != null) {
+            key ^= epMap.get(epSquare);
+        }
+
+        if (m.captured() != null) {
+            if (m.isEpCapture()) {
+                Square capturedSq = mover == Color.WHITE ? m.to().south().get() : m.to().north().get();
+                key ^= getPieceKey(capturedSq, m.captured());
+            } else {
+                key ^= getPieceKey(m.to(), m.captured());
+            }
+        }
+
+        Piece piece = m.piece();
+        key ^= getPieceKey(m.from(), piece);
+        key ^= getPieceKey(m.to(), m.promotion() != null ? m.promotion() : piece);
+
+        if (piece instanceof Pawn) {
+            // a double push always sets the en passant square, whether or not there's a capture available
+            if (m.from().rank().distance(m.to().rank()) == 2) {
+                key ^= epMap.get(mover == Color.WHITE ? m.from().north().get() : m.from().south().get());
+            }
+        } else if (m.isCastle()) {
+            if (m.to() == Square.G1) {
+                key ^= getPieceKey(Square.H1, Rook.WHITE_ROOK) ^ getPieceKey(Square.F1, Rook.WHITE_ROOK);
+            } else if (m.to() == Square.C1) {
+                key ^= getPieceKey(Square.A1, Rook.WHITE_ROOK) ^ getPieceKey(Square.D1, Rook.WHITE_ROOK);
+            } else if (m.to() == Square.G8) {
+                key ^= getPieceKey(Square.H8, Rook.BLACK_ROOK) ^ getPieceKey(Square.F8, Rook.BLACK_ROOK);
+            } else if (m.to() == Square.C8) {
+                key ^= getPieceKey(Square.A8, Rook.BLACK_ROOK) ^ getPieceKey(Square.D8, Rook.BLACK_ROOK);
+            }
+        }
+
+        for (CastlingRights cr : CastlingRights.values()) {
+            if (b.hasCastlingRight(cr) && losesCastlingRight(cr, piece, m)) {
+                key ^= castlingMap.get(cr);
+            }
+        }
+
+        return key;
+    }
+
+    private static boolean losesCastlingRight(CastlingRights cr, Piece piece, Move m) {
+        Square rookSq;
+        King king;
+        if (cr == CastlingRights.WHITE_KINGSIDE) {
+            rookSq = Square.H1;
+            king = King.WHITE_KING;
+        } else if (cr == CastlingRights.WHITE_QUEENSIDE) {
+            rookSq = Square.A1;
+            king = King.WHITE_KING;
+        } else if (cr == CastlingRights.BLACK_KINGSIDE) {
+            rookSq = Square.H8;
+            king = King.BLACK_KING;
+        } else {
+            rookSq = Square.A8;
+            king = King.BLACK_KING;
+        }
+        return piece == king || m.from() == rookSq || m.to() == rookSq;
+    }
+
     public static List<Long> getAllKeys() {
         List<Long> keys = new ArrayList<>();
 
@@ -10,8 +10,13 @@ import com.jamesswafford.chess4j.eval.Eval;
 import com.jamesswafford.chess4j.exceptions.IllegalMoveException;
 import com.jamesswafford.chess4j.exceptions.ParseException;
 import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.search.MateSolution;
+import com.jamesswafford.chess4j.search.MateSolver;
 import com.jamesswafford.chess4j.search.SearchIterator;
+import com.jamesswafford.chess4j.search.SearchConfig;
 import com.jamesswafford.chess4j.search.SearchIteratorImpl;
+import com.jamesswafford.chess4j.search.SpeculativePonderer;
+import com.jamesswafford.chess4j.search.TimeManager;
 import com.jamesswafford.chess4j.utils.*;
 
 import org.apache.logging.log4j.LogManager;
@@ -29,9 +34,13 @@ public class XBoardHandler {
 
     private static final  Logger LOGGER = LogManager.getLogger(XBoardHandler.class);
 
+    private static final int MAX_MULTI_PV = 64;
+    private static final long MATE_MAX_NODES = 10_000_000;
+
     private OpeningBook openingBook;
     private int bookMisses;
     private SearchIterator searchIterator;
+    private SpeculativePonderer speculativePonderer;
     private CompletableFuture<List<Move>> searchFuture;
     private Color engineColor;
     private boolean analysisMode = false;
@@ -40,8 +49,9 @@ public class XBoardHandler {
     private boolean ponderMode = false;
     private boolean ponderMiss = false;
     private Move ponderMove;
-    private boolean fixedTimePerMove;
-    private int incrementMs;
+    private long numSearchesStarted;
+    private final TimeManager timeManager = new TimeManager();
+    private MateSolver mateSolver;
     private boolean setBoard = false;
 
     private final Map<String, Consumer<String[]>> cmdMap = new HashMap<>() {{
@@ -58,9 +68,11 @@ public class XBoardHandler {
         put("hard", (String[] cmd) -> ponderingEnabled = true);
         put("hint", XBoardHandler::noOp);
         put("level", XBoardHandler.this::level);
+        put("mate", XBoardHandler.this::mate);
         put("memory", XBoardHandler.this::memory);
         put("new", XBoardHandler.this::newGame);
         put("nopost", (String[] cmd) -> searchIterator.setPost(false));
+        put("option", XBoardHandler.this::option);
         put("otim", XBoardHandler::noOp);
         put("perft", (String[] cmd) -> Perft.executePerft(Globals.getBoard(), Integer.parseInt(cmd[1])));
         put("pgn2book", XBoardHandler.this::pgnToBook);
@@ -75,6 +87,7 @@ public class XBoardHandler {
         put("result", XBoardHandler.this::result);
         put("sd", XBoardHandler.this::sd);
         put("setboard", XBoardHandler.this::setboard);
+        put("sn", XBoardHandler.this::sn);
         put("st", XBoardHandler.this::st);
         put("time", XBoardHandler.this::time);
         put("undo", XBoardHandler.this::undo);
@@ -86,6 +99,10 @@ public class XBoardHandler {
     public XBoardHandler() {
         Globals.getOpeningBook().ifPresent(openingBook1 -> this.openingBook = openingBook1);
         searchIterator = new SearchIteratorImpl();
+        searchIterator.setTimeManager(timeManager);
+        if (SearchConfig.ponderReplies > 1) {
+            speculativePonderer = new SpeculativePonderer(SearchConfig.ponderReplies);
+        }
     }
 
     public Color getEngineColor() {
@@ -96,12 +113,24 @@ public class XBoardHandler {
         return forceMode;
     }
 
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
     public void setOpeningBook(OpeningBook openingBook) {
         this.openingBook = openingBook;
     }
 
     public void setSearchIterator(SearchIterator searchIterator) {
         this.searchIterator = searchIterator;
+        searchIterator.setTimeManager(timeManager);
+    }
+
+    /**
+     * Ponder several replies at once with the given ponderer, or just the reply from the PV if it is null.
+     */
+    public void setSpeculativePonderer(SpeculativePonderer speculativePonderer) {
+        this.speculativePonderer = speculativePonderer;
     }
 
     public void parseAndDispatch(String command) throws IllegalMoveException, ParseException {
@@ -162,8 +191,38 @@ public class XBoardHandler {
      *    level 0 2 12 - play the entire game with a 2 minute base + 12 second increment per move.
      */
     private void level(String[] cmd) {
-        incrementMs =  (int)(Float.parseFloat(cmd[3]) * 1000);
-        fixedTimePerMove = false;
+        int movesPerControl = Integer.parseInt(cmd[1]);
+        int incrementMs =  (int)(Float.parseFloat(cmd[3]) * 1000);
+        timeManager.setLevel(movesPerControl, incrementMs);
+    }
+
+    /**
+     * Search the current position for a mate in at most N moves, e.g. "mate 3".  Any search in progress
+     * is stopped first, and the solver gives up after MATE_MAX_NODES nodes.  This isn't part of the
+     * XBoard protocol.
+     */
+    private void mate(String[] cmd) {
+        int maxMoves = Integer.parseInt(cmd[1]);
+        stopSearchThread();
+        if (mateSolver == null) {
+            mateSolver = new MateSolver();
+            mateSolver.setMaxNodes(MATE_MAX_NODES);
+        }
+        mateSolver.getTable().clear();
+        MateSolution solution = mateSolver.solve(Globals.getBoard().deepCopy(), maxMoves);
+
+        if (solution.isMate()) {
+            StringBuilder pv = new StringBuilder();
+            solution.getPv().forEach(mv -> pv.append(mv).append(" "));
+            LOGGER.info("# mate in " + solution.getMateIn() + ": " + pv.toString().trim());
+            LOGGER.info("# proof size: " + solution.getProofSize());
+        } else if (solution.isStopped()) {
+            LOGGER.info("# no mate found in " + MATE_MAX_NODES + " nodes");
+        } else {
+            LOGGER.info("# no mate in " + maxMoves);
+        }
+        LOGGER.info("# nodes: " + solution.getNodes() + ", elapsed time: " + solution.getElapsedMs()
+                + " ms, rate: " + solution.getNps() + " n/s");
     }
 
     /**
@@ -204,6 +263,10 @@ public class XBoardHandler {
         TTHolder.getInstance().clearTables();
         engineColor = Color.BLACK;
         searchIterator.setMaxDepth(0);
+        searchIterator.setMaxNodes(0);
+        if (speculativePonderer != null) {
+            speculativePonderer.setMaxDepth(0);
+        }
         setBoard = false;
     }
 
@@ -211,6 +274,22 @@ public class XBoardHandler {
         LOGGER.debug("# no op: " + cmd[0]);
     }
 
+    /**
+     * option NAME=VALUE
+     * Set one of the options declared with the "feature option" command.  MultiPV sets the number of lines
+     * shown when analyzing (or thinking).
+     */
+    private void option(String[] cmd) {
+        String[] nameValue = String.join(" ", Arrays.copyOfRange(cmd, 1, cmd.length)).split("=", 2);
+        if (nameValue.length == 2 && "MultiPV".equals(nameValue[0].trim())) {
+            int multiPv = Integer.parseInt(nameValue[1].trim());
+            LOGGER.debug("# setting multi-pv to {}", multiPv);
+            searchIterator.setMultiPv(Math.min(multiPv, MAX_MULTI_PV));
+        } else {
+            LOGGER.info("Error (unknown option): " + String.join(" ", cmd));
+        }
+    }
+
     private void pgnToBook(String[] cmd) {
         if (openingBook != null) {
             openingBook.addToBook(new File(cmd[1]));
@@ -248,6 +327,7 @@ public class XBoardHandler {
         LOGGER.info("feature name=0 nps=0 memory=1");
         LOGGER.info("feature setboard=1 sigint=0 sigterm=0 usermove=1");
         LOGGER.info("feature variants=\"normal\" myname=\"chess4j\"");
+        LOGGER.info("feature option=\"MultiPV -spin 1 1 " + MAX_MULTI_PV + "\"");
         LOGGER.info("feature done=1"); // must be last
     }
 
@@ -327,6 +407,9 @@ public class XBoardHandler {
         int depth = Integer.parseInt(cmd[1]);
         LOGGER.debug("# setting depth to {}", depth);
         searchIterator.setMaxDepth(depth);
+        if (speculativePonderer != null) {
+            speculativePonderer.setMaxDepth(depth);
+        }
     }
 
     private void setboard(String[] cmd) {
@@ -356,22 +439,27 @@ public class XBoardHandler {
     private void st(String[] cmd) {
         int seconds = Integer.parseInt(cmd[1]);
         LOGGER.debug("# setting search time to {} seconds per move", seconds);
-        fixedTimePerMove = true;
-        searchIterator.setMaxTime(seconds * 1000);
+        timeManager.setFixedTime(seconds * 1000);
+    }
+
+    /**
+     * Limit the search to N nodes.  A node limited search plays the same move each time it sees the
+     * same position, which is handy for testing.
+     */
+    private void sn(String[] cmd) {
+        long nodes = Long.parseLong(cmd[1]);
+        LOGGER.debug("# setting node limit to {}", nodes);
+        searchIterator.setMaxNodes(nodes);
     }
 
     /**
-     * Read in the engine's remaining time, in centiseconds.
+     * Read in the engine's remaining time, in centiseconds.  The time manager works out how much
+     * of it to use when the next search starts.
      */
     private void time(String[] cmd) {
         int centis = Integer.parseInt(cmd[1]);
-        if (fixedTimePerMove) {
-            int timeMs = centis * 10 - 100; // leave 1/10th of a second for overhead
-            if (timeMs < 1) timeMs = 1;
-            searchIterator.setMaxTime(timeMs);
-        } else {
-            searchIterator.setMaxTime(TimeUtils.getSearchTime(centis * 10, incrementMs));
-        }
+        timeManager.setRemainingTime(centis * 10L);
+        timeManager.setMoveCounter(Globals.getBoard().getMoveCounter());
     }
 
     /**
@@ -390,7 +478,9 @@ public class XBoardHandler {
 
     /**
      * Sent when the user makes a move and the engine is already playing the opposite color.
-     * The engine may or may not be pondering.
+     * The engine may or may not be pondering.  If it was pondering the move that was played,
+     * the ponder search carries on as a normal search, with its time budget starting now.  When
+     * pondering several replies, the searches of the other replies are cancelled.
      */
     private void usermove(String[] cmd)  {
         if (analysisMode) {
@@ -411,11 +501,23 @@ public class XBoardHandler {
             synchronized (XBoardHandler.this) {
                 if (ponderMode) {
                     assert(!forceMode);
-                    boolean predicted = mv.equals(ponderMove);
+                    boolean predicted;
+                    Optional<CompletableFuture<List<Move>>> ponderSearch = Optional.empty();
+                    if (speculativePonderer != null) {
+                        ponderSearch = speculativePonderer.ponderHit(mv, timeManager);
+                        predicted = ponderSearch.isPresent();
+                    } else {
+                        predicted = mv.equals(ponderMove);
+                        if (predicted) {
+                            searchIterator.ponderHit();
+                        }
+                    }
                     LOGGER.debug("# pondering - predicted correctly: {}", predicted);
                     leavePonderMode();
                     ponderMiss = !predicted;
                     startNewSearch = !predicted;
+                    // the search of the move played replaces the (finished) search that made our move
+                    ponderSearch.ifPresent(future -> searchFuture = future.thenApply(this::searchFinished));
                 } else {
                     ponderMiss = false; // be sure to print
                     startNewSearch = true;
@@ -436,6 +538,9 @@ public class XBoardHandler {
      *
      */
     private void stopSearchThread() {
+        if (speculativePonderer != null) {
+            speculativePonderer.stop();
+        }
         if (searchFuture==null) {
             return;
         }
@@ -470,33 +575,64 @@ public class XBoardHandler {
 
         searchIterator.unstop();
         ponderMiss = false;
-        searchFuture = searchIterator.findPvFuture(board, undos)
-                .thenApply(
-                        pv -> {
-                            synchronized (XBoardHandler.this) {
-                                LOGGER.debug("# analysis: {}, force: {}, ponder: {}, ponderMiss: {}",
-                                        analysisMode, forceMode, ponderMode, ponderMiss);
-                                if (!analysisMode && !forceMode && !ponderMode && !ponderMiss) {
-                                    Globals.getGameUndos().add(Globals.getBoard().applyMove(pv.get(0)));
-                                    LOGGER.info("move " + pv.get(0));
-                                    if (!endOfGameCheck() && ponderingEnabled && pv.size() > 1) {
-                                        Move ponderMove = pv.get(1);
-                                        Board ponderBoard = Globals.getBoard().deepCopy();
-                                        List<Undo> ponderUndos = new ArrayList<>(Globals.getGameUndos());
-                                        ponderUndos.add(ponderBoard.applyMove(ponderMove));
-                                        // does the move we want to ponder end the game?
-                                        if (getGameStatus(ponderBoard, ponderUndos) == GameStatus.INPROGRESS) {
-                                            LOGGER.info("# pondering move: " + ponderMove);
-                                            enterPonderMode(ponderMove);
-                                            startSearchThread(ponderBoard, ponderUndos);
-                                        }
-                                    }
-                                } else {
-                                    leavePonderMode();
-                                }
-                            }
-                            return pv;
-                        });
+        numSearchesStarted++;
+        searchFuture = searchIterator.findPvFuture(board, undos).thenApply(this::searchFinished);
+    }
+
+    private List<Move> searchFinished(List<Move> pv) {
+        Runnable speculativePondering = null;
+        synchronized (XBoardHandler.this) {
+            LOGGER.debug("# analysis: {}, force: {}, ponder: {}, ponderMiss: {}",
+                    analysisMode, forceMode, ponderMode, ponderMiss);
+            if (!analysisMode && !forceMode && !ponderMode && !ponderMiss) {
+                Globals.getGameUndos().add(Globals.getBoard().applyMove(pv.get(0)));
+                LOGGER.info("move " + pv.get(0));
+                if (!endOfGameCheck() && ponderingEnabled) {
+                    if (speculativePonderer != null) {
+                        Board board = Globals.getBoard().deepCopy();
+                        List<Undo> undos = new ArrayList<>(Globals.getGameUndos());
+                        Move predicted = pv.size() > 1 ? pv.get(1) : null;
+                        long searchesStarted = numSearchesStarted;
+                        speculativePondering = () -> startSpeculativePondering(board, undos, predicted,
+                                searchesStarted);
+                    } else if (pv.size() > 1) {
+                        Move ponderMove = pv.get(1);
+                        Board ponderBoard = Globals.getBoard().deepCopy();
+                        List<Undo> ponderUndos = new ArrayList<>(Globals.getGameUndos());
+                        ponderUndos.add(ponderBoard.applyMove(ponderMove));
+                        // does the move we want to ponder end the game?
+                        if (getGameStatus(ponderBoard, ponderUndos) == GameStatus.INPROGRESS) {
+                            LOGGER.info("# pondering move: " + ponderMove);
+                            enterPonderMode(ponderMove);
+                            startSearchThread(ponderBoard, ponderUndos);
+                        }
+                    }
+                }
+            } else {
+                leavePonderMode();
+            }
+        }
+        if (speculativePondering != null) {
+            speculativePondering.run();
+        }
+        return pv;
+    }
+
+    /**
+     * Rank the replies to ponder without holding the lock, as that takes a short search of every reply and
+     * commands would be kept waiting.  They're only pondered if nothing has happened in the meantime.
+     */
+    private void startSpeculativePondering(Board board, List<Undo> undos, Move predicted, long searchesStarted) {
+        List<Move> replies = speculativePonderer.rankReplies(board, undos, predicted);
+        synchronized (XBoardHandler.this) {
+            if (replies.isEmpty() || numSearchesStarted != searchesStarted || ponderMode || forceMode
+                    || analysisMode || !ponderingEnabled || !board.equals(Globals.getBoard())) {
+                return;
+            }
+            speculativePonderer.start(board, undos, replies);
+            LOGGER.info("# pondering moves: " + PrintLine.getMoveString(replies));
+            enterPonderMode(replies.get(0));
+        }
     }
 
     private static boolean endOfGameCheck() {
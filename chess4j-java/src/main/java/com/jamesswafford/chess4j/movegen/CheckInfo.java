@@ -0,0 +1,162 @@
+package com.jamesswafford.chess4j.movegen;
+
+import com.jamesswafford.chess4j.board.Bitboard;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Color;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.pieces.*;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+
+/**
+ * What it takes for the player to move to give check, worked out once per node so that whether a move
+ * gives check can be answered before the move is made, with a couple of bitboard tests.
+ *
+ * A move checks directly if it lands on one of the squares from which the moved piece would attack the
+ * opponent's king.  It checks by discovery if it moves a piece that stands between one of our sliders and
+ * the king, and doesn't stay on the line between them.  Castling and en passant captures, which move or
+ * remove a second piece, are worked out from the occupancy after the move.
+ */
+public final class CheckInfo {
+
+    private final Board board;
+    private final Color player;
+    private final int kingSq;
+    private final long occupied;
+    private final long pawnChecks, knightChecks, bishopChecks, rookChecks;
+    private final long discoverers;
+
+    public CheckInfo(Board board) {
+        this.board = board;
+        this.player = board.getPlayerToMove();
+        this.kingSq = board.getKingSquare(Color.swap(player)).value();
+        this.occupied = board.getWhitePieces() | board.getBlackPieces();
+
+        // a pawn checks from the squares an enemy pawn on the king's square would attack
+        pawnChecks = Bitboard.pawnAttacks[kingSq][Color.swap(player).getColor()];
+        knightChecks = Bitboard.knightMoves[kingSq];
+        bishopChecks = Magic.getBishopMoves(occupied, kingSq, ~0L);
+        rookChecks = Magic.getRookMoves(occupied, kingSq, ~0L);
+
+        // our pieces that are all that stands between one of our sliders and the king
+        long ourPieces = player.isWhite() ? board.getWhitePieces() : board.getBlackPieces();
+        long sliders = (Magic.getBishopMoves(0, kingSq, ~0L) & (getBishops(player) | getQueens(player)))
+                | (Magic.getRookMoves(0, kingSq, ~0L) & (getRooks(player) | getQueens(player)));
+        long discoverers = 0;
+        while (sliders != 0) {
+            int sliderSq = Bitboard.lsb(sliders);
+            long blockers = Bitboard.between[kingSq][sliderSq] & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & ourPieces) != 0) {
+                discoverers |= blockers;
+            }
+            sliders &= sliders - 1;
+        }
+        this.discoverers = discoverers;
+    }
+
+    /**
+     * @return the squares from which a piece of the given kind would check the opponent's king.  A king
+     * never checks directly.
+     */
+    public long getCheckSquares(Piece piece) {
+        if (piece instanceof Pawn) {
+            return pawnChecks;
+        } else if (piece instanceof Knight) {
+            return knightChecks;
+        } else if (piece instanceof Bishop) {
+            return bishopChecks;
+        } else if (piece instanceof Rook) {
+            return rookChecks;
+        } else if (piece instanceof Queen) {
+            return bishopChecks | rookChecks;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the squares of our pieces that would give a discovered check by moving off the line to the
+     * opponent's king
+     */
+    public long getDiscoverers() {
+        return discoverers;
+    }
+
+    /**
+     * Determine if a pseudo-legal move for the player to move would give check, without making it.
+     */
+    public boolean givesCheck(Move move) {
+        int fromSq = move.from().value();
+        int toSq = move.to().value();
+
+        if (move.isCastle() || move.isEpCapture()) {
+            return givesCheckAfterSpecialMove(move);
+        }
+
+        if ((discoverers & Bitboard.squares[fromSq]) != 0 && (Bitboard.line[fromSq][kingSq] & Bitboard.squares[toSq]) == 0) {
+            return true;
+        }
+
+        if (move.promotion() == null) {
+            return (getCheckSquares(move.piece()) & Bitboard.squares[toSq]) != 0;
+        }
+
+        // the promoting pawn no longer blocks whatever is behind it
+        long occ = occupied ^ Bitboard.squares[fromSq];
+        Piece promotion = move.promotion();
+        if (promotion instanceof Knight) {
+            return (knightChecks & Bitboard.squares[toSq]) != 0;
+        }
+        long attacks = 0;
+        if (promotion instanceof Bishop || promotion instanceof Queen) {
+            attacks |= Magic.getBishopMoves(occ, toSq, Bitboard.squares[kingSq]);
+        }
+        if (promotion instanceof Rook || promotion instanceof Queen) {
+            attacks |= Magic.getRookMoves(occ, toSq, Bitboard.squares[kingSq]);
+        }
+        return attacks != 0;
+    }
+
+    private boolean givesCheckAfterSpecialMove(Move move) {
+        int fromSq = move.from().value();
+        int toSq = move.to().value();
+        long bishops = getBishops(player) | getQueens(player);
+        long rooks = getRooks(player) | getQueens(player);
+        long occ = occupied ^ Bitboard.squares[fromSq] ^ Bitboard.squares[toSq];
+
+        if (move.isEpCapture()) {
+            if ((pawnChecks & Bitboard.squares[toSq]) != 0) {
+                return true;
+            }
+            // the captured pawn is beside the capturing pawn's destination, on the rank it came from
+            int capturedSq = toSq + (player.isWhite() ? 8 : -8);
+            occ ^= Bitboard.squares[capturedSq];
+        } else {
+            int rookFrom, rookTo;
+            if (move.to() == G1) {
+                rookFrom = H1.value(); rookTo = F1.value();
+            } else if (move.to() == C1) {
+                rookFrom = A1.value(); rookTo = D1.value();
+            } else if (move.to() == G8) {
+                rookFrom = H8.value(); rookTo = F8.value();
+            } else {
+                rookFrom = A8.value(); rookTo = D8.value();
+            }
+            occ ^= Bitboard.squares[rookFrom] ^ Bitboard.squares[rookTo];
+            rooks ^= Bitboard.squares[rookFrom] ^ Bitboard.squares[rookTo];
+        }
+
+        return Magic.getBishopMoves(occ, kingSq, bishops) != 0 || Magic.getRookMoves(occ, kingSq, rooks) != 0;
+    }
+
+    private long getBishops(Color color) {
+        return color.isWhite() ? board.getWhiteBishops() : board.getBlackBishops();
+    }
+
+    private long getRooks(Color color) {
+        return color.isWhite() ? board.getWhiteRooks() : board.getBlackRooks();
+    }
+
+    private long getQueens(Color color) {
+        return color.isWhite() ? board.getWhiteQueens() : board.getBlackQueens();
+    }
+}
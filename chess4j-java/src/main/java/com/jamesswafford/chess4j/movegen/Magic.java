@@ -326,7 +326,15 @@ public class Magic {
     }
 
     public static long getBishopMoves(Board board, int fromSq, long targets) {
-        long blockers = (board.getBlackPieces() | board.getWhitePieces()) & bishopMasks[fromSq];
+        return getBishopMoves(board.getBlackPieces() | board.getWhitePieces(), fromSq, targets);
+    }
+
+    /**
+     * Get the bishop moves from a square given an occupancy of the board, which may differ from any actual
+     * board - e.g. the board as it would be after a move.
+     */
+    public static long getBishopMoves(long occupied, int fromSq, long targets) {
+        long blockers = occupied & bishopMasks[fromSq];
         int magicInd = (int)((blockers * magicNumbersBishops[fromSq]) >>> magicNumbersShiftBishops[fromSq]);
         return magicBishopMoves[fromSq][magicInd] & targets;
     }
@@ -336,7 +344,11 @@ public class Magic {
     }
 
     public static long getRookMoves(Board board,int fromSq,long targets) {
-        long blockers = (board.getBlackPieces() | board.getWhitePieces()) & rookMasks[fromSq];
+        return getRookMoves(board.getBlackPieces() | board.getWhitePieces(), fromSq, targets);
+    }
+
+    public static long getRookMoves(long occupied, int fromSq, long targets) {
+        long blockers = occupied & rookMasks[fromSq];
         int magicInd = (int)((blockers * magicNumbersRooks[fromSq]) >>> magicNumbersShiftRooks[fromSq]);
         return magicRookMoves[fromSq][magicInd] & targets;
     }
@@ -5,8 +5,11 @@ import com.jamesswafford.chess4j.board.squares.File;
 import com.jamesswafford.chess4j.board.squares.Square;
 import com.jamesswafford.chess4j.init.Initializer;
 import com.jamesswafford.chess4j.io.FenBuilder;
+import com.jamesswafford.chess4j.pieces.Bishop;
+import com.jamesswafford.chess4j.pieces.Knight;
 import com.jamesswafford.chess4j.pieces.Pawn;
 import com.jamesswafford.chess4j.pieces.Piece;
+import com.jamesswafford.chess4j.pieces.Rook;
 import com.jamesswafford.chess4j.utils.BoardUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -280,6 +283,86 @@ public final class MagicBitboardMoveGenerator implements MoveGenerator {
         return moves;
     }
 
+    /**
+     * Generate the non-captures that give check.  A piece that would uncover a check from one of our sliders
+     * checks wherever it goes off the line to the king, so all of its moves are generated and tested.  Any
+     * other piece can only check directly, so its moves are limited to the squares it would check from.
+     */
+    public static List<Move> genPseudoLegalQuietChecks(Board board) {
+        List<Move> moves = new ArrayList<>();
+        CheckInfo checkInfo = new CheckInfo(board);
+        long empty = ~(board.getWhitePieces() | board.getBlackPieces());
+        boolean white = board.getPlayerToMove()==Color.WHITE;
+
+        // there are few enough pawn pushes that they are simply tested
+        List<Move> pawnMoves = new ArrayList<>();
+        genPawnMoves(board, pawnMoves, false, true);
+        for (Move mv : pawnMoves) {
+            if (checkInfo.givesCheck(mv)) {
+                moves.add(mv);
+            }
+        }
+
+        genQuietChecks(board, checkInfo, white ? WHITE_KNIGHT : BLACK_KNIGHT,
+                white ? board.getWhiteKnights() : board.getBlackKnights(), empty, moves);
+        genQuietChecks(board, checkInfo, white ? WHITE_BISHOP : BLACK_BISHOP,
+                white ? board.getWhiteBishops() : board.getBlackBishops(), empty, moves);
+        genQuietChecks(board, checkInfo, white ? WHITE_ROOK : BLACK_ROOK,
+                white ? board.getWhiteRooks() : board.getBlackRooks(), empty, moves);
+        genQuietChecks(board, checkInfo, white ? WHITE_QUEEN : BLACK_QUEEN,
+                white ? board.getWhiteQueens() : board.getBlackQueens(), empty, moves);
+
+        // the king never checks directly, but may uncover a check, and castling may check with the rook
+        Square kingSq = board.getKingSquare(board.getPlayerToMove());
+        List<Move> kingMoves = new ArrayList<>();
+        if ((checkInfo.getDiscoverers() & Bitboard.squares[kingSq.value()]) != 0) {
+            addMoves(board, white ? WHITE_KING : BLACK_KING, kingSq, Bitboard.kingMoves[kingSq.value()] & empty,
+                    kingMoves);
+        }
+        genCastlingMoves(board, kingMoves);
+        for (Move mv : kingMoves) {
+            if (checkInfo.givesCheck(mv)) {
+                moves.add(mv);
+            }
+        }
+
+        return moves;
+    }
+
+    private static void genQuietChecks(Board board, CheckInfo checkInfo, Piece piece, long pieceMap, long empty,
+                                       List<Move> moves) {
+        long checkSquares = checkInfo.getCheckSquares(piece);
+
+        while (pieceMap != 0) {
+            int sqVal = Bitboard.lsb(pieceMap);
+            boolean discoverer = (checkInfo.getDiscoverers() & Bitboard.squares[sqVal]) != 0;
+            long targets = discoverer ? empty : empty & checkSquares;
+            long moveMap;
+            if (piece instanceof Knight) {
+                moveMap = Bitboard.knightMoves[sqVal] & targets;
+            } else if (piece instanceof Bishop) {
+                moveMap = Magic.getBishopMoves(board, sqVal, targets);
+            } else if (piece instanceof Rook) {
+                moveMap = Magic.getRookMoves(board, sqVal, targets);
+            } else {
+                moveMap = Magic.getQueenMoves(board, sqVal, targets);
+            }
+
+            if (discoverer) {
+                List<Move> candidates = new ArrayList<>();
+                addMoves(board, piece, Square.valueOf(sqVal), moveMap, candidates);
+                for (Move mv : candidates) {
+                    if (checkInfo.givesCheck(mv)) {
+                        moves.add(mv);
+                    }
+                }
+            } else {
+                addMoves(board, piece, Square.valueOf(sqVal), moveMap, moves);
+            }
+            pieceMap ^= Bitboard.squares[sqVal];
+        }
+    }
+
     public static void genQueenMoves(Board board,List<Move> moves,boolean caps,boolean noncaps) {
         Piece piece;
         long pieceMap;
@@ -407,4 +490,9 @@ public final class MagicBitboardMoveGenerator implements MoveGenerator {
     public List<Move> generatePseudoLegalNonCaptures(Board board) {
         return genPseudoLegalMoves(board, false, true);
     }
+
+    @Override
+    public List<Move> generatePseudoLegalQuietChecks(Board board) {
+        return genPseudoLegalQuietChecks(board);
+    }
 }
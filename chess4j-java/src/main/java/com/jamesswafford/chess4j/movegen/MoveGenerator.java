@@ -15,4 +15,10 @@ public interface MoveGenerator {
 
     List<Move> generatePseudoLegalNonCaptures(Board board);
 
+    /**
+     * Generate the non-captures that give check, directly or by discovery.  Promotions are generated with
+     * the captures, so they aren't included.
+     */
+    List<Move> generatePseudoLegalQuietChecks(Board board);
+
 }
@@ -1,14 +1,20 @@
 package com.jamesswafford.chess4j.search;
 
+import com.jamesswafford.chess4j.Globals;
 import com.jamesswafford.chess4j.board.*;
 import com.jamesswafford.chess4j.board.squares.Square;
-import com.jamesswafford.chess4j.eval.Eval;
+import com.jamesswafford.chess4j.eval.EvalParameters;
 import com.jamesswafford.chess4j.eval.Evaluator;
+import com.jamesswafford.chess4j.eval.LazyEval;
+import com.jamesswafford.chess4j.eval.nnue.NnueEval;
 import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.hash.TranspositionTable;
 import com.jamesswafford.chess4j.hash.TranspositionTableEntry;
 import com.jamesswafford.chess4j.hash.TranspositionTableEntryType;
+import com.jamesswafford.chess4j.hash.Zobrist;
 import com.jamesswafford.chess4j.init.Initializer;
 import com.jamesswafford.chess4j.io.DrawBoard;
+import com.jamesswafford.chess4j.movegen.CheckInfo;
 import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
 import com.jamesswafford.chess4j.movegen.MoveGenerator;
 import com.jamesswafford.chess4j.utils.BoardUtils;
@@ -18,13 +24,21 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
 import static com.jamesswafford.chess4j.Constants.CHECKMATE;
+import static com.jamesswafford.chess4j.Constants.MAX_PLY;
 import static com.jamesswafford.chess4j.hash.TranspositionTableEntryType.*;
 
 public class AlphaBetaSearch implements Search {
 
+    // the clock is read about once per TIME_CHECK_INTERVAL_MS in case the deadline service is late
+    public static final long TIME_CHECK_INTERVAL_MS = 1;
+    public static final long MIN_NODES_BETWEEN_TIME_CHECKS = 256;
+    public static final long MAX_NODES_BETWEEN_TIME_CHECKS = 1L << 20;
+
     private static final  Logger LOGGER = LogManager.getLogger(AlphaBetaSearch.class);
 
     static {
@@ -34,24 +48,46 @@ public class AlphaBetaSearch implements Search {
     private final List<Move> pv;
     private final List<Move> lastPv;
     private final SearchStats searchStats;
-
-    private boolean stop;
-    private boolean skipTimeChecks;
+    private final Move[] plyMoves; // the move being searched at each ply.  null for a null move.
+    private final CheckInfo[] checkInfos; // built at each ply when the first quiet move needs it
+
+    // written by other threads ('?', the deadline service, ponder hits) while the search is running
+    private volatile boolean stop;
+    private volatile boolean skipTimeChecks;
+    private volatile boolean deadlineReached;
+    // the native search reads the stop time once, when it starts, so a deadline moved while it runs (a ponder
+    // hit) has to stop it from here
+    private volatile boolean searchingNatively;
+    private ScheduledFuture<?> deadline;
+
+    private long nodesBetweenTimeChecks = MIN_NODES_BETWEEN_TIME_CHECKS;
+    private long nodeCountLastTimeCheck;
+    private long nanoTimeLastTimeCheck;
     private Evaluator evaluator;
     private MoveGenerator moveGenerator;
     private MoveScorer moveScorer;
     private KillerMovesStore killerMovesStore;
+    private HistoryStore historyStore;
+    private boolean avoidNative;
+
+    // set while the Java search is checked against the native search, which it then has to match node for
+    // node.  The techniques the native search doesn't have are bypassed.
+    private boolean matchingNative;
 
     public AlphaBetaSearch() {
         this.pv = new ArrayList<>();
         this.lastPv = new ArrayList<>();
         this.searchStats = new SearchStats();
+        this.plyMoves = new Move[MAX_PLY];
+        this.checkInfos = new CheckInfo[MAX_PLY];
 
         unstop();
-        this.evaluator = new Eval();
+        this.evaluator = Globals.getNnueNetwork().<Evaluator>map(NnueEval::new)
+                .orElseGet(() -> new LazyEval(SearchConfig.lazyEvalMargin));
         this.moveGenerator = new MagicBitboardMoveGenerator();
         this.moveScorer = new MVVLVA();
         this.killerMovesStore = KillerMoves.getInstance();
+        this.historyStore = new HistoryTable();
 
         if (Initializer.nativeCodeInitialized()) {
             initializeNativeSearch();
@@ -63,11 +99,16 @@ public class AlphaBetaSearch implements Search {
 
     public List<Move> getPv() { return Collections.unmodifiableList(pv); }
 
+    public long getNodesBetweenTimeChecks() {
+        return nodesBetweenTimeChecks;
+    }
+
     @Override
     public void initialize() {
         lastPv.clear();
         searchStats.initialize();
-        if (Initializer.nativeCodeInitialized()) {
+        historyStore.age();
+        if (usesNativeCode()) {
             initializeNativeSearch();
         }
     }
@@ -88,6 +129,22 @@ public class AlphaBetaSearch implements Search {
         this.killerMovesStore = killerMovesStore;
     }
 
+    public void setHistoryStore(HistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    /**
+     * Never use the native search, nor stop or configure it.  The native search has a single global state, so
+     * searches running alongside others have to stay away from it.
+     */
+    public void setAvoidNative(boolean avoidNative) {
+        this.avoidNative = avoidNative;
+    }
+
+    boolean usesNativeCode() {
+        return !avoidNative && Initializer.nativeCodeInitialized();
+    }
+
     @Override
     public int search(Board board, SearchParameters searchParameters) {
         return search(board, searchParameters, SearchOptions.builder().startTime(System.currentTimeMillis()).build());
@@ -106,7 +163,10 @@ public class AlphaBetaSearch implements Search {
 
     @Override
     public int search(Board board, List<Undo> undos, SearchParameters searchParameters, SearchOptions opts) {
-        if (!opts.isAvoidNative() && Initializer.nativeCodeInitialized()) {
+        // the native search doesn't know about excluded root moves, node limits, networks or loaded weights
+        if (!opts.isAvoidNative() && !hasExcludedRootMoves(opts) && !hasNodeLimits(opts)
+                && !(evaluator instanceof NnueEval) && EvalParameters.isDefault()
+                && usesNativeCode()) {
             return searchWithNativeCode(board, undos, searchParameters, opts);
         } else {
             return searchWithJavaCode(board, undos, searchParameters, opts);
@@ -121,7 +181,7 @@ public class AlphaBetaSearch implements Search {
     @Override
     public void stop() {
         stop = true;
-        if (Initializer.nativeCodeInitialized()) {
+        if (usesNativeCode()) {
             stopNative(true);
         }
     }
@@ -129,7 +189,7 @@ public class AlphaBetaSearch implements Search {
     @Override
     public void unstop() {
         stop = false;
-        if (Initializer.nativeCodeInitialized()) {
+        if (usesNativeCode()) {
             stopNative(false);
         }
     }
@@ -137,19 +197,64 @@ public class AlphaBetaSearch implements Search {
     @Override
     public void setSkipTimeChecks(boolean skipTimeChecks) {
         this.skipTimeChecks = skipTimeChecks;
-        if (Initializer.nativeCodeInitialized()) {
+        if (usesNativeCode()) {
             skipTimeChecksNative(skipTimeChecks);
         }
     }
 
+    /**
+     * Move the deadline of a running search.  Any deadline that has already passed is forgotten.
+     *
+     * @param stopTime - the new stop time, or 0 for none
+     */
+    @Override
+    public void setStopTime(long stopTime) {
+        scheduleDeadline(stopTime);
+    }
+
+    private synchronized void scheduleDeadline(long stopTime) {
+        cancelDeadline();
+        deadlineReached = false;
+        if (stopTime > 0) {
+            deadline = SearchDeadlineService.getInstance().schedule(stopTime, this::onDeadline);
+        }
+    }
+
+    private void onDeadline() {
+        deadlineReached = true;
+        if (searchingNatively) {
+            stop();
+        }
+    }
+
+    private synchronized void cancelDeadline() {
+        if (deadline != null) {
+            deadline.cancel(false);
+            deadline = null;
+        }
+    }
+
     private int searchWithJavaCode(Board board, List<Undo> undos, SearchParameters searchParameters,
                                    SearchOptions opts) {
         killerMovesStore.clear();
         boolean inCheck = BoardUtils.isPlayerInCheck(board);
-        int score = search(board, undos, pv, true, 0, searchParameters.getDepth(),
-                searchParameters.getAlpha(), searchParameters.getBeta(), inCheck, false, opts);
-        lastPv.clear();
-        lastPv.addAll(pv);
+
+        nodeCountLastTimeCheck = searchStats.nodes + searchStats.qnodes;
+        nanoTimeLastTimeCheck = System.nanoTime();
+        scheduleDeadline(opts.getStopTime());
+
+        int score;
+        try {
+            score = search(board, undos, pv, true, 0, searchParameters.getDepth(),
+                    searchParameters.getAlpha(), searchParameters.getBeta(), inCheck, false, opts);
+        } finally {
+            cancelDeadline();
+        }
+        // the PV of a secondary multi-PV line shouldn't displace the main line's
+        if (!hasExcludedRootMoves(opts)) {
+            lastPv.clear();
+            lastPv.addAll(pv);
+        }
         return score;
     }
 
@@ -161,8 +266,15 @@ public class AlphaBetaSearch implements Search {
 
         try {
             assert(clearTableWrapper());
-            int nativeScore = searchNative(board, nativePV, searchParameters.getDepth(), searchParameters.getAlpha(),
-                    searchParameters.getBeta(), nativeStats, opts.getStartTime(), opts.getStopTime());
+            int nativeScore;
+            searchingNatively = true;
+            try {
+                nativeScore = searchNative(board, nativePV, searchParameters.getDepth(), searchParameters.getAlpha(),
+                        searchParameters.getBeta(), nativeStats, opts.getStartTime(), opts.getStopTime());
+            } finally {
+                searchingNatively = false;
+                cancelDeadline();
+            }
 
             // if the search completed then verify equality with the Java implementation.
             assert (stop || searchesAreEqual(board, undos, searchParameters, opts, nativeScore, nativePV, nativeStats));
@@ -199,7 +311,13 @@ public class AlphaBetaSearch implements Search {
             long nativeCollisions = TTHolder.getInstance().getHashTable().getNumCollisions();
 
             assert(clearTableWrapper());
-            int javaScore = searchWithJavaCode(board, undos, searchParameters, opts);
+            int javaScore;
+            matchingNative = true;
+            try {
+                javaScore = searchWithJavaCode(board, undos, searchParameters, opts);
+            } finally {
+                matchingNative = false;
+            }
 
             // if the search was interrupted we can't compare
             if (stop) return true;
@@ -247,15 +365,15 @@ public class AlphaBetaSearch implements Search {
         assert(alpha < beta);
         assert(inCheck == BoardUtils.isPlayerInCheck(board));
 
-        // time check
-        if (!skipTimeChecks && stopSearchOnTime(opts)) {
+        // time and node check
+        if (!skipTimeChecks && stopSearchOnLimits(opts)) {
             stop = true;
             return 0;
         }
 
-        // base case
+        // base case.  the native search's quiescence search stands pat even when in check.
         if (depth == 0) {
-            return quiescenceSearch(board, undos, alpha, beta, opts);
+            return quiescenceSearch(board, undos, ply, 0, alpha, beta, inCheck && !matchingNative, opts);
         }
 
         // this is an interior node
@@ -264,6 +382,8 @@ public class AlphaBetaSearch implements Search {
         // probe the hash table
         TranspositionTableEntry tte = TTHolder.getInstance().getHashTable().probe(board);
 
+        boolean futilityOk = false;
+
         // try for early exit
         if (ply > 0) {
             // Draw check
@@ -292,6 +412,57 @@ public class AlphaBetaSearch implements Search {
                 }
             }
 
+            // enhanced transposition cutoffs - the table may already show that one of the moves fails high,
+            // even though this position isn't in it.  (the native search keeps its own table.)
+            if (SearchConfig.enhancedTranspositionCutoffs && depth >= SearchConfig.etcMinDepth
+                    && !Initializer.nativeCodeInitialized())
+            {
+                Move cutoffMove = findTranspositionCutoff(board, depth, beta);
+                if (cutoffMove != null) {
+                    searchStats.failHighs++;
+                    searchStats.etcCutoffs++;
+                    TTHolder.getInstance().getHashTable().store(board, LOWER_BOUND, beta, depth, cutoffMove);
+                    return beta;
+                }
+            }
+
+            // the forward pruning techniques below share a single static evaluation.  They are unsafe when
+            // in check, and are kept out of the PV.  The native search doesn't prune.
+            boolean pruningCandidate = !first && !inCheck && !matchingNative;
+            int staticEval = 0;
+            if (pruningCandidate &&
+                    ((SearchConfig.futilityPruning && depth <= Prune.MAX_FUTILITY_DEPTH)
+                    || (SearchConfig.reverseFutilityPruning && depth <= Prune.MAX_REVERSE_FUTILITY_DEPTH)
+                    || (SearchConfig.razoring && depth <= Prune.MAX_RAZORING_DEPTH)))
+            {
+                staticEval = evaluator.evaluateBoard(board);
+                futilityOk = SearchConfig.futilityPruning && Prune.isFutile(staticEval, alpha, depth);
+            }
+
+            // reverse futility pruning - if we're so far ahead that we can give up a healthy margin per ply
+            // and still beat beta, don't bother searching.
+            if (pruningCandidate && SearchConfig.reverseFutilityPruning
+                    && Prune.reverseFutility(staticEval, beta, depth))
+            {
+                searchStats.reverseFutilityPrunes++;
+                return beta;
+            }
+
+            // razoring - if we're well below alpha near the leaves, verify with a quiescence search that the
+            // tactics don't rescue us, and if they don't, give up on this node.
+            if (pruningCandidate && SearchConfig.razoring && tte == null
+                    && Prune.razor(staticEval, alpha, depth))
+            {
+                int qScore = quiescenceSearch(board, undos, ply, 0, alpha, alpha+1, false, opts);
+                if (stop) {
+                    return 0;
+                }
+                if (qScore <= alpha) {
+                    searchStats.razorPrunes++;
+                    return alpha;
+                }
+            }
+
             // try a "null move".  The idea here is that if this position is so good that we can give the opponent
             // an extra turn and it _still_ fails high, it will almost surely fail high in a normal search.  This
             // is based on the "Null Move Observation," which says that "doing something is almost always better than
@@ -303,13 +474,15 @@ public class AlphaBetaSearch implements Search {
 
                 Square nullEp = board.clearEPSquare();
                 board.swapPlayer();
+                plyMoves[ply] = null;
 
-                // set the reduced depth.  For now we are using a static R=3, except near the leaves.  It's important
-                // to ensure there is at least one ply of full width depth remaining, since we aren't doing anything
-                // with checks in the qsearch.
+                // set the reduced depth.  For now we are using a static R=3, except near the leaves.  Unless the
+                // quiescence search looks at checks, it's important to ensure there is at least one ply of full
+                // width depth remaining, or a threat of mate would go unnoticed.
                 int nullDepth = depth - 4; // R = 3
-                if (nullDepth < 1) {
-                    nullDepth = 1;
+                int minNullDepth = SearchConfig.qsearchChecks && !matchingNative ? 0 : 1;
+                if (nullDepth < minNullDepth) {
+                    nullDepth = minNullDepth;
                 }
 
                 int nullScore = -search(board, undos, new ArrayList<>(), false, ply+1, nullDepth, -beta,
@@ -332,30 +505,97 @@ public class AlphaBetaSearch implements Search {
         List<Move> pv = new ArrayList<>(50);
 
         int numMovesSearched = 0;
-        Move pvMove = first && lastPv.size() > ply ? lastPv.get(ply) : null;
+        // the last PV belongs to the main line, so a secondary multi-PV line can't follow it
+        Move pvMove = first && !hasExcludedRootMoves(opts) && lastPv.size() > ply ? lastPv.get(ply) : null;
         Move hashMove = tte == null ? null : tte.getMove();
-        MoveOrderer moveOrderer = new MoveOrderer(board, moveGenerator, moveScorer,
+
+        // internal iterative deepening - a node with an open window and no move to try first is searched to a
+        // reduced depth just to find one.  (the root has its own ordering, and the native search doesn't do it.)
+        if (SearchConfig.internalIterativeDeepening && beta - alpha > 1 && ply > 0 && pvMove == null && hashMove == null
+                && depth >= SearchConfig.iidMinDepth && !matchingNative)
+        {
+            hashMove = internalIterativeDeepening(board, undos, first, ply, depth, alpha, beta, inCheck, opts);
+            if (stop) {
+                return 0;
+            }
+        }
+
+        // quiet moves are ordered by their history scores, but the move that last refuted our opponent's
+        // previous move goes first, followed by the checks
+        checkInfos[ply] = null;
+        Move previousMove = getPreviousMove(undos, ply);
+        Move counterMove = previousMove == null ? null : historyStore.getCounterMove(previousMove);
+        MoveScorer historyScorer = SearchConfig.historyOrdering && !matchingNative
+                ? mv -> mv.equals(counterMove) ? HistoryTable.MAX_HISTORY + 1
+                    : getCheckInfo(board, ply).givesCheck(mv) ? HistoryTable.MAX_HISTORY : historyStore.getHistoryScore(mv)
+                : null;
+
+        MoveOrderer moveOrderer = new MoveOrderer(board, moveGenerator, moveScorer, historyScorer,
                 pvMove, hashMove, killerMovesStore.getKiller1(ply), killerMovesStore.getKiller2(ply),
                 true);
+        moveOrderer.setDeferLosingCaptures(SearchConfig.deferLosingCaptures && !matchingNative);
+
+        // the root score with some moves excluded is not the score of the position, so it mustn't be stored
+        boolean excludingRootMoves = ply == 0 && hasExcludedRootMoves(opts);
+
+        // once an iteration has completed, the root moves are searched in the order the root move list
+        // gives them.  the subtrees of a multi-PV line's search aren't comparable, so they aren't recorded.
+        // the native search orders the root like any other node.
+        RootMoves rootMoves = ply == 0 && !matchingNative ? opts.getRootMoves() : null;
+        Iterator<Move> rootMoveIterator = rootMoves != null && rootMoves.isOrdered()
+                ? rootMoves.getMoves().iterator() : null;
+        boolean recordRootMoves = rootMoves != null && !excludingRootMoves;
 
         Move bestMove = null;
         Move move;
-        while ((move = moveOrderer.selectNextMove()) != null) {
+        while ((move = selectNextMove(moveOrderer, rootMoveIterator)) != null) {
             assert(BoardUtils.isPseudoLegalMove(board, move));
 
+            if (excludingRootMoves && opts.getExcludedRootMoves().contains(move)) {
+                continue;
+            }
+
+            // determine if a quiet move gives check without making it, so that it can be pruned unmade.  The
+            // hash move and the captures come first and often cut the node off, so rather than build the
+            // check info for them they're tested once they've been made.
+            boolean quiet = move.captured()==null && move.promotion()==null;
+            boolean givesCheck = quiet && getCheckInfo(board, ply).givesCheck(move);
+
+            // futility pruning - quiet moves can't be expected to gain enough to get back to alpha.  Always
+            // search at least one move so that mates and stalemates are still detected.  A pruned move is
+            // never made, so it isn't checked for legality either.
+            if (futilityOk && numMovesSearched > 0 && quiet && !givesCheck) {
+                searchStats.futilityPrunes++;
+                continue;
+            }
+
             undos.add(board.applyMove(move));
             // check if move was legal
             if (BoardUtils.isOpponentInCheck(board)) {
                 board.undoMove(undos.remove(undos.size()-1));
                 continue;
             }
+            if (!quiet) {
+                givesCheck = BoardUtils.isPlayerInCheck(board);
+            }
+            assert(givesCheck == BoardUtils.isPlayerInCheck(board));
 
             boolean pvNode = first && numMovesSearched == 0;
 
-            // determine if the move we're about to explore gives check
-            boolean givesCheck = BoardUtils.isPlayerInCheck(board);
+            int extension = SearchConfig.extensions && !matchingNative
+                    ? Extend.extendDepth(board, move, givesCheck) : 0;
+            if (extension > 0) {
+                if (givesCheck) {
+                    searchStats.checkExtensions++;
+                } else {
+                    searchStats.promotionExtensions++;
+                }
+            }
 
-            int val = -search(board, undos, pv, pvNode, ply+1, depth-1,  -beta, -alpha, givesCheck,
+            plyMoves[ply] = move;
+
+            long nodesBefore = searchStats.nodes + searchStats.qnodes;
+            int val = -search(board, undos, pv, pvNode, ply+1, depth-1+extension,  -beta, -alpha, givesCheck,
                     true, opts);
             ++numMovesSearched;
             board.undoMove(undos.remove(undos.size()-1));
@@ -365,11 +605,22 @@ public class AlphaBetaSearch implements Search {
                 return 0;
             }
 
+            if (recordRootMoves) {
+                rootMoves.record(move, searchStats.nodes + searchStats.qnodes - nodesBefore, val,
+                        val > alpha && val < beta, val > alpha && numMovesSearched > 1);
+            }
+
             if (val >= beta) {
                 searchStats.failHighs++;
-                TTHolder.getInstance().getHashTable().store(board, LOWER_BOUND, beta, depth, move);
+                if (!excludingRootMoves) {
+                    TTHolder.getInstance().getHashTable().store(board, LOWER_BOUND, beta, depth, move);
+                }
                 if (move.captured()==null && move.promotion()==null) {
                     killerMovesStore.addKiller(ply, move);
+                    historyStore.addHistory(move, depth);
+                    if (previousMove != null) {
+                        historyStore.addCounterMove(previousMove, move);
+                    }
                 }
                 return beta;
             }
@@ -398,39 +649,213 @@ public class AlphaBetaSearch implements Search {
             tableEntryType = EXACT_SCORE;
         }
 
-        TTHolder.getInstance().getHashTable().store(board, tableEntryType, alpha, depth, bestMove);
+        if (!excludingRootMoves) {
+            TTHolder.getInstance().getHashTable().store(board, tableEntryType, alpha, depth, bestMove);
+        }
 
         return alpha;
     }
 
+    /**
+     * Look for a move whose resulting position is in the transposition table with a score that proves
+     * the move fails high.  The moves aren't made, so the legality of a move is taken from the table:
+     * only positions reached by legal moves are stored.
+     *
+     * @return the move that fails high, or null if there is none
+     */
+    private Move findTranspositionCutoff(Board board, int depth, int beta) {
+        TranspositionTable hashTable = TTHolder.getInstance().getHashTable();
+        for (Move move : moveGenerator.generatePseudoLegalMoves(board)) {
+            searchStats.etcProbes++;
+            TranspositionTableEntry tte = hashTable.probe(Zobrist.getKeyAfterMove(board, move));
+            // the entry is from the opponent's point of view, so its upper bound is our lower bound
+            if (tte != null && tte.getDepth() >= depth - 1
+                    && (tte.getType() == UPPER_BOUND || tte.getType() == EXACT_SCORE)
+                    && -tte.getScore() >= beta)
+            {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Search the node to a reduced depth to find a move to try first.
+     *
+     * @return the best move found, or null if there is none
+     */
+    private Move internalIterativeDeepening(Board board, List<Undo> undos, boolean first, int ply, int depth,
+                                            int alpha, int beta, boolean inCheck, SearchOptions opts) {
+        searchStats.iidSearches++;
+
+        List<Move> iidPv = new ArrayList<>();
+        int iidDepth = Math.max(1, depth - SearchConfig.iidReduction);
+        search(board, undos, iidPv, first, ply, iidDepth, alpha, beta, inCheck, false, opts);
+        if (stop) {
+            return null;
+        }
+
+        // if the search failed high there's no PV, but the move that caused the cutoff was stored
+        Move move = null;
+        if (!iidPv.isEmpty()) {
+            move = iidPv.get(0);
+        } else {
+            TranspositionTableEntry tte = TTHolder.getInstance().getHashTable().probe(board);
+            if (tte != null) {
+                move = tte.getMove();
+            }
+        }
+
+        if (move != null) {
+            searchStats.iidMoves++;
+        }
+        return move;
+    }
+
+    private static Move selectNextMove(MoveOrderer moveOrderer, Iterator<Move> rootMoveIterator) {
+        if (rootMoveIterator != null) {
+            return rootMoveIterator.hasNext() ? rootMoveIterator.next() : null;
+        }
+        return moveOrderer.selectNextMove();
+    }
+
+    private static boolean hasExcludedRootMoves(SearchOptions opts) {
+        return opts.getExcludedRootMoves() != null && !opts.getExcludedRootMoves().isEmpty();
+    }
+
+    private static boolean hasNodeLimits(SearchOptions opts) {
+        return opts.getMaxNodes() > 0 || opts.getMaxNps() > 0;
+    }
+
+    /**
+     * The stand pat score only matters relative to the window, so an evaluator that can work lazily is told
+     * the window and may return a bound instead of an exact score when the position is well outside it.
+     * The native search evaluates every position in full, and doesn't count them.
+     */
+    private int evaluateStandPat(Board board, int alpha, int beta) {
+        if (matchingNative) {
+            return evaluator.evaluateBoard(board);
+        }
+        searchStats.qsearchEvals++;
+        if (SearchConfig.lazyEval && evaluator instanceof LazyEval) {
+            LazyEval lazyEval = (LazyEval) evaluator;
+            long lazyExits = lazyEval.getNumLazyExits();
+            int score = lazyEval.evaluateBoard(board, alpha, beta);
+            searchStats.lazyEvals += lazyEval.getNumLazyExits() - lazyExits;
+            return score;
+        }
+        return evaluator.evaluateBoard(board);
+    }
+
     public int quiescenceSearch(Board board, List<Undo> undos, int alpha, int beta, SearchOptions opts) {
+        return quiescenceSearch(board, undos, 0, 0, alpha, beta, BoardUtils.isPlayerInCheck(board), opts);
+    }
+
+    /**
+     * The quiescence search normally tries only captures and promotions.  Optionally the first ply of it also
+     * tries the quiet moves that give check, and the replies to those are all the evasions rather than a stand
+     * pat, so a mate or a fork by check just past the horizon is seen.
+     *
+     * @param ply - the distance from the root, for scoring mates
+     * @param qply - the distance from the start of the quiescence search
+     * @param inCheck - true if the player to move is in check and must get out of it.  Only known, and only
+     *                acted on, at the start of the quiescence search and after a quiet check.
+     */
+    private int quiescenceSearch(Board board, List<Undo> undos, int ply, int qply, int alpha, int beta,
+                                 boolean inCheck, SearchOptions opts) {
 
         assert(alpha < beta);
 
-        // time check
-        if (!skipTimeChecks && stopSearchOnTime(opts)) {
+        // time and node check
+        if (!skipTimeChecks && stopSearchOnLimits(opts)) {
             stop = true;
             return 0;
         }
 
         searchStats.qnodes++;
 
-        int standPat = evaluator.evaluateBoard(board);
-        if (standPat > alpha) {
-            if (standPat >= beta) {
-                return beta;
+        // probe the hash table.  any entry is deep enough to be used here.  (the native search's quiescence
+        // search doesn't use the table.)
+        boolean useHashTable = SearchConfig.qsearchHashTable && !matchingNative;
+        TranspositionTableEntry tte = null;
+        if (useHashTable) {
+            tte = TTHolder.getInstance().getHashTable().probe(board);
+            searchStats.qsearchHashProbes++;
+        }
+        if (tte != null) {
+            searchStats.qsearchHashHits++;
+            if (tte.getType() == LOWER_BOUND) {
+                if (tte.getScore() >= beta) {
+                    searchStats.qsearchHashFailHighs++;
+                    return beta;
+                }
+            } else if (tte.getType() == UPPER_BOUND) {
+                if (tte.getScore() <= alpha) {
+                    searchStats.qsearchHashFailLows++;
+                    return alpha;
+                }
+            } else if (tte.getType() == EXACT_SCORE) {
+                searchStats.qsearchHashExactScores++;
+                return tte.getScore();
+            }
+        }
+
+        int origAlpha = alpha;
+
+        // there's no standing pat when in check
+        if (!inCheck) {
+            int standPat = evaluateStandPat(board, alpha, beta);
+
+            // a bound from the hash table is better information than the static evaluation
+            if (tte != null) {
+                if (tte.getType() == LOWER_BOUND && tte.getScore() > standPat) {
+                    standPat = tte.getScore();
+                } else if (tte.getType() == UPPER_BOUND && tte.getScore() < standPat) {
+                    standPat = tte.getScore();
+                }
+            }
+
+            if (standPat > alpha) {
+                if (standPat >= beta) {
+                    return beta;
+                }
+                // our static evaluation will serve as the lower bound
+                alpha = standPat;
             }
-            // our static evaluation will serve as the lower bound
-            alpha = standPat;
         }
 
-        MoveOrderer moveOrderer = new MoveOrderer(board, moveGenerator, moveScorer,
-                null, null, null, null, false);
+        // the hash move might be a quiet move from the full width search
+        Move hashMove = tte == null ? null : tte.getMove();
+        if (!inCheck && hashMove != null && hashMove.captured() == null && hashMove.promotion() == null) {
+            hashMove = null;
+        }
+
+        // when in check every move is tried.  the native search doesn't look at quiet checks.
+        boolean quietChecks = SearchConfig.qsearchChecks && qply == 0 && !inCheck && !matchingNative;
+        MoveOrderer moveOrderer = new MoveOrderer(board, moveGenerator, moveScorer, null,
+                null, hashMove, null, null, inCheck, quietChecks);
+        moveOrderer.setDeferLosingCaptures(SearchConfig.deferLosingCaptures && !matchingNative);
+        Move bestMove = null;
         Move move;
+        int numMovesSearched = 0;
 
         while ((move = moveOrderer.selectNextMove()) != null) {
             assert(BoardUtils.isPseudoLegalMove(board, move));
-            assert(move.captured() != null || move.promotion() != null);
+            assert(inCheck || quietChecks || move.captured() != null || move.promotion() != null);
+
+            MoveOrderStage stage = moveOrderer.getNextMoveOrderStage();
+
+            // the move orderer saves captures that lose material for last.  Such captures are very unlikely
+            // to raise alpha, so don't bother searching them.  The same goes for checks that hang the piece.
+            if (!inCheck && (stage == MoveOrderStage.LOSING_CAPTURES
+                    || (stage == MoveOrderStage.QUIET_CHECKS && !SEE.seeAtLeast(board, move, 0))))
+            {
+                searchStats.seePrunes++;
+                continue;
+            }
+
+            // a capture may also give check, but only the quiet checks are followed by evasions
+            boolean givesCheck = stage == MoveOrderStage.QUIET_CHECKS;
 
             undos.add(board.applyMove(move));
             // check if move was legal
@@ -438,10 +863,12 @@ public class AlphaBetaSearch implements Search {
                 board.undoMove(undos.remove(undos.size()-1));
                 continue;
             }
+            if (givesCheck) {
+                searchStats.qsearchChecks++;
+            }
 
-            // TODO: possibly prune
-
-            int val = -quiescenceSearch(board, undos, -beta, -alpha, opts);
+            int val = -quiescenceSearch(board, undos, ply+1, qply+1, -beta, -alpha, givesCheck, opts);
+            ++numMovesSearched;
             board.undoMove(undos.remove(undos.size()-1));
 
             // if the search was stopped just unwind back up
@@ -451,33 +878,124 @@ public class AlphaBetaSearch implements Search {
 
             if (val >= beta) {
                 searchStats.failHighs++;
+                if (useHashTable) {
+                    TTHolder.getInstance().getHashTable().store(board, LOWER_BOUND, beta, 0, move);
+                }
                 return beta;
             }
             if (val > alpha) {
                 alpha = val;
+                bestMove = move;
             }
         }
 
+        // with no way out of check, it's mate
+        if (inCheck && numMovesSearched == 0) {
+            alpha = Math.max(alpha, -CHECKMATE + ply);
+            if (alpha >= beta) {
+                return beta;
+            }
+        }
+
+        // if neither the stand pat score nor any move raised alpha, we only know the score is no better than alpha.
+        if (useHashTable) {
+            TTHolder.getInstance().getHashTable().store(board, alpha > origAlpha ? EXACT_SCORE : UPPER_BOUND,
+                    alpha, 0, bestMove);
+        }
+
         return alpha;
     }
 
-    private boolean stopSearchOnTime(SearchOptions opts) {
+    private boolean stopSearchOnLimits(SearchOptions opts) {
+        long visitedNodes = searchStats.nodes + searchStats.qnodes;
+
+        // the node count is checked at every node, so a node limited search is repeatable
+        if (opts.getMaxNodes() > 0 && visitedNodes >= opts.getMaxNodes()) {
+            return true;
+        }
+
+        return stopSearchOnTime(opts, visitedNodes);
+    }
+
+    private boolean stopSearchOnTime(SearchOptions opts, long visitedNodes) {
 
-        // if we don't have a stop time, nevermind!
-        if (opts.getStopTime() == 0) {
+        // if we don't have a stop time or a node rate to hold to, nevermind!
+        if (opts.getStopTime() == 0 && opts.getMaxNps() == 0) {
             return false;
         }
 
-        // avoid doing expensive time checks too often
-        long visitedNodes = searchStats.nodes + searchStats.qnodes;
-        if (visitedNodes - opts.getNodeCountLastTimeCheck() < opts.getNodesBetweenTimeChecks()) {
+        // normally the deadline service tells us when time is up
+        if (deadlineReached) {
+            return true;
+        }
+
+        // but fall back to reading the clock every so often
+        if (visitedNodes - nodeCountLastTimeCheck < nodesBetweenTimeChecks) {
             return false;
         }
 
-        // ok, time check
-        opts.setNodeCountLastTimeCheck(visitedNodes); // TODO: don't use options for state?
+        adjustNodesBetweenTimeChecks(visitedNodes, System.nanoTime());
+
+        if (opts.getMaxNps() > 0) {
+            throttle(opts, visitedNodes);
+        }
+
+        return opts.getStopTime() > 0 && System.currentTimeMillis() >= opts.getStopTime();
+    }
+
+    /**
+     * If the search is running ahead of the maximum node rate, sleep until it is back on pace.  The
+     * node rate is measured from the start of the search.
+     */
+    private void throttle(SearchOptions opts, long visitedNodes) {
+        long now = System.currentTimeMillis();
+        long sleepMs = opts.getStartTime() + visitedNodes * 1000 / opts.getMaxNps() - now;
+        if (opts.getStopTime() > 0) {
+            sleepMs = Math.min(sleepMs, opts.getStopTime() - now);
+        }
+        if (sleepMs > 0) {
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Size the interval between clock reads so that, at the node rate measured since the last read,
+     * the clock is read about once per TIME_CHECK_INTERVAL_MS.
+     */
+    private void adjustNodesBetweenTimeChecks(long visitedNodes, long nanoTime) {
+        long nodes = visitedNodes - nodeCountLastTimeCheck;
+        long elapsedNanos = nanoTime - nanoTimeLastTimeCheck;
+
+        long target;
+        if (elapsedNanos > 0) {
+            target = nodes * TIME_CHECK_INTERVAL_MS * 1000000 / elapsedNanos;
+        } else {
+            target = nodesBetweenTimeChecks * 2;
+        }
+        // smooth it out so a single slow or fast stretch doesn't swing the interval too far
+        nodesBetweenTimeChecks = Math.max(MIN_NODES_BETWEEN_TIME_CHECKS,
+                Math.min(MAX_NODES_BETWEEN_TIME_CHECKS, (nodesBetweenTimeChecks + target) / 2));
+
+        nodeCountLastTimeCheck = visitedNodes;
+        nanoTimeLastTimeCheck = nanoTime;
+    }
+
+    private CheckInfo getCheckInfo(Board board, int ply) {
+        if (checkInfos[ply] == null) {
+            checkInfos[ply] = new CheckInfo(board);
+        }
+        return checkInfos[ply];
+    }
 
-        return System.currentTimeMillis() >= opts.getStopTime();
+    private Move getPreviousMove(List<Undo> undos, int ply) {
+        if (ply > 0) {
+            return plyMoves[ply-1];
+        }
+        return undos.isEmpty() ? null : undos.get(undos.size()-1).getMove();
     }
 
     private int adjustFinalScoreForMates(Board board, int score, int numMovesSearched, int ply) {
@@ -503,10 +1021,10 @@ public class AlphaBetaSearch implements Search {
 
     private native void initializeNativeSearch();
 
-    private native int searchNative(Board board, List<Long> parentPV, int depth, int alpha, int beta,
-                                    SearchStats searchStats, long startTime, long stopTime);
+    native int searchNative(Board board, List<Long> parentPV, int depth, int alpha, int beta,
+                            SearchStats searchStats, long startTime, long stopTime);
 
-    private native void stopNative(boolean stop);
+    native void stopNative(boolean stop);
 
     private native void skipTimeChecksNative(boolean skipTimeChecks);
 
@@ -0,0 +1,19 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+
+public interface HistoryStore {
+
+    void addHistory(Move move, int depth);
+
+    int getHistoryScore(Move move);
+
+    void addCounterMove(Move previousMove, Move counterMove);
+
+    Move getCounterMove(Move previousMove);
+
+    void age();
+
+    void clear();
+
+}
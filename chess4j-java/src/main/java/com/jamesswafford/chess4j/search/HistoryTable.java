@@ -0,0 +1,86 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+
+/**
+ * Butterfly history table and countermove table for ordering quiet moves.
+ *
+ * The history table is indexed by side x from x to, and is credited each time a quiet move produces a
+ * beta cutoff.  The countermove table remembers, for each previous move (again side x from x to), the
+ * quiet move that refuted it most recently.
+ *
+ * Instances are not synchronized.  Each search owns its own table, so it is effectively thread-local.
+ */
+public class HistoryTable implements HistoryStore {
+
+    // when any history value reaches this limit all values are halved, keeping the relative order
+    public static final int MAX_HISTORY = 1 << 20;
+
+    private final int[][][] history;
+    private final Move[][][] counterMoves;
+
+    public HistoryTable() {
+        history = new int[2][64][64];
+        counterMoves = new Move[2][64][64];
+    }
+
+    @Override
+    public void addHistory(Move move, int depth) {
+        assert(move.captured()==null && move.promotion()==null);
+
+        int[] fromHistory = history[move.piece().getColor().getColor()][move.from().value()];
+        int toSq = move.to().value();
+
+        fromHistory[toSq] += depth * depth;
+        if (fromHistory[toSq] >= MAX_HISTORY) {
+            age();
+        }
+    }
+
+    @Override
+    public int getHistoryScore(Move move) {
+        return history[move.piece().getColor().getColor()][move.from().value()][move.to().value()];
+    }
+
+    @Override
+    public void addCounterMove(Move previousMove, Move counterMove) {
+        assert(counterMove.captured()==null && counterMove.promotion()==null);
+
+        counterMoves[previousMove.piece().getColor().getColor()][previousMove.from().value()]
+                [previousMove.to().value()] = counterMove;
+    }
+
+    @Override
+    public Move getCounterMove(Move previousMove) {
+        return counterMoves[previousMove.piece().getColor().getColor()][previousMove.from().value()]
+                [previousMove.to().value()];
+    }
+
+    /**
+     * Age the table by halving every history value.  Older information still counts, just not as much as
+     * what we learn in the next search.
+     */
+    @Override
+    public void age() {
+        for (int c=0;c<2;c++) {
+            for (int from=0;from<64;from++) {
+                for (int to=0;to<64;to++) {
+                    history[c][from][to] >>= 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int c=0;c<2;c++) {
+            for (int from=0;from<64;from++) {
+                for (int to=0;to<64;to++) {
+                    history[c][from][to] = 0;
+                    counterMoves[c][from][to] = null;
+                }
+            }
+        }
+    }
+
+}
@@ -10,7 +10,10 @@ public class KillerMoves implements KillerMovesStore {
     private final Move[] killer1;
     private final Move[] killer2;
 
-    private KillerMoves() {
+    /**
+     * Searches that run in parallel need their own store; everything else should use getInstance().
+     */
+    public KillerMoves() {
         killer1 = new Move[NUM_ENTRIES];
         killer2 = new Move[NUM_ENTRIES];
     }
@@ -0,0 +1,78 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a mate search.
+ */
+public class MateSolution {
+
+    private final int mateIn;
+    private final List<Move> pv;
+    private final int proofSize;
+    private final long nodes;
+    private final long elapsedMs;
+    private final boolean stopped;
+
+    public MateSolution(int mateIn, List<Move> pv, int proofSize, long nodes, long elapsedMs, boolean stopped) {
+        this.mateIn = mateIn;
+        this.pv = Collections.unmodifiableList(pv);
+        this.proofSize = proofSize;
+        this.nodes = nodes;
+        this.elapsedMs = elapsedMs;
+        this.stopped = stopped;
+    }
+
+    public boolean isMate() {
+        return mateIn > 0;
+    }
+
+    /**
+     * @return the number of moves to mate, or 0 if no mate was found
+     */
+    public int getMateIn() {
+        return mateIn;
+    }
+
+    /**
+     * @return the mating line, in which the defender plays the move with the largest proof
+     */
+    public List<Move> getPv() {
+        return pv;
+    }
+
+    /**
+     * @return the number of positions in the proof tree, counting transpositions once each time they are reached
+     */
+    public int getProofSize() {
+        return proofSize;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getNps() {
+        return nodes * 1000 / Math.max(1, elapsedMs);
+    }
+
+    /**
+     * @return true if the node limit was reached before the problem was solved
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public String toString() {
+        return "MateSolution [mateIn=" + mateIn + ", pv=" + pv + ", proofSize=" + proofSize + ", nodes=" + nodes
+                + ", elapsedMs=" + elapsedMs + ", stopped=" + stopped + "]";
+    }
+}
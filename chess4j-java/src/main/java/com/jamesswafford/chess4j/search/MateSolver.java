@@ -0,0 +1,296 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.hash.Zobrist;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.utils.BoardUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.jamesswafford.chess4j.search.ProofNumberTable.INFINITE;
+
+/**
+ * Finds forced mates with a depth-first proof number search (df-pn).
+ *
+ * Proof number search doesn't score positions at all.  Each position has a proof number, the number of
+ * leaves that would have to be proven to show the attacker mates, and a disproof number, the number that
+ * would have to be disproven to show he doesn't.  The search always expands the most proving position,
+ * so forcing lines are explored first and quiet lines hardly at all.  The depth-first variant keeps only
+ * the current line on the stack and the numbers for everything else in a {@link ProofNumberTable}, and
+ * only backs up from a position once its numbers pass thresholds set by its parent.
+ *
+ * The attacker's moves are limited, so a position is identified by its key together with the plies left.
+ * On the attacker's last move only checks are tried.  Draws by repetition or the fifty move rule are not
+ * considered.  Mates of increasing length are tried in turn, so the first one found is the shortest.
+ */
+public class MateSolver {
+
+    public static final int MAX_MATE_MOVES = 60;
+
+    private final ProofNumberTable table;
+    private Board board;
+    private long nodes;
+    private long maxNodes;
+    private boolean stopped;
+
+    // the numbers of the position mid() last searched
+    private int resultPhi, resultDelta, resultProofSize;
+
+    public MateSolver() {
+        this(new ProofNumberTable());
+    }
+
+    public MateSolver(ProofNumberTable table) {
+        this.table = table;
+    }
+
+    public ProofNumberTable getTable() {
+        return table;
+    }
+
+    /**
+     * @param maxNodes - give up once this many nodes have been expanded, or 0 for no limit
+     */
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Search for a mate.
+     *
+     * @param board - the position, with the attacker to move
+     * @param maxMoves - the most moves the attacker may take to mate
+     *
+     * @return the shortest mate, if there is one within maxMoves
+     */
+    public MateSolution solve(Board board, int maxMoves) {
+        if (maxMoves < 1 || maxMoves > MAX_MATE_MOVES) {
+            throw new IllegalArgumentException("mate length must be between 1 and " + MAX_MATE_MOVES);
+        }
+
+        this.board = board.deepCopy();
+        nodes = 0;
+        stopped = false;
+        long start = System.currentTimeMillis();
+
+        for (int mateIn=1; mateIn<=maxMoves && !stopped; mateIn++) {
+            int numPlies = mateIn * 2 - 1;
+            mid(numPlies, INFINITE, INFINITE);
+
+            if (!stopped && resultPhi == 0) {
+                int proofSize = resultProofSize;
+                List<Move> pv = getPv(numPlies);
+                return new MateSolution(mateIn, pv, proofSize, nodes, System.currentTimeMillis() - start, false);
+            }
+        }
+
+        return new MateSolution(0, Collections.emptyList(), 0, nodes, System.currentTimeMillis() - start,
+                stopped);
+    }
+
+    private static boolean isAttackerToMove(int numPlies) {
+        return (numPlies & 1) == 1;
+    }
+
+    private List<Move> getMoves(int numPlies) {
+        List<Move> moves = MagicBitboardMoveGenerator.genLegalMoves(board);
+
+        // only a check can mate
+        if (numPlies == 1) {
+            List<Move> checks = new ArrayList<>();
+            for (Move move : moves) {
+                Undo undo = board.applyMove(move);
+                if (BoardUtils.isPlayerInCheck(board)) {
+                    checks.add(move);
+                }
+                board.undoMove(undo);
+            }
+            return checks;
+        }
+
+        return moves;
+    }
+
+    /**
+     * Store a position's numbers, and hand them back to the caller in case the table can't hold on to them.
+     * phi and delta are the proof and disproof numbers from the point of view of the player to move: phi is
+     * zero if that player wins, and delta is zero if he loses.
+     */
+    private void setResult(long key, int numPlies, int phi, int delta, long work, int proofSize) {
+        if (isAttackerToMove(numPlies)) {
+            table.store(key, numPlies, phi, delta, work, proofSize);
+        } else {
+            table.store(key, numPlies, delta, phi, work, proofSize);
+        }
+        resultPhi = phi;
+        resultDelta = delta;
+        resultProofSize = proofSize;
+    }
+
+    /**
+     * Multiple iterative deepening: search the position until its phi reaches thPhi or its delta reaches thDelta.
+     * The position's numbers are left in resultPhi and resultDelta.
+     */
+    private void mid(int numPlies, int thPhi, int thDelta) {
+        if (stopped || (maxNodes > 0 && nodes >= maxNodes)) {
+            stopped = true;
+            return;
+        }
+
+        long key = board.getZobristKey();
+        boolean attacker = isAttackerToMove(numPlies);
+        long priorWork = 0;
+        int slot = table.find(key, numPlies);
+        if (slot != -1) {
+            resultPhi = attacker ? table.getPn(slot) : table.getDn(slot);
+            resultDelta = attacker ? table.getDn(slot) : table.getPn(slot);
+            resultProofSize = table.getProofSize(slot);
+            if (resultPhi >= thPhi || resultDelta >= thDelta) {
+                return;
+            }
+            priorWork = table.getWork(slot);
+        }
+
+        long startNodes = nodes++;
+        List<Move> moves = getMoves(numPlies);
+
+        // terminal positions
+        if (moves.isEmpty()) {
+            // the defender is mated or stalemated, or the attacker has no (checking) moves left
+            boolean lost = attacker || BoardUtils.isPlayerInCheck(board);
+            setResult(key, numPlies, lost ? INFINITE : 0, lost ? 0 : INFINITE, 1, 1);
+            return;
+        }
+        if (numPlies == 0) {
+            // the defender has survived
+            setResult(key, numPlies, 0, INFINITE, 1, 1);
+            return;
+        }
+
+        // the children's numbers are kept here as well as in the table, so that progress isn't lost if the
+        // table is too small to hold them
+        int numMoves = moves.size();
+        int childPlies = numPlies - 1;
+        boolean childAttacker = isAttackerToMove(childPlies);
+        long[] childKeys = new long[numMoves];
+        int[] childPhis = new int[numMoves];
+        int[] childDeltas = new int[numMoves];
+        int[] childProofSizes = new int[numMoves];
+        for (int i=0;i<numMoves;i++) {
+            childKeys[i] = Zobrist.getKeyAfterMove(board, moves.get(i));
+            childPhis[i] = 1;
+            childDeltas[i] = 1;
+        }
+
+        while (true) {
+            // a position's phi is the least of its children's deltas, and its delta the sum of their phis
+            int phi = INFINITE, secondDelta = INFINITE, delta = 0;
+            int best = -1;
+            int minWinSize = Integer.MAX_VALUE;
+            long sumSizes = 0;
+
+            for (int i=0;i<numMoves;i++) {
+                // a transposition may have been searched since we last looked
+                int childSlot = table.find(childKeys[i], childPlies);
+                if (childSlot != -1) {
+                    int pn = table.getPn(childSlot), dn = table.getDn(childSlot);
+                    childPhis[i] = childAttacker ? pn : dn;
+                    childDeltas[i] = childAttacker ? dn : pn;
+                    childProofSizes[i] = table.getProofSize(childSlot);
+                }
+
+                if (childDeltas[i] == 0) {
+                    minWinSize = Math.min(minWinSize, childProofSizes[i]);
+                }
+                sumSizes += childProofSizes[i];
+                delta = Math.min(INFINITE, delta + childPhis[i]);
+                if (childDeltas[i] < phi) {
+                    secondDelta = phi;
+                    phi = childDeltas[i];
+                    best = i;
+                } else if (childDeltas[i] < secondDelta) {
+                    secondDelta = childDeltas[i];
+                }
+            }
+
+            if (phi >= thPhi || delta >= thDelta || stopped) {
+                int proofSize = 0;
+                if (phi == 0) {
+                    proofSize = (int) Math.min(Integer.MAX_VALUE, 1L + minWinSize);
+                } else if (delta == 0) {
+                    proofSize = (int) Math.min(Integer.MAX_VALUE, 1 + sumSizes);
+                }
+                setResult(key, numPlies, phi, delta, priorWork + nodes - startNodes, proofSize);
+                return;
+            }
+
+            // search the most proving child until it is no longer the best, or this position passes a threshold
+            int childThPhi = thDelta - delta + childPhis[best];
+            int childThDelta = Math.min(thPhi, secondDelta + 1);
+            Undo undo = board.applyMove(moves.get(best));
+            mid(childPlies, childThPhi, childThDelta);
+            board.undoMove(undo);
+            if (!stopped) {
+                childPhis[best] = resultPhi;
+                childDeltas[best] = resultDelta;
+                childProofSizes[best] = resultProofSize;
+            }
+        }
+    }
+
+    /**
+     * Follow the proof from the root.  The attacker plays the mate with the smallest proof, and the defender
+     * the move with the largest.  Positions that have been collected from the table are solved again, though
+     * at the attacker's turn only if none of the positions still in the table is a mate.
+     */
+    private List<Move> getPv(int numPlies) {
+        List<Move> pv = new ArrayList<>();
+        List<Undo> undos = new ArrayList<>();
+
+        while (numPlies > 0 && !stopped) {
+            boolean attacker = isAttackerToMove(numPlies);
+            List<Move> moves = getMoves(numPlies);
+            Move bestMove = null;
+            int bestSize = 0;
+
+            for (int pass=0; pass<2 && bestMove == null; pass++) {
+                for (Move move : moves) {
+                    Undo undo = board.applyMove(move);
+                    int pn = INFINITE, size = 0;
+                    int slot = table.find(board.getZobristKey(), numPlies - 1);
+                    if (slot != -1 && (table.getPn(slot) == 0 || table.getDn(slot) == 0)) {
+                        pn = table.getPn(slot);
+                        size = table.getProofSize(slot);
+                    } else if (!attacker || (pass == 1 && bestMove == null)) {
+                        mid(numPlies - 1, INFINITE, INFINITE);
+                        pn = attacker ? resultDelta : resultPhi;
+                        size = resultProofSize;
+                    }
+                    board.undoMove(undo);
+
+                    if (pn == 0 && !stopped && (bestMove == null || (attacker ? size < bestSize : size > bestSize))) {
+                        bestMove = move;
+                        bestSize = size;
+                    }
+                }
+            }
+
+            if (bestMove == null) {
+                break;
+            }
+            pv.add(bestMove);
+            undos.add(board.applyMove(bestMove));
+            numPlies--;
+        }
+
+        for (int i=undos.size()-1;i>=0;i--) {
+            board.undoMove(undos.get(i));
+        }
+
+        return pv;
+    }
+}
@@ -0,0 +1,553 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Draw;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.eval.Eval;
+import com.jamesswafford.chess4j.eval.Evaluator;
+import com.jamesswafford.chess4j.init.Initializer;
+import com.jamesswafford.chess4j.io.PrintLine;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.utils.BoardUtils;
+import com.jamesswafford.chess4j.utils.MoveUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.DecimalFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A Monte Carlo tree search, as an alternative to the alpha-beta search.
+ *
+ * Each playout walks down the tree choosing children by UCT (the child's average result plus a bonus for
+ * having been tried less than its siblings), scores the position it arrives at, and adds the result to
+ * every node on the way back up.  Rather than playing random games to the end, a position is scored with
+ * the {@link Evaluator}, plus whatever the side to move can win by an exchange, mapped to a win
+ * probability.  A leaf is expanded the second time a playout reaches it.
+ *
+ * Playouts run on several threads at once, sharing one {@link MctsTree}.  A thread passing through a node
+ * counts as a few lost playouts until it is done (a "virtual loss"), so the other threads spread out
+ * instead of following it down the same line.  Each thread has an evaluator of its own, with its own pawn
+ * hash (or network accumulators).
+ *
+ * The move played is the root move with the most playouts.  There are no iterations, so a depth limit
+ * just stops the tree growing deeper than that; without a time or node limit the search runs until it is
+ * stopped.  A node limit is a limit on playouts.
+ */
+public class MctsSearchIterator implements SearchIterator {
+
+    private static final Logger LOGGER = LogManager.getLogger(MctsSearchIterator.class);
+
+    public static final int DEFAULT_TREE_SIZE = 1 << 22;
+    public static final double EXPLORATION = 0.7;
+    public static final int VIRTUAL_LOSS = 3;
+    public static final int EXPANSION_VISITS = 1;
+    public static final int MAX_TREE_DEPTH = 256;
+
+    // centipawns to win probability: a pawn up is about a 64% chance
+    private static final double SCORE_SCALE = 400.0;
+
+    private static final long POST_INTERVAL_MS = 1000;
+
+    static {
+        Initializer.init();
+    }
+
+    private final MctsTree tree;
+    private Supplier<Evaluator> evaluatorFactory = Eval::createThreadEvaluator;
+    // one per playout thread, kept from one search to the next
+    private final List<Evaluator> evaluators = new ArrayList<>();
+    private ThreadPoolExecutor executor;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private int maxDepth = 0;
+    private long maxTimeMs = 0;
+    private long maxNodes = 0;
+    private boolean post = true;
+    private boolean earlyExitOk = true;
+    private int multiPv = 1;
+    private volatile boolean stopped;
+    private volatile boolean skipTimeChecks = false;
+    private volatile TimeManager timeManager;
+    private volatile long stopTime;
+
+    private volatile List<PvLine> pvLines = Collections.emptyList();
+    private volatile List<RootMove> rootMoves = Collections.emptyList();
+
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicInteger maxPlayoutDepth = new AtomicInteger();
+    private long elapsedMs;
+
+    public MctsSearchIterator() {
+        this(DEFAULT_TREE_SIZE);
+    }
+
+    public MctsSearchIterator(int treeSize) {
+        tree = new MctsTree(treeSize);
+    }
+
+    /**
+     * Set how the evaluator of each playout thread is created.  The threads can't share one, as neither the
+     * pawn hash nor a network's accumulators are safe to share.
+     */
+    public void setEvaluatorFactory(Supplier<Evaluator> evaluatorFactory) {
+        this.evaluatorFactory = evaluatorFactory;
+        evaluators.clear();
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public void setEarlyExitOk(boolean earlyExitOk) {
+        this.earlyExitOk = earlyExitOk;
+    }
+
+    /**
+     * Stop the tree from growing deeper than this many plies.
+     */
+    @Override
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void setMaxTime(long maxTimeMs) {
+        this.maxTimeMs = maxTimeMs;
+    }
+
+    /**
+     * Stop the search after this many playouts.  With one thread this gives the same result every time.
+     */
+    @Override
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public void setPost(boolean post) {
+        this.post = post;
+    }
+
+    @Override
+    public void setMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+    }
+
+    /**
+     * @return the lines through the root moves with the most playouts, best first
+     */
+    @Override
+    public List<PvLine> getPvLines() {
+        return pvLines;
+    }
+
+    /**
+     * @return the root moves ordered by playouts.  A root move's node count is its number of playouts.
+     */
+    @Override
+    public List<RootMove> getRootMoves() {
+        return rootMoves;
+    }
+
+    @Override
+    public void setSkipTimeChecks(boolean skipTimeChecks) {
+        this.skipTimeChecks = skipTimeChecks;
+    }
+
+    @Override
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    @Override
+    public void ponderHit() {
+        long budgetMs = getBudgetMs();
+        stopTime = budgetMs > 0 ? System.currentTimeMillis() + budgetMs : 0;
+        LOGGER.debug("# ponder hit, budget: {} ms", budgetMs);
+        setSkipTimeChecks(false);
+    }
+
+    @Override
+    public CompletableFuture<List<Move>> findPvFuture(final Board board, final List<Undo> undos) {
+        return CompletableFuture.supplyAsync(() -> findPrincipalVariation(board.deepCopy(), new ArrayList<>(undos)));
+    }
+
+    @Override
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void unstop() {
+        stopped = false;
+    }
+
+    public MctsTree getTree() {
+        return tree;
+    }
+
+    /**
+     * @return the number of playouts in the last search
+     */
+    public long getPlayouts() {
+        return playouts.get();
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    /**
+     * A search with a time manager stops at its soft limit; with no iterations there's no better place.
+     */
+    private long getBudgetMs() {
+        if (maxTimeMs > 0) {
+            return maxTimeMs;
+        }
+        if (timeManager != null && timeManager.hasTimeLimit()) {
+            return timeManager.getSoftLimitMs();
+        }
+        return 0;
+    }
+
+    private List<Move> findPrincipalVariation(Board board, List<Undo> undos) {
+        pvLines = Collections.emptyList();
+        rootMoves = Collections.emptyList();
+        List<Move> moves = MagicBitboardMoveGenerator.genLegalMoves(board);
+        LOGGER.debug("# position has " + moves.size() + " move(s)");
+        if (moves.isEmpty() || (earlyExitOk && moves.size() == 1)) {
+            return moves.isEmpty() ? Collections.emptyList() : Collections.singletonList(moves.get(0));
+        }
+
+        tree.reset();
+        playouts.set(0);
+        maxPlayoutDepth.set(0);
+        tree.tryClaim(MctsTree.ROOT);
+        expand(MctsTree.ROOT, moves);
+
+        long startTime = System.currentTimeMillis();
+        if (timeManager != null && maxTimeMs == 0 && timeManager.hasTimeLimit()) {
+            timeManager.startSearch();
+        }
+        long budgetMs = getBudgetMs();
+        stopTime = budgetMs > 0 ? startTime + budgetMs : 0;
+
+        while (evaluators.size() < numThreads) {
+            evaluators.add(evaluatorFactory.get());
+        }
+
+        ExecutorService executor = getExecutor();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i=0;i<numThreads;i++) {
+            Board workerBoard = board.deepCopy();
+            List<Undo> workerUndos = new ArrayList<>(undos);
+            Evaluator workerEvaluator = evaluators.get(i);
+            workers.add(executor.submit(() -> playouts(workerBoard, workerUndos, workerEvaluator)));
+        }
+
+        try {
+            for (Future<?> worker : workers) {
+                while (!awaitWorker(worker)) {
+                    if (post) {
+                        List<Move> pv = getPv(board, MctsTree.ROOT);
+                        int best = tree.getMostVisitedChild(MctsTree.ROOT);
+                        PrintLine.printLine(false, pv, pv.size(), toScore(tree.getMeanValue(best)),
+                                System.currentTimeMillis() - startTime, playouts.get());
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error("# MCTS worker failed", e);
+            stopped = true;
+            workers.forEach(worker -> worker.cancel(true));
+        }
+        elapsedMs = System.currentTimeMillis() - startTime;
+
+        List<Move> pv = getPv(board, MctsTree.ROOT);
+        if (pv.isEmpty()) { // stopped before the first playout
+            pv.add(moves.get(0));
+        }
+        updateRootMoves(board);
+        if (post) {
+            int best = tree.getMostVisitedChild(MctsTree.ROOT);
+            PrintLine.printLine(true, pv, pv.size(), toScore(tree.getMeanValue(best)), elapsedMs, playouts.get());
+            printSearchSummary();
+        }
+
+        assert(pv.size() > 0);
+        assert(MoveUtils.isLineValid(pv, board));
+
+        return pv;
+    }
+
+    /**
+     * The playout threads are kept from one search to the next.  They're daemons, so an iterator that is
+     * simply dropped doesn't keep the program running.
+     */
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "mcts-playout");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else if (numThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(numThreads);
+            executor.setCorePoolSize(numThreads);
+        } else if (numThreads < executor.getMaximumPoolSize()) {
+            executor.setCorePoolSize(numThreads);
+            executor.setMaximumPoolSize(numThreads);
+        }
+        return executor;
+    }
+
+    /**
+     * @return true if the worker finished within the post interval
+     */
+    private static boolean awaitWorker(Future<?> worker) throws InterruptedException, ExecutionException {
+        try {
+            worker.get(POST_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private boolean shouldStop() {
+        if (stopped) {
+            return true;
+        }
+        if (maxNodes > 0 && playouts.get() >= maxNodes) {
+            return true;
+        }
+        long st = stopTime;
+        return st > 0 && !skipTimeChecks && System.currentTimeMillis() >= st;
+    }
+
+    private void playouts(Board board, List<Undo> undos, Evaluator evaluator) {
+        int[] path = new int[MAX_TREE_DEPTH + 1];
+        int gameUndos = undos.size();
+
+        while (!shouldStop()) {
+            // claim a playout first so a node limit is never overrun by the other threads
+            if (maxNodes > 0 && playouts.incrementAndGet() > maxNodes) {
+                playouts.decrementAndGet();
+                break;
+            } else if (maxNodes == 0) {
+                playouts.incrementAndGet();
+            }
+            playout(board, undos, path, evaluator);
+            while (undos.size() > gameUndos) {
+                board.undoMove(undos.remove(undos.size() - 1));
+            }
+        }
+    }
+
+    private void playout(Board board, List<Undo> undos, int[] path, Evaluator evaluator) {
+        int node = MctsTree.ROOT;
+        int depth = 0;
+        path[0] = node;
+        double value; // from the point of view of the player to move at the last node
+
+        while (true) {
+            if (tree.isExpanded(node)) {
+                int child = select(node);
+                tree.addVirtualLoss(child, VIRTUAL_LOSS);
+                undos.add(board.applyMove(MoveUtils.fromNativeMove((long) tree.getMove(child),
+                        board.getPlayerToMove())));
+                path[++depth] = child;
+                node = child;
+                continue;
+            }
+
+            if (tree.isTerminal(node)) {
+                value = BoardUtils.isPlayerInCheck(board) ? 0 : 0.5;
+                break;
+            }
+
+            if (Draw.isDraw(board, undos)) {
+                value = 0.5;
+                break;
+            }
+
+            boolean canExpand = depth < MAX_TREE_DEPTH && (maxDepth == 0 || depth < maxDepth) && !tree.isFull();
+            if (canExpand && tree.getVisits(node) > EXPANSION_VISITS * VIRTUAL_LOSS && tree.tryClaim(node)) {
+                List<Move> moves = MagicBitboardMoveGenerator.genLegalMoves(board);
+                if (moves.isEmpty()) {
+                    tree.markTerminal(node);
+                    continue;
+                }
+                if (expand(node, moves)) {
+                    continue;
+                }
+            }
+
+            value = evaluate(board, evaluator);
+            break;
+        }
+
+        maxPlayoutDepth.accumulateAndGet(depth, Math::max);
+
+        // each node's value is from the point of view of the player who moved into it
+        double result = 1 - value;
+        for (int i=depth;i>=0;i--) {
+            tree.update(path[i], Math.round(result * MctsTree.VALUE_SCALE), i > 0 ? VIRTUAL_LOSS : 0);
+            result = 1 - result;
+        }
+    }
+
+    /**
+     * Give a claimed node its children.  The moves are ordered so captures are tried before other moves.
+     */
+    private boolean expand(int node, List<Move> moves) {
+        moves.sort(Comparator.comparingInt(MVVLVA::score).reversed());
+        int[] childMoves = new int[moves.size()];
+        for (int i=0;i<childMoves.length;i++) {
+            childMoves[i] = MoveUtils.toNativeMove(moves.get(i)).intValue();
+        }
+        return tree.expand(node, childMoves, childMoves.length);
+    }
+
+    /**
+     * UCT: pick the child with the best average result plus exploration bonus.  Unvisited children are
+     * taken first, in move order.
+     */
+    private int select(int node) {
+        int first = tree.getFirstChild(node);
+        int numChildren = tree.getNumChildren(node);
+        double logVisits = Math.log(Math.max(1, tree.getVisits(node)));
+
+        int best = first;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c=first;c<first+numChildren;c++) {
+            int visits = tree.getVisits(c);
+            if (visits == 0) {
+                return c;
+            }
+            double score = tree.getValue(c) / ((double) MctsTree.VALUE_SCALE * visits)
+                    + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Score a leaf for the player to move.  The side to move is credited with the best exchange it has,
+     * since a capture left hanging would otherwise be missed.  A leaf that was never expanded may be mate
+     * or stalemate.
+     */
+    private double evaluate(Board board, Evaluator evaluator) {
+        List<Move> moves = MagicBitboardMoveGenerator.genPseudoLegalMoves(board);
+        if (!hasLegalMove(board, moves)) {
+            return BoardUtils.isPlayerInCheck(board) ? 0 : 0.5;
+        }
+
+        int score = evaluator.evaluateBoard(board);
+        int bestGain = 0;
+        for (Move move : moves) {
+            if (move.captured() != null || move.promotion() != null) {
+                bestGain = Math.max(bestGain, SEE.seeMove(board, move));
+            }
+        }
+        return toProbability(score + bestGain);
+    }
+
+    private static boolean hasLegalMove(Board board, List<Move> moves) {
+        for (Move move : moves) {
+            Undo undo = board.applyMove(move);
+            boolean legal = !BoardUtils.isOpponentInCheck(board);
+            board.undoMove(undo);
+            if (legal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static double toProbability(int score) {
+        return 1.0 / (1.0 + Math.pow(10.0, -score / SCORE_SCALE));
+    }
+
+    public static int toScore(double probability) {
+        double p = Math.min(0.999, Math.max(0.001, probability));
+        return (int) Math.round(-SCORE_SCALE * Math.log10(1.0 / p - 1.0));
+    }
+
+    /**
+     * Follow the most visited children down from the node.
+     */
+    private List<Move> getPv(Board board, int node) {
+        List<Move> pv = new ArrayList<>();
+        List<Undo> undos = new ArrayList<>();
+        int child = tree.getMostVisitedChild(node);
+        while (child != -1 && tree.getVisits(child) > 0 && pv.size() < MAX_TREE_DEPTH) {
+            Move move = MoveUtils.fromNativeMove((long) tree.getMove(child), board.getPlayerToMove());
+            pv.add(move);
+            undos.add(board.applyMove(move));
+            child = tree.getMostVisitedChild(child);
+        }
+        for (int i=undos.size()-1;i>=0;i--) {
+            board.undoMove(undos.get(i));
+        }
+        return pv;
+    }
+
+    private void updateRootMoves(Board board) {
+        int first = tree.getFirstChild(MctsTree.ROOT);
+        List<Integer> children = new ArrayList<>();
+        for (int c=first;c<first+tree.getNumChildren(MctsTree.ROOT);c++) {
+            children.add(c);
+        }
+        children.sort(Comparator.comparingInt(tree::getVisits).reversed());
+
+        List<RootMove> rms = new ArrayList<>();
+        List<PvLine> lines = new ArrayList<>();
+        for (int child : children) {
+            Move move = MoveUtils.fromNativeMove((long) tree.getMove(child), board.getPlayerToMove());
+            int score = toScore(tree.getMeanValue(child));
+            RootMove rootMove = new RootMove(move);
+            rootMove.record(tree.getVisits(child), score, false, false);
+            rms.add(rootMove);
+
+            if (lines.size() < multiPv && tree.getVisits(child) > 0) {
+                Undo undo = board.applyMove(move);
+                List<Move> pv = new ArrayList<>();
+                pv.add(move);
+                pv.addAll(getPv(board, child));
+                board.undoMove(undo);
+                lines.add(new PvLine(pv.size(), score, pv));
+            }
+        }
+        rootMoves = rms;
+        pvLines = lines;
+    }
+
+    private void printSearchSummary() {
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        long n = playouts.get();
+        LOGGER.info("\n");
+        LOGGER.info("# mcts playouts: " + df.format(n) + ", threads: " + numThreads + ", search time: "
+                + elapsedMs / 1000.0 + " seconds, rate: " + df.format(n * 1000 / Math.max(1, elapsedMs))
+                + " playouts per second");
+        LOGGER.info("# mcts tree nodes: " + df.format(tree.getSize()) + " of " + df.format(tree.getCapacity())
+                + ", deepest playout: " + maxPlayoutDepth.get());
+    }
+}
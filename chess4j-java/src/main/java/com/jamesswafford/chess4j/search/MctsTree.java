@@ -0,0 +1,178 @@
+package com.jamesswafford.chess4j.search;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The tree grown by the Monte Carlo tree search.  Rather than an object per node, the tree is a set of
+ * parallel primitive arrays indexed by node, about 24 bytes a node, so millions of nodes fit in a modest
+ * heap.  A node's children take up a block of consecutive indexes allocated when the node is expanded.
+ *
+ * Visits and values are updated atomically so any number of threads can search the tree at once.  A
+ * node's value is the sum of the results of the playouts through it, in fixed point, from the point of
+ * view of the player who made the move into it.
+ */
+public class MctsTree {
+
+    public static final int ROOT = 0;
+    public static final int VALUE_SCALE = 1 << 16;
+
+    // firstChild states for nodes without children
+    private static final int UNEXPANDED = -1;
+    private static final int EXPANDING = -2;
+    private static final int TERMINAL = -3;
+    private static final int UNEXPANDABLE = -4; // there was no room for its children
+
+    private final int[] moves; // the move into each node, in the native encoding
+    private final int[] numChildren;
+    private final AtomicIntegerArray firstChild;
+    private final AtomicIntegerArray visits;
+    private final AtomicLongArray values;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public MctsTree(int capacity) {
+        moves = new int[capacity];
+        numChildren = new int[capacity];
+        firstChild = new AtomicIntegerArray(capacity);
+        visits = new AtomicIntegerArray(capacity);
+        values = new AtomicLongArray(capacity);
+        reset();
+    }
+
+    /**
+     * Clear the tree, leaving just an unexpanded root.  Not safe while the tree is being searched.
+     */
+    public void reset() {
+        int used = getSize();
+        for (int i=0;i<Math.max(1, used);i++) {
+            firstChild.set(i, UNEXPANDED);
+            numChildren[i] = 0;
+            visits.set(i, 0);
+            values.set(i, 0);
+        }
+        size.set(1);
+    }
+
+    public int getCapacity() {
+        return moves.length;
+    }
+
+    public int getSize() {
+        return Math.min(size.get(), moves.length);
+    }
+
+    public boolean isFull() {
+        return size.get() >= moves.length;
+    }
+
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    public boolean isExpanded(int node) {
+        return firstChild.get(node) >= 0;
+    }
+
+    public boolean isTerminal(int node) {
+        return firstChild.get(node) == TERMINAL;
+    }
+
+    public int getFirstChild(int node) {
+        return firstChild.get(node);
+    }
+
+    public int getNumChildren(int node) {
+        return isExpanded(node) ? numChildren[node] : 0;
+    }
+
+    /**
+     * @return the number of playouts through the node, including any in progress, which count as losses
+     */
+    public int getVisits(int node) {
+        return visits.get(node);
+    }
+
+    public long getValue(int node) {
+        return values.get(node);
+    }
+
+    /**
+     * @return the average result of the playouts through the node, between 0 and 1
+     */
+    public double getMeanValue(int node) {
+        int v = visits.get(node);
+        return v == 0 ? 0.5 : values.get(node) / ((double) VALUE_SCALE * v);
+    }
+
+    /**
+     * Claim an unexpanded node for expansion.  Only one thread can succeed.
+     */
+    public boolean tryClaim(int node) {
+        return firstChild.compareAndSet(node, UNEXPANDED, EXPANDING);
+    }
+
+    /**
+     * Give the node its children.  The node must have been claimed.
+     *
+     * @param childMoves - the moves to the children, in the native encoding
+     *
+     * @return false if the tree is full, in which case the node is left unexpanded for good
+     */
+    public boolean expand(int node, int[] childMoves, int count) {
+        assert(firstChild.get(node) == EXPANDING);
+        int start = size.getAndAdd(count);
+        if (start + count > moves.length) {
+            firstChild.set(node, UNEXPANDABLE);
+            return false;
+        }
+
+        for (int i=0;i<count;i++) {
+            int child = start + i;
+            moves[child] = childMoves[i];
+            numChildren[child] = 0;
+            visits.set(child, 0);
+            values.set(child, 0);
+            firstChild.set(child, UNEXPANDED);
+        }
+        numChildren[node] = count;
+        firstChild.set(node, start); // publishes the children to other threads
+        return true;
+    }
+
+    /**
+     * Mark a claimed node as having no moves.
+     */
+    public void markTerminal(int node) {
+        firstChild.compareAndSet(node, EXPANDING, TERMINAL);
+    }
+
+    /**
+     * Count a playout in progress through the node as a number of losses, to steer other threads elsewhere.
+     */
+    public void addVirtualLoss(int node, int virtualLoss) {
+        visits.addAndGet(node, virtualLoss);
+    }
+
+    /**
+     * Record the result of a playout through the node, taking back its virtual loss.
+     */
+    public void update(int node, long value, int virtualLoss) {
+        visits.addAndGet(node, 1 - virtualLoss);
+        values.addAndGet(node, value);
+    }
+
+    /**
+     * @return the child with the most visits, or -1 if the node has no children
+     */
+    public int getMostVisitedChild(int node) {
+        int best = -1;
+        int first = firstChild.get(node);
+        for (int c=first;c<first+getNumChildren(node);c++) {
+            if (best == -1 || visits.get(c) > visits.get(best)) {
+                best = c;
+            }
+        }
+        return best;
+    }
+}
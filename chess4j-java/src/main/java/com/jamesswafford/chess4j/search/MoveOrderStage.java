@@ -2,6 +2,6 @@ package com.jamesswafford.chess4j.search;
 
 public enum MoveOrderStage {
 
-    PV, HASH_MOVE, GENCAPS, CAPTURES_PROMOS, KILLER1, KILLER2, GENNONCAPS, REMAINING;
+    PV, HASH_MOVE, GENCAPS, CAPTURES_PROMOS, KILLER1, KILLER2, GENCHECKS, QUIET_CHECKS, GENNONCAPS, REMAINING, LOSING_CAPTURES;
 
 }
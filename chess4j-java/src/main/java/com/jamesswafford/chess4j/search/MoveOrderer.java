@@ -16,34 +16,75 @@ public class MoveOrderer {
     private final Board board;
     private final MoveGenerator moveGenerator;
     private final MoveScorer moveScorer;
+    private final MoveScorer noncaptureScorer;
 
     private final Move pvMove, hashMove, killer1, killer2;
     private final boolean generateNonCaptures;
+    private final boolean generateQuietChecks;
     private final Set<Move> specialMovesPlayed;
+    private boolean deferLosingCaptures = true;
 
     private Move[] captures;
     private int captureIndex;
     private Integer[] captureScores;
+    private Move[] losingCaptures;
+    private int numLosingCaptures;
+    private int losingCaptureIndex;
     private Move[] noncaptures;
     private int noncaptureIndex;
+    private int[] noncaptureScores;
+    private Move[] quietChecks;
+    private int quietCheckIndex;
 
     private MoveOrderStage nextMoveOrderStage = MoveOrderStage.PV;
 
     public MoveOrderer(Board board, MoveGenerator moveGenerator, MoveScorer moveScorer,
                        Move pvMove, Move hashMove, Move killer1, Move killer2, boolean generateNonCaptures)
+    {
+        this(board, moveGenerator, moveScorer, null, pvMove, hashMove, killer1, killer2, generateNonCaptures);
+    }
+
+    /**
+     * Create a move orderer that also scores non-captures.  Non-captures are played highest score first.
+     * If the non-capture scorer is null they are played in the order they were generated.
+     */
+    public MoveOrderer(Board board, MoveGenerator moveGenerator, MoveScorer moveScorer, MoveScorer noncaptureScorer,
+                       Move pvMove, Move hashMove, Move killer1, Move killer2, boolean generateNonCaptures)
+    {
+        this(board, moveGenerator, moveScorer, noncaptureScorer, pvMove, hashMove, killer1, killer2,
+                generateNonCaptures, false);
+    }
+
+    /**
+     * Create a move orderer that may play the non-captures that give check after the captures, for the
+     * quiescence search.  Quiet checks are only generated when the rest of the non-captures aren't.
+     */
+    public MoveOrderer(Board board, MoveGenerator moveGenerator, MoveScorer moveScorer, MoveScorer noncaptureScorer,
+                       Move pvMove, Move hashMove, Move killer1, Move killer2, boolean generateNonCaptures,
+                       boolean generateQuietChecks)
     {
         this.board = board;
         this.moveGenerator = moveGenerator;
         this.moveScorer = moveScorer;
+        this.noncaptureScorer = noncaptureScorer;
 
         this.pvMove = pvMove;
         this.hashMove = hashMove;
         this.killer1 = killer1;
         this.killer2 = killer2;
         this.generateNonCaptures = generateNonCaptures;
+        this.generateQuietChecks = generateQuietChecks && !generateNonCaptures;
         this.specialMovesPlayed = new HashSet<>();
     }
 
+    /**
+     * Play the captures that lose material according to SEE after the non-captures (the default), or with
+     * the other captures in the order they were scored.
+     */
+    public void setDeferLosingCaptures(boolean deferLosingCaptures) {
+        this.deferLosingCaptures = deferLosingCaptures;
+    }
+
     public MoveOrderStage getNextMoveOrderStage() {
         return nextMoveOrderStage;
     }
@@ -77,6 +118,9 @@ public class MoveOrderer {
             captures =  myCaptures.toArray(new Move[0]);
             captureIndex = 0;
             captureScores = new Integer[myCaptures.size()];
+            losingCaptures = new Move[captures.length];
+            numLosingCaptures = 0;
+            losingCaptureIndex = 0;
             for (int i=0;i<captures.length;i++) {
                 if (specialMovesPlayed.contains(captures[i])) {
                     captures[i] = null;
@@ -86,13 +130,19 @@ public class MoveOrderer {
             }
         }
 
-        // captures and promotions
+        // captures and promotions.  captures that lose material according to SEE are deferred until
+        // after the non-captures.
         if (nextMoveOrderStage == MoveOrderStage.CAPTURES_PROMOS) {
-            int bestInd = getIndexOfBestCapture(captureIndex);
-            if (bestInd != -1) {
+            int bestInd;
+            while ((bestInd = getIndexOfBestCapture(captureIndex)) != -1) {
                 swap(captures, captureIndex, bestInd);
                 swapScores(captureIndex, bestInd);
-                return captures[captureIndex++];
+                Move mv = captures[captureIndex++];
+                if (deferLosingCaptures && isLosingCapture(mv)) {
+                    losingCaptures[numLosingCaptures++] = mv;
+                } else {
+                    return mv;
+                }
             }
             nextMoveOrderStage = MoveOrderStage.KILLER1;
         }
@@ -107,7 +157,7 @@ public class MoveOrderer {
         }
 
         if (nextMoveOrderStage == MoveOrderStage.KILLER2) {
-            nextMoveOrderStage = MoveOrderStage.GENNONCAPS;
+            nextMoveOrderStage = generateQuietChecks ? MoveOrderStage.GENCHECKS : MoveOrderStage.GENNONCAPS;
             if (killer2 != null && !specialMovesPlayed.contains(killer2) && isPseudoLegalMove(board, killer2)) {
                 assert(killer2.captured()==null);
                 specialMovesPlayed.add(killer2);
@@ -115,35 +165,67 @@ public class MoveOrderer {
             }
         }
 
+        // generate the quiet checks
+        if (nextMoveOrderStage == MoveOrderStage.GENCHECKS) {
+            nextMoveOrderStage = MoveOrderStage.QUIET_CHECKS;
+            quietChecks = moveGenerator.generatePseudoLegalQuietChecks(board).toArray(new Move[0]);
+            quietCheckIndex = 0;
+        }
+
+        // quiet checks, in the order they were generated
+        if (nextMoveOrderStage == MoveOrderStage.QUIET_CHECKS) {
+            while (quietCheckIndex < quietChecks.length) {
+                Move mv = quietChecks[quietCheckIndex++];
+                if (!specialMovesPlayed.contains(mv)) {
+                    return mv;
+                }
+            }
+        }
+
         // generate non-captures
         if (generateNonCaptures) {
             if (nextMoveOrderStage == MoveOrderStage.GENNONCAPS) {
                 nextMoveOrderStage = MoveOrderStage.REMAINING;
                 List<Move> myNoncaps = moveGenerator.generatePseudoLegalNonCaptures(board);
                 noncaptures = myNoncaps.toArray(new Move[0]);
+                noncaptureScores = new int[noncaptures.length];
                 // avoid playing special moves again
                 for (int i = 0; i < noncaptures.length; i++) {
                     if (specialMovesPlayed.contains(noncaptures[i])) {
                         noncaptures[i] = null;
+                    } else if (noncaptureScorer != null) {
+                        noncaptureScores[i] = noncaptureScorer.calculateStaticScore(noncaptures[i]);
                     }
                 }
 
                 noncaptureIndex = 0;
             }
 
-            // just play them as they come
+            // without a scorer just play them as they come
             if (noncaptureIndex < noncaptures.length) {
-                int ind = getIndexOfFirstNonCapture(noncaptureIndex);
+                int ind = noncaptureScorer == null ? getIndexOfFirstNonCapture(noncaptureIndex)
+                        : getIndexOfBestNonCapture(noncaptureIndex);
                 if (ind != -1) {
                     swap(noncaptures, noncaptureIndex, ind);
+                    swapNonCaptureScores(noncaptureIndex, ind);
                     return noncaptures[noncaptureIndex++];
                 }
             }
         }
 
+        // finally the losing captures, in the order they were scored
+        nextMoveOrderStage = MoveOrderStage.LOSING_CAPTURES;
+        if (losingCaptureIndex < numLosingCaptures) {
+            return losingCaptures[losingCaptureIndex++];
+        }
+
         return null;
     }
 
+    private boolean isLosingCapture(Move mv) {
+        return mv.captured() != null && mv.promotion() == null && !SEE.seeAtLeast(board, mv, 0);
+    }
+
     private int getIndexOfFirstNonCapture(int startIndex) {
         int index = -1;
 
@@ -158,6 +240,28 @@ public class MoveOrderer {
         return index;
     }
 
+    // ties go to the move generated first
+    private int getIndexOfBestNonCapture(int startIndex) {
+        int bestIndex = -1;
+        int bestScore = Integer.MIN_VALUE;
+
+        for (int i=startIndex;i<noncaptures.length;i++) {
+            Move m = noncaptures[i];
+            if (m != null && m.captured()==null && noncaptureScores[i] > bestScore) {
+                bestIndex = i;
+                bestScore = noncaptureScores[i];
+            }
+        }
+
+        return bestIndex;
+    }
+
+    private void swapNonCaptureScores(int ind1, int ind2) {
+        int tmp = noncaptureScores[ind1];
+        noncaptureScores[ind1] = noncaptureScores[ind2];
+        noncaptureScores[ind2] = tmp;
+    }
+
     private void swapScores(int ind1, int ind2) {
         Integer tmp = captureScores[ind1];
         captureScores[ind1] = captureScores[ind2];
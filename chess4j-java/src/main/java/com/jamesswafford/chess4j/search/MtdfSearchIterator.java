@@ -0,0 +1,143 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Undo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.DecimalFormat;
+import java.util.List;
+
+import static com.jamesswafford.chess4j.Constants.INFINITY;
+
+/**
+ * An iterator that searches each depth with a series of zero window searches, in the style of MTD(f).
+ * Each search tests whether the score is above or below a bound, and the transposition table carries
+ * what was learned from one search into the next.
+ *
+ * MTD(f) proper moves its guess to the score each zero window search returns, which relies on the
+ * search failing soft.  Ours fails hard, so a failed search only says which side of the bound the score
+ * is on.  Instead, the bound steps away from the first guess (the previous iteration's score) by a
+ * doubling amount until the score is bracketed, then the bracket is halved until it closes.  A final
+ * search with a window just around the score recovers the principal variation.
+ */
+public class MtdfSearchIterator extends SearchIteratorImpl {
+
+    private static final Logger LOGGER = LogManager.getLogger(MtdfSearchIterator.class);
+
+    // the first step away from the guess after a failed search
+    public static final int INITIAL_STEP = 1;
+
+    private long iterations;
+    private long passes;
+    private int maxPasses;
+    private long pvSearches;
+    private long fullWidthSearches;
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the number of zero window searches
+     */
+    public long getPasses() {
+        return passes;
+    }
+
+    /**
+     * @return the most zero window searches it took to converge at any depth
+     */
+    public int getMaxPasses() {
+        return maxPasses;
+    }
+
+    public long getPvSearches() {
+        return pvSearches;
+    }
+
+    /**
+     * @return the number of times the search was inconsistent and the score had to be found with a
+     * full width search
+     */
+    public long getFullWidthSearches() {
+        return fullWidthSearches;
+    }
+
+    @Override
+    protected int searchToDepth(Board board, List<Undo> undos, int depth, int prevScore, SearchOptions opts) {
+        Search search = getSearch();
+        iterations++;
+
+        int lower = -INFINITY, upper = INFINITY;
+        int bound = prevScore;
+        int step = INITIAL_STEP;
+        int numPasses = 0;
+
+        while (lower < upper) {
+            // test whether the score is at least the bound
+            bound = Math.max(lower + 1, Math.min(upper, bound));
+            int score = search.search(board, undos, new SearchParameters(depth, bound - 1, bound), opts);
+            numPasses++;
+            if (search.isStopped()) {
+                recordPasses(numPasses);
+                return score;
+            }
+
+            if (score >= bound) {
+                lower = bound;
+            } else {
+                upper = bound - 1;
+            }
+
+            if (upper == INFINITY) {
+                bound = lower + step;
+                step *= 2;
+            } else if (lower == -INFINITY) {
+                bound = upper - step + 1;
+                step *= 2;
+            } else {
+                bound = lower + (upper - lower + 1) / 2;
+            }
+        }
+        recordPasses(numPasses);
+        LOGGER.debug("# mtd depth {} converged on {} in {} passes", depth, lower, numPasses);
+
+        // the zero window searches don't produce a PV, so search once more with a window that just
+        // contains the score.  the table makes this cheap.
+        int score = lower;
+        pvSearches++;
+        int pvScore = search.search(board, undos,
+                new SearchParameters(depth, Math.max(-INFINITY, score - 1), Math.min(INFINITY, score + 1)), opts);
+        if (!search.isStopped() && (pvScore != score || search.getPv().isEmpty())) {
+            LOGGER.debug("# mtd depth {} expected {} but the PV search returned {}", depth, score, pvScore);
+            fullWidthSearches++;
+            pvScore = search.search(board, undos, new SearchParameters(depth, -INFINITY, INFINITY), opts);
+        }
+
+        return pvScore;
+    }
+
+    /**
+     * The line an MTD search settles on may be a different one of equal score than a full window search's.
+     */
+    @Override
+    protected boolean canCompareWithNative() {
+        return false;
+    }
+
+    private void recordPasses(int numPasses) {
+        passes += numPasses;
+        maxPasses = Math.max(maxPasses, numPasses);
+    }
+
+    @Override
+    protected void printSearchSummary(int lastDepth, long startTime, SearchStats stats) {
+        super.printSearchSummary(lastDepth, startTime, stats);
+
+        DecimalFormat df = new DecimalFormat("0.00");
+        LOGGER.info("# mtd iterations: " + iterations + ", passes: " + passes
+                + " (" + df.format(passes / (double) Math.max(1, iterations)) + " per iteration, max "
+                + maxPasses + "), full width re-searches: " + fullWidthSearches);
+    }
+}
@@ -0,0 +1,208 @@
+package com.jamesswafford.chess4j.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size table of proof and disproof numbers for the mate solver, kept in primitive arrays.
+ *
+ * Entries are keyed by the position and the number of plies left, and are grouped into small buckets.
+ * Each entry also records the work (the number of nodes) that went into its subtree and the size of its
+ * proof or disproof once it is solved.
+ *
+ * When the table fills past its load limit it is garbage collected: every entry whose subtree is smaller
+ * than a threshold is removed, the threshold being chosen so that about half the table is freed.  The
+ * interior of a solved subtree is always smaller than its root, so solved subtrees are collected from the
+ * leaves up while the root entry, which is all that's needed to reuse the result, survives longest.
+ */
+public class ProofNumberTable {
+
+    private static final Logger LOGGER = LogManager.getLogger(ProofNumberTable.class);
+
+    public static final int INFINITE = Integer.MAX_VALUE / 2;
+
+    private static final int DEFAULT_SIZE_BYTES = 64 * 1024 * 1024;
+    private static final int BYTES_PER_ENTRY = 32;
+    private static final int BUCKET_SIZE = 4;
+    private static final double LOAD_LIMIT = 0.9;
+    private static final double GC_FRACTION = 0.5;
+
+    private final long[] keys;
+    private final byte[] plies;
+    private final int[] pns;
+    private final int[] dns;
+    private final int[] sizes;
+    private final long[] work; // 0 marks an empty slot
+    private final int mask;
+
+    private int numEntries;
+    private long numStores;
+    private long numReplaced;
+    private long numGcs;
+    private long numCollected;
+
+    public ProofNumberTable() {
+        this(DEFAULT_SIZE_BYTES);
+    }
+
+    public ProofNumberTable(int sizeBytes) {
+        int numBuckets = Integer.highestOneBit(Math.max(1, sizeBytes / (BYTES_PER_ENTRY * BUCKET_SIZE)));
+        int capacity = numBuckets * BUCKET_SIZE;
+        LOGGER.debug("# proof number table size: " + sizeBytes + " bytes ==> " + capacity + " elements.");
+
+        keys = new long[capacity];
+        plies = new byte[capacity];
+        pns = new int[capacity];
+        dns = new int[capacity];
+        sizes = new int[capacity];
+        work = new long[capacity];
+        mask = numBuckets - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(work, 0);
+        numEntries = 0;
+        numStores = numReplaced = numGcs = numCollected = 0;
+    }
+
+    private int getBucket(long key, int numPlies) {
+        long h = (key ^ (numPlies * 0x9E3779B97F4A7C15L)) * 0xBF58476D1CE4E5B9L;
+        return (int)(h >>> 32) & mask;
+    }
+
+    /**
+     * Find the slot holding a position.
+     *
+     * @param key - the position's Zobrist key
+     * @param numPlies - the number of plies left to search from the position
+     * @return the slot, or -1 if the position isn't in the table
+     */
+    public int find(long key, int numPlies) {
+        int start = getBucket(key, numPlies) * BUCKET_SIZE;
+        for (int i=start;i<start+BUCKET_SIZE;i++) {
+            if (work[i] != 0 && keys[i] == key && plies[i] == numPlies) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getPn(int slot) {
+        return pns[slot];
+    }
+
+    public int getDn(int slot) {
+        return dns[slot];
+    }
+
+    public long getWork(int slot) {
+        return work[slot];
+    }
+
+    /**
+     * @return the number of positions in the proof or disproof, once the position is solved
+     */
+    public int getProofSize(int slot) {
+        return sizes[slot];
+    }
+
+    /**
+     * Store a position.  If its bucket is full the entry with the smallest subtree is replaced.
+     *
+     * @param nodeWork - the number of nodes searched below the position so far; must be positive
+     */
+    public void store(long key, int numPlies, int pn, int dn, long nodeWork, int proofSize) {
+        assert(nodeWork > 0);
+        numStores++;
+
+        int slot = find(key, numPlies);
+        if (slot == -1) {
+            if (numEntries >= keys.length * LOAD_LIMIT) {
+                gc();
+            }
+            slot = getFreeSlot(getBucket(key, numPlies) * BUCKET_SIZE);
+        }
+
+        keys[slot] = key;
+        plies[slot] = (byte) numPlies;
+        pns[slot] = pn;
+        dns[slot] = dn;
+        work[slot] = nodeWork;
+        sizes[slot] = proofSize;
+    }
+
+    private int getFreeSlot(int start) {
+        int smallest = start;
+        for (int i=start;i<start+BUCKET_SIZE;i++) {
+            if (work[i] == 0) {
+                numEntries++;
+                return i;
+            }
+            if (work[i] < work[smallest]) {
+                smallest = i;
+            }
+        }
+        numReplaced++;
+        return smallest;
+    }
+
+    /**
+     * Remove the entries with the smallest subtrees, freeing about half the table.
+     */
+    public void gc() {
+        // find the smallest power of two that at least half the entries fall below
+        long[] histogram = new long[64];
+        for (long w : work) {
+            if (w != 0) {
+                histogram[63 - Long.numberOfLeadingZeros(w)]++;
+            }
+        }
+        long target = (long)(numEntries * GC_FRACTION);
+        int bits = 0;
+        for (long below = 0; bits < 63 && below < target; bits++) {
+            below += histogram[bits];
+        }
+        long threshold = 1L << bits;
+
+        int collected = 0;
+        for (int i=0;i<work.length;i++) {
+            if (work[i] != 0 && work[i] < threshold) {
+                work[i] = 0;
+                collected++;
+            }
+        }
+        numEntries -= collected;
+        numGcs++;
+        numCollected += collected;
+        LOGGER.debug("# proof number table gc removed {} entries with work below {}", collected, threshold);
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    public long getNumStores() {
+        return numStores;
+    }
+
+    /**
+     * @return the number of entries overwritten because their bucket was full
+     */
+    public long getNumReplaced() {
+        return numReplaced;
+    }
+
+    public long getNumGcs() {
+        return numGcs;
+    }
+
+    public long getNumCollected() {
+        return numCollected;
+    }
+}
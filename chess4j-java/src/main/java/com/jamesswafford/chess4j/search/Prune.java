@@ -10,6 +10,68 @@ import com.jamesswafford.chess4j.pieces.Pawn;
 
 public class Prune {
 
+    public static final int MAX_FUTILITY_DEPTH = 2;
+    public static final int MAX_REVERSE_FUTILITY_DEPTH = 3;
+    public static final int MAX_RAZORING_DEPTH = 2;
+
+    public static final int REVERSE_FUTILITY_MARGIN = EvalMaterial.PAWN_VAL * 3 / 2; // per ply
+    public static final int RAZOR_MARGIN = EvalMaterial.PAWN_VAL * 3;
+
+    // scores beyond this are mate scores, and margins around them are meaningless
+    private static final int MATE_THRESHOLD = Constants.CHECKMATE - 500;
+
+    /**
+     * Futility pruning at frontier (depth 1) and pre-frontier (depth 2) nodes.  A quiet move is futile if the
+     * static evaluation plus a margin - the most the move could reasonably gain before the quiescence search
+     * takes over - still doesn't reach alpha.
+     *
+     * @param staticEval - the static evaluation of the position before the move, from the mover's perspective
+     * @param alpha - the lower bound
+     * @param depth - the remaining depth
+     *
+     * @return - true if quiet moves may be skipped
+     */
+    public static boolean isFutile(int staticEval, int alpha, int depth) {
+        if (depth > MAX_FUTILITY_DEPTH || isMateScore(alpha)) {
+            return false;
+        }
+        return staticEval + futilityMargin(depth) <= alpha;
+    }
+
+    public static int futilityMargin(int depth) {
+        return depth < 2 ? EvalMaterial.PAWN_VAL*2 : EvalMaterial.PAWN_VAL*5;
+    }
+
+    /**
+     * Reverse futility pruning, or "static null move."  If the static evaluation is so far above beta that
+     * even giving back a margin for each remaining ply leaves us above it, assume the node fails high.
+     *
+     * @return - true if the node may return beta without searching
+     */
+    public static boolean reverseFutility(int staticEval, int beta, int depth) {
+        if (depth > MAX_REVERSE_FUTILITY_DEPTH || isMateScore(beta)) {
+            return false;
+        }
+        return staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta;
+    }
+
+    /**
+     * Razoring.  If the static evaluation is well below alpha close to the leaves, the node is a candidate to
+     * be resolved with a quiescence search rather than a full width search.
+     *
+     * @return - true if the node should be verified with a quiescence search
+     */
+    public static boolean razor(int staticEval, int alpha, int depth) {
+        if (depth > MAX_RAZORING_DEPTH || isMateScore(alpha)) {
+            return false;
+        }
+        return staticEval + RAZOR_MARGIN <= alpha;
+    }
+
+    private static boolean isMateScore(int score) {
+        return score >= MATE_THRESHOLD || score <= -MATE_THRESHOLD;
+    }
+
     public static boolean prune(Board b,Move lastMove,boolean inCheck,boolean givesCheck,
             int extensions,int alpha,int beta,int depth) {
 
@@ -23,8 +85,7 @@ public class Prune {
         {
             int evalMat = -Eval.eval(b,true);
 
-            return (depth < 2 && (evalMat + EvalMaterial.PAWN_VAL*2 <= alpha))   // futility pruning
-                || (depth < 3 && (evalMat + EvalMaterial.PAWN_VAL*5 <= alpha)) ;  // extended futility pruning
+            return isFutile(evalMat, alpha, depth);
         }
 
         return false;
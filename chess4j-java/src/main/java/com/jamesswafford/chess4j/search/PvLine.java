@@ -0,0 +1,39 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One line of a (possibly multi-PV) search: its score and principal variation at a given depth.
+ */
+public class PvLine {
+
+    private final int depth;
+    private final int score;
+    private final List<Move> pv;
+
+    public PvLine(int depth, int score, List<Move> pv) {
+        this.depth = depth;
+        this.score = score;
+        this.pv = Collections.unmodifiableList(pv);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public List<Move> getPv() {
+        return pv;
+    }
+
+    @Override
+    public String toString() {
+        return "PvLine [depth=" + depth + ", score=" + score + ", pv=" + pv + "]";
+    }
+}
@@ -0,0 +1,96 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+
+import static com.jamesswafford.chess4j.Constants.INFINITY;
+
+/**
+ * What the search has learned about one of the moves at the root.
+ */
+public class RootMove {
+
+    private final Move move;
+    private long nodes;
+    private int score = -INFINITY;
+    private boolean exact;
+    private int bestScore = -INFINITY;
+    private int failHighs;
+    private boolean failedHigh;
+
+    public RootMove(Move move) {
+        this.move = move;
+    }
+
+    public RootMove(RootMove rootMove) {
+        this.move = rootMove.move;
+        this.nodes = rootMove.nodes;
+        this.score = rootMove.score;
+        this.exact = rootMove.exact;
+        this.bestScore = rootMove.bestScore;
+        this.failHighs = rootMove.failHighs;
+        this.failedHigh = rootMove.failedHigh;
+    }
+
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * @return the size of the move's subtree the last time it was searched
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the score the last time the move was searched.  Unless the score is exact it is only an
+     * upper bound, since the move didn't beat the best move found before it.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return the best exact score the move has had in any iteration
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return the number of iterations in which the move beat the moves searched before it
+     */
+    public int getFailHighs() {
+        return failHighs;
+    }
+
+    /**
+     * @return true if the move beat the moves searched before it in the last iteration
+     */
+    public boolean isFailedHigh() {
+        return failedHigh;
+    }
+
+    void record(long nodes, int score, boolean exact, boolean failedHigh) {
+        this.nodes = nodes;
+        this.score = score;
+        this.exact = exact;
+        if (exact) {
+            bestScore = Math.max(bestScore, score);
+        }
+        if (failedHigh) {
+            failHighs++;
+        }
+        this.failedHigh = failedHigh;
+    }
+
+    @Override
+    public String toString() {
+        return "RootMove [move=" + move + ", nodes=" + nodes + ", score=" + score + ", exact=" + exact
+                + ", failHighs=" + failHighs + "]";
+    }
+}
@@ -0,0 +1,99 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The moves at the root of the search, kept across iterations along with what has been learned about each.
+ *
+ * The first iteration searches the root moves in the normal move order.  After each iteration the list is
+ * sorted for the next one: the best move first, then the moves that beat the moves before them, then the
+ * rest by the size of their subtrees.  A move that took a big tree to refute is more likely to become the
+ * best move at the next depth than one that was refuted quickly.
+ */
+public class RootMoves {
+
+    private final List<RootMove> rootMoves = new ArrayList<>();
+    private final Map<Move, RootMove> rootMovesByMove = new HashMap<>();
+    private volatile boolean ordered;
+
+    public RootMoves(List<Move> moves) {
+        for (Move move : moves) {
+            RootMove rootMove = new RootMove(move);
+            rootMoves.add(rootMove);
+            rootMovesByMove.put(move, rootMove);
+        }
+    }
+
+    /**
+     * @return true once an iteration has completed and the moves have been sorted by what it found
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public synchronized List<Move> getMoves() {
+        return rootMoves.stream().map(RootMove::getMove).collect(Collectors.toList());
+    }
+
+    public synchronized Optional<RootMove> getRootMove(Move move) {
+        return Optional.ofNullable(rootMovesByMove.get(move));
+    }
+
+    /**
+     * Record the result of searching a root move.
+     *
+     * @param move - the move
+     * @param nodes - the size of the move's subtree
+     * @param score - the score of the move
+     * @param exact - true if the score is exact rather than a bound
+     * @param failedHigh - true if the move beat the moves searched before it
+     */
+    public synchronized void record(Move move, long nodes, int score, boolean exact, boolean failedHigh) {
+        RootMove rootMove = rootMovesByMove.get(move);
+        if (rootMove != null) {
+            rootMove.record(nodes, score, exact, failedHigh);
+        }
+    }
+
+    /**
+     * Sort the moves for the next iteration.
+     *
+     * @param bestMove - the best move of the iteration just completed
+     */
+    public synchronized void sort(Move bestMove) {
+        rootMoves.sort(Comparator.comparing((RootMove rm) -> !rm.getMove().equals(bestMove))
+                .thenComparing(rm -> !rm.isFailedHigh())
+                .thenComparing(Comparator.comparingLong(RootMove::getNodes).reversed()));
+        ordered = true;
+    }
+
+    public synchronized long getTotalNodes() {
+        return rootMoves.stream().mapToLong(RootMove::getNodes).sum();
+    }
+
+    /**
+     * @return the share of the root nodes that went into the move's subtree, or -1 if nothing is known
+     */
+    public synchronized double getNodeShare(Move move) {
+        long totalNodes = getTotalNodes();
+        RootMove rootMove = rootMovesByMove.get(move);
+        if (totalNodes == 0 || rootMove == null) {
+            return -1;
+        }
+        return rootMove.getNodes() / (double) totalNodes;
+    }
+
+    /**
+     * @return a copy of the root moves, in search order
+     */
+    public synchronized List<RootMove> snapshot() {
+        return rootMoves.stream().map(RootMove::new).collect(Collectors.toList());
+    }
+
+    public synchronized int size() {
+        return rootMoves.size();
+    }
+}
@@ -15,8 +15,13 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import static com.jamesswafford.chess4j.eval.EvalMaterial.*;
+
 public class SEE {
 
+    private static final int INFINITY = 1000000;
+    private static final int KING_VAL = 100000;
+
     private static Map<Class<?>,Integer> pieceMap;
 
     static {
@@ -29,7 +34,7 @@ public class SEE {
         pieceMap.put(Pawn.class, 1);
     }
 
-    // note m should already be applied
+    // note m should already be applied.  seeMove() is cheaper and does not require it.
     public static int see(Board b,Move m) {
         int score = 0;
 
@@ -44,6 +49,165 @@ public class SEE {
         return score;
     }
 
+    /**
+     * Determine the static exchange score of a move that has NOT been made yet.  The exchange is played
+     * out on occupancy bitboards, so the board is never modified and nothing is allocated.  Unlike see(),
+     * promotions are scored by their material gain alone.
+     *
+     * @param b - the chess board, before the move is made
+     * @param m - the move to evaluate
+     *
+     * @return - the material gain of the exchange sequence, from the perspective of the moving side
+     */
+    public static int seeMove(Board b, Move m) {
+        return swap(b, m, -INFINITY, INFINITY);
+    }
+
+    /**
+     * Determine if the static exchange score of a move is at least <threshold>.  Unlike see(), the move
+     * should NOT already be applied.  The board is not modified.
+     *
+     * @param b - the chess board, before the move is made
+     * @param m - the move to evaluate
+     * @param threshold - the minimum acceptable score
+     *
+     * @return - true if the exchange sequence nets at least <threshold>
+     */
+    public static boolean seeAtLeast(Board b, Move m, int threshold) {
+        // the worst case is losing the capturing piece
+        if (m.captured() != null && valueOf(m.captured()) - valueOf(m.piece()) >= threshold) {
+            return true;
+        }
+
+        return swap(b, m, threshold-1, threshold) >= threshold;
+    }
+
+    /*
+     * Play out the exchange on the target square, least valuable attacker first.  Rather than building a
+     * swap list and minimaxing it afterwards, each side's option to stop capturing is folded into an
+     * (alpha,beta) window as we go, so a narrow window can stop as soon as the outcome is known.  The
+     * result is fail-hard: exact when it lies inside the window, otherwise the bound.
+     */
+    private static int swap(Board b, Move m, int alpha, int beta) {
+        if (m.isCastle()) {
+            return Math.max(alpha, Math.min(beta, 0));
+        }
+
+        int to = m.to().value();
+        int from = m.from().value();
+        long occupied = (b.getWhitePieces() | b.getBlackPieces()) ^ Bitboard.squares[from];
+        boolean moverIsWhite = b.getPlayerToMove() == Color.WHITE;
+
+        int balance = m.captured() == null ? 0 : valueOf(m.captured());
+        if (m.isEpCapture()) {
+            occupied ^= Bitboard.squares[moverIsWhite ? to + 8 : to - 8];
+        }
+
+        int onTarget = valueOf(m.piece());
+        if (m.promotion() != null) {
+            onTarget = valueOf(m.promotion());
+            balance += onTarget - PAWN_VAL;
+        }
+
+        long attackers = (AttackDetector.getAttackers(b, m.to(), Color.WHITE)
+                | AttackDetector.getAttackers(b, m.to(), Color.BLACK)) & occupied;
+        attackers = addXrays(b, to, from, occupied, attackers);
+        if (m.isEpCapture()) {
+            attackers = addXrays(b, to, moverIsWhite ? to + 8 : to - 8, occupied, attackers);
+        }
+
+        // the mover has captured; the opponent is next to decide
+        boolean moversTurn = false;
+
+        while (true) {
+            if (moversTurn) {
+                if (balance >= beta) return beta;
+                if (balance > alpha) alpha = balance;
+            } else {
+                if (balance <= alpha) return alpha;
+                if (balance < beta) beta = balance;
+            }
+
+            boolean whiteToCapture = moverIsWhite == moversTurn;
+            long myAttackers = attackers & (whiteToCapture ? b.getWhitePieces() : b.getBlackPieces());
+            long lvBB = leastValuable(b, myAttackers);
+            if (lvBB == 0) {
+                break;
+            }
+
+            // the king may only capture if the square is no longer defended
+            int lvVal = valueOn(b, lvBB);
+            if (lvVal == KING_VAL && (attackers & ~myAttackers) != 0) {
+                break;
+            }
+
+            balance = moversTurn ? balance + onTarget : balance - onTarget;
+            onTarget = lvVal;
+
+            occupied ^= lvBB;
+            attackers ^= lvBB;
+            attackers = addXrays(b, to, Bitboard.lsb(lvBB), occupied, attackers);
+
+            moversTurn = !moversTurn;
+        }
+
+        return moversTurn ? alpha : beta;
+    }
+
+    /*
+     * Once the piece on <vacated> has been removed, add any sliders that now see <target> through it.
+     */
+    private static long addXrays(Board b, int target, int vacated, long occupied, long attackers) {
+        long line = Bitboard.line[target][vacated];
+        if (line == 0) {
+            return attackers;
+        }
+
+        boolean orthogonal = (target & 7) == (vacated & 7) || (target >> 3) == (vacated >> 3);
+        long sliders = orthogonal
+                ? b.getWhiteRooks() | b.getBlackRooks() | b.getWhiteQueens() | b.getBlackQueens()
+                : b.getWhiteBishops() | b.getBlackBishops() | b.getWhiteQueens() | b.getBlackQueens();
+
+        long candidates = line & sliders & occupied & ~attackers & ~Bitboard.squares[target];
+        while (candidates != 0) {
+            int sq = Bitboard.lsb(candidates);
+            if ((Bitboard.between[target][sq] & occupied) == 0) {
+                attackers |= Bitboard.squares[sq];
+            }
+            candidates ^= Bitboard.squares[sq];
+        }
+
+        return attackers;
+    }
+
+    private static long leastValuable(Board b, long attackers) {
+        long bb;
+        if ((bb = attackers & (b.getWhitePawns() | b.getBlackPawns())) != 0) return bb & -bb;
+        if ((bb = attackers & (b.getWhiteKnights() | b.getBlackKnights())) != 0) return bb & -bb;
+        if ((bb = attackers & (b.getWhiteBishops() | b.getBlackBishops())) != 0) return bb & -bb;
+        if ((bb = attackers & (b.getWhiteRooks() | b.getBlackRooks())) != 0) return bb & -bb;
+        if ((bb = attackers & (b.getWhiteQueens() | b.getBlackQueens())) != 0) return bb & -bb;
+        return attackers & -attackers;
+    }
+
+    private static int valueOn(Board b, long bb) {
+        if ((bb & (b.getWhitePawns() | b.getBlackPawns())) != 0) return PAWN_VAL;
+        if ((bb & (b.getWhiteKnights() | b.getBlackKnights())) != 0) return KNIGHT_VAL;
+        if ((bb & (b.getWhiteBishops() | b.getBlackBishops())) != 0) return BISHOP_VAL;
+        if ((bb & (b.getWhiteRooks() | b.getBlackRooks())) != 0) return ROOK_VAL;
+        if ((bb & (b.getWhiteQueens() | b.getBlackQueens())) != 0) return QUEEN_VAL;
+        return KING_VAL;
+    }
+
+    private static int valueOf(Piece piece) {
+        if (piece == Queen.WHITE_QUEEN || piece == Queen.BLACK_QUEEN) return QUEEN_VAL;
+        if (piece == Rook.WHITE_ROOK || piece == Rook.BLACK_ROOK) return ROOK_VAL;
+        if (piece == Bishop.WHITE_BISHOP || piece == Bishop.BLACK_BISHOP) return BISHOP_VAL;
+        if (piece == Knight.WHITE_KNIGHT || piece == Knight.BLACK_KNIGHT) return KNIGHT_VAL;
+        if (piece == Pawn.WHITE_PAWN || piece == Pawn.BLACK_PAWN) return PAWN_VAL;
+        return KING_VAL;
+    }
+
     private static int scorePromotion(Move m) {
         int promoVal = pieceMap.get(m.promotion().getClass());
 
@@ -30,4 +30,6 @@ public interface Search {
 
     void setSkipTimeChecks(boolean skipTimeChecks);
 
+    void setStopTime(long stopTime);
+
 }
@@ -0,0 +1,59 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.eval.LazyEval;
+
+/**
+ * Switches for the optional search techniques.  These are global so they can be set from the command line,
+ * which makes it easy to measure the effect of each technique by switching it off.
+ *
+ * None of them are in the native search.  When assertions are enabled the Java search is checked against the
+ * native search node for node, so while it's being checked they are all bypassed, whatever they're set to.
+ */
+public final class SearchConfig {
+
+    private SearchConfig() {}
+
+    public static boolean historyOrdering = true;
+    public static boolean deferLosingCaptures = true;
+    public static boolean futilityPruning = true;
+    public static boolean reverseFutilityPruning = true;
+    public static boolean razoring = true;
+    public static boolean qsearchHashTable = true;
+    public static boolean extensions = true;
+    public static boolean internalIterativeDeepening = true;
+    public static boolean enhancedTranspositionCutoffs = true;
+    public static boolean qsearchChecks = true;
+    public static boolean lazyEval = true;
+
+    // internal iterative deepening is tried at PV nodes with no move to search first and at least this much
+    // depth remaining, with a search this many plies shallower
+    public static int iidMinDepth = 6;
+    public static int iidReduction = 2;
+
+    // the quiescence search skips the rest of the evaluation when material, pawns and the piece square
+    // tables miss the window by this much
+    public static int lazyEvalMargin = LazyEval.DEFAULT_MARGIN;
+
+    // enhanced transposition cutoffs are tried at nodes with at least this much depth remaining
+    public static int etcMinDepth = 3;
+
+    // the number of the opponent's replies to ponder at once.  more than one needs a core per reply.
+    public static int ponderReplies = 1;
+
+    // cap the node rate to be a better neighbor on a shared machine.  0 means no cap.
+    public static long maxNps = 0;
+
+    public static void enableAll(boolean enable) {
+        historyOrdering = enable;
+        deferLosingCaptures = enable;
+        futilityPruning = enable;
+        reverseFutilityPruning = enable;
+        razoring = enable;
+        qsearchHashTable = enable;
+        extensions = enable;
+        internalIterativeDeepening = enable;
+        enhancedTranspositionCutoffs = enable;
+        qsearchChecks = enable;
+        lazyEval = enable;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jamesswafford.chess4j.search;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an action when a search deadline arrives, so the search itself doesn't have to keep
+ * reading the clock.  A single daemon thread serves every search.
+ */
+public class SearchDeadlineService {
+
+    private static final SearchDeadlineService INSTANCE = new SearchDeadlineService();
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private SearchDeadlineService() {
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "search-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // searches usually finish or are stopped early; don't let cancelled deadlines pile up
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public static SearchDeadlineService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule an action to run at the given time.  If the time has already passed the action
+     * runs immediately.
+     *
+     * @param deadlineMs - the deadline, in milliseconds since the epoch
+     * @param action - the action to run
+     * @return - a handle that can be used to cancel the deadline
+     */
+    public ScheduledFuture<?> schedule(long deadlineMs, Runnable action) {
+        long delayMs = Math.max(0, deadlineMs - System.currentTimeMillis());
+        return executor.schedule(action, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -13,10 +13,22 @@ public interface SearchIterator {
 
     void setMaxTime(long maxTimeMs);
 
+    void setMaxNodes(long maxNodes);
+
     void setPost(boolean post);
 
+    void setMultiPv(int multiPv);
+
+    List<PvLine> getPvLines();
+
+    List<RootMove> getRootMoves();
+
     void setSkipTimeChecks(boolean skipTimeChecks);
 
+    void setTimeManager(TimeManager timeManager);
+
+    void ponderHit();
+
     CompletableFuture<List<Move>> findPvFuture(final Board board, final List<Undo> undos);
 
     boolean isStopped();
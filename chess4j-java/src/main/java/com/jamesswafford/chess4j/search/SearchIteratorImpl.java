@@ -1,9 +1,11 @@
 package com.jamesswafford.chess4j.search;
 
 import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.Globals;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.Move;
 import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.eval.EvalParameters;
 import com.jamesswafford.chess4j.hash.PawnTranspositionTable;
 import com.jamesswafford.chess4j.hash.TTHolder;
 import com.jamesswafford.chess4j.hash.TranspositionTable;
@@ -27,14 +29,26 @@ public class SearchIteratorImpl implements SearchIterator {
 
     private static final  Logger LOGGER = LogManager.getLogger(SearchIteratorImpl.class);
 
+    private static final int MAX_ROOT_MOVES_PRINTED = 5;
+
     static {
         Initializer.init();
     }
 
     private int maxDepth = 0;
     private long maxTimeMs = 0;
+    private long maxNodes = 0;
     private boolean post = true;
     private boolean earlyExitOk = true;
+    private int multiPv = 1;
+    private volatile List<PvLine> pvLines = Collections.emptyList();
+    private volatile List<RootMove> rootMoveStats = Collections.emptyList();
+    private volatile boolean skipTimeChecks = false;
+    private volatile TimeManager timeManager;
+
+    // the options of the search in progress, and the time its time budget is measured from
+    private volatile SearchOptions activeOpts;
+    private volatile long budgetStartTime;
 
     private MoveGenerator moveGenerator;
     private Search search;
@@ -54,16 +68,79 @@ public class SearchIteratorImpl implements SearchIterator {
         this.maxTimeMs = maxTimeMs;
     }
 
+    /**
+     * Stop the search once it has visited this many nodes, counted over all iterations.  Unlike a
+     * time limit this gives the same result every time on the same position.
+     */
+    @Override
+    public void setMaxNodes(long maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
     @Override
     public void setPost(boolean post) {
         this.post = post;
     }
 
+    /**
+     * Search the best multiPv lines rather than just the best one.  The lines after the first are
+     * found by searching again with the root moves of the lines already found excluded.
+     */
+    @Override
+    public void setMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+    }
+
+    /**
+     * @return the lines found by the last completed iteration, best first
+     */
+    @Override
+    public List<PvLine> getPvLines() {
+        return pvLines;
+    }
+
+    /**
+     * @return the root moves as of the last completed iteration, in the order the next iteration would
+     * search them
+     */
+    @Override
+    public List<RootMove> getRootMoves() {
+        return rootMoveStats;
+    }
+
     @Override
     public void setSkipTimeChecks(boolean skipTimeChecks) {
+        this.skipTimeChecks = skipTimeChecks;
         search.setSkipTimeChecks(skipTimeChecks);
     }
 
+    /**
+     * Set the time manager used to budget searches when no fixed search time has been set.
+     */
+    @Override
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    /**
+     * Convert a running ponder search into a normal timed search.  The search keeps the iterations
+     * it has completed, but its time budget starts over from now.
+     */
+    @Override
+    public void ponderHit() {
+        long now = System.currentTimeMillis();
+        budgetStartTime = now;
+        SearchOptions opts = activeOpts;
+        if (opts != null) {
+            long hardLimitMs = getHardLimitMs();
+            long stopTime = hardLimitMs > 0 ? now + hardLimitMs : 0;
+            LOGGER.debug("# ponder hit, hard limit: {} ms", hardLimitMs);
+            opts.setStopTime(stopTime);
+            search.setStopTime(stopTime);
+        }
+        setSkipTimeChecks(false);
+    }
+
     public void setEarlyExitOk(boolean earlyExitOk) {
         this.earlyExitOk = earlyExitOk;
     }
@@ -106,6 +183,8 @@ public class SearchIteratorImpl implements SearchIterator {
      */
     private List<Move> findPrincipalVariation(Board board, final List<Undo> undos) {
 
+        pvLines = Collections.emptyList();
+        rootMoveStats = Collections.emptyList();
         List<Move> moves = moveGenerator.generateLegalMoves(board);
         LOGGER.debug("# position has " + moves.size() + " move(s)");
         if (earlyExitOk && moves.size()==1) {
@@ -115,10 +194,16 @@ public class SearchIteratorImpl implements SearchIterator {
         // initialize the PV to ensure we have a valid move to play
         moves.sort(Comparator.comparingInt(MVVLVA::score).reversed());
         List<Move> pv = Collections.singletonList(moves.get(0));
+        RootMoves rootMoves = new RootMoves(moves);
 
         // create a callback to print the PV when it changes
         long startTime = System.currentTimeMillis();
-        SearchOptions opts = SearchOptions.builder().startTime(startTime).build();
+        SearchOptions opts = SearchOptions.builder()
+                .startTime(startTime)
+                .maxNodes(maxNodes)
+                .maxNps(SearchConfig.maxNps)
+                .rootMoves(rootMoves)
+                .build();
         Consumer<PvCallbackDTO> rootPvCallback = pvUpdate -> {
             if (pvUpdate.ply == 0) {
                 PrintLine.printLine(false, pvUpdate.pv, pvUpdate.depth, pvUpdate.score, pvUpdate.elapsedMS,
@@ -128,30 +213,27 @@ public class SearchIteratorImpl implements SearchIterator {
         if (post) {
             opts.setPvCallback(rootPvCallback);
         }
-        int depth = 0, score;
+        int depth = 0, score = 0;
         search.initialize();
 
-        if (maxTimeMs > 0) {
-            opts.setStopTime(opts.getStartTime() + maxTimeMs);
-            opts.setNodesBetweenTimeChecks(50000);
-            // if we're getting low on time, check more often
-            if (maxTimeMs < 10000) {
-                opts.setNodesBetweenTimeChecks(opts.getNodesBetweenTimeChecks() / 10);
-            }
-            if (maxTimeMs < 1000) {
-                opts.setNodesBetweenTimeChecks(opts.getNodesBetweenTimeChecks() / 10);
-            }
+        long hardLimitMs = getHardLimitMs();
+        if (isManagingTime()) {
+            timeManager.startSearch();
+            LOGGER.debug("# time manager soft limit: {} ms, hard limit: {} ms",
+                    timeManager.getSoftLimitMs(), hardLimitMs);
+        }
+
+        if (hardLimitMs > 0) {
+            opts.setStopTime(opts.getStartTime() + hardLimitMs);
         }
+        budgetStartTime = startTime;
+        activeOpts = opts;
 
         boolean stopSearching = false;
         do {
             ++depth;
 
-            int alphaBound = -INFINITY;
-            int betaBound = INFINITY;
-
-            SearchParameters parameters = new SearchParameters(depth, alphaBound, betaBound);
-            score = search.search(board, undos, parameters, opts);
+            score = searchToDepth(board, undos, depth, score, opts);
 
             // the search may or may not have a PV.  If it does, we can use it since the
             // last iteration's PV was tried first
@@ -164,11 +246,25 @@ public class SearchIteratorImpl implements SearchIterator {
                 break;
             }
 
+            long elapsed = System.currentTimeMillis() - startTime;
             if (post) {
-                long elapsed = System.currentTimeMillis() - startTime;
                 PrintLine.printLine(true, pv, depth, score, elapsed, search.getSearchStats().nodes);
             }
 
+            PvLine bestLine = new PvLine(depth, score, pv);
+            if (multiPv > 1) {
+                List<PvLine> lines = searchSecondaryLines(board, undos, bestLine, opts, moves.size());
+                if (search.isStopped()) {
+                    break;
+                }
+                pvLines = lines;
+            } else {
+                pvLines = Collections.singletonList(bestLine);
+            }
+
+            rootMoves.sort(pv.get(0));
+            rootMoveStats = rootMoves.snapshot();
+
             // if this is a mate, stop here
             if (Math.abs(score) > CHECKMATE-500) {
                 LOGGER.debug("# stopping iterative search because mate found");
@@ -186,10 +282,23 @@ public class SearchIteratorImpl implements SearchIterator {
                 stopSearching = true;
             }
 
+            // don't start another iteration we are unlikely to have time for.  (a ponder search may be
+            // handed a time manager part way through, so check for one each time)
+            if (isManagingTime()) {
+                timeManager.iterationComplete(pv.get(0), score, rootMoves.getNodeShare(pv.get(0)));
+                long budgetElapsed = System.currentTimeMillis() - budgetStartTime;
+                if (!skipTimeChecks && !timeManager.continueIterating(budgetElapsed)) {
+                    LOGGER.debug("# stopping iterative search on time");
+                    stopSearching = true;
+                }
+            }
+
         } while (!stopSearching);
+        activeOpts = null;
 
         if (post) {
             printSearchSummary(depth, startTime, search.getSearchStats());
+            printRootMoves(rootMoves);
         }
 
         assert(pv.size() > 0);
@@ -197,14 +306,100 @@ public class SearchIteratorImpl implements SearchIterator {
 
         // if we are running with assertions enabled and the native library is loaded, verify equality
         // we can only do this for fixed depth searches that have not been interrupted.
-        assert(maxTimeMs > 0 || search.isStopped() || iterationsAreEqual(pv, board));
+        assert(hardLimitMs > 0 || search.isStopped() || iterationsAreEqual(pv, board));
 
         return pv;
     }
 
+    /**
+     * Search the position to the given depth.  This is a single full width search; other drivers may
+     * search differently.
+     *
+     * @param prevScore - the score of the previous iteration, or 0 before the first
+     *
+     * @return the score.  The search's PV is the line to play, if it has one.
+     */
+    protected int searchToDepth(Board board, List<Undo> undos, int depth, int prevScore, SearchOptions opts) {
+        return search.search(board, undos, new SearchParameters(depth, -INFINITY, INFINITY), opts);
+    }
+
+    protected Search getSearch() {
+        return search;
+    }
+
+    /**
+     * Find the lines after the best one at the depth just completed.  Each line is searched with the root
+     * moves of the lines before it excluded.  The transposition table entries from the earlier lines are
+     * still good, and since a line can't score better than the one before it, that score bounds the
+     * window.
+     */
+    private List<PvLine> searchSecondaryLines(Board board, List<Undo> undos, PvLine bestLine, SearchOptions opts,
+                                              int numRootMoves) {
+        List<PvLine> lines = new ArrayList<>();
+        lines.add(bestLine);
+        List<Move> excludedRootMoves = new ArrayList<>();
+        excludedRootMoves.add(bestLine.getPv().get(0));
+
+        // the root PV updates of the secondary lines would look like the best line getting worse
+        Consumer<PvCallbackDTO> pvCallback = opts.getPvCallback();
+        opts.setPvCallback(null);
+        opts.setExcludedRootMoves(excludedRootMoves);
+
+        int depth = bestLine.getDepth();
+        while (lines.size() < Math.min(multiPv, numRootMoves)) {
+            int bound = lines.get(lines.size()-1).getScore() + 1;
+            int score = search.search(board, undos, new SearchParameters(depth, -INFINITY, bound), opts);
+            if (!search.isStopped() && score >= bound) {
+                // the search isn't perfectly consistent; widen the window and try again
+                score = search.search(board, undos, new SearchParameters(depth, -INFINITY, INFINITY), opts);
+            }
+            if (search.isStopped() || search.getPv().isEmpty()) {
+                break;
+            }
+
+            PvLine line = new PvLine(depth, score, new ArrayList<>(search.getPv()));
+            lines.add(line);
+            excludedRootMoves.add(line.getPv().get(0));
+
+            if (post) {
+                long elapsed = System.currentTimeMillis() - opts.getStartTime();
+                PrintLine.printLine(true, line.getPv(), depth, score, elapsed, search.getSearchStats().nodes);
+            }
+        }
+
+        opts.setPvCallback(pvCallback);
+        opts.setExcludedRootMoves(null);
+
+        return lines;
+    }
+
+    // an explicit search time takes precedence over the time manager
+    private boolean isManagingTime() {
+        return maxTimeMs == 0 && timeManager != null && timeManager.hasTimeLimit();
+    }
+
+    private long getHardLimitMs() {
+        if (maxTimeMs > 0) {
+            return maxTimeMs;
+        }
+        if (timeManager != null && timeManager.hasTimeLimit()) {
+            return timeManager.getHardLimitMs();
+        }
+        return 0;
+    }
+
+    /**
+     * @return true if a completed search can be checked against the native iterator, which searches each depth
+     * once with a full window, has no limit but the depth, and evaluates with the default hand written weights
+     */
+    protected boolean canCompareWithNative() {
+        return maxNodes == 0 && SearchConfig.maxNps == 0 && !Globals.getNnueNetwork().isPresent()
+                && EvalParameters.isDefault();
+    }
+
     private boolean iterationsAreEqual(List<Move> javaPV, Board board) {
 
-        if (Initializer.nativeCodeInitialized()) {
+        if (Initializer.nativeCodeInitialized() && canCompareWithNative()) {
 
             LOGGER.debug("# checking iteration equality with native");
             List<Move> nativePV = findPrincipalVariationNative(board);
@@ -225,7 +420,7 @@ public class SearchIteratorImpl implements SearchIterator {
             }
 
         } else {
-            // native library not loaded
+            // native library not loaded, or the search isn't comparable
             return true;
         }
     }
@@ -242,7 +437,7 @@ public class SearchIteratorImpl implements SearchIterator {
         }
     }
 
-    private void printSearchSummary(int lastDepth, long startTime, SearchStats stats) {
+    protected void printSearchSummary(int lastDepth, long startTime, SearchStats stats) {
         DecimalFormat df = new DecimalFormat("0.00");
         DecimalFormat df2 = new DecimalFormat("#,###,##0");
 
@@ -271,9 +466,12 @@ public class SearchIteratorImpl implements SearchIterator {
                 + ", hits: " + df2.format(hashHits) + " (" + df.format(hashHitPct) + "%)"
                 + ", collisions: " + df2.format(hashCollisions) + " (" + df.format(hashCollisionPct) + "%)");
 
-        double hashFailHighPct = stats.hashFailHighs / (hashProbes/100.0);
-        double hashFailLowPct = stats.hashFailLows / (hashProbes/100.0);
-        double hashExactScorePct = stats.hashExactScores / (hashProbes/100.0);
+        // the table's probe count covers both searches and the enhanced transposition cutoff probes; the
+        // quiescence search and enhanced transposition cutoffs keep their own counts
+        long fullWidthProbes = hashProbes - stats.qsearchHashProbes - stats.etcProbes;
+        double hashFailHighPct = stats.hashFailHighs / (fullWidthProbes/100.0);
+        double hashFailLowPct = stats.hashFailLows / (fullWidthProbes/100.0);
+        double hashExactScorePct = stats.hashExactScores / (fullWidthProbes/100.0);
         LOGGER.info("# hash fail highs: " + df2.format(stats.hashFailHighs)
                 + " (" + df.format(hashFailHighPct) + "%)"
                 + ", hash fail lows: " + df2.format(stats.hashFailLows)
@@ -281,6 +479,28 @@ public class SearchIteratorImpl implements SearchIterator {
                 + ", hash exact scores: " + df2.format(stats.hashExactScores)
                 + " (" + df.format(hashExactScorePct) + "%)");
 
+        double qHashHitPct = stats.qsearchHashHits / (stats.qsearchHashProbes/100.0);
+        LOGGER.info("# qsearch hash probes: " + df2.format(stats.qsearchHashProbes)
+                + ", hits: " + df2.format(stats.qsearchHashHits) + " (" + df.format(qHashHitPct) + "%)"
+                + ", fail highs: " + df2.format(stats.qsearchHashFailHighs)
+                + ", fail lows: " + df2.format(stats.qsearchHashFailLows)
+                + ", exact scores: " + df2.format(stats.qsearchHashExactScores));
+
+        LOGGER.info("# qsearch SEE prunes: " + df2.format(stats.seePrunes)
+                + ", quiet checks: " + df2.format(stats.qsearchChecks));
+        double lazyEvalPct = stats.lazyEvals / (Math.max(1, stats.qsearchEvals)/100.0);
+        LOGGER.info("# qsearch evals: " + df2.format(stats.qsearchEvals)
+                + ", lazy: " + df2.format(stats.lazyEvals) + " (" + df.format(lazyEvalPct) + "%)");
+        LOGGER.info("# futility prunes: " + df2.format(stats.futilityPrunes)
+                + ", reverse futility prunes: " + df2.format(stats.reverseFutilityPrunes)
+                + ", razor prunes: " + df2.format(stats.razorPrunes));
+        LOGGER.info("# check extensions: " + df2.format(stats.checkExtensions)
+                + ", promotion extensions: " + df2.format(stats.promotionExtensions));
+        LOGGER.info("# iid searches: " + df2.format(stats.iidSearches)
+                + ", moves found: " + df2.format(stats.iidMoves));
+        LOGGER.info("# etc probes: " + df2.format(stats.etcProbes)
+                + ", cutoffs: " + df2.format(stats.etcCutoffs));
+
         PawnTranspositionTable pawnTbl = TTHolder.getInstance().getPawnHashTable();
         long pawnHashHits = pawnTbl.getNumHits();
         long pawnHashProbes = pawnTbl.getNumProbes();
@@ -293,6 +513,21 @@ public class SearchIteratorImpl implements SearchIterator {
                 + ", collisions: " + df2.format(pawnHashCollisions) + " (" + df.format(pawnHashCollisionPct) + "%)");
     }
 
+    private void printRootMoves(RootMoves rootMoves) {
+        DecimalFormat df = new DecimalFormat("0.0");
+        long totalNodes = rootMoves.getTotalNodes();
+        if (totalNodes == 0) {
+            return;
+        }
+
+        StringBuilder s = new StringBuilder("# root moves (share of nodes):");
+        for (RootMove rootMove : rootMoves.snapshot().subList(0, Math.min(MAX_ROOT_MOVES_PRINTED, rootMoves.size()))) {
+            s.append(" ").append(rootMove.getMove()).append(" ")
+                    .append(df.format(rootMove.getNodes() / (totalNodes/100.0))).append("%");
+        }
+        LOGGER.info(s.toString());
+    }
+
         private native void iterateNative(Board board, int maxDepth, List<Long> pv);
 
 }
@@ -1,8 +1,10 @@
 package com.jamesswafford.chess4j.search;
 
+import com.jamesswafford.chess4j.board.Move;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 @Builder
@@ -11,9 +13,11 @@ public class SearchOptions {
 
     private Consumer<PvCallbackDTO> pvCallback;
     private long startTime;
-    private long stopTime;
-    private long nodesBetweenTimeChecks;
-    private long nodeCountLastTimeCheck;
+    private volatile long stopTime; // may be moved by a ponder hit while the search is running
     private boolean avoidNative;
+    private List<Move> excludedRootMoves; // for multi-PV searches; root moves that head a line already found
+    private RootMoves rootMoves; // the root moves kept across iterations, which order the root from the second on
+    private long maxNodes; // stop once this many nodes (including quiescence nodes) have been visited, or 0 for no limit
+    private long maxNps; // don't search faster than this many nodes per second, or 0 for no limit
 
 }
@@ -10,6 +10,15 @@ public class SearchStats {
     public long nodes, qnodes;
     public long failHighs, failLows, draws;
     public long hashFailHighs, hashFailLows, hashExactScores;
+    public long qsearchHashProbes, qsearchHashHits;
+    public long qsearchHashFailHighs, qsearchHashFailLows, qsearchHashExactScores;
+    public long seePrunes;
+    public long qsearchChecks;
+    public long qsearchEvals, lazyEvals;
+    public long futilityPrunes, reverseFutilityPrunes, razorPrunes;
+    public long checkExtensions, promotionExtensions;
+    public long iidSearches, iidMoves;
+    public long etcProbes, etcCutoffs;
 
     public SearchStats() {
         initialize();
@@ -28,6 +37,24 @@ public class SearchStats {
         hashFailHighs = 0;
         hashFailLows = 0;
         hashExactScores = 0;
+        qsearchHashProbes = 0;
+        qsearchHashHits = 0;
+        qsearchHashFailHighs = 0;
+        qsearchHashFailLows = 0;
+        qsearchHashExactScores = 0;
+        seePrunes = 0;
+        qsearchChecks = 0;
+        qsearchEvals = 0;
+        lazyEvals = 0;
+        futilityPrunes = 0;
+        reverseFutilityPrunes = 0;
+        razorPrunes = 0;
+        checkExtensions = 0;
+        promotionExtensions = 0;
+        iidSearches = 0;
+        iidMoves = 0;
+        etcProbes = 0;
+        etcCutoffs = 0;
     }
 
     void set(SearchStats searchStats) {
@@ -39,6 +66,24 @@ public class SearchStats {
         this.hashFailHighs = searchStats.hashFailHighs;
         this.hashFailLows = searchStats.hashFailLows;
         this.hashExactScores = searchStats.hashExactScores;
+        this.qsearchHashProbes = searchStats.qsearchHashProbes;
+        this.qsearchHashHits = searchStats.qsearchHashHits;
+        this.qsearchHashFailHighs = searchStats.qsearchHashFailHighs;
+        this.qsearchHashFailLows = searchStats.qsearchHashFailLows;
+        this.qsearchHashExactScores = searchStats.qsearchHashExactScores;
+        this.seePrunes = searchStats.seePrunes;
+        this.qsearchChecks = searchStats.qsearchChecks;
+        this.qsearchEvals = searchStats.qsearchEvals;
+        this.lazyEvals = searchStats.lazyEvals;
+        this.futilityPrunes = searchStats.futilityPrunes;
+        this.reverseFutilityPrunes = searchStats.reverseFutilityPrunes;
+        this.razorPrunes = searchStats.razorPrunes;
+        this.checkExtensions = searchStats.checkExtensions;
+        this.promotionExtensions = searchStats.promotionExtensions;
+        this.iidSearches = searchStats.iidSearches;
+        this.iidMoves = searchStats.iidMoves;
+        this.etcProbes = searchStats.etcProbes;
+        this.etcCutoffs = searchStats.etcCutoffs;
     }
 
 }
@@ -0,0 +1,272 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.eval.Eval;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.movegen.MoveGenerator;
+import com.jamesswafford.chess4j.utils.GameStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.text.DecimalFormat;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static com.jamesswafford.chess4j.Constants.INFINITY;
+import static com.jamesswafford.chess4j.utils.GameStatusChecker.getGameStatus;
+
+/**
+ * Ponders several of the opponent's likely replies at once, each in its own search.  The searches
+ * share the transposition table, which is the native search's table when the native library is loaded,
+ * but each has its own evaluator and killer moves, and none of them uses the native search itself.
+ *
+ * When the opponent moves, the search pondering that move (if any) carries on as a normal timed
+ * search and the others are cancelled.
+ */
+public class SpeculativePonderer {
+
+    private static final Logger LOGGER = LogManager.getLogger(SpeculativePonderer.class);
+
+    // depth of the search used to rank the replies, below the reply itself
+    public static final int RANKING_DEPTH = 2;
+
+    private final int maxReplies;
+    private final Supplier<SearchIterator> iteratorFactory;
+    private final MoveGenerator moveGenerator;
+    private final Search rankingSearch;
+
+    private final List<SearchIterator> iterators = new ArrayList<>();
+    private final List<Move> ponderMoves = new ArrayList<>();
+    private final List<CompletableFuture<List<Move>>> ponderFutures = new ArrayList<>();
+    private SearchIterator activeIterator;
+    private long ponderStartTime;
+    private int maxDepth;
+
+    private int numPonders;
+    private int numPonderHits;
+    private long totalTimeSavedMs;
+
+    public SpeculativePonderer(int maxReplies) {
+        this(maxReplies, SpeculativePonderer::createIterator);
+    }
+
+    public SpeculativePonderer(int maxReplies, Supplier<SearchIterator> iteratorFactory) {
+        assert(maxReplies > 0);
+        this.maxReplies = maxReplies;
+        this.iteratorFactory = iteratorFactory;
+        this.moveGenerator = new MagicBitboardMoveGenerator();
+        this.rankingSearch = createSearch();
+    }
+
+    private static Search createSearch() {
+        AlphaBetaSearch search = new AlphaBetaSearch();
+        search.setEvaluator(Eval.createThreadEvaluator());
+        search.setKillerMovesStore(new KillerMoves());
+        search.setAvoidNative(true); // the native search would be stopped for every reply
+        return search;
+    }
+
+    private static SearchIterator createIterator() {
+        SearchIteratorImpl searchIterator = new SearchIteratorImpl() {
+            // the searches are all Java
+            @Override
+            protected boolean canCompareWithNative() {
+                return false;
+            }
+        };
+        searchIterator.setSearch(createSearch());
+        searchIterator.setPost(false);
+        return searchIterator;
+    }
+
+    public int getMaxReplies() {
+        return maxReplies;
+    }
+
+    public int getNumPonders() {
+        return numPonders;
+    }
+
+    public int getNumPonderHits() {
+        return numPonderHits;
+    }
+
+    public long getTotalTimeSavedMs() {
+        return totalTimeSavedMs;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Rank the replies available in a position with a short search, most likely first.
+     *
+     * @param board - the position after the engine's move
+     * @param undos - the game history
+     * @param predicted - the reply from the engine's PV, which is always ranked first
+     *
+     * @return the (at most maxReplies) replies to ponder
+     */
+    public List<Move> rankReplies(Board board, List<Undo> undos, Move predicted) {
+        List<Move> replies = moveGenerator.generateLegalMoves(board);
+        Map<Move, Integer> scores = new HashMap<>();
+
+        boolean ponderPredicted = false;
+        for (Move reply : replies) {
+            Board replyBoard = board.deepCopy();
+            List<Undo> replyUndos = new ArrayList<>(undos);
+            replyUndos.add(replyBoard.applyMove(reply));
+            if (getGameStatus(replyBoard, replyUndos) != GameStatus.INPROGRESS) {
+                continue;
+            }
+            if (reply.equals(predicted)) {
+                ponderPredicted = true;
+                continue;
+            }
+
+            // scores are from the engine's point of view, so the opponent prefers the lowest
+            rankingSearch.initialize();
+            int score = rankingSearch.search(replyBoard, replyUndos,
+                    new SearchParameters(RANKING_DEPTH, -INFINITY, INFINITY));
+            scores.put(reply, score);
+        }
+
+        List<Move> ranked = new ArrayList<>(scores.keySet());
+        ranked.sort(Comparator.comparingInt(scores::get));
+        if (ponderPredicted) {
+            ranked.add(0, predicted);
+        }
+
+        return ranked.subList(0, Math.min(maxReplies, ranked.size()));
+    }
+
+    /**
+     * Start pondering the most likely replies.
+     *
+     * @param board - the position after the engine's move
+     * @param undos - the game history
+     * @param predicted - the reply from the engine's PV
+     *
+     * @return the replies being pondered
+     */
+    public synchronized List<Move> start(Board board, List<Undo> undos, Move predicted) {
+        stop();
+        return start(board, undos, rankReplies(board, undos, predicted));
+    }
+
+    /**
+     * Start pondering replies already ranked by {@link #rankReplies}.
+     *
+     * @param board - the position after the engine's move
+     * @param undos - the game history
+     * @param replies - the replies to ponder
+     *
+     * @return the replies being pondered
+     */
+    public synchronized List<Move> start(Board board, List<Undo> undos, List<Move> replies) {
+        stop();
+
+        LOGGER.debug("# pondering replies: {}", replies);
+
+        ponderStartTime = System.currentTimeMillis();
+        for (int i=0;i<replies.size();i++) {
+            if (iterators.size() <= i) {
+                iterators.add(iteratorFactory.get());
+            }
+            SearchIterator searchIterator = iterators.get(i);
+            searchIterator.setMaxDepth(maxDepth);
+            searchIterator.setTimeManager(null);
+            searchIterator.setSkipTimeChecks(true);
+            searchIterator.unstop();
+
+            Board ponderBoard = board.deepCopy();
+            List<Undo> ponderUndos = new ArrayList<>(undos);
+            ponderUndos.add(ponderBoard.applyMove(replies.get(i)));
+
+            ponderMoves.add(replies.get(i));
+            ponderFutures.add(searchIterator.findPvFuture(ponderBoard, ponderUndos));
+        }
+        if (!replies.isEmpty()) {
+            numPonders++;
+        }
+
+        return Collections.unmodifiableList(replies);
+    }
+
+    public synchronized boolean isPondering(Move move) {
+        return ponderMoves.contains(move);
+    }
+
+    /**
+     * The opponent has moved.  If the move is being pondered, keep that search going as a normal
+     * timed search and cancel the others.  Otherwise cancel them all.
+     *
+     * @param move - the move played by the opponent
+     * @param timeManager - the time manager to budget the remaining search with
+     *
+     * @return the search of the move played, if it was being pondered
+     */
+    public synchronized Optional<CompletableFuture<List<Move>>> ponderHit(Move move, TimeManager timeManager) {
+        int index = ponderMoves.indexOf(move);
+        long ponderTimeMs = System.currentTimeMillis() - ponderStartTime;
+
+        for (int i=0;i<ponderMoves.size();i++) {
+            if (i != index) {
+                iterators.get(i).stop();
+            }
+        }
+        for (int i=0;i<ponderMoves.size();i++) {
+            if (i != index) {
+                ponderFutures.get(i).join();
+            }
+        }
+
+        CompletableFuture<List<Move>> future = null;
+        if (index >= 0) {
+            numPonderHits++;
+            totalTimeSavedMs += ponderTimeMs;
+
+            activeIterator = iterators.get(index);
+            if (timeManager != null) {
+                timeManager.startSearch();
+                activeIterator.setTimeManager(timeManager);
+            }
+            activeIterator.ponderHit();
+            future = ponderFutures.get(index);
+        }
+        ponderMoves.clear();
+        ponderFutures.clear();
+
+        logStats(index >= 0 ? ponderTimeMs : 0);
+
+        return Optional.ofNullable(future);
+    }
+
+    /**
+     * Stop all searches, including one that has been converted by a ponder hit.
+     */
+    public synchronized void stop() {
+        if (activeIterator != null) {
+            activeIterator.stop();
+            activeIterator = null;
+        }
+        for (int i=0;i<ponderMoves.size();i++) {
+            iterators.get(i).stop();
+        }
+        ponderFutures.forEach(CompletableFuture::join);
+        ponderMoves.clear();
+        ponderFutures.clear();
+    }
+
+    private void logStats(long timeSavedMs) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        double hitPct = numPonderHits / (numPonders/100.0);
+        long avgTimeSavedMs = numPonderHits > 0 ? totalTimeSavedMs / numPonderHits : 0;
+        LOGGER.info("# ponder hits: " + numPonderHits + " of " + numPonders + " (" + df.format(hitPct) + "%)"
+                + ", time saved: " + timeSavedMs + " ms, average per hit: " + avgTimeSavedMs + " ms");
+    }
+}
@@ -0,0 +1,220 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.utils.TimeUtils;
+
+/**
+ * Decides how long to think about a move.
+ *
+ * The manager produces two limits.  The soft limit is the time we would like to spend; the iterator
+ * will not start another iteration once it has been used up.  The hard limit is the point at which a
+ * running iteration is interrupted.  Between iterations the soft limit is stretched when the best move
+ * keeps changing or the score is falling, and shrunk when the same move has been best for a while.
+ */
+public class TimeManager {
+
+    public static final long OVERHEAD_MS = 100;
+
+    // the hard limit is never more than this multiple of the soft limit
+    public static final int MAX_EXTENSION_FACTOR = 4;
+
+    // and never more than this share of the remaining time
+    public static final int MAX_REMAINING_SHARE = 3;
+
+    public static final int SCORE_DROP_MARGIN = 30;
+    public static final int BIG_SCORE_DROP_MARGIN = 100;
+    public static final int EASY_MOVE_ITERATIONS = 6;
+
+    // the share of the root nodes spent on the best move, below which the alternatives are proving hard
+    // to refute and above which the best move looks easy
+    public static final double LOW_NODE_SHARE = 0.5;
+    public static final double HIGH_NODE_SHARE = 0.9;
+
+    private int movesPerControl;
+    private int incrementMs;
+    private long fixedTimeMs;
+    private long remainingTimeMs;
+    private int moveCounter;
+
+    // per search state
+    private Move lastBestMove;
+    private int lastScore;
+    private int iterations;
+    private int stableIterations;
+    private double instability;
+    private int scoreDrop;
+    private double bestMoveNodeShare;
+
+    /**
+     * Set a conventional time control.  A value of 0 for movesPerControl means the whole game is
+     * played on the clock (sudden death, possibly with an increment).
+     */
+    public void setLevel(int movesPerControl, int incrementMs) {
+        this.movesPerControl = movesPerControl;
+        this.incrementMs = incrementMs;
+        this.fixedTimeMs = 0;
+    }
+
+    /**
+     * Use (at most) a fixed amount of time per move.
+     */
+    public void setFixedTime(long fixedTimeMs) {
+        this.fixedTimeMs = fixedTimeMs;
+    }
+
+    public void setRemainingTime(long remainingTimeMs) {
+        this.remainingTimeMs = Math.max(0, remainingTimeMs);
+    }
+
+    /**
+     * @param moveCounter - the number of half moves played in the game, used to work out
+     *                    how many moves remain until the next time control.
+     */
+    public void setMoveCounter(int moveCounter) {
+        this.moveCounter = moveCounter;
+    }
+
+    public boolean isFixedTime() {
+        return fixedTimeMs > 0;
+    }
+
+    /**
+     * @return true if there is a fixed time per move or a clock to manage
+     */
+    public boolean hasTimeLimit() {
+        return fixedTimeMs > 0 || remainingTimeMs > 0;
+    }
+
+    /**
+     * @return the number of moves to make before the next time control, or 0 if there is none
+     */
+    public int getMovesToGo() {
+        if (movesPerControl <= 0) {
+            return 0;
+        }
+        return movesPerControl - ((moveCounter / 2) % movesPerControl);
+    }
+
+    public long getSoftLimitMs() {
+        if (fixedTimeMs > 0) {
+            return getHardLimitMs();
+        }
+
+        long softLimit;
+        int movesToGo = getMovesToGo();
+        if (movesToGo > 0) {
+            // keep a move in reserve so we never arrive at the time control with an empty clock
+            softLimit = remainingTimeMs / (movesToGo + 1) + adjustedIncrement();
+        } else {
+            softLimit = TimeUtils.getSearchTime((int) remainingTimeMs, incrementMs);
+        }
+
+        return Math.max(1, Math.min(softLimit, maxUsableMs()));
+    }
+
+    public long getHardLimitMs() {
+        if (fixedTimeMs > 0) {
+            // the clock still wins if it says we have less time than the fixed time per move
+            return remainingTimeMs > 0 ? Math.max(1, Math.min(fixedTimeMs, maxUsableMs())) : fixedTimeMs;
+        }
+
+        long softLimit = getSoftLimitMs();
+        long hardLimit = Math.min(softLimit * MAX_EXTENSION_FACTOR, maxUsableMs() / MAX_REMAINING_SHARE);
+        return Math.max(softLimit, hardLimit);
+    }
+
+    /**
+     * Reset the per search state.  Should be called when a new search begins.
+     */
+    public void startSearch() {
+        lastBestMove = null;
+        lastScore = 0;
+        iterations = 0;
+        stableIterations = 0;
+        instability = 0.0;
+        scoreDrop = 0;
+        bestMoveNodeShare = -1;
+    }
+
+    /**
+     * Record the result of a completed iteration.
+     */
+    public void iterationComplete(Move bestMove, int score) {
+        iterationComplete(bestMove, score, -1);
+    }
+
+    /**
+     * Record the result of a completed iteration.
+     *
+     * @param bestMoveNodeShare - the share of the iteration's root nodes spent on the best move, or -1 if
+     *                          not known
+     */
+    public void iterationComplete(Move bestMove, int score, double bestMoveNodeShare) {
+        this.bestMoveNodeShare = bestMoveNodeShare;
+        iterations++;
+        instability /= 2;
+        if (lastBestMove == null || bestMove.equals(lastBestMove)) {
+            stableIterations++;
+        } else {
+            instability += 1.0;
+            stableIterations = 0;
+        }
+        scoreDrop = iterations > 1 ? lastScore - score : 0;
+        lastBestMove = bestMove;
+        lastScore = score;
+    }
+
+    /**
+     * The soft limit scaled by what has been learned from the iterations completed so far.
+     */
+    public long getAdjustedSoftLimitMs() {
+        long softLimit = getSoftLimitMs();
+        if (fixedTimeMs > 0) {
+            return softLimit;
+        }
+
+        double factor = 1.0 + instability / 2;
+
+        if (scoreDrop >= BIG_SCORE_DROP_MARGIN) {
+            factor *= 2.0;
+        } else if (scoreDrop >= SCORE_DROP_MARGIN) {
+            factor *= 1.5;
+        }
+
+        if (stableIterations >= EASY_MOVE_ITERATIONS && scoreDrop <= 0) {
+            factor /= 2;
+        }
+
+        if (bestMoveNodeShare >= 0) {
+            if (bestMoveNodeShare < LOW_NODE_SHARE) {
+                factor *= 1.25;
+            } else if (bestMoveNodeShare >= HIGH_NODE_SHARE && scoreDrop <= 0) {
+                factor *= 0.75;
+            }
+        }
+
+        return Math.min((long)(softLimit * factor), getHardLimitMs());
+    }
+
+    /**
+     * Decide if another iteration should be started.
+     *
+     * @param elapsedMs - the time spent on the search so far
+     */
+    public boolean continueIterating(long elapsedMs) {
+        if (fixedTimeMs > 0) {
+            return elapsedMs < getHardLimitMs();
+        }
+        return elapsedMs < getAdjustedSoftLimitMs();
+    }
+
+    private long maxUsableMs() {
+        return Math.max(1, remainingTimeMs - OVERHEAD_MS);
+    }
+
+    // if we have an increment, keep a small margin to avoid time losses
+    private int adjustedIncrement() {
+        return TimeUtils.getSearchTime(0, incrementMs);
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.jamesswafford.chess4j.tuner;
+
+import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.eval.Eval;
+import com.jamesswafford.chess4j.eval.EvalFeatures;
+import com.jamesswafford.chess4j.eval.EvalParameters;
+import com.jamesswafford.chess4j.exceptions.ParseException;
+import com.jamesswafford.chess4j.io.EPDOperation;
+import com.jamesswafford.chess4j.io.EPDParser;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.search.MVVLVA;
+import com.jamesswafford.chess4j.search.SEE;
+import com.jamesswafford.chess4j.utils.BoardUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams labelled positions into {@link TuningPositions}.
+ *
+ * Each line is a position and the result of the game it came from, either as an EPD operation -- c9 "1-0"
+ * as in the widely used quiet-labelled sets, or result "1/2-1/2" -- or as a FEN followed by [1.0], [0.5] or
+ * [0.0].  The file is read a batch of lines at a time, and each batch is parsed and resolved in parallel.
+ *
+ * The evaluation is only meaningful in a quiet position, so each position is resolved by a quiescence
+ * search first, and the position at the end of its principal variation is the one kept.  Positions with the
+ * player to move in check are skipped, as are lines that can't be parsed.
+ */
+public final class LabelledPositionReader {
+
+    private static final int BATCH_SIZE = 8192;
+    private static final int LINES_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+    private final AtomicLong numSkipped = new AtomicLong();
+
+    public LabelledPositionReader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return the number of lines skipped so far, for being unreadable or in check
+     */
+    public long getNumSkipped() {
+        return numSkipped.get();
+    }
+
+    public TuningPositions read(Path path) throws IOException {
+        TuningPositions positions = new TuningPositions();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    batch.add(line);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    positions.addAll(pool.invoke(new ResolveTask(batch, 0, batch.size())));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                positions.addAll(pool.invoke(new ResolveTask(batch, 0, batch.size())));
+            }
+        }
+        return positions;
+    }
+
+    private class ResolveTask extends RecursiveTask<TuningPositions> {
+        private final List<String> lines;
+        private final int from, to;
+
+        ResolveTask(List<String> lines, int from, int to) {
+            this.lines = lines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TuningPositions compute() {
+            if (to - from > LINES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                ResolveTask left = new ResolveTask(lines, from, mid);
+                left.fork();
+                TuningPositions right = new ResolveTask(lines, mid, to).compute();
+                TuningPositions positions = left.join();
+                positions.addAll(right);
+                return positions;
+            }
+
+            TuningPositions positions = new TuningPositions();
+            Board board = new Board();
+            double[] coefficients = new double[EvalParameters.size()];
+            for (int i=from;i<to;i++) {
+                if (!addPosition(lines.get(i), board, coefficients, positions)) {
+                    numSkipped.incrementAndGet();
+                }
+            }
+            return positions;
+        }
+    }
+
+    private static boolean addPosition(String line, Board board, double[] coefficients,
+                                       TuningPositions positions) {
+        double result;
+        try {
+            result = setPos(board, line);
+        } catch (RuntimeException e) {
+            // a malformed line can fail in more ways than a ParseException
+            return false;
+        }
+        if (Double.isNaN(result) || BoardUtils.isPlayerInCheck(board)) {
+            return false;
+        }
+
+        resolve(board);
+        int material = EvalFeatures.extract(board, coefficients);
+        positions.add(result, material, coefficients);
+        return true;
+    }
+
+    /**
+     * Set up the board from a labelled line.
+     *
+     * @return the result from white's point of view, or NaN if the line doesn't have one
+     */
+    static double setPos(Board board, String line) throws ParseException {
+        int bracket = line.lastIndexOf('[');
+        if (bracket != -1) {
+            board.setPos(line.substring(0, bracket).trim());
+            return parseResult(line.substring(bracket + 1, line.indexOf(']', bracket)).trim());
+        }
+
+        for (EPDOperation op : EPDParser.setPos(board, line)) {
+            if (("c9".equals(op.getEpdOpcode()) || "result".equals(op.getEpdOpcode()))
+                    && !op.getEpdOperands().isEmpty()) {
+                return parseResult(op.getEpdOperands().get(0));
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double parseResult(String result) {
+        switch (result) {
+            case "1-0":
+            case "1.0":
+            case "1":
+                return 1.0;
+            case "0-1":
+            case "0.0":
+            case "0":
+                return 0.0;
+            case "1/2-1/2":
+            case "0.5":
+                return 0.5;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    /**
+     * Play out the principal variation of a quiescence search on the board, leaving it at the quiet
+     * position the score comes from.
+     */
+    static void resolve(Board board) {
+        List<Move> pv = new ArrayList<>();
+        quiesce(board, -Constants.INFINITY, Constants.INFINITY, pv);
+        for (Move move : pv) {
+            board.applyMove(move);
+        }
+    }
+
+    /**
+     * A plain quiescence search over the captures and promotions that don't lose material.  It doesn't touch
+     * the main hash table, so the resolving threads only share the pawn hash, whose entries are never changed
+     * in place.
+     */
+    private static int quiesce(Board board, int alpha, int beta, List<Move> pv) {
+        pv.clear();
+
+        int standPat = Eval.eval(board);
+        if (standPat >= beta) {
+            return beta;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        List<Move> moves = MagicBitboardMoveGenerator.genPseudoLegalMoves(board, true, false);
+        moves.sort(Comparator.comparingInt(MVVLVA::score).reversed());
+
+        List<Move> line = new ArrayList<>();
+        for (Move move : moves) {
+            if (!SEE.seeAtLeast(board, move, 0)) {
+                continue;
+            }
+            Undo undo = board.applyMove(move);
+            if (BoardUtils.isOpponentInCheck(board)) {
+                board.undoMove(undo);
+                continue;
+            }
+            int score = -quiesce(board, -beta, -alpha, line);
+            board.undoMove(undo);
+
+            if (score > alpha) {
+                if (score >= beta) {
+                    return beta;
+                }
+                alpha = score;
+                pv.clear();
+                pv.add(move);
+                pv.addAll(line);
+            }
+        }
+
+        return alpha;
+    }
+}
@@ -0,0 +1,229 @@
+package com.jamesswafford.chess4j.tuner;
+
+import com.jamesswafford.chess4j.eval.EvalParameters;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tunes the evaluation's weights to the results of games, in the way Peter Osterlund described for Texel.
+ * The error of a set of weights is the mean squared difference between the result of each position's game
+ * and the result its score predicts, 1 / (1 + 10^(-K * score / 400)).  K is fitted to the weights the
+ * evaluation starts with, then held while the weights are tuned.
+ *
+ * The positions are scored from their packed coefficients, never as boards, and the error and its gradient
+ * are summed over them in parallel with fork-join.  The weights are moved down the gradient with Adam's step
+ * sizes, all at once, where Texel's local search tries them one at a time.  They're rounded to ints at the
+ * end.
+ */
+public final class TexelTuner {
+
+    private static final Logger LOGGER = LogManager.getLogger(TexelTuner.class);
+
+    public static final int DEFAULT_ITERATIONS = 1000;
+
+    private static final int POSITIONS_PER_TASK = 4096;
+    private static final int LOG_INTERVAL = 50;
+
+    // Adam.  The learning rate is about how far a weight can move in one step, in centipawns.
+    private static final double LEARNING_RATE = 1.0;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final ForkJoinPool pool;
+    private final TuningPositions positions;
+    private double k = 1.0;
+
+    public TexelTuner(ForkJoinPool pool, TuningPositions positions) {
+        this.pool = pool;
+        this.positions = positions;
+    }
+
+    public double getK() {
+        return k;
+    }
+
+    public void setK(double k) {
+        this.k = k;
+    }
+
+    private static final class Sums {
+        double error;
+        double[] gradient;
+    }
+
+    private class ErrorTask extends RecursiveTask<Sums> {
+        private final double[] weights;
+        private final boolean withGradient;
+        private final int from, to;
+
+        ErrorTask(double[] weights, boolean withGradient, int from, int to) {
+            this.weights = weights;
+            this.withGradient = withGradient;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Sums compute() {
+            if (to - from > POSITIONS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                ErrorTask left = new ErrorTask(weights, withGradient, from, mid);
+                left.fork();
+                Sums sums = new ErrorTask(weights, withGradient, mid, to).compute();
+                Sums leftSums = left.join();
+                sums.error += leftSums.error;
+                if (withGradient) {
+                    for (int i=0;i<sums.gradient.length;i++) {
+                        sums.gradient[i] += leftSums.gradient[i];
+                    }
+                }
+                return sums;
+            }
+
+            Sums sums = new Sums();
+            if (withGradient) {
+                sums.gradient = new double[weights.length];
+            }
+            for (int i=from;i<to;i++) {
+                double predicted = sigmoid(positions.evaluate(i, weights));
+                double diff = positions.getResult(i) - predicted;
+                sums.error += diff * diff;
+                if (withGradient) {
+                    // the derivative of the squared error, less the constant factor applied to the total
+                    positions.addToGradient(i, -diff * predicted * (1 - predicted), sums.gradient);
+                }
+            }
+            return sums;
+        }
+    }
+
+    private double sigmoid(double score) {
+        return 1.0 / (1.0 + Math.pow(10.0, -k * score / 400.0));
+    }
+
+    /**
+     * @return the mean squared error of the weights over the positions
+     */
+    public double error(double[] weights) {
+        if (positions.size() == 0) {
+            return 0;
+        }
+        return pool.invoke(new ErrorTask(weights, false, 0, positions.size())).error / positions.size();
+    }
+
+    /**
+     * Find the K that minimizes the error of the weights, to two decimal places, narrowing a scan around
+     * the best value found so far.
+     *
+     * @return the new K
+     */
+    public double fitK(double[] weights) {
+        double best = k;
+        double bestError = error(weights);
+        for (int places=0;places<=2;places++) {
+            double step = Math.pow(10, -places);
+            double center = best;
+            for (int i=-9;i<=9;i++) {
+                double candidate = center + i * step;
+                if (candidate <= 0 || i == 0) {
+                    continue;
+                }
+                k = candidate;
+                double candidateError = error(weights);
+                if (candidateError < bestError) {
+                    best = candidate;
+                    bestError = candidateError;
+                }
+            }
+        }
+        k = best;
+        return k;
+    }
+
+    /**
+     * Tune the weights, starting from the given ones.
+     *
+     * @return the tuned weights, rounded
+     */
+    public int[] tune(int[] initialWeights, int iterations) {
+        double[] weights = new double[initialWeights.length];
+        for (int i=0;i<weights.length;i++) {
+            weights[i] = initialWeights[i];
+        }
+        double[] m = new double[weights.length];
+        double[] v = new double[weights.length];
+        double scale = 2.0 * k * Math.log(10) / 400.0 / Math.max(1, positions.size());
+
+        for (int t=1;t<=iterations && positions.size() > 0;t++) {
+            Sums sums = pool.invoke(new ErrorTask(weights, true, 0, positions.size()));
+            double correction1 = 1 - Math.pow(BETA1, t);
+            double correction2 = 1 - Math.pow(BETA2, t);
+            for (int i=0;i<weights.length;i++) {
+                double g = sums.gradient[i] * scale;
+                m[i] = BETA1 * m[i] + (1 - BETA1) * g;
+                v[i] = BETA2 * v[i] + (1 - BETA2) * g * g;
+                weights[i] -= LEARNING_RATE * (m[i] / correction1) / (Math.sqrt(v[i] / correction2) + EPSILON);
+            }
+            if (t % LOG_INTERVAL == 0 || t == iterations) {
+                LOGGER.info("# iteration " + t + ", error: " + sums.error / positions.size());
+            }
+        }
+
+        int[] tuned = new int[weights.length];
+        for (int i=0;i<weights.length;i++) {
+            tuned[i] = (int) Math.round(weights[i]);
+        }
+        return tuned;
+    }
+
+    private static double[] toDoubles(int[] values) {
+        double[] doubles = new double[values.length];
+        for (int i=0;i<values.length;i++) {
+            doubles[i] = values[i];
+        }
+        return doubles;
+    }
+
+    /**
+     * Read a file of labelled positions, tune the evaluation's weights to it, and save them.  The tuned
+     * weights are also left in place.
+     */
+    public static void tuneFile(String positionsFile, String paramsFile, int iterations, int numThreads)
+            throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            DecimalFormat df = new DecimalFormat("#,###,##0");
+            long start = System.currentTimeMillis();
+            LabelledPositionReader reader = new LabelledPositionReader(pool);
+            TuningPositions positions = reader.read(Paths.get(positionsFile));
+            LOGGER.info("# read " + df.format(positions.size()) + " positions from " + positionsFile
+                    + " in " + (System.currentTimeMillis() - start) + " ms, skipped "
+                    + df.format(reader.getNumSkipped()) + ", packed into "
+                    + df.format(positions.getMemoryBytes() / 1024) + " KB");
+
+            TexelTuner tuner = new TexelTuner(pool, positions);
+            int[] initial = EvalParameters.getValues();
+            double k = tuner.fitK(toDoubles(initial));
+            LOGGER.info("# K: " + k + ", error: " + tuner.error(toDoubles(initial)));
+
+            start = System.currentTimeMillis();
+            int[] tuned = tuner.tune(initial, iterations);
+            LOGGER.info("# tuned " + tuned.length + " weights over " + iterations + " iterations in "
+                    + (System.currentTimeMillis() - start) + " ms, error: " + tuner.error(toDoubles(tuned)));
+
+            EvalParameters.setValues(tuned);
+            Path path = Paths.get(paramsFile);
+            EvalParameters.save(path);
+            LOGGER.info("# saved the weights to " + path);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.jamesswafford.chess4j.tuner;
+
+import com.jamesswafford.chess4j.eval.EvalFeatures;
+
+import java.util.Arrays;
+
+/**
+ * Labelled positions as the tuner needs them, packed into primitive arrays: the game's result, the material
+ * and the nonzero coefficients of the evaluation's weights (see {@link EvalFeatures}).  No boards are kept,
+ * which is what lets millions of positions fit in memory.
+ *
+ * Most coefficients are a piece on a square, 1 or -1 for a table entry.  Those are stored as just the
+ * weight's index, complemented (~index) for -1.  The rest are stored as an index and a value.  A typical
+ * middlegame position takes around a hundred bytes.
+ */
+public final class TuningPositions {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private byte[] results = new byte[INITIAL_CAPACITY]; // in half points, from white's point of view
+    private int[] materials = new int[INITIAL_CAPACITY];
+
+    // the coefficients of position i are [unitStarts[i], unitStarts[i+1]) and [termStarts[i], termStarts[i+1])
+    private int[] unitStarts = new int[INITIAL_CAPACITY + 1];
+    private short[] units = new short[INITIAL_CAPACITY * 32];
+    private int[] termStarts = new int[INITIAL_CAPACITY + 1];
+    private short[] termIndices = new short[INITIAL_CAPACITY * 8];
+    private float[] termValues = new float[INITIAL_CAPACITY * 8];
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param result - the result of the game from white's point of view: 1 for a win, 0.5 for a draw and 0
+     *               for a loss
+     * @param material - the part of the score that doesn't depend on the weights
+     * @param coefficients - the coefficient of each weight
+     */
+    public void add(double result, int material, double[] coefficients) {
+        if (coefficients.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("too many weights: " + coefficients.length);
+        }
+        ensurePositions(size + 1);
+
+        int numUnits = unitStarts[size];
+        int numTerms = termStarts[size];
+        for (int i=0;i<coefficients.length;i++) {
+            double c = coefficients[i];
+            if (c == 1 || c == -1) {
+                if (numUnits == units.length) {
+                    units = Arrays.copyOf(units, numUnits * 2);
+                }
+                units[numUnits++] = (short) (c == 1 ? i : ~i);
+            } else if (c != 0) {
+                if (numTerms == termIndices.length) {
+                    termIndices = Arrays.copyOf(termIndices, numTerms * 2);
+                    termValues = Arrays.copyOf(termValues, numTerms * 2);
+                }
+                termIndices[numTerms] = (short) i;
+                termValues[numTerms++] = (float) c;
+            }
+        }
+
+        results[size] = (byte) Math.round(result * 2);
+        materials[size] = material;
+        size++;
+        unitStarts[size] = numUnits;
+        termStarts[size] = numTerms;
+    }
+
+    /**
+     * Add all of another set's positions to the end of this one.
+     */
+    public void addAll(TuningPositions other) {
+        ensurePositions(size + other.size);
+        System.arraycopy(other.results, 0, results, size, other.size);
+        System.arraycopy(other.materials, 0, materials, size, other.size);
+
+        int numUnits = unitStarts[size];
+        int numTerms = termStarts[size];
+        int otherUnits = other.unitStarts[other.size];
+        int otherTerms = other.termStarts[other.size];
+        if (numUnits + otherUnits > units.length) {
+            units = Arrays.copyOf(units, Math.max(units.length * 2, numUnits + otherUnits));
+        }
+        if (numTerms + otherTerms > termIndices.length) {
+            int capacity = Math.max(termIndices.length * 2, numTerms + otherTerms);
+            termIndices = Arrays.copyOf(termIndices, capacity);
+            termValues = Arrays.copyOf(termValues, capacity);
+        }
+        System.arraycopy(other.units, 0, units, numUnits, otherUnits);
+        System.arraycopy(other.termIndices, 0, termIndices, numTerms, otherTerms);
+        System.arraycopy(other.termValues, 0, termValues, numTerms, otherTerms);
+
+        for (int i=1;i<=other.size;i++) {
+            unitStarts[size + i] = numUnits + other.unitStarts[i];
+            termStarts[size + i] = numTerms + other.termStarts[i];
+        }
+        size += other.size;
+    }
+
+    private void ensurePositions(int numPositions) {
+        if (numPositions > results.length) {
+            int capacity = Math.max(results.length * 2, numPositions);
+            results = Arrays.copyOf(results, capacity);
+            materials = Arrays.copyOf(materials, capacity);
+            unitStarts = Arrays.copyOf(unitStarts, capacity + 1);
+            termStarts = Arrays.copyOf(termStarts, capacity + 1);
+        }
+    }
+
+    /**
+     * @return - the result of the game the position is from, from white's point of view
+     */
+    public double getResult(int i) {
+        return results[i] / 2.0;
+    }
+
+    /**
+     * @return - the score of a position under the weights, from white's point of view
+     */
+    public double evaluate(int i, double[] weights) {
+        double score = materials[i];
+        for (int j=unitStarts[i];j<unitStarts[i+1];j++) {
+            short u = units[j];
+            if (u >= 0) {
+                score += weights[u];
+            } else {
+                score -= weights[~u];
+            }
+        }
+        for (int j=termStarts[i];j<termStarts[i+1];j++) {
+            score += termValues[j] * weights[termIndices[j]];
+        }
+        return score;
+    }
+
+    /**
+     * Add the position's coefficients, times a factor, to a gradient.
+     */
+    public void addToGradient(int i, double factor, double[] gradient) {
+        for (int j=unitStarts[i];j<unitStarts[i+1];j++) {
+            short u = units[j];
+            if (u >= 0) {
+                gradient[u] += factor;
+            } else {
+                gradient[~u] -= factor;
+            }
+        }
+        for (int j=termStarts[i];j<termStarts[i+1];j++) {
+            gradient[termIndices[j]] += factor * termValues[j];
+        }
+    }
+
+    /**
+     * @return - roughly how much memory the positions take up
+     */
+    public long getMemoryBytes() {
+        return results.length + materials.length * 4L + (unitStarts.length + termStarts.length) * 4L
+                + units.length * 2L + termIndices.length * 2L + termValues.length * 4L;
+    }
+}
@@ -0,0 +1,333 @@
+package com.jamesswafford.chess4j.utils;
+
+import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.eval.Eval;
+import com.jamesswafford.chess4j.eval.Evaluator;
+import com.jamesswafford.chess4j.exceptions.ParseException;
+import com.jamesswafford.chess4j.search.AlphaBetaSearch;
+import com.jamesswafford.chess4j.search.KillerMoves;
+import com.jamesswafford.chess4j.search.SearchOptions;
+import com.jamesswafford.chess4j.search.SearchParameters;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Scores a large number of positions with the static evaluation or a shallow search, for labelling data sets.
+ *
+ * The positions are cut into chunks, and the chunks are spread over a fixed pool of threads.  Each thread has a
+ * board, an evaluator and a pawn hash (or network accumulators) of its own, and for a search, a search with its
+ * own killer moves.  The searches share the transposition table, so their scores can vary a little from run to
+ * run.  The results come back in the order the positions went in, and only a few chunks per thread are in
+ * flight at once, so memory use doesn't grow with the number of positions.
+ *
+ * Scores are in centipawns, from the point of view of the player to move.
+ */
+public final class EvalBatch implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(EvalBatch.class);
+
+    public enum Format { JSONL, CSV }
+
+    static final int CHUNK_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int PROGRESS_INTERVAL = 100000;
+
+    public static final class Result {
+        private final String fen;
+        private final boolean valid;
+        private final int score;
+        private final Move move;
+
+        private Result(String fen, boolean valid, int score, Move move) {
+            this.fen = fen;
+            this.valid = valid;
+            this.score = score;
+            this.move = move;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * @return false if the FEN couldn't be parsed, in which case there is no score
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * @return the best move found by the search, if there was one
+         */
+        public Optional<Move> getMove() {
+            return Optional.ofNullable(move);
+        }
+    }
+
+    public static final class Summary {
+        private long numPositions;
+        private long numInvalid;
+        private long elapsedMs;
+
+        public long getNumPositions() {
+            return numPositions;
+        }
+
+        public long getNumInvalid() {
+            return numInvalid;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        public long getPositionsPerSecond() {
+            return numPositions * 1000 / Math.max(1, elapsedMs);
+        }
+    }
+
+    private final class Worker {
+        private final Board board = new Board();
+        private final Evaluator evaluator;
+        private final AlphaBetaSearch search;
+
+        Worker() {
+            evaluator = Eval.createThreadEvaluator();
+            if (depth > 0) {
+                search = new AlphaBetaSearch();
+                search.setEvaluator(evaluator);
+                search.setKillerMovesStore(new KillerMoves());
+            } else {
+                search = null;
+            }
+        }
+
+        Result score(String fen) {
+            // a network listening to the board wouldn't be told about the pieces set up
+            board.setPieceListener(null);
+            try {
+                board.setPos(fen);
+            } catch (ParseException e) {
+                return new Result(fen, false, 0, null);
+            }
+
+            if (search == null) {
+                return new Result(fen, true, evaluator.evaluateBoard(board), null);
+            }
+
+            // the last position's PV would be tried first
+            search.initialize();
+            SearchOptions opts = SearchOptions.builder()
+                    .avoidNative(true)
+                    .startTime(System.currentTimeMillis())
+                    .build();
+            int score = 0;
+            for (int d=1;d<=depth;d++) {
+                score = search.search(board, new SearchParameters(d, -Constants.INFINITY, Constants.INFINITY), opts);
+            }
+            List<Move> pv = search.getPv();
+            return new Result(fen, true, score, pv.isEmpty() ? null : pv.get(0));
+        }
+    }
+
+    private final int numThreads;
+    private final int depth;
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * @param numThreads - the number of threads to score on
+     * @param depth - the depth to search each position to, or 0 for the static evaluation
+     */
+    public EvalBatch(int numThreads, int depth) {
+        this.numThreads = Math.max(1, numThreads);
+        this.depth = Math.max(0, depth);
+        this.executor = Executors.newFixedThreadPool(this.numThreads);
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    private Future<List<Result>> submit(List<String> fens) {
+        return executor.submit(() -> {
+            Worker worker = workers.get();
+            List<Result> results = new ArrayList<>(fens.size());
+            for (String fen : fens) {
+                results.add(worker.score(fen));
+            }
+            return results;
+        });
+    }
+
+    private static void deliver(Future<List<Result>> chunk, Consumer<Result> consumer, Summary summary)
+            throws InterruptedException, ExecutionException {
+        for (Result result : chunk.get()) {
+            summary.numPositions++;
+            if (!result.isValid()) {
+                summary.numInvalid++;
+            }
+            consumer.accept(result);
+        }
+    }
+
+    /**
+     * Score the positions, handing the results to the consumer in the same order, on the calling thread.
+     * Blank lines are skipped.  The positions are only read as they're needed, so a stream can be passed in
+     * as stream::iterator.
+     *
+     * @return the number of positions scored and how long it took
+     */
+    public Summary evaluate(Iterable<String> fens, Consumer<Result> consumer)
+            throws InterruptedException, ExecutionException {
+        Summary summary = new Summary();
+        long start = System.currentTimeMillis();
+
+        Deque<Future<List<Result>>> pending = new ArrayDeque<>();
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (String fen : fens) {
+            if (fen.isBlank()) {
+                continue;
+            }
+            chunk.add(fen);
+            if (chunk.size() == CHUNK_SIZE) {
+                pending.add(submit(chunk));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+                if (pending.size() >= numThreads * CHUNKS_PER_THREAD) {
+                    deliver(pending.removeFirst(), consumer, summary);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            pending.add(submit(chunk));
+        }
+        while (!pending.isEmpty()) {
+            deliver(pending.removeFirst(), consumer, summary);
+        }
+
+        summary.elapsedMs = System.currentTimeMillis() - start;
+        return summary;
+    }
+
+    /**
+     * Score the positions, collecting the results.  Only suitable for as many positions as fit in memory.
+     */
+    public List<Result> evaluate(Iterable<String> fens) throws InterruptedException, ExecutionException {
+        List<Result> results = new ArrayList<>();
+        evaluate(fens, results::add);
+        return results;
+    }
+
+    private static String toJson(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String format(Result result, Format format, boolean withMove) {
+        String score = result.isValid() ? String.valueOf(result.getScore()) : null;
+        String move = result.getMove().map(Move::toString).orElse(null);
+        if (format == Format.CSV) {
+            // FENs don't have commas in them
+            return result.getFen() + "," + (score == null ? "" : score)
+                    + (withMove ? "," + (move == null ? "" : move) : "");
+        }
+        return "{\"fen\":" + toJson(result.getFen()) + ",\"score\":" + score
+                + (withMove ? ",\"move\":" + (move == null ? null : toJson(move)) : "") + "}";
+    }
+
+    /**
+     * Score the positions of a file, one FEN per line, writing a line for each to the writer.  A position
+     * that can't be parsed gets a line without a score, so the output lines up with the input.
+     */
+    public Summary evaluate(Path fenFile, Writer writer, Format format)
+            throws IOException, InterruptedException, ExecutionException {
+        boolean withMove = depth > 0;
+        if (format == Format.CSV) {
+            writer.write("fen,score" + (withMove ? ",move" : "") + "\n");
+        }
+
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        long start = System.currentTimeMillis();
+        long[] numWritten = new long[1];
+        try (Stream<String> lines = Files.lines(fenFile, Charset.defaultCharset())) {
+            return evaluate(lines::iterator, result -> {
+                try {
+                    writer.write(format(result, format, withMove));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (++numWritten[0] % PROGRESS_INTERVAL == 0) {
+                    long elapsedMs = System.currentTimeMillis() - start;
+                    LOGGER.info("# scored " + df.format(numWritten[0]) + " positions, "
+                            + df.format(numWritten[0] * 1000 / Math.max(1, elapsedMs)) + " positions/s");
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Score the positions of a file, writing the scores to another and logging the rate.
+     */
+    public static void evaluateFile(String fenFile, String outFile, Format format, int depth, int numThreads)
+            throws Exception {
+        LOGGER.info("# scoring " + fenFile + " with " + (depth > 0 ? "a depth " + depth + " search" : "the evaluation")
+                + " on " + numThreads + " threads");
+        try (EvalBatch batch = new EvalBatch(numThreads, depth);
+             BufferedWriter writer = Files.newBufferedWriter(Paths.get(outFile), Charset.defaultCharset())) {
+            Summary summary = batch.evaluate(Paths.get(fenFile), writer, format);
+
+            DecimalFormat df = new DecimalFormat("#,###,##0");
+            LOGGER.info("# scored " + df.format(summary.getNumPositions()) + " positions ("
+                    + df.format(summary.getNumInvalid()) + " invalid) in " + df.format(summary.getElapsedMs())
+                    + " ms, " + df.format(summary.getPositionsPerSecond()) + " positions/s, written to " + outFile);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,124 @@
+package com.jamesswafford.chess4j.utils;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.io.EPDOperation;
+import com.jamesswafford.chess4j.io.EPDParser;
+import com.jamesswafford.chess4j.io.MoveParser;
+import com.jamesswafford.chess4j.search.MateSolution;
+import com.jamesswafford.chess4j.search.MateSolver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the mate solver over each position of an EPD file.  The mate length for a position is taken from its
+ * 'dm' (direct mate) operation if it has one.
+ */
+public class MateSuiteProcessor {
+
+    private static final Logger LOGGER = LogManager.getLogger(MateSuiteProcessor.class);
+
+    private final MateSolver mateSolver = new MateSolver();
+
+    private int numProblems, numMates, numCorrect;
+    private long totalNodes, totalTimeMs;
+
+    public int getNumProblems() {
+        return numProblems;
+    }
+
+    public int getNumMates() {
+        return numMates;
+    }
+
+    /**
+     * @return the number of mates that began with one of the problem's best moves
+     */
+    public int getNumCorrect() {
+        return numCorrect;
+    }
+
+    private String getOperand(List<EPDOperation> ops, String opcode) {
+        for (EPDOperation op : ops) {
+            if (opcode.equalsIgnoreCase(op.getEpdOpcode()) && !op.getEpdOperands().isEmpty()) {
+                return op.getEpdOperands().get(0);
+            }
+        }
+        return null;
+    }
+
+    private List<Move> getBestMoves(Board board, List<EPDOperation> ops) throws Exception {
+        List<Move> bms = new ArrayList<>();
+        MoveParser parser = new MoveParser();
+        for (EPDOperation op : ops) {
+            if ("bm".equalsIgnoreCase(op.getEpdOpcode())) {
+                for (String operand : op.getEpdOperands()) {
+                    bms.add(parser.parseMove(operand, board));
+                }
+            }
+        }
+        return bms;
+    }
+
+    public MateSolution processProblem(String epd, int maxMoves, long maxNodes) throws Exception {
+        Board board = new Board();
+        List<EPDOperation> ops = EPDParser.setPos(board, epd);
+        String id = getOperand(ops, "id");
+        String dm = getOperand(ops, "dm");
+        List<Move> bms = getBestMoves(board, ops);
+        numProblems++;
+
+        mateSolver.getTable().clear();
+        mateSolver.setMaxNodes(maxNodes);
+        MateSolution solution = mateSolver.solve(board, dm != null ? Integer.parseInt(dm) : maxMoves);
+
+        totalNodes += solution.getNodes();
+        totalTimeMs += solution.getElapsedMs();
+        String result = "no mate";
+        if (solution.isMate()) {
+            numMates++;
+            result = "mate in " + solution.getMateIn();
+            if (bms.isEmpty() || bms.contains(solution.getPv().get(0))) {
+                numCorrect++;
+            }
+        } else if (solution.isStopped()) {
+            result = "stopped";
+        }
+
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        LOGGER.info(String.format("%-12s %-10s %8s %12s %10s %12s  %s", id != null ? id : numProblems, result,
+                df.format(solution.getProofSize()), df.format(solution.getNodes()), solution.getElapsedMs(),
+                df.format(solution.getNps()), solution.getPv()));
+
+        return solution;
+    }
+
+    public void processTestSuite(String testSuite, int maxMoves, long maxNodes) throws Exception {
+        LOGGER.info("solving mates. test suite: " + testSuite + ", max moves: " + maxMoves
+                + (maxNodes > 0 ? ", nodes per problem: " + maxNodes : ""));
+        LOGGER.info(String.format("%-12s %-10s %8s %12s %10s %12s  %s", "id", "result", "proof", "nodes", "ms",
+                "nps", "pv"));
+
+        Path path = FileSystems.getDefault().getPath(testSuite);
+        List<String> lines = Files.readAllLines(path, Charset.defaultCharset());
+        for (String line : lines) {
+            if (!line.isBlank()) {
+                processProblem(line, maxMoves, maxNodes);
+            }
+        }
+
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        LOGGER.info("# problems: " + numProblems + ", mates: " + numMates + ", mates with a best move: "
+                + numCorrect);
+        LOGGER.info("# nodes: " + df.format(totalNodes) + ", time: " + totalTimeMs + " ms, rate: "
+                + df.format(totalNodes * 1000 / Math.max(1, totalTimeMs)) + " n/s");
+    }
+}
@@ -0,0 +1,150 @@
+package com.jamesswafford.chess4j.utils;
+
+import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.io.EPDParser;
+import com.jamesswafford.chess4j.search.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures how the MCTS search scales with threads.  For 1, 2, 4 ... threads, up to the number of
+ * processors, each position of an EPD file is searched for a fixed time by the MCTS iterator, and by that
+ * many alpha-beta searches running side by side.  The alpha-beta searches are independent, apart from
+ * sharing the hash tables, so their combined rate is about the best the hardware can do; the MCTS rate is
+ * compared against its own single thread rate and against that.
+ */
+public class MctsScalingBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(MctsScalingBenchmark.class);
+
+    private static class Result {
+        int threads;
+        long playouts, mctsTimeMs;
+        long nodes, alphaBetaTimeMs;
+
+        long getPlayoutRate() {
+            return playouts * 1000 / Math.max(1, mctsTimeMs);
+        }
+
+        long getNodeRate() {
+            return nodes * 1000 / Math.max(1, alphaBetaTimeMs);
+        }
+    }
+
+    private final List<Result> results = new ArrayList<>();
+
+    private static List<Integer> getThreadCounts(int maxThreads) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int t=1;t<maxThreads;t*=2) {
+            threadCounts.add(t);
+        }
+        threadCounts.add(maxThreads);
+        return threadCounts;
+    }
+
+    private void searchMcts(Board board, int threads, long timeMs, Result result) throws Exception {
+        MctsSearchIterator searchIterator = new MctsSearchIterator();
+        searchIterator.setNumThreads(threads);
+        searchIterator.setMaxTime(timeMs);
+        searchIterator.setEarlyExitOk(false);
+        searchIterator.setPost(false);
+        searchIterator.findPvFuture(board, new ArrayList<>()).get();
+        result.playouts += searchIterator.getPlayouts();
+        result.mctsTimeMs += searchIterator.getElapsedMs();
+    }
+
+    /**
+     * Iteratively deepen until the stop time.  Each search runs on its own thread rather than through its
+     * own iterator, since the iterators share the common fork-join pool, which may be smaller than the
+     * number of threads.
+     */
+    private static void iterate(AlphaBetaSearch search, Board board, long stopTime) {
+        search.initialize();
+        SearchOptions opts = SearchOptions.builder()
+                .avoidNative(true)
+                .startTime(System.currentTimeMillis())
+                .stopTime(stopTime)
+                .build();
+        for (int depth=1;depth<=Constants.MAX_ITERATIONS && System.currentTimeMillis() < stopTime;depth++) {
+            search.search(board, new SearchParameters(depth, -Constants.INFINITY, Constants.INFINITY), opts);
+        }
+    }
+
+    private void searchAlphaBeta(Board board, int threads, long timeMs, Result result) throws Exception {
+        TTHolder.getInstance().clearTables();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<AlphaBetaSearch> searches = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (int i=0;i<threads;i++) {
+            AlphaBetaSearch search = new AlphaBetaSearch();
+            search.setKillerMovesStore(new KillerMoves());
+            searches.add(search);
+            Board searchBoard = board.deepCopy();
+            futures.add(executor.submit(() -> iterate(search, searchBoard, start + timeMs)));
+        }
+        executor.shutdown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        result.alphaBetaTimeMs += System.currentTimeMillis() - start;
+        for (AlphaBetaSearch search : searches) {
+            result.nodes += search.getSearchStats().nodes + search.getSearchStats().qnodes;
+        }
+    }
+
+    public void benchmark(List<String> epds, int maxThreads, long timeMs) throws Exception {
+        for (int threads : getThreadCounts(maxThreads)) {
+            Result result = new Result();
+            result.threads = threads;
+            for (String epd : epds) {
+                Board board = new Board();
+                EPDParser.setPos(board, epd);
+                searchMcts(board, threads, timeMs, result);
+                searchAlphaBeta(board, threads, timeMs, result);
+            }
+            results.add(result);
+        }
+    }
+
+    public void benchmarkTestSuite(String testSuite, int maxThreads, long timeMs) throws Exception {
+        LOGGER.info("mcts scaling benchmark. test suite: " + testSuite + ", max threads: " + maxThreads
+                + ", time per position: " + timeMs + " ms");
+
+        Path path = FileSystems.getDefault().getPath(testSuite);
+        List<String> epds = new ArrayList<>();
+        for (String line : Files.readAllLines(path, Charset.defaultCharset())) {
+            if (!line.isBlank()) {
+                epds.add(line);
+            }
+        }
+
+        benchmark(epds, maxThreads, timeMs);
+
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        DecimalFormat rf = new DecimalFormat("0.00");
+        LOGGER.info(String.format("%8s %14s %9s %14s %9s %10s", "threads", "playouts/s", "speedup", "ab nodes/s",
+                "speedup", "relative"));
+        Result base = results.get(0);
+        for (Result result : results) {
+            double mctsSpeedup = result.getPlayoutRate() / (double) Math.max(1, base.getPlayoutRate());
+            double abSpeedup = result.getNodeRate() / (double) Math.max(1, base.getNodeRate());
+            LOGGER.info(String.format("%8d %14s %9s %14s %9s %10s", result.threads,
+                    df.format(result.getPlayoutRate()), rf.format(mctsSpeedup), df.format(result.getNodeRate()),
+                    rf.format(abSpeedup), rf.format(mctsSpeedup / Math.max(0.01, abSpeedup))));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.jamesswafford.chess4j.utils;
+
+import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.eval.Evaluator;
+import com.jamesswafford.chess4j.eval.LazyEval;
+import com.jamesswafford.chess4j.eval.nnue.NnueEval;
+import com.jamesswafford.chess4j.eval.nnue.NnueNetwork;
+import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.io.EPDParser;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.search.AlphaBetaSearch;
+import com.jamesswafford.chess4j.search.SearchConfig;
+import com.jamesswafford.chess4j.search.SearchOptions;
+import com.jamesswafford.chess4j.search.SearchParameters;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares the cost of evaluating with a network against the handcrafted evaluation.
+ *
+ * The cost of an evaluation is measured by walking the tree below each position of an EPD file to a couple
+ * of plies, evaluating every node, less the time taken to just walk the tree.  For the network that includes
+ * updating the accumulators as the moves are made and unmade.  Then each position is searched to a fixed
+ * depth with each evaluator, for the node rate that results.  The searches don't visit the same nodes, as
+ * the evaluations differ, so only the rates are comparable.
+ */
+public class NnueBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(NnueBenchmark.class);
+
+    private static final int EVAL_PASSES = 5;
+    private static final int WALK_DEPTH = 2;
+
+    private static class Result {
+        String name;
+        long evals, evalNanos;
+        long nodes, searchMs;
+
+        long getNanosPerEval() {
+            return evalNanos / Math.max(1, evals);
+        }
+
+        long getNodeRate() {
+            return nodes * 1000 / Math.max(1, searchMs);
+        }
+    }
+
+    private final NnueNetwork network;
+    private final List<Result> results = new ArrayList<>();
+
+    public NnueBenchmark(NnueNetwork network) {
+        this.network = network;
+    }
+
+    /**
+     * @return the number of nodes visited
+     */
+    private static long walk(Board board, Evaluator evaluator, int depth) {
+        if (evaluator != null) {
+            evaluator.evaluateBoard(board);
+        }
+        long nodes = 1;
+        if (depth > 0) {
+            for (Move move : MagicBitboardMoveGenerator.genLegalMoves(board)) {
+                Undo undo = board.applyMove(move);
+                nodes += walk(board, evaluator, depth - 1);
+                board.undoMove(undo);
+            }
+        }
+        return nodes;
+    }
+
+    private static void measureEvals(List<Board> positions, Evaluator evaluator, Result result) {
+        List<Board> boards = new ArrayList<>();
+        for (Board position : positions) {
+            boards.add(position.deepCopy());
+        }
+
+        // the first pass only warms up the evaluator
+        long baselineNanos = 0, evalNanos = 0;
+        for (int pass=0;pass<=EVAL_PASSES;pass++) {
+            for (Board board : boards) {
+                long start = System.nanoTime();
+                walk(board, null, WALK_DEPTH);
+                long walkNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                long nodes = walk(board, evaluator, WALK_DEPTH);
+                if (pass > 0) {
+                    baselineNanos += walkNanos;
+                    evalNanos += System.nanoTime() - start;
+                    result.evals += nodes;
+                }
+            }
+        }
+        result.evalNanos = Math.max(0, evalNanos - baselineNanos);
+    }
+
+    private static void measureSearches(List<Board> positions, int depth, Evaluator evaluator, Result result) {
+        for (Board position : positions) {
+            TTHolder.getInstance().clearTables();
+            Board board = position.deepCopy();
+            AlphaBetaSearch search = new AlphaBetaSearch();
+            search.setEvaluator(evaluator);
+            SearchOptions opts = SearchOptions.builder()
+                    .avoidNative(true)
+                    .startTime(System.currentTimeMillis())
+                    .build();
+            long start = System.currentTimeMillis();
+            for (int d=1;d<=depth;d++) {
+                search.search(board, new SearchParameters(d, -Constants.INFINITY, Constants.INFINITY), opts);
+            }
+            result.searchMs += System.currentTimeMillis() - start;
+            result.nodes += search.getSearchStats().nodes + search.getSearchStats().qnodes;
+        }
+    }
+
+    private void benchmark(List<Board> positions, int depth, String name, Supplier<Evaluator> evaluatorSupplier) {
+        Result result = new Result();
+        result.name = name;
+        measureEvals(positions, evaluatorSupplier.get(), result);
+        measureSearches(positions, depth, evaluatorSupplier.get(), result);
+        results.add(result);
+    }
+
+    public void benchmark(List<String> epds, int depth) throws Exception {
+        List<Board> positions = new ArrayList<>();
+        for (String epd : epds) {
+            Board board = new Board();
+            EPDParser.setPos(board, epd);
+            positions.add(board);
+        }
+
+        benchmark(positions, depth, "handcrafted", () -> new LazyEval(SearchConfig.lazyEvalMargin));
+        benchmark(positions, depth, "nnue " + NnueEval.getKernelsName(), () -> new NnueEval(network));
+    }
+
+    public void benchmarkTestSuite(String testSuite, int depth) throws Exception {
+        LOGGER.info("nnue benchmark. test suite: " + testSuite + ", depth: " + depth + ", network: "
+                + network.getAccumulatorSize() + "x2-" + network.getHiddenSize() + "-1");
+
+        Path path = FileSystems.getDefault().getPath(testSuite);
+        List<String> epds = new ArrayList<>();
+        for (String line : Files.readAllLines(path, Charset.defaultCharset())) {
+            if (!line.isBlank()) {
+                epds.add(line);
+            }
+        }
+
+        benchmark(epds, depth);
+
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        LOGGER.info(String.format("%-28s %10s %14s %14s", "evaluator", "ns/eval", "nodes", "nodes/s"));
+        for (Result result : results) {
+            LOGGER.info(String.format("%-28s %10s %14s %14s", result.name, df.format(result.getNanosPerEval()),
+                    df.format(result.nodes), df.format(result.getNodeRate())));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.jamesswafford.chess4j.utils;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.io.EPDOperation;
+import com.jamesswafford.chess4j.io.EPDParser;
+import com.jamesswafford.chess4j.search.AlphaBetaSearch;
+import com.jamesswafford.chess4j.search.MtdfSearchIterator;
+import com.jamesswafford.chess4j.search.SearchIteratorImpl;
+import com.jamesswafford.chess4j.search.SearchStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searches each position of a test suite to a fixed depth with both the standard iterator and the MTD
+ * iterator, and compares the number of nodes each needed.
+ */
+public class SearchIteratorComparison {
+
+    private static final Logger LOGGER = LogManager.getLogger(SearchIteratorComparison.class);
+
+    private long totalNodes, totalMtdNodes;
+    private long totalTimeMs, totalMtdTimeMs;
+    private int numProblems, numSameMove;
+
+    public long getTotalNodes() {
+        return totalNodes;
+    }
+
+    public long getTotalMtdNodes() {
+        return totalMtdNodes;
+    }
+
+    public int getNumProblems() {
+        return numProblems;
+    }
+
+    public int getNumSameMove() {
+        return numSameMove;
+    }
+
+    private static class Result {
+        Move move;
+        long nodes;
+        long timeMs;
+    }
+
+    private Result search(SearchIteratorImpl searchIterator, Board board, int depth) throws Exception {
+        TTHolder.getInstance().clearTables();
+
+        AlphaBetaSearch search = new AlphaBetaSearch();
+        searchIterator.setSearch(search);
+        searchIterator.setMaxDepth(depth);
+        searchIterator.setEarlyExitOk(false);
+        searchIterator.setPost(false);
+
+        long start = System.currentTimeMillis();
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        Result result = new Result();
+        result.move = pv.get(0);
+        SearchStats stats = search.getSearchStats();
+        result.nodes = stats.nodes + stats.qnodes;
+        result.timeMs = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    private String getId(List<EPDOperation> ops) {
+        for (EPDOperation op : ops) {
+            if ("id".equalsIgnoreCase(op.getEpdOpcode()) && !op.getEpdOperands().isEmpty()) {
+                return op.getEpdOperands().get(0);
+            }
+        }
+        return String.valueOf(numProblems);
+    }
+
+    public void compareProblem(String epd, int depth) throws Exception {
+        Board board = new Board();
+        List<EPDOperation> ops = EPDParser.setPos(board, epd);
+        numProblems++;
+
+        Result result = search(new SearchIteratorImpl(), board, depth);
+        MtdfSearchIterator mtdfSearchIterator = new MtdfSearchIterator();
+        Result mtdResult = search(mtdfSearchIterator, board, depth);
+
+        totalNodes += result.nodes;
+        totalMtdNodes += mtdResult.nodes;
+        totalTimeMs += result.timeMs;
+        totalMtdTimeMs += mtdResult.timeMs;
+        if (result.move.equals(mtdResult.move)) {
+            numSameMove++;
+        }
+
+        DecimalFormat df = new DecimalFormat("0.00");
+        LOGGER.info(String.format("%-12s %12d %12d %6s %8s %8s %5.2f", getId(ops), result.nodes, mtdResult.nodes,
+                df.format(mtdResult.nodes / (double) result.nodes), result.move, mtdResult.move,
+                mtdfSearchIterator.getPasses() / (double) mtdfSearchIterator.getIterations()));
+    }
+
+    public void compareTestSuite(String testSuite, int depth) throws Exception {
+        LOGGER.info("comparing iterators. test suite: " + testSuite + ", depth: " + depth);
+        LOGGER.info(String.format("%-12s %12s %12s %6s %8s %8s %5s", "id", "nodes", "mtd nodes", "ratio",
+                "move", "mtd move", "passes"));
+
+        Path path = FileSystems.getDefault().getPath(testSuite);
+        List<String> lines = Files.readAllLines(path, Charset.defaultCharset());
+        for (String line : lines) {
+            if (!line.isBlank()) {
+                compareProblem(line, depth);
+            }
+        }
+
+        DecimalFormat df = new DecimalFormat("#,###,##0");
+        DecimalFormat df2 = new DecimalFormat("0.00");
+        LOGGER.info("# problems: " + numProblems + ", same move: " + numSameMove);
+        LOGGER.info("# nodes: " + df.format(totalNodes) + ", mtd nodes: " + df.format(totalMtdNodes)
+                + " (" + df2.format(totalMtdNodes / (double) totalNodes) + ")");
+        LOGGER.info("# time: " + totalTimeMs + " ms, mtd time: " + totalMtdTimeMs + " ms");
+    }
+
+}
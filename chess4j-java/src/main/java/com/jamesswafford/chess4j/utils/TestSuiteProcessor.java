@@ -57,7 +57,8 @@ public class TestSuiteProcessor {
         }
     }
 
-    private boolean processProblem(String epd, int maxDepth, int secondsPerProblem) throws Exception {
+    private boolean processProblem(String epd, int maxDepth, long maxNodes, int secondsPerProblem)
+            throws Exception {
         LOGGER.info("\n\nprocessing epd: " + epd);
         Board board = new Board();
         List<EPDOperation> ops = EPDParser.setPos(board, epd);
@@ -69,7 +70,12 @@ public class TestSuiteProcessor {
 
         SearchIteratorImpl searchIterator = new SearchIteratorImpl();
         searchIterator.setEarlyExitOk(false);
-        searchIterator.setMaxTime(secondsPerProblem * 1000);
+        // a node limited run should give the same results every time, so don't let the clock interfere
+        if (maxNodes > 0) {
+            searchIterator.setMaxNodes(maxNodes);
+        } else {
+            searchIterator.setMaxTime(secondsPerProblem * 1000);
+        }
         searchIterator.setMaxDepth(maxDepth);
 
         List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
@@ -77,10 +83,15 @@ public class TestSuiteProcessor {
         return bms.contains(pv.get(0));
     }
 
-    public void processTestSuite(String testSuite, int maxDepth, int secondsPerProblem) throws Exception {
+    public void processTestSuite(String testSuite, int maxDepth, long maxNodes, int secondsPerProblem)
+            throws Exception {
         LOGGER.info("processing. test suite: " + testSuite);
         LOGGER.info("max depth: " + maxDepth);
-        LOGGER.info("seconds per problem: " + secondsPerProblem);
+        if (maxNodes > 0) {
+            LOGGER.info("nodes per problem: " + maxNodes);
+        } else {
+            LOGGER.info("seconds per problem: " + secondsPerProblem);
+        }
 
         List<String> wrongProblems = new ArrayList<>();
         int numProblems = 0;
@@ -90,7 +101,7 @@ public class TestSuiteProcessor {
         for (String line : lines) {
             numProblems++;
             boolean correct = true;
-            if (!processProblem(line, maxDepth, secondsPerProblem)) {
+            if (!processProblem(line, maxDepth, maxNodes, secondsPerProblem)) {
                 correct = false;
                 wrongProblems.add(line);
             }
@@ -0,0 +1,71 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The network's loops written with the Vector API, which compiles them to the widest SIMD instructions the
+ * machine has.  Only built by the java17 profile; see {@link NnueKernels}.
+ */
+final class VectorNnueKernels implements NnueKernels {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(short[] acc, short[] weights, int offset) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(acc.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) {
+            acc[i] += weights[offset + i];
+        }
+    }
+
+    @Override
+    public void subtract(short[] acc, short[] weights, int offset) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(acc.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) {
+            acc[i] -= weights[offset + i];
+        }
+    }
+
+    @Override
+    public void clip(short[] acc, int[] dest, int destOffset) {
+        // done once per evaluation, and simple enough that the JIT vectorizes it by itself
+        for (int i=0;i<acc.length;i++) {
+            dest[destOffset + i] = Math.max(0, Math.min(127, acc[i]));
+        }
+    }
+
+    @Override
+    public int dot(int[] input, int[] weights, int offset) {
+        IntVector sums = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(input.length); i < bound; i += INTS.length()) {
+            sums = IntVector.fromArray(INTS, input, i)
+                    .mul(IntVector.fromArray(INTS, weights, offset + i))
+                    .add(sums);
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < input.length; i++) {
+            sum += input[i] * weights[offset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + SHORTS.vectorBitSize() + " bit)";
+    }
+}
@@ -88,6 +88,27 @@ public class BitboardTest {
                 rays[D5.value()][NorthWest.getInstance().value()]);
     }
 
+    @Test
+    public void between() {
+        assertEquals(squares[D6.value()] | squares[D7.value()], between[D5.value()][D8.value()]);
+        assertEquals(between[D5.value()][D8.value()], between[D8.value()][D5.value()]);
+        assertEquals(squares[B2.value()] | squares[C3.value()], between[A1.value()][D4.value()]);
+        assertEquals(0, between[E4.value()][E5.value()]);
+        assertEquals(0, between[E4.value()][F6.value()]);
+        assertEquals(0, between[E4.value()][E4.value()]);
+    }
+
+    @Test
+    public void line() {
+        assertEquals(files[File.FILE_D.getValue()], line[D5.value()][D8.value()]);
+        assertEquals(ranks[RANK_2.getValue()], line[H2.value()][C2.value()]);
+        assertEquals(
+                squares[A8.value()] | squares[B7.value()] | squares[C6.value()] | squares[D5.value()]
+                        | squares[E4.value()] | squares[F3.value()] | squares[G2.value()] | squares[H1.value()],
+                line[C6.value()][E4.value()]);
+        assertEquals(0, line[E4.value()][F6.value()]);
+    }
+
     @Test
     public void knightMoves() {
         long moves = knightMoves[E4.value()];
@@ -0,0 +1,92 @@
+package com.jamesswafford.chess4j.eval;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Color;
+import com.jamesswafford.chess4j.io.EPDParser;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EvalFeaturesTest {
+
+    // the evaluation rounds the scaled king safety of each side, and the half weights of the edge pawns
+    private static final double ROUNDING = 3.0;
+
+    @After
+    public void tearDown() {
+        EvalParameters.reset();
+    }
+
+    private static List<Board> getPositions() throws Exception {
+        File epdFile = new File(EvalFeaturesTest.class.getResource("/suites/wac.epd").getFile());
+        List<Board> boards = new ArrayList<>();
+        for (String line : Files.readAllLines(epdFile.toPath(), Charset.defaultCharset())) {
+            if (!line.isBlank()) {
+                Board board = new Board();
+                EPDParser.setPos(board, line);
+                boards.add(board);
+            }
+        }
+        // a few without many pieces, to take the kings into the endgame
+        boards.add(new Board("8/4k3/8/1NR5/8/4K1r1/8/8 w - -"));
+        boards.add(new Board("6k1/4R1P1/5P2/5K1p/7r/8/8/8 w - -"));
+        boards.add(new Board("r5k1/1R3ppp/8/8/8/8/5PPP/6K1 b - -"));
+        return boards;
+    }
+
+    private static void assertMatchesEval(List<Board> boards) {
+        int[] weights = EvalParameters.getValues();
+        double[] coefficients = new double[EvalParameters.size()];
+        for (Board board : boards) {
+            int material = EvalFeatures.extract(board, coefficients);
+            double score = EvalFeatures.score(material, coefficients, weights);
+            int eval = Eval.eval(board);
+            int whiteEval = board.getPlayerToMove() == Color.WHITE ? eval : -eval;
+            assertEquals(board.toString(), whiteEval, score, ROUNDING);
+        }
+    }
+
+    @Test
+    public void matchesTheEvaluation() throws Exception {
+        assertMatchesEval(getPositions());
+    }
+
+    @Test
+    public void matchesTheEvaluationWithOtherWeights() throws Exception {
+        List<Board> boards = getPositions();
+        Random random = new Random(1);
+        for (int i=0;i<3;i++) {
+            int[] weights = EvalParameters.getValues();
+            for (int j=0;j<weights.length;j++) {
+                weights[j] = random.nextInt(101) - 50;
+            }
+            EvalParameters.setValues(weights);
+            assertMatchesEval(boards);
+        }
+    }
+
+    @Test
+    public void blackMirrorsWhite() {
+        Board board = new Board("r1bq1rk1/pp2nppp/2n1p3/3pP3/1b1P4/2NB1N2/PP3PPP/R1BQ1RK1 w - -");
+        Board flipped = board.deepCopy();
+        flipped.flipVertical();
+
+        double[] coefficients = new double[EvalParameters.size()];
+        double[] flippedCoefficients = new double[EvalParameters.size()];
+        int material = EvalFeatures.extract(board, coefficients);
+        int flippedMaterial = EvalFeatures.extract(flipped, flippedCoefficients);
+
+        assertEquals(material, -flippedMaterial);
+        for (int i=0;i<coefficients.length;i++) {
+            assertEquals(EvalParameters.getName(i), coefficients[i], -flippedCoefficients[i], 1e-9);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.jamesswafford.chess4j.eval;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.hash.TranspositionTable;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.hash.TranspositionTableEntryType.EXACT_SCORE;
+import static com.jamesswafford.chess4j.pieces.Pawn.WHITE_PAWN;
+import static org.junit.Assert.*;
+
+public class EvalParametersTest {
+
+    @After
+    public void tearDown() {
+        EvalParameters.reset();
+    }
+
+    @Test
+    public void valuesMatchTheEvaluation() {
+        int[] values = EvalParameters.getValues();
+        assertEquals(EvalParameters.size(), values.length);
+        assertEquals(7 * 64 + 13, values.length);
+
+        assertEquals(EvalPawn.PASSED_PAWN, values[EvalParameters.indexOf("PASSED_PAWN")]);
+        assertEquals(EvalKing.KING_SAFETY_PAWN_FAR_AWAY, values[EvalParameters.indexOf("KING_SAFETY_PAWN_FAR_AWAY")]);
+        assertEquals(EvalKnight.KNIGHT_PST[27], values[EvalParameters.indexOf("KNIGHT_PST") + 27]);
+        assertEquals("KNIGHT_PST[27]", EvalParameters.getName(EvalParameters.indexOf("KNIGHT_PST") + 27));
+        assertEquals("PASSED_PAWN", EvalParameters.getName(EvalParameters.indexOf("PASSED_PAWN")));
+        assertTrue(EvalParameters.isDefault());
+    }
+
+    @Test
+    public void setValuesChangesTheEvaluation() {
+        // a white pawn on e6 is passed
+        Board board = new Board("4k3/8/4P3/8/8/8/8/4K3 w - -");
+        int score = Eval.eval(board);
+
+        int[] values = EvalParameters.getValues();
+        values[EvalParameters.indexOf("PASSED_PAWN")] += 100;
+        EvalParameters.setValues(values);
+
+        assertEquals(EvalParameters.getWeights().passedPawn, values[EvalParameters.indexOf("PASSED_PAWN")]);
+        assertEquals(EvalPawn.PASSED_PAWN + 100, EvalParameters.getWeights().passedPawn);
+        assertFalse(EvalParameters.isDefault());
+        // the pawn hash would still have the old score
+        assertEquals(score + 100, Eval.eval(board));
+
+        EvalParameters.reset();
+        assertTrue(EvalParameters.isDefault());
+        assertEquals(score, Eval.eval(board));
+    }
+
+    @Test
+    public void setValuesDoesNotChangeWeightsAlreadyRead() {
+        EvalWeights weights = EvalParameters.getWeights();
+
+        int[] values = EvalParameters.getValues();
+        values[EvalParameters.indexOf("KNIGHT_PST") + 27] += 100;
+        EvalParameters.setValues(values);
+
+        assertEquals(EvalKnight.KNIGHT_PST[27], weights.knightPst[27]);
+        assertEquals(EvalKnight.KNIGHT_PST[27] + 100, EvalParameters.getWeights().knightPst[27]);
+    }
+
+    @Test
+    public void setValuesClearsTheHashTable() {
+        Board board = new Board();
+        TranspositionTable tt = TTHolder.getInstance().getHashTable();
+        tt.store(board, EXACT_SCORE, 50, 3, new Move(WHITE_PAWN, E2, E4));
+        assertNotNull(tt.probe(board));
+
+        int[] values = EvalParameters.getValues();
+        values[EvalParameters.indexOf("PASSED_PAWN")] += 100;
+        EvalParameters.setValues(values);
+
+        // the score was searched with the old weights
+        assertNull(tt.probe(board));
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        int[] values = EvalParameters.getValues();
+        for (int i=0;i<values.length;i++) {
+            values[i] += i % 7 - 3;
+        }
+        EvalParameters.setValues(values);
+
+        Path path = Files.createTempFile("chess4j", ".params");
+        try {
+            EvalParameters.save(path);
+            EvalParameters.reset();
+            EvalParameters.load(path);
+
+            assertArrayEquals(values, EvalParameters.getValues());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void loadKeepsTermsLeftOut() throws Exception {
+        int[] values = EvalParameters.getValues();
+        values[EvalParameters.indexOf("PASSED_PAWN")] = 35;
+        EvalParameters.setValues(values);
+
+        Path path = Files.createTempFile("chess4j", ".params");
+        try {
+            Files.write(path, Arrays.asList("# just the one", "ROOK_OPEN_FILE = 40"));
+            EvalParameters.load(path);
+
+            assertEquals(40, EvalParameters.getWeights().rookOpenFile);
+            assertEquals(35, EvalParameters.getWeights().passedPawn);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void loadRejectsBadFiles() throws Exception {
+        String[][] badFiles = {
+                { "NO_SUCH_TERM = 1" },
+                { "ROOK_OPEN_FILE" },
+                { "ROOK_OPEN_FILE = x" },
+                { "ROOK_PST = 1, 2, 3" },
+                // nothing is changed unless the whole file is good
+                { "ROOK_OPEN_FILE = 40", "ROOK_HALF_OPEN_FILE = 1, 2" }
+        };
+
+        Path path = Files.createTempFile("chess4j", ".params");
+        try {
+            for (String[] lines : badFiles) {
+                Files.write(path, Arrays.asList(lines));
+                try {
+                    EvalParameters.load(path);
+                    fail("loaded " + Arrays.toString(lines));
+                } catch (IOException e) {
+                    assertTrue(EvalParameters.isDefault());
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
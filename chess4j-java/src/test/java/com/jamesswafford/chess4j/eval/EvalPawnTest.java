@@ -46,4 +46,19 @@ public class EvalPawnTest {
         assertEquals(PAWN_PST[A7.value()] + PASSED_PAWN + ISOLATED_PAWN,
                 evalPawn(board, A2));
     }
+
+    @Test
+    public void testEvalPawns() {
+        board.setPos("8/8/1PP2PbP/3r4/8/1Q5p/p5N1/k3K3 b - - 0 1");
+
+        // B6 and C6 are passed, F6 is passed and isolated, H6 is passed and isolated;
+        // A2 and H3 are passed and isolated
+        int white = PAWN_PST[B6.value()] + PAWN_PST[C6.value()] + PAWN_PST[F6.value()] + PAWN_PST[H6.value()]
+                + 4 * PASSED_PAWN + 2 * ISOLATED_PAWN;
+        int black = PAWN_PST[A7.value()] + PAWN_PST[H6.value()] + 2 * PASSED_PAWN + 2 * ISOLATED_PAWN;
+        assertEquals(white - black, evalPawns(board));
+
+        board.resetBoard();
+        assertEquals(0, evalPawns(board));
+    }
 }
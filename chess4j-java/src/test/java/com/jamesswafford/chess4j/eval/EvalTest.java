@@ -3,6 +3,7 @@ package com.jamesswafford.chess4j.eval;
 import org.junit.Test;
 
 import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.hash.PawnTranspositionTable;
 
 import static org.junit.Assert.*;
 
@@ -25,6 +26,17 @@ public class EvalTest {
         assertEquals(0, eval);
     }
 
+    @Test
+    public void testOwnPawnTable() {
+        board.setPos("r1bq1rk1/pp2nppp/2n1p3/3pP3/1b1P4/2NB1N2/PP3PPP/R1BQ1RK1 w - -");
+        PawnTranspositionTable pawnTable = new PawnTranspositionTable(1024 * 1024);
+        Eval evaluator = new Eval(pawnTable);
+
+        assertEquals(eval(board), evaluator.evaluateBoard(board));
+        assertNotNull(pawnTable.probe(board.getPawnKey()));
+        assertEquals(eval(board), evaluator.evaluateBoard(board));
+    }
+
     @Test
     public void testSymmetry() {
         testCaseSymmetry("7r/R6p/2K4P/5k1P/2p4n/5p2/8/8 w - - 0 1");
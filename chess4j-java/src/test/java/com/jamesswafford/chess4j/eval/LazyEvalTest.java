@@ -0,0 +1,147 @@
+package com.jamesswafford.chess4j.eval;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.io.EPDParser;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jamesswafford.chess4j.Constants.INFINITY;
+import static com.jamesswafford.chess4j.eval.EvalMaterial.ROOK_VAL;
+import static org.junit.Assert.*;
+
+public class LazyEvalTest {
+
+    // wide enough to cover the positional terms in any of the WAC positions; the widest, two connected
+    // rooks on the 7th in WAC.193, is worth 260
+    private static final int SAFE_MARGIN = 300;
+
+    private static final int[] WINDOW_OFFSETS = { -800, -400, -250, -150, -50, 0, 50, 150, 250, 400, 800 };
+
+    private static List<Board> getWacPositions() throws Exception {
+        File epdFile = new File(LazyEvalTest.class.getResource("/suites/wac.epd").getFile());
+        List<Board> boards = new ArrayList<>();
+        for (String line : Files.readAllLines(epdFile.toPath(), Charset.defaultCharset())) {
+            if (!line.isBlank()) {
+                Board board = new Board();
+                EPDParser.setPos(board, line);
+                boards.add(board);
+            }
+        }
+        return boards;
+    }
+
+    /*
+     * Check the score against the full evaluation: exact inside the window, otherwise a bound on the
+     * correct side of it.
+     */
+    private static boolean isConsistent(Board board, int alpha, int beta, int lazyScore) {
+        int fullScore = Eval.eval(board);
+        if (lazyScore <= alpha) {
+            return fullScore <= alpha || lazyScore == fullScore;
+        } else if (lazyScore >= beta) {
+            return fullScore >= beta || lazyScore == fullScore;
+        }
+        return lazyScore == fullScore;
+    }
+
+    @Test
+    public void withoutWindowTheScoreIsExact() throws Exception {
+        LazyEval lazyEval = new LazyEval();
+        for (Board board : getWacPositions()) {
+            assertEquals(Eval.eval(board), lazyEval.evaluateBoard(board));
+        }
+        assertEquals(0, lazyEval.getNumEvals());
+    }
+
+    private static int countInconsistencies(LazyEval lazyEval) throws Exception {
+        int inconsistencies = 0;
+        for (Board board : getWacPositions()) {
+            int fullScore = Eval.eval(board);
+            for (int offset : WINDOW_OFFSETS) {
+                int alpha = fullScore + offset, beta = alpha + 50;
+                if (!isConsistent(board, alpha, beta, lazyEval.evaluateBoard(board, alpha, beta))) {
+                    inconsistencies++;
+                }
+
+                // a null window, as a zero window search would use
+                if (!isConsistent(board, alpha, alpha + 1, lazyEval.evaluateBoard(board, alpha, alpha + 1))) {
+                    inconsistencies++;
+                }
+            }
+        }
+        return inconsistencies;
+    }
+
+    @Test
+    public void cutoffsAgreeWithFullEval() throws Exception {
+        LazyEval lazyEval = new LazyEval(SAFE_MARGIN);
+        assertEquals(0, countInconsistencies(lazyEval));
+        assertTrue(lazyEval.getNumLazyExits() > 0);
+        assertTrue(lazyEval.getNumLazyExits() < lazyEval.getNumEvals());
+    }
+
+    @Test
+    public void defaultMarginIsRarelyWrong() throws Exception {
+        LazyEval lazyEval = new LazyEval();
+        assertTrue(countInconsistencies(lazyEval) * 100 < lazyEval.getNumEvals());
+
+        // a smaller margin exits more often
+        LazyEval narrowLazyEval = new LazyEval(50);
+        countInconsistencies(narrowLazyEval);
+        assertTrue(narrowLazyEval.getNumLazyExits() > lazyEval.getNumLazyExits());
+    }
+
+    @Test
+    public void scoreInsideWindowIsAlwaysExact() throws Exception {
+        LazyEval lazyEval = new LazyEval(SAFE_MARGIN);
+        for (Board board : getWacPositions()) {
+            int fullScore = Eval.eval(board);
+            for (int offset : WINDOW_OFFSETS) {
+                int alpha = fullScore - Math.abs(offset) - 1, beta = fullScore + Math.abs(offset) + 1;
+                assertEquals(fullScore, lazyEval.evaluateBoard(board, alpha, beta));
+            }
+        }
+        assertEquals(0, lazyEval.getNumLazyExits());
+    }
+
+    @Test
+    public void exitsOnlyWhenTheMarginCantBeMade() {
+        // white is a rook up, and to move
+        Board board = new Board("4k3/pppp4/8/8/8/8/PPPP4/R3K3 w - -");
+        LazyEval lazyEval = new LazyEval(100);
+        int estimate = LazyEval.evalFirstStage(board);
+        assertTrue(estimate > ROOK_VAL - 100 && estimate < ROOK_VAL + 100);
+
+        // far above the window: a lower bound
+        assertEquals(estimate - 100, lazyEval.evaluateBoard(board, -INFINITY, estimate - 100));
+        assertEquals(1, lazyEval.getNumLazyExits());
+
+        // far below it: an upper bound
+        assertEquals(estimate + 100, lazyEval.evaluateBoard(board, estimate + 100, INFINITY));
+        assertEquals(2, lazyEval.getNumLazyExits());
+
+        // within the margin of the window the full evaluation is done
+        assertEquals(Eval.eval(board), lazyEval.evaluateBoard(board, estimate + 99, INFINITY));
+        assertEquals(Eval.eval(board), lazyEval.evaluateBoard(board, -INFINITY, estimate - 99));
+        assertEquals(2, lazyEval.getNumLazyExits());
+        assertEquals(4, lazyEval.getNumEvals());
+
+        lazyEval.resetStats();
+        assertEquals(0, lazyEval.getNumEvals());
+        assertEquals(0, lazyEval.getNumLazyExits());
+    }
+
+    @Test
+    public void firstStageIsSymmetric() throws Exception {
+        for (Board board : getWacPositions()) {
+            Board flipBoard = board.deepCopy();
+            flipBoard.flipVertical();
+            assertEquals(LazyEval.evalFirstStage(board), LazyEval.evalFirstStage(flipBoard));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.jamesswafford.chess4j.eval;
 
 import org.junit.Test;
 
+import com.jamesswafford.chess4j.board.Bitboard;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.squares.Square;
 import com.jamesswafford.chess4j.pieces.Pawn;
@@ -179,4 +180,64 @@ public class PawnUtilsTest {
         assertFalse(isDoubled(board, H5,true));
     }
 
+    @Test
+    public void testSetWiseMatchesPerPawn() {
+        String[] fens = {
+                Board.INITIAL_POS,
+                "7k/8/7p/1P2Pp1P/2Pp1PP1/8/8/7K w - -",
+                "8/8/1PP2PbP/3r4/8/1Q5p/p5N1/k3K3 b - - 0 1",
+                "k7/p1p3p1/3p3p/1P5P/1PP1P1P1/8/8/K7 b - - 0 1",
+                "r1bqkb1r/pp3ppp/2np1n2/4p3/2P1P3/2N2N2/PP3PPP/R1BQKB1R w KQkq - 0 6",
+                "8/5p2/2p3p1/p1P1P2p/P6P/3k4/8/4K3 w - -"
+        };
+
+        for (String fen : fens) {
+            Board board = new Board(fen);
+            for (boolean isWhite : new boolean[] { true, false }) {
+                long pawns = isWhite ? board.getWhitePawns() : board.getBlackPawns();
+                long enemyPawns = isWhite ? board.getBlackPawns() : board.getWhitePawns();
+                long passed = 0, isolated = 0, doubled = 0;
+                for (Square sq : Square.allSquares()) {
+                    if ((pawns & Bitboard.squares[sq.value()]) != 0) {
+                        if (isPassedPawn(board, sq, isWhite)) passed |= Bitboard.squares[sq.value()];
+                        if (isIsolated(board, sq, isWhite)) isolated |= Bitboard.squares[sq.value()];
+                        if (isDoubled(board, sq, isWhite)) doubled |= Bitboard.squares[sq.value()];
+                    }
+                }
+                assertEquals(fen, passed, getPassedPawns(pawns, enemyPawns, isWhite));
+                assertEquals(fen, isolated, getIsolatedPawns(pawns));
+                assertEquals(fen, doubled, getDoubledPawns(pawns));
+            }
+        }
+    }
+
+    @Test
+    public void testGetBackwardPawns() {
+        Board board = new Board("4k3/8/8/2p5/2P1P3/3P4/8/4K3 w - -");
+
+        /*
+        - - - - k - - -
+        - - - - - - - -
+        - - - - - - - -    the white pawn on D3 can't be defended and black's C5 pawn guards D4.
+        - - p - - - - -    the black pawn on C5 can't be defended either and white's D3 pawn guards
+        - - P - P - - -    C4, although C4 is occupied anyway.
+        - - - P - - - -
+        - - - - - - - -
+        - - - - K - - -
+        */
+
+        assertEquals(Bitboard.squares[D3.value()],
+                getBackwardPawns(board.getWhitePawns(), board.getBlackPawns(), true));
+        assertEquals(Bitboard.squares[C5.value()],
+                getBackwardPawns(board.getBlackPawns(), board.getWhitePawns(), false));
+
+        // a pawn on C2 can come up to defend D4
+        board.setPos("4k3/8/8/2p5/2P1P3/3P4/2P5/4K3 w - -");
+        assertEquals(0, getBackwardPawns(board.getWhitePawns(), board.getBlackPawns(), true));
+
+        // nor is a pawn backward if its path is not guarded
+        board.setPos("4k3/8/8/8/2P1P3/3P4/8/4K3 w - -");
+        assertEquals(0, getBackwardPawns(board.getWhitePawns(), board.getBlackPawns(), true));
+    }
+
 }
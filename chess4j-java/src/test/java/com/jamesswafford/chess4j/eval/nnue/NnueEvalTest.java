@@ -0,0 +1,166 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import com.jamesswafford.chess4j.Constants;
+import com.jamesswafford.chess4j.Globals;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.search.AlphaBetaSearch;
+import com.jamesswafford.chess4j.search.SearchOptions;
+import com.jamesswafford.chess4j.search.SearchParameters;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.King.WHITE_KING;
+import static com.jamesswafford.chess4j.pieces.Knight.WHITE_KNIGHT;
+import static org.junit.Assert.*;
+
+public class NnueEvalTest {
+
+    private static final NnueNetwork NETWORK = NnueNetworkTest.randomNetwork(40, 8, 0);
+
+    private static final String[] FENS = {
+            Board.INITIAL_POS,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - -",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -"
+    };
+
+    private static int evaluateFromScratch(Board board) {
+        return new NnueEval(NETWORK).evaluateBoard(board.deepCopy());
+    }
+
+    /*
+     * Walk the tree to the given depth, making and unmaking every move, checking the incrementally updated
+     * score against one computed from scratch at each node.
+     */
+    private static void walk(Board board, NnueEval nnueEval, int depth) {
+        assertEquals(evaluateFromScratch(board), nnueEval.evaluateBoard(board));
+        if (depth == 0) {
+            return;
+        }
+        for (Move move : MagicBitboardMoveGenerator.genLegalMoves(board)) {
+            Undo undo = board.applyMove(move);
+            walk(board, nnueEval, depth - 1);
+            board.undoMove(undo);
+        }
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRefresh() {
+        for (String fen : FENS) {
+            walk(new Board(fen), new NnueEval(NETWORK), 2);
+        }
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRefreshThroughoutAGame() {
+        Random random = new Random(0);
+        Board board = new Board(FENS[1]);
+        NnueEval nnueEval = new NnueEval(NETWORK);
+        for (int i=0;i<100;i++) {
+            List<Move> moves = MagicBitboardMoveGenerator.genLegalMoves(board);
+            if (moves.isEmpty()) {
+                break;
+            }
+            // evaluated only every few moves, so several moves' updates pile up in between
+            board.applyMove(moves.get(random.nextInt(moves.size())));
+            if (i % 3 == 0) {
+                assertEquals(evaluateFromScratch(board), nnueEval.evaluateBoard(board));
+            }
+        }
+    }
+
+    @Test
+    public void scoreIsSymmetric() {
+        NnueEval nnueEval = new NnueEval(NETWORK);
+        for (String fen : FENS) {
+            Board board = new Board(fen);
+            Board flipBoard = board.deepCopy();
+            flipBoard.flipVertical();
+            assertEquals(nnueEval.evaluateBoard(board), nnueEval.evaluateBoard(flipBoard));
+        }
+    }
+
+    @Test
+    public void onlyKingMovesRefresh() {
+        Board board = new Board(FENS[1]);
+        NnueEval nnueEval = new NnueEval(NETWORK);
+        nnueEval.evaluateBoard(board);
+        assertEquals(2, nnueEval.getNumRefreshes());
+
+        Undo undo = board.applyMove(new Move(WHITE_KNIGHT, C3, B5));
+        nnueEval.evaluateBoard(board);
+        assertEquals(2, nnueEval.getNumRefreshes());
+        board.undoMove(undo);
+
+        // only white's view depends on where the white king is
+        undo = board.applyMove(new Move(WHITE_KING, E1, F1));
+        nnueEval.evaluateBoard(board);
+        assertEquals(3, nnueEval.getNumRefreshes());
+        assertEquals(3, nnueEval.getNumEvals());
+
+        // unmaking the move puts back the accumulators from before it
+        board.undoMove(undo);
+        assertEquals(evaluateFromScratch(board), nnueEval.evaluateBoard(board));
+        assertEquals(3, nnueEval.getNumRefreshes());
+
+        nnueEval.resetStats();
+        assertEquals(0, nnueEval.getNumEvals());
+        assertEquals(0, nnueEval.getNumRefreshes());
+    }
+
+    @Test
+    public void movesMadeBeforeAttachingAreUnmadeByUpdating() {
+        Board board = new Board(FENS[1]);
+        Undo undo1 = board.applyMove(new Move(WHITE_KING, E1, F1));
+        NnueEval nnueEval = new NnueEval(NETWORK);
+        nnueEval.evaluateBoard(board);
+
+        Undo undo2 = board.applyMove(new Move(WHITE_KNIGHT, C3, B5));
+        assertEquals(evaluateFromScratch(board), nnueEval.evaluateBoard(board));
+        board.undoMove(undo2);
+        assertEquals(evaluateFromScratch(board), nnueEval.evaluateBoard(board));
+        board.undoMove(undo1);
+        assertEquals(evaluateFromScratch(board), nnueEval.evaluateBoard(board));
+    }
+
+    @Test
+    public void followsTheBoardItLastEvaluated() {
+        Board board1 = new Board(FENS[0]);
+        Board board2 = new Board(FENS[1]);
+        NnueEval nnueEval = new NnueEval(NETWORK);
+
+        nnueEval.evaluateBoard(board1);
+        assertSame(nnueEval, board1.getPieceListener());
+        nnueEval.evaluateBoard(board2);
+        assertNull(board1.getPieceListener());
+        assertSame(nnueEval, board2.getPieceListener());
+
+        // moves on the first board no longer affect the second's score
+        board1.applyMove(new Move(WHITE_KNIGHT, G1, F3));
+        assertEquals(evaluateFromScratch(board2), nnueEval.evaluateBoard(board2));
+        assertEquals(evaluateFromScratch(board1), nnueEval.evaluateBoard(board1));
+    }
+
+    @Test
+    public void searchUsesTheLoadedNetwork() {
+        Globals.setNnueNetwork(NETWORK);
+        try {
+            AlphaBetaSearch search = new AlphaBetaSearch();
+            Board board = new Board(FENS[1]);
+            SearchOptions opts = SearchOptions.builder().avoidNative(true).build();
+            search.search(board, new SearchParameters(3, -Constants.INFINITY, Constants.INFINITY), opts);
+            assertTrue(search.getSearchStats().nodes > 0);
+            assertEquals(new Board(FENS[1]), board);
+            assertEquals(evaluateFromScratch(board), new NnueEval(NETWORK).evaluateBoard(board));
+        } finally {
+            Globals.setNnueNetwork(null);
+        }
+    }
+}
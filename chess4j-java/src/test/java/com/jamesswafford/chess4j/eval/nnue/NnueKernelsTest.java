@@ -0,0 +1,60 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NnueKernelsTest {
+
+    // whichever kernels were loaded, possibly the vector ones, should agree with the scalar ones exactly
+    private final NnueKernels kernels = NnueKernels.load();
+    private final NnueKernels scalar = new ScalarNnueKernels();
+    private final Random random = new Random(0);
+
+    private short[] randomShorts(int length, int bound) {
+        short[] values = new short[length];
+        for (int i=0;i<length;i++) {
+            values[i] = (short) (random.nextInt(2 * bound + 1) - bound);
+        }
+        return values;
+    }
+
+    @Test
+    public void kernelsAgreeWithScalar() {
+        for (int length : new int[] { 1, 7, 16, 40, 256 }) {
+            short[] weights = randomShorts(3 * length, 1000);
+            short[] acc = randomShorts(length, 500);
+            short[] scalarAcc = acc.clone();
+
+            kernels.add(acc, weights, length);
+            scalar.add(scalarAcc, weights, length);
+            assertArrayEquals(scalarAcc, acc);
+
+            kernels.subtract(acc, weights, 2 * length);
+            scalar.subtract(scalarAcc, weights, 2 * length);
+            assertArrayEquals(scalarAcc, acc);
+
+            int[] clipped = new int[2 * length + 1], scalarClipped = new int[2 * length + 1];
+            kernels.clip(acc, clipped, length + 1);
+            scalar.clip(scalarAcc, scalarClipped, length + 1);
+            assertArrayEquals(scalarClipped, clipped);
+
+            int[] input = new int[length];
+            kernels.clip(acc, input, 0);
+            int[] int8Weights = new int[2 * length];
+            for (int i=0;i<int8Weights.length;i++) {
+                int8Weights[i] = random.nextInt(255) - 127;
+            }
+            assertEquals(scalar.dot(input, int8Weights, length), kernels.dot(input, int8Weights, length));
+        }
+    }
+
+    @Test
+    public void clipToZeroAnd127() {
+        int[] clipped = new int[4];
+        kernels.clip(new short[] { -300, 0, 64, 3000 }, clipped, 0);
+        assertArrayEquals(new int[] { 0, 0, 64, 127 }, clipped);
+    }
+}
@@ -0,0 +1,127 @@
+package com.jamesswafford.chess4j.eval.nnue;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Color;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Knight.*;
+import static com.jamesswafford.chess4j.pieces.Pawn.*;
+import static org.junit.Assert.*;
+
+public class NnueNetworkTest {
+
+    private static final String[] FENS = {
+            Board.INITIAL_POS,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -"
+    };
+
+    /**
+     * A network of random weights, scaled so the layers are neither always clipped nor always zero.  An
+     * accumulator size that isn't a multiple of the vector size exercises the loop tails.
+     */
+    static NnueNetwork randomNetwork(int accumulatorSize, int hiddenSize, long seed) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[NnueNetwork.NUM_FEATURES * accumulatorSize];
+        for (int i=0;i<featureWeights.length;i++) {
+            featureWeights[i] = (short) (random.nextInt(81) - 40);
+        }
+        short[] featureBiases = new short[accumulatorSize];
+        for (int i=0;i<featureBiases.length;i++) {
+            featureBiases[i] = (short) random.nextInt(65);
+        }
+        byte[] hiddenWeights = new byte[hiddenSize * 2 * accumulatorSize];
+        for (int i=0;i<hiddenWeights.length;i++) {
+            hiddenWeights[i] = (byte) (random.nextInt(61) - 30);
+        }
+        int[] hiddenBiases = new int[hiddenSize];
+        for (int i=0;i<hiddenBiases.length;i++) {
+            hiddenBiases[i] = random.nextInt(4001) - 2000;
+        }
+        short[] outputWeights = new short[hiddenSize];
+        for (int i=0;i<outputWeights.length;i++) {
+            outputWeights[i] = (short) (random.nextInt(401) - 200);
+        }
+        return new NnueNetwork(accumulatorSize, hiddenSize, featureWeights, featureBiases, hiddenWeights,
+                hiddenBiases, outputWeights, random.nextInt(201) - 100);
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        NnueNetwork network = randomNetwork(40, 8, 1);
+        Path path = Files.createTempFile("chess4j", ".nnue");
+        try {
+            network.save(path);
+            NnueNetwork loaded = NnueNetwork.load(path);
+
+            assertEquals(40, loaded.getAccumulatorSize());
+            assertEquals(8, loaded.getHiddenSize());
+            assertArrayEquals(network.featureWeights, loaded.featureWeights);
+            assertArrayEquals(network.featureBiases, loaded.featureBiases);
+            assertArrayEquals(network.hiddenWeights, loaded.hiddenWeights);
+            assertArrayEquals(network.hiddenBiases, loaded.hiddenBiases);
+            assertArrayEquals(network.outputWeights, loaded.outputWeights);
+            assertEquals(network.outputBias, loaded.outputBias);
+
+            for (String fen : FENS) {
+                Board board = new Board(fen);
+                assertEquals(new NnueEval(network).evaluateBoard(board), new NnueEval(loaded).evaluateBoard(board));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void loadRejectsBadFiles() throws Exception {
+        Path path = Files.createTempFile("chess4j", ".nnue");
+        try {
+            Files.write(path, "not a network".getBytes());
+            try {
+                NnueNetwork.load(path);
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("not a network file"));
+            }
+
+            randomNetwork(8, 4, 2).save(path);
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+            try {
+                NnueNetwork.load(path);
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("network file is truncated"));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void layersMustMatchTheirSizes() {
+        new NnueNetwork(8, 4, new short[NnueNetwork.NUM_FEATURES * 8], new short[8], new byte[8 * 4],
+                new int[4], new short[4], 0);
+    }
+
+    @Test
+    public void blackSeesTheBoardFlipped() {
+        int white = Color.WHITE.getColor(), black = Color.BLACK.getColor();
+
+        assertEquals(NnueNetwork.getFeatureIndex(white, E1.value(), WHITE_PAWN, E2.value()),
+                NnueNetwork.getFeatureIndex(black, E8.value(), BLACK_PAWN, E7.value()));
+        assertEquals(NnueNetwork.getFeatureIndex(white, G1.value(), BLACK_KNIGHT, C6.value()),
+                NnueNetwork.getFeatureIndex(black, G8.value(), WHITE_KNIGHT, C3.value()));
+
+        // the same piece is a different feature for each side
+        assertNotEquals(NnueNetwork.getFeatureIndex(white, E1.value(), WHITE_PAWN, E2.value()),
+                NnueNetwork.getFeatureIndex(black, E8.value(), WHITE_PAWN, E2.value()));
+    }
+}
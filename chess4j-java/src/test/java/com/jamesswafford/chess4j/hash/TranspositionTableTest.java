@@ -269,6 +269,43 @@ public class TranspositionTableTest {
         assertEquals(lbe2, tte);
     }
 
+    @Test
+    public void depthZeroDoesNotReplaceDeeperEntry() {
+        ttable.clear();
+        board.resetBoard();
+
+        long key = Zobrist.calculateBoardKey(board);
+        Move m = new Move(WHITE_PAWN, E2, E4);
+        ttable.store(key, LOWER_BOUND, 50, 3, m);
+        TranspositionTableEntry lbe = new TranspositionTableEntry(key, LOWER_BOUND, 50, 3, m);
+
+        // a quiescence search entry for the same position should not replace it
+        ttable.store(key, EXACT_SCORE, 25, 0, null);
+        assertEquals(lbe, ttable.probe(key));
+
+        // and neither should one for another position mapping to the same slot
+        long key2 = key ^ (1L << 40); // only the low bits are used for the index
+        ttable.store(key2, EXACT_SCORE, 25, 0, null);
+        assertEquals(lbe, ttable.probe(key));
+        assertNull(ttable.probe(key2));
+
+        // but a full width entry does
+        ttable.store(key2, UPPER_BOUND, 25, 1, null);
+        assertNull(ttable.probe(key));
+        assertEquals(new TranspositionTableEntry(key2, UPPER_BOUND, 25, 1, null), ttable.probe(key2));
+    }
+
+    @Test
+    public void depthZeroReplacesDepthZero() {
+        ttable.clear();
+        board.resetBoard();
+
+        long key = Zobrist.calculateBoardKey(board);
+        ttable.store(key, UPPER_BOUND, 50, 0, null);
+        ttable.store(key, EXACT_SCORE, 25, 0, null);
+        assertEquals(new TranspositionTableEntry(key, EXACT_SCORE, 25, 0, null), ttable.probe(key));
+    }
+
     @Test
     public void resize() {
 
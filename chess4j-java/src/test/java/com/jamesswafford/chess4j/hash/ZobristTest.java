@@ -12,10 +12,13 @@ import com.jamesswafford.chess4j.board.Color;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.CastlingRights;
 import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
 import com.jamesswafford.chess4j.board.squares.Square;
 import com.jamesswafford.chess4j.exceptions.IllegalMoveException;
 import com.jamesswafford.chess4j.exceptions.ParseException;
 import com.jamesswafford.chess4j.io.MoveParser;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.movegen.MoveGenerator;
 import com.jamesswafford.chess4j.pieces.Piece;
 
 import static org.junit.Assert.*;
@@ -603,4 +606,34 @@ public class ZobristTest {
             assertFalse(keys2.contains(key1));
         }
     }
+
+    @Test
+    public void keyAfterMove() {
+        String[] fens = {
+                Board.INITIAL_POS,
+                // castling both ways, rook captures that take away castling rights
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq -",
+                // en passant captures
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6",
+                "rnbqkbnr/pppp1ppp/8/8/3Pp3/5N2/PPP1PPPP/RNBQKB1R b KQkq d3",
+                // promotions, with and without captures
+                "r3k3/1P6/8/8/8/8/6p1/4K2R w K -",
+                "r3k3/1P6/8/8/8/8/6p1/4K2R b q -"
+        };
+
+        MoveGenerator moveGenerator = new MagicBitboardMoveGenerator();
+        for (String fen : fens) {
+            Board board = new Board(fen);
+            Board original = board.deepCopy();
+            for (Move move : moveGenerator.generatePseudoLegalMoves(board)) {
+                long keyAfterMove = Zobrist.getKeyAfterMove(board, move);
+                assertEquals(original, board);
+
+                Undo undo = board.applyMove(move);
+                assertEquals(move + " in " + fen, board.getZobristKey(), keyAfterMove);
+                board.undoMove(undo);
+            }
+        }
+    }
 }
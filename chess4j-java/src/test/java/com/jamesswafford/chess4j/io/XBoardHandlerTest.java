@@ -9,6 +9,8 @@ import com.jamesswafford.chess4j.book.OpeningBook;
 import com.jamesswafford.chess4j.hash.TTHolder;
 import com.jamesswafford.chess4j.search.SearchIterator;
 import com.jamesswafford.chess4j.search.SearchIteratorImpl;
+import com.jamesswafford.chess4j.search.SpeculativePonderer;
+import com.jamesswafford.chess4j.search.TimeManager;
 import com.jamesswafford.chess4j.utils.GameResult;
 import com.jamesswafford.chess4j.utils.GameStatus;
 import com.jamesswafford.chess4j.utils.GameStatusChecker;
@@ -20,12 +22,15 @@ import org.junit.*;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Knight.*;
 import static com.jamesswafford.chess4j.pieces.Pawn.*;
 import static com.jamesswafford.chess4j.pieces.Queen.*;
 import static org.junit.Assert.*;
@@ -158,6 +163,144 @@ public class XBoardHandlerTest {
         // TODO: ensure pondering turned on
     }
 
+    @Test
+    public void ponderHitContinuesPonderSearch() {
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+        Move g1f3 = new Move(WHITE_KNIGHT, G1, F3);
+
+        // the engine plays e2e4 and expects e7e5
+        when(searchIterator.findPvFuture(eq(new Board()), any()))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList(e2e4, e7e5)));
+
+        Board ponderBoard = new Board();
+        ponderBoard.applyMove(e2e4);
+        ponderBoard.applyMove(e7e5);
+        CompletableFuture<List<Move>> ponderSearch = new CompletableFuture<>();
+        when(searchIterator.findPvFuture(eq(ponderBoard), any())).thenReturn(ponderSearch);
+
+        xboardHandler.parseAndDispatch("new");
+        xboardHandler.parseAndDispatch("hard");
+        xboardHandler.parseAndDispatch("go");
+        verify(searchIterator, times(1)).setSkipTimeChecks(true);
+
+        // the prediction is correct, so the ponder search just keeps going
+        xboardHandler.parseAndDispatch("usermove e7e5");
+        verify(searchIterator, times(1)).ponderHit();
+        verify(searchIterator, never()).stop();
+        verify(searchIterator, times(2)).findPvFuture(any(), any());
+
+        // and its move is played as soon as it finishes
+        ponderSearch.complete(Collections.singletonList(g1f3));
+
+        List<String> output = testAppender.getNonDebugMessages();
+        assertEquals(2, output.size());
+        assertEquals("move e2e4", output.get(0));
+        assertEquals("move g1f3", output.get(1));
+    }
+
+    @Test
+    public void ponderMissStartsNewSearch() {
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+        Move d7d5 = new Move(BLACK_PAWN, D7, D5);
+        Move e4d5 = new Move(WHITE_PAWN, E4, D5, BLACK_PAWN);
+
+        when(searchIterator.findPvFuture(eq(new Board()), any()))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList(e2e4, e7e5)));
+
+        Board ponderBoard = new Board();
+        ponderBoard.applyMove(e2e4);
+        ponderBoard.applyMove(e7e5);
+        CompletableFuture<List<Move>> ponderSearch = new CompletableFuture<>();
+        when(searchIterator.findPvFuture(eq(ponderBoard), any())).thenReturn(ponderSearch);
+        doAnswer(invocation -> ponderSearch.complete(Collections.singletonList(new Move(WHITE_KNIGHT, G1, F3))))
+                .when(searchIterator).stop();
+
+        Board board = new Board();
+        board.applyMove(e2e4);
+        board.applyMove(d7d5);
+        when(searchIterator.findPvFuture(eq(board), any()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(e4d5)));
+
+        xboardHandler.parseAndDispatch("new");
+        xboardHandler.parseAndDispatch("hard");
+        xboardHandler.parseAndDispatch("go");
+
+        // the prediction is wrong, so the ponder search is abandoned and its move is not played
+        xboardHandler.parseAndDispatch("usermove d7d5");
+        verify(searchIterator, never()).ponderHit();
+        verify(searchIterator, times(1)).stop();
+        verify(searchIterator, times(3)).findPvFuture(any(), any());
+
+        List<String> output = testAppender.getNonDebugMessages();
+        assertEquals(2, output.size());
+        assertEquals("move e2e4", output.get(0));
+        assertEquals("move e4d5", output.get(1));
+    }
+
+    @Test
+    public void speculativePonderHit() {
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+        Move c7c5 = new Move(BLACK_PAWN, C7, C5);
+        Move g1f3 = new Move(WHITE_KNIGHT, G1, F3);
+
+        SpeculativePonderer ponderer = mock(SpeculativePonderer.class);
+        xboardHandler.setSpeculativePonderer(ponderer);
+
+        when(searchIterator.findPvFuture(eq(new Board()), any()))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList(e2e4, e7e5)));
+        when(ponderer.rankReplies(any(), any(), eq(e7e5))).thenReturn(Arrays.asList(e7e5, c7c5));
+        when(ponderer.ponderHit(eq(c7c5), any()))
+                .thenReturn(Optional.of(CompletableFuture.completedFuture(Collections.singletonList(g1f3))));
+
+        xboardHandler.parseAndDispatch("new");
+        xboardHandler.parseAndDispatch("hard");
+        xboardHandler.parseAndDispatch("go");
+
+        // both replies are pondered by the speculative ponderer, not the main iterator
+        Board board = new Board();
+        board.applyMove(e2e4);
+        verify(ponderer, times(1)).rankReplies(eq(board), any(), eq(e7e5));
+        verify(ponderer, times(1)).start(eq(board), any(), eq(Arrays.asList(e7e5, c7c5)));
+        verify(searchIterator, times(1)).findPvFuture(any(), any());
+
+        // the second choice is played, and its search produces the next move
+        xboardHandler.parseAndDispatch("usermove c7c5");
+        verify(ponderer, times(1)).ponderHit(eq(c7c5), eq(xboardHandler.getTimeManager()));
+        verify(searchIterator, times(1)).findPvFuture(any(), any());
+
+        List<String> output = testAppender.getNonDebugMessages();
+        assertEquals(2, output.size());
+        assertEquals("move e2e4", output.get(0));
+        assertEquals("move g1f3", output.get(1));
+    }
+
+    @Test
+    public void speculativePonderingAbandonedIfCommandArrivesWhileRanking() {
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+
+        SpeculativePonderer ponderer = mock(SpeculativePonderer.class);
+        xboardHandler.setSpeculativePonderer(ponderer);
+
+        when(searchIterator.findPvFuture(eq(new Board()), any()))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList(e2e4, e7e5)));
+        // the replies are ranked without holding the handler's lock, so a command can get in meanwhile
+        when(ponderer.rankReplies(any(), any(), eq(e7e5))).thenAnswer(invocation -> {
+            xboardHandler.parseAndDispatch("force");
+            return Collections.singletonList(e7e5);
+        });
+
+        xboardHandler.parseAndDispatch("new");
+        xboardHandler.parseAndDispatch("hard");
+        xboardHandler.parseAndDispatch("go");
+
+        verify(ponderer, times(1)).rankReplies(any(), any(), eq(e7e5));
+        verify(ponderer, never()).start(any(), any(), anyList());
+    }
+
     @Test
     public void memoryCmd() {
         xboardHandler.parseAndDispatch("memory 6");
@@ -219,6 +362,17 @@ public class XBoardHandlerTest {
         assertEquals("feature done=1", featureStatements.get(featureStatements.size()-1));
     }
 
+    @Test
+    public void optionCmd() {
+        xboardHandler.parseAndDispatch("option MultiPV=3");
+        verify(searchIterator).setMultiPv(3);
+
+        xboardHandler.parseAndDispatch("option Bogus=1");
+        List<String> output = testAppender.getNonDebugMessages();
+        assertEquals(1, output.size());
+        assertEquals("Error (unknown option): option Bogus=1", output.get(0));
+    }
+
     @Test
     public void randomCmd() {
         xboardHandler.parseAndDispatch("random");
@@ -282,10 +436,47 @@ public class XBoardHandlerTest {
         verify(searchIterator).setMaxDepth(12);
     }
 
+    @Test
+    public void snCmd() {
+        xboardHandler.parseAndDispatch("sn 100000");
+        verify(searchIterator).setMaxNodes(100000);
+    }
+
+    @Test
+    public void mateCmd() {
+        xboardHandler.parseAndDispatch("setboard 6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+        xboardHandler.parseAndDispatch("mate 2");
+
+        List<String> messages = testAppender.getMessages();
+        assertTrue(messages.contains("# mate in 1: d1d8"));
+        assertTrue(messages.contains("# proof size: 2"));
+
+        xboardHandler.parseAndDispatch("new");
+        xboardHandler.parseAndDispatch("mate 1");
+        assertTrue(testAppender.getMessages().contains("# no mate in 1"));
+    }
+
+    @Test
+    public void mateCmdStopsTheSearch() {
+        CompletableFuture<List<Move>> analysis = new CompletableFuture<>();
+        when(searchIterator.findPvFuture(any(), any())).thenReturn(analysis);
+        doAnswer(invocation -> analysis.complete(Collections.singletonList(new Move(WHITE_QUEEN, D1, D8))))
+                .when(searchIterator).stop();
+
+        xboardHandler.parseAndDispatch("setboard 6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+        xboardHandler.parseAndDispatch("analyze");
+        xboardHandler.parseAndDispatch("mate 2");
+
+        verify(searchIterator, times(1)).stop();
+        assertTrue(analysis.isDone());
+        assertTrue(testAppender.getMessages().contains("# mate in 1: d1d8"));
+    }
+
     @Test
     public void stCmd() {
         xboardHandler.parseAndDispatch("st 5");
-        verify(searchIterator).setMaxTime(5000);
+        assertTrue(xboardHandler.getTimeManager().isFixedTime());
+        assertEquals(5000, xboardHandler.getTimeManager().getHardLimitMs());
     }
 
     @Test
@@ -338,26 +529,35 @@ public class XBoardHandlerTest {
 
     @Test
     public void timeCmd() {
+        TimeManager timeManager = xboardHandler.getTimeManager();
+
+        xboardHandler.parseAndDispatch("new");
         xboardHandler.parseAndDispatch("level 0 5 0");
         xboardHandler.parseAndDispatch("time 2500");
-        verify(searchIterator, times(1)).setMaxTime(1000);
+        assertEquals(1000, timeManager.getSoftLimitMs());
+        assertEquals(4000, timeManager.getHardLimitMs());
 
         xboardHandler.parseAndDispatch("level 0 5 3");
         xboardHandler.parseAndDispatch("time 2500");
-        verify(searchIterator, times(1)).setMaxTime(3900);
+        assertEquals(3900, timeManager.getSoftLimitMs());
 
+        // 40 moves to go, with one held in reserve
         xboardHandler.parseAndDispatch("level 40    0:30 0 ");
         xboardHandler.parseAndDispatch("time 5000");
-        verify(searchIterator, times(1)).setMaxTime(2000);
+        assertEquals(40, timeManager.getMovesToGo());
+        assertEquals(1219, timeManager.getSoftLimitMs());
 
         xboardHandler.parseAndDispatch("level 0 10 0.5");
         xboardHandler.parseAndDispatch("time 5000");
-        verify(searchIterator, times(1)).setMaxTime(2400);
+        assertEquals(2400, timeManager.getSoftLimitMs());
 
         // fixed time
         xboardHandler.parseAndDispatch("st 30");
         xboardHandler.parseAndDispatch("time 300");
-        verify(searchIterator, times(1)).setMaxTime(2900);
+        assertEquals(2900, timeManager.getHardLimitMs());
+        assertEquals(2900, timeManager.getSoftLimitMs());
+
+        verify(searchIterator, never()).setMaxTime(anyLong());
     }
 
     @Test
@@ -0,0 +1,114 @@
+package com.jamesswafford.chess4j.movegen;
+
+import com.jamesswafford.chess4j.board.Bitboard;
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.utils.BoardUtils;
+import org.junit.Test;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Bishop.WHITE_BISHOP;
+import static com.jamesswafford.chess4j.pieces.King.WHITE_KING;
+import static com.jamesswafford.chess4j.pieces.Knight.WHITE_KNIGHT;
+import static com.jamesswafford.chess4j.pieces.Pawn.BLACK_PAWN;
+import static com.jamesswafford.chess4j.pieces.Pawn.WHITE_PAWN;
+import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
+import static com.jamesswafford.chess4j.pieces.Rook.BLACK_ROOK;
+import static com.jamesswafford.chess4j.pieces.Rook.WHITE_ROOK;
+import static org.junit.Assert.*;
+
+public class CheckInfoTest {
+
+    @Test
+    public void directCheck() {
+        Board board = new Board("4k3/8/8/8/4N3/8/8/4K3 w - -");
+        CheckInfo checkInfo = new CheckInfo(board);
+
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_KNIGHT, E4, D6)));
+        assertFalse(checkInfo.givesCheck(new Move(WHITE_KNIGHT, E4, C5)));
+        assertEquals(Bitboard.knightMoves[E8.value()], checkInfo.getCheckSquares(WHITE_KNIGHT));
+        assertEquals(0, checkInfo.getDiscoverers());
+    }
+
+    @Test
+    public void discoveredCheck() {
+        // the bishop on e4 blocks the rook's file; moving it off the file checks, moving along it doesn't
+        Board board = new Board("4k3/8/8/8/4B3/8/8/K3R3 w - -");
+        CheckInfo checkInfo = new CheckInfo(board);
+
+        assertEquals(Bitboard.squares[E4.value()], checkInfo.getDiscoverers());
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_BISHOP, E4, D3)));
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_BISHOP, E4, H7)));
+    }
+
+    @Test
+    public void discoveredCheckByPawnAlongTheLine() {
+        Board board = new Board("8/8/8/8/1k2P2R/8/8/K7 w - -");
+        CheckInfo checkInfo = new CheckInfo(board);
+
+        assertEquals(Bitboard.squares[E4.value()], checkInfo.getDiscoverers());
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_PAWN, E4, E5)));
+
+        Board board2 = new Board("4k3/8/8/8/4P3/8/8/K3R3 w - -");
+        CheckInfo checkInfo2 = new CheckInfo(board2);
+        assertFalse(checkInfo2.givesCheck(new Move(WHITE_PAWN, E4, E5)));
+    }
+
+    @Test
+    public void promotionThroughTheVacatedSquare() {
+        // b7xa8=Q checks along the diagonal the pawn stood on
+        Board board = new Board("r7/1P6/2k5/8/8/8/8/K7 w - -");
+        CheckInfo checkInfo = new CheckInfo(board);
+
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_PAWN, B7, A8, BLACK_ROOK, WHITE_QUEEN)));
+        assertFalse(checkInfo.givesCheck(new Move(WHITE_PAWN, B7, A8, BLACK_ROOK, WHITE_ROOK)));
+    }
+
+    @Test
+    public void castlingCheck() {
+        Board board = new Board("5k2/8/8/8/8/8/8/4K2R w K -");
+        CheckInfo checkInfo = new CheckInfo(board);
+
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_KING, E1, G1, true)));
+    }
+
+    @Test
+    public void enPassantDiscoveredCheck() {
+        // removing both pawns from the fifth rank opens it for the rook
+        Board board = new Board("8/8/8/R2pP2k/8/8/8/K7 w - d6");
+        CheckInfo checkInfo = new CheckInfo(board);
+
+        assertTrue(checkInfo.givesCheck(new Move(WHITE_PAWN, E5, D6, BLACK_PAWN, true)));
+    }
+
+    @Test
+    public void agreesWithMakingTheMove() {
+        String[] fens = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1P/PPPBBPPP/R3K2R w KQkq -",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ -",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -"
+        };
+        for (String fen : fens) {
+            assertAgrees(new Board(fen), 2);
+        }
+    }
+
+    private void assertAgrees(Board board, int depth) {
+        CheckInfo checkInfo = new CheckInfo(board);
+        for (Move move : MagicBitboardMoveGenerator.genPseudoLegalMoves(board)) {
+            boolean givesCheck = checkInfo.givesCheck(move);
+            Undo undo = board.applyMove(move);
+            if (!BoardUtils.isOpponentInCheck(board)) {
+                assertEquals(board.toString() + " " + move, BoardUtils.isPlayerInCheck(board), givesCheck);
+                if (depth > 1) {
+                    assertAgrees(board, depth - 1);
+                }
+            }
+            board.undoMove(undo);
+        }
+    }
+}
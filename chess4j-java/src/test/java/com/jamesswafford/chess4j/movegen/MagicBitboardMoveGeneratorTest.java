@@ -5,6 +5,8 @@ import java.util.List;
 
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.utils.BoardUtils;
 
 import org.junit.Test;
 
@@ -520,4 +522,53 @@ public class MagicBitboardMoveGeneratorTest {
         MoveParser mp = new MoveParser();
         assertTrue(moves.contains(mp.parseMove("e5d6", board)));
     }
+
+    @Test
+    public void testQuietChecks() throws Exception {
+        // direct checks by the knight, bishop and queen, a discovered check by the rook on d1 moving the
+        // knight off the d-file, and a check by castling
+        Board board = new Board("3k4/8/8/8/8/3N4/8/3RK2R w K -");
+
+        List<Move> moves = MagicBitboardMoveGenerator.genPseudoLegalQuietChecks(board);
+
+        MoveParser mp = new MoveParser();
+        assertTrue(moves.contains(mp.parseMove("d3c5", board)));   // discovered
+        assertTrue(moves.contains(mp.parseMove("d3e5", board)));   // discovered
+        assertTrue(moves.contains(mp.parseMove("h1h8", board)));   // direct
+        assertFalse(moves.contains(mp.parseMove("h1h2", board)));
+        assertFalse(moves.contains(mp.parseMove("e1e2", board)));
+    }
+
+    @Test
+    public void testQuietChecksMatchesFilteredNonCaptures() {
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1P/PPPBBPPP/R3K2R w KQkq -",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ -",
+                "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - -",
+                "5k2/8/8/8/8/1B6/3Q4/R3K2R w KQ -",
+                "4k3/8/8/2B1P3/8/4R3/8/4K3 w - -"
+        };
+        for (String fen : fens) {
+            Board board = new Board(fen);
+            for (int i=0;i<2;i++) {
+                List<Move> checks = MagicBitboardMoveGenerator.genPseudoLegalQuietChecks(board);
+                List<Move> expected = new ArrayList<>();
+                for (Move mv : MagicBitboardMoveGenerator.genPseudoLegalMoves(board, false, true)) {
+                    Undo undo = board.applyMove(mv);
+                    if (BoardUtils.isPlayerInCheck(board)) {
+                        expected.add(mv);
+                    }
+                    board.undoMove(undo);
+                }
+                assertEquals(fen, expected.size(), checks.size());
+                assertTrue(fen, checks.containsAll(expected));
+                board.swapPlayer();
+                if (BoardUtils.isOpponentInCheck(board)) {
+                    break;
+                }
+            }
+        }
+    }
 }
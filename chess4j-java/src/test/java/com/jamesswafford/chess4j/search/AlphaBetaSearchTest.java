@@ -4,8 +4,11 @@ import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.Move;
 import com.jamesswafford.chess4j.eval.Evaluator;
 import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.hash.TranspositionTableEntry;
+import com.jamesswafford.chess4j.hash.TranspositionTableEntryType;
 import com.jamesswafford.chess4j.movegen.MoveGenerator;
 import org.awaitility.Awaitility;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -15,6 +18,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import static com.jamesswafford.chess4j.Constants.CHECKMATE;
@@ -30,6 +34,9 @@ import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
 import static com.jamesswafford.chess4j.pieces.Rook.BLACK_ROOK;
 import static com.jamesswafford.chess4j.pieces.Rook.WHITE_ROOK;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -43,6 +50,11 @@ public class AlphaBetaSearchTest {
         TTHolder.getInstance().clearTables();
     }
 
+    @After
+    public void tearDown() {
+        SearchConfig.enableAll(true);
+    }
+
     @Test
     public void search_initialPos_depth1() {
 
@@ -77,6 +89,30 @@ public class AlphaBetaSearchTest {
         assertEquals(new Move(WHITE_KNIGHT, B1, C3), search.getPv().get(0));
     }
 
+    @Test
+    public void excludedRootMovesAreNotSearched() {
+        // the only mate in one is excluded, leaving a slower mate
+        Board board = new Board("4k3/8/3Q4/2B5/8/8/1K6/8 w - -");
+        Move mate = new Move(WHITE_QUEEN, D6, E7);
+
+        SearchOptions opts = SearchOptions.builder()
+                .startTime(System.currentTimeMillis())
+                .excludedRootMoves(Collections.singletonList(mate))
+                .build();
+        int score = search.search(board, new SearchParameters(2, -INFINITY, INFINITY), opts);
+
+        assertTrue(score < CHECKMATE-1);
+        assertNotEquals(mate, search.getPv().get(0));
+
+        // the root score isn't the score of the position, so it isn't stored
+        assertNull(TTHolder.getInstance().getHashTable().probe(board));
+
+        // without the exclusion the mate is found
+        score = search.search(board, new SearchParameters(2, -INFINITY, INFINITY));
+        assertEquals(CHECKMATE-1, score);
+        assertEquals(mate, search.getPv().get(0));
+    }
+
     @Test
     public void mateIn1() {
         Board board = new Board("4k3/8/3Q4/2B5/8/8/1K6/8 w - -");
@@ -266,6 +302,9 @@ public class AlphaBetaSearchTest {
         Board boardU = boardS.deepCopy();
         boardU.applyMove(b1a3);
 
+        // the selective search techniques would change the shape of the tree
+        SearchConfig.enableAll(false);
+
         // start the search!
         search.setEvaluator(evaluator);
         search.setMoveGenerator(moveGenerator);
@@ -293,6 +332,160 @@ public class AlphaBetaSearchTest {
         assertEquals(b2b4, search.getPv().get(2));
     }
 
+    @Test
+    public void quiescenceSearchUsesHashTable() {
+        Board board = new Board("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq -");
+
+        int score = search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY,
+                SearchOptions.builder().build());
+        SearchStats stats = search.getSearchStats();
+        assertTrue(stats.qsearchHashProbes > 0);
+        long qnodes = stats.qnodes;
+
+        // the root is now an exact entry in the table, so the second search needs just one node
+        int score2 = search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY,
+                SearchOptions.builder().build());
+        assertEquals(score, score2);
+        assertEquals(qnodes + 1, stats.qnodes);
+        assertEquals(1, stats.qsearchHashExactScores);
+    }
+
+    @Test
+    public void quiescenceSearchFindsMateByQuietCheck() {
+        // Qd8 mates, but it isn't a capture
+        Board board = new Board("6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+
+        int score = search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY,
+                SearchOptions.builder().build());
+        assertEquals(CHECKMATE - 1, score);
+        assertTrue(search.getSearchStats().qsearchChecks > 0);
+
+        SearchConfig.qsearchChecks = false;
+        TTHolder.getInstance().clearTables();
+        search.getSearchStats().initialize();
+        int standPat = search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY,
+                SearchOptions.builder().build());
+        assertTrue(standPat < CHECKMATE - 500);
+        assertEquals(0, search.getSearchStats().qsearchChecks);
+    }
+
+    @Test
+    public void quiescenceSearchSkipsChecksThatHangThePiece() {
+        // Qd8+ is answered by Rxd8, so it's pruned
+        Board board = new Board("r5k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+
+        search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY, SearchOptions.builder().build());
+
+        assertEquals(0, search.getSearchStats().qsearchChecks);
+        assertTrue(search.getSearchStats().seePrunes > 0);
+    }
+
+    @Test
+    public void quiescenceSearchEvaluatesLazily() {
+        // lots of captures, some of which leave one side far ahead
+        Board board = new Board("2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - -");
+
+        int score = search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY,
+                SearchOptions.builder().build());
+        SearchStats stats = search.getSearchStats();
+        assertTrue(stats.lazyEvals > 0);
+        assertTrue(stats.lazyEvals < stats.qsearchEvals);
+
+        // the bounds are good enough that the score doesn't change
+        SearchConfig.lazyEval = false;
+        TTHolder.getInstance().clearTables();
+        search.initialize();
+        assertEquals(score, search.quiescenceSearch(board, new ArrayList<>(), -INFINITY, INFINITY,
+                SearchOptions.builder().build()));
+        assertEquals(0, search.getSearchStats().lazyEvals);
+        assertTrue(search.getSearchStats().qsearchEvals > 0);
+    }
+
+    @Test
+    public void selectiveSearchCanBeSwitchedOff() {
+        Board board = new Board("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq -");
+        SearchParameters params = new SearchParameters(5, -INFINITY, INFINITY);
+
+        search.search(board, params);
+        SearchStats stats = search.getSearchStats();
+        assertTrue(stats.futilityPrunes > 0);
+        assertTrue(stats.reverseFutilityPrunes > 0);
+        assertTrue(stats.checkExtensions > 0);
+
+        SearchConfig.enableAll(false);
+        TTHolder.getInstance().clearTables();
+        search.initialize();
+        search.search(board, params);
+        stats = search.getSearchStats();
+        assertEquals(0, stats.futilityPrunes);
+        assertEquals(0, stats.reverseFutilityPrunes);
+        assertEquals(0, stats.razorPrunes);
+        assertEquals(0, stats.checkExtensions);
+        assertEquals(0, stats.promotionExtensions);
+        assertEquals(0, stats.iidSearches);
+        assertEquals(0, stats.etcProbes);
+        assertEquals(0, stats.seePrunes);
+        assertEquals(0, stats.qsearchHashProbes);
+    }
+
+    @Test
+    public void enhancedTranspositionCutoff() {
+        Board board = new Board();
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+
+        // the table says the position after 1. e4 e5 is terrible for white, so after 1. e4 black's e5 fails
+        // high without being searched
+        Board afterE5 = board.deepCopy();
+        afterE5.applyMove(e2e4);
+        afterE5.applyMove(e7e5);
+        TTHolder.getInstance().getHashTable().store(afterE5, TranspositionTableEntryType.UPPER_BOUND, -1000,
+                10, null);
+
+        search.search(board, new SearchParameters(4, -1, 0));
+        assertTrue(search.getSearchStats().etcCutoffs > 0);
+
+        Board afterE4 = board.deepCopy();
+        afterE4.applyMove(e2e4);
+        TranspositionTableEntry tte = TTHolder.getInstance().getHashTable().probe(afterE4);
+        assertEquals(TranspositionTableEntryType.LOWER_BOUND, tte.getType());
+        assertEquals(e7e5, tte.getMove());
+
+        // the entry isn't deep enough for a cutoff at a node with more depth remaining
+        TTHolder.getInstance().clearTables();
+        TTHolder.getInstance().getHashTable().store(afterE5, TranspositionTableEntryType.UPPER_BOUND, -1000,
+                1, null);
+        search.initialize();
+        search.search(board, new SearchParameters(4, -1, 0));
+        assertTrue(search.getSearchStats().etcProbes > 0);
+        assertEquals(0, search.getSearchStats().etcCutoffs);
+    }
+
+    @Test
+    public void internalIterativeDeepeningSeedsPvNodes() {
+        Board board = new Board("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq -");
+
+        int iidMinDepth = SearchConfig.iidMinDepth;
+        SearchConfig.iidMinDepth = 3;
+        try {
+            // with an empty table and no previous PV, the nodes deep enough have nothing to try first
+            search.search(board, new SearchParameters(4, -INFINITY, INFINITY));
+            SearchStats stats = search.getSearchStats();
+            assertTrue(stats.iidSearches > 0);
+            assertTrue(stats.iidMoves > 0);
+            assertTrue(stats.iidMoves <= stats.iidSearches);
+
+            // a search shallower than the threshold doesn't use it (unless a check extension takes it there)
+            SearchConfig.extensions = false;
+            TTHolder.getInstance().clearTables();
+            search.initialize();
+            search.search(board, new SearchParameters(3, -INFINITY, INFINITY));
+            assertEquals(0, search.getSearchStats().iidSearches);
+        } finally {
+            SearchConfig.iidMinDepth = iidMinDepth;
+        }
+    }
+
     // this test is highly sensitive to the JVM being "warmed up"
     @Test
     public void stopSearch() {
@@ -315,6 +508,118 @@ public class AlphaBetaSearchTest {
         assertTrue(duration < 250);
     }
 
+    @Test
+    public void searchStopsAtDeadline() {
+
+        long start = System.currentTimeMillis();
+        SearchOptions opts = SearchOptions.builder().startTime(start).stopTime(start + 100).build();
+
+        search.search(new Board(), new SearchParameters(30, -INFINITY, INFINITY), opts);
+
+        long duration = System.currentTimeMillis() - start;
+        assertTrue(search.isStopped());
+        assertTrue(duration < 250);
+
+        // the fallback clock reads were sized from the measured node rate
+        assertTrue(search.getNodesBetweenTimeChecks() >= AlphaBetaSearch.MIN_NODES_BETWEEN_TIME_CHECKS);
+        assertTrue(search.getNodesBetweenTimeChecks() <= AlphaBetaSearch.MAX_NODES_BETWEEN_TIME_CHECKS);
+    }
+
+    @Test
+    public void deadlineIgnoredWhenSkippingTimeChecks() {
+
+        long start = System.currentTimeMillis();
+        SearchOptions opts = SearchOptions.builder().startTime(start - 1000).stopTime(start - 1).build();
+
+        search.setSkipTimeChecks(true);
+        search.search(new Board(), new SearchParameters(3, -INFINITY, INFINITY), opts);
+        search.setSkipTimeChecks(false);
+
+        assertFalse(search.isStopped());
+        assertEquals(3, search.getPv().size());
+    }
+
+    @Test
+    public void movedDeadlineStopsNativeSearch() {
+
+        // the native search is given no stop time, as when pondering, and runs until it's told to stop
+        AlphaBetaSearch nativeSearch = spy(search);
+        AtomicBoolean nativeStopped = new AtomicBoolean();
+        doReturn(true).when(nativeSearch).usesNativeCode();
+        doAnswer(invocation -> {
+            nativeStopped.set(invocation.getArgument(0));
+            return null;
+        }).when(nativeSearch).stopNative(anyBoolean());
+        doAnswer(invocation -> {
+            // a ponder hit gives the running search a stop time
+            nativeSearch.setStopTime(System.currentTimeMillis() + 50);
+            Awaitility.await()
+                    .atMost(5, TimeUnit.SECONDS)
+                    .pollInterval(5, TimeUnit.MILLISECONDS)
+                    .untilTrue(nativeStopped);
+            return 0;
+        }).when(nativeSearch).searchNative(any(Board.class), anyList(), anyInt(), anyInt(), anyInt(),
+                any(SearchStats.class), anyLong(), anyLong());
+
+        long start = System.currentTimeMillis();
+        SearchOptions opts = SearchOptions.builder().startTime(start).build();
+        nativeSearch.search(new Board(), new SearchParameters(30, -INFINITY, INFINITY), opts);
+
+        long duration = System.currentTimeMillis() - start;
+        assertTrue(nativeSearch.isStopped());
+        assertTrue(duration < 1000);
+    }
+
+    @Test
+    public void searchStopsAtNodeLimit() {
+
+        Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+        SearchOptions opts = SearchOptions.builder().startTime(System.currentTimeMillis()).maxNodes(5000).build();
+
+        search.search(board, new SearchParameters(30, -INFINITY, INFINITY), opts);
+
+        assertTrue(search.isStopped());
+        SearchStats stats = search.getSearchStats();
+        assertEquals(5000, stats.nodes + stats.qnodes);
+    }
+
+    @Test
+    public void nodeLimitedSearchIsRepeatable() {
+
+        Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+
+        List<List<Move>> pvs = new ArrayList<>();
+        for (int i=0;i<2;i++) {
+            TTHolder.getInstance().clearTables();
+            AlphaBetaSearch search = new AlphaBetaSearch();
+            SearchOptions opts = SearchOptions.builder().startTime(System.currentTimeMillis())
+                    .maxNodes(20000).build();
+            for (int depth=1;!search.isStopped();depth++) {
+                search.search(board, new ArrayList<>(), new SearchParameters(depth, -INFINITY, INFINITY), opts);
+                if (search.getPv().size() > 0) {
+                    pvs.add(new ArrayList<>(search.getPv()));
+                }
+            }
+        }
+
+        assertEquals(0, pvs.size() % 2);
+        assertEquals(pvs.subList(0, pvs.size()/2), pvs.subList(pvs.size()/2, pvs.size()));
+    }
+
+    @Test
+    public void searchIsThrottledToMaxNps() {
+
+        long start = System.currentTimeMillis();
+        SearchOptions opts = SearchOptions.builder().startTime(start).maxNodes(3000).maxNps(20000).build();
+
+        search.search(new Board(), new SearchParameters(30, -INFINITY, INFINITY), opts);
+
+        // 3000 nodes at 20000 nodes per second is 150 ms.  the last few nodes may come in under the cap.
+        long duration = System.currentTimeMillis() - start;
+        assertTrue(search.isStopped());
+        assertTrue(duration >= 100);
+    }
+
     @Test
     public void stoppedSearchDoesNotReturnPV() {
 
@@ -0,0 +1,99 @@
+package com.jamesswafford.chess4j.search;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jamesswafford.chess4j.board.Move;
+
+import static org.junit.Assert.*;
+
+import static com.jamesswafford.chess4j.pieces.Knight.*;
+import static com.jamesswafford.chess4j.pieces.Pawn.*;
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+
+public class HistoryTableTest {
+
+    private HistoryTable historyTable;
+
+    @Before
+    public void setUp() {
+        historyTable = new HistoryTable();
+    }
+
+    @Test
+    public void testAddAndRetrieve() {
+        Move m = new Move(WHITE_PAWN, E2, E4);
+        assertEquals(0, historyTable.getHistoryScore(m));
+
+        historyTable.addHistory(m, 3);
+        assertEquals(9, historyTable.getHistoryScore(m));
+
+        historyTable.addHistory(m, 2);
+        assertEquals(13, historyTable.getHistoryScore(m));
+    }
+
+    @Test
+    public void testSidesAreSeparate() {
+        Move white = new Move(WHITE_KNIGHT, G1, F3);
+        Move black = new Move(BLACK_KNIGHT, G1, F3);
+
+        historyTable.addHistory(white, 4);
+        assertEquals(16, historyTable.getHistoryScore(white));
+        assertEquals(0, historyTable.getHistoryScore(black));
+    }
+
+    @Test
+    public void testAge() {
+        Move m = new Move(WHITE_PAWN, E2, E4);
+        historyTable.addHistory(m, 4);
+        historyTable.age();
+        assertEquals(8, historyTable.getHistoryScore(m));
+    }
+
+    @Test
+    public void testOverflowAgesTable() {
+        Move m = new Move(WHITE_PAWN, E2, E4);
+        Move m2 = new Move(WHITE_PAWN, D2, D4);
+        historyTable.addHistory(m2, 10);
+
+        // keep adding to m until the table is forced to age
+        int n = 0;
+        while (historyTable.getHistoryScore(m2) == 100) {
+            historyTable.addHistory(m, 100);
+            n++;
+        }
+
+        assertEquals(HistoryTable.MAX_HISTORY / 10000 + 1, n);
+        assertTrue(historyTable.getHistoryScore(m) < HistoryTable.MAX_HISTORY);
+        assertEquals(50, historyTable.getHistoryScore(m2));
+    }
+
+    @Test
+    public void testCounterMoves() {
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+        Move c7c5 = new Move(BLACK_PAWN, C7, C5);
+
+        assertNull(historyTable.getCounterMove(e2e4));
+
+        historyTable.addCounterMove(e2e4, e7e5);
+        assertEquals(e7e5, historyTable.getCounterMove(e2e4));
+
+        // the most recent refutation replaces the old one
+        historyTable.addCounterMove(e2e4, c7c5);
+        assertEquals(c7c5, historyTable.getCounterMove(e2e4));
+    }
+
+    @Test
+    public void testClear() {
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+        historyTable.addHistory(e2e4, 5);
+        historyTable.addCounterMove(e2e4, e7e5);
+
+        historyTable.clear();
+
+        assertEquals(0, historyTable.getHistoryScore(e2e4));
+        assertNull(historyTable.getCounterMove(e2e4));
+    }
+}
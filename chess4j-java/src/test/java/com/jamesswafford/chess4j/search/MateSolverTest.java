@@ -0,0 +1,120 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.utils.BoardUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
+import static com.jamesswafford.chess4j.pieces.Rook.WHITE_ROOK;
+import static org.junit.Assert.*;
+
+public class MateSolverTest {
+
+    MateSolver solver = new MateSolver(new ProofNumberTable(1024 * 1024));
+
+    private void assertMatingLine(Board board, List<Move> pv) {
+        List<Undo> undos = new ArrayList<>();
+        for (Move move : pv) {
+            assertTrue(MagicBitboardMoveGenerator.genLegalMoves(board).contains(move));
+            undos.add(board.applyMove(move));
+        }
+        assertTrue(MagicBitboardMoveGenerator.genLegalMoves(board).isEmpty());
+        assertTrue(BoardUtils.isPlayerInCheck(board));
+        for (int i=undos.size()-1;i>=0;i--) {
+            board.undoMove(undos.get(i));
+        }
+    }
+
+    @Test
+    public void mateInOne() {
+        Board board = new Board("6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+
+        MateSolution solution = solver.solve(board, 3);
+
+        assertTrue(solution.isMate());
+        assertEquals(1, solution.getMateIn());
+        assertEquals(1, solution.getPv().size());
+        assertEquals(new Move(WHITE_QUEEN, D1, D8), solution.getPv().get(0));
+        assertMatingLine(board, solution.getPv());
+        assertTrue(solution.getProofSize() >= 2);
+        assertTrue(solution.getNodes() > 0);
+    }
+
+    @Test
+    public void mateInTwo() {
+        Board board = new Board("kbK5/pp6/1P6/8/8/8/8/R7 w - -");
+
+        MateSolution solution = solver.solve(board, 2);
+
+        assertEquals(2, solution.getMateIn());
+        assertEquals(3, solution.getPv().size());
+        assertEquals(new Move(WHITE_ROOK, A1, A6), solution.getPv().get(0));
+        assertMatingLine(board, solution.getPv());
+    }
+
+    @Test
+    public void boardIsUnchanged() {
+        Board board = new Board("kbK5/pp6/1P6/8/8/8/8/R7 w - -");
+        Board copy = board.deepCopy();
+
+        solver.solve(board, 2);
+
+        assertEquals(copy, board);
+    }
+
+    @Test
+    public void noMate() {
+        Board board = new Board();
+
+        MateSolution solution = solver.solve(board, 1);
+
+        assertFalse(solution.isMate());
+        assertFalse(solution.isStopped());
+        assertTrue(solution.getPv().isEmpty());
+    }
+
+    @Test
+    public void stalemateIsNotMate() {
+        // Ka6 and Kc7 stalemate black.  If stalemate were taken for mate either would be a mate in two.
+        Board board = new Board("k7/P7/1K6/8/8/8/8/8 w - -");
+
+        MateSolution solution = solver.solve(board, 3);
+
+        assertFalse(solution.isMate());
+        assertFalse(solution.isStopped());
+    }
+
+    @Test
+    public void stopsAtNodeLimit() {
+        Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+        solver.setMaxNodes(1000);
+
+        MateSolution solution = solver.solve(board, 5);
+
+        assertFalse(solution.isMate());
+        assertTrue(solution.isStopped());
+        assertTrue(solution.getNodes() <= 1000);
+    }
+
+    @Test
+    public void solvesWithATinyTable() {
+        MateSolver tinySolver = new MateSolver(new ProofNumberTable(8 * 1024));
+        assertEquals(256, tinySolver.getTable().getCapacity());
+
+        // WAC.079
+        Board board = new Board("r3k2r/pbp2pp1/3b1n2/1p6/3P3p/1B2N1Pq/PP1PQP1P/R1B2RK1 b kq -");
+        MateSolution solution = tinySolver.solve(board, 3);
+
+        assertEquals(3, solution.getMateIn());
+        assertMatingLine(board, solution.getPv());
+        assertTrue(tinySolver.getTable().getNumGcs() > 0);
+        assertTrue(tinySolver.getTable().getNumEntries() <= tinySolver.getTable().getCapacity());
+    }
+}
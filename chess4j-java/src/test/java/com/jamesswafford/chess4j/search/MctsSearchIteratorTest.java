@@ -0,0 +1,188 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.eval.Eval;
+import com.jamesswafford.chess4j.eval.Evaluator;
+import com.jamesswafford.chess4j.hash.PawnTranspositionTable;
+import com.jamesswafford.chess4j.utils.MoveUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Pawn.WHITE_PAWN;
+import static com.jamesswafford.chess4j.pieces.Queen.BLACK_QUEEN;
+import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
+import static org.junit.Assert.*;
+
+public class MctsSearchIteratorTest {
+
+    MctsSearchIterator searchIterator;
+
+    @Before
+    public void setUp() {
+        searchIterator = new MctsSearchIterator(64 * 1024);
+        searchIterator.setNumThreads(1);
+        searchIterator.setEarlyExitOk(false);
+        searchIterator.setPost(false);
+    }
+
+    @Test
+    public void findsMate() throws Exception {
+        searchIterator.setMaxNodes(500);
+
+        Board board = new Board("6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertEquals(new Move(WHITE_QUEEN, D1, D8), pv.get(0));
+        assertEquals(500, searchIterator.getPlayouts());
+        assertTrue(searchIterator.getPvLines().get(0).getScore() > 500);
+    }
+
+    @Test
+    public void stalemateLeafIsADraw() throws Exception {
+        searchIterator.setMaxNodes(500);
+        searchIterator.setMaxDepth(1);
+
+        // Qg6 stalemates.  there are several mates.
+        Board board = new Board("7k/5K2/8/6Q1/8/8/8/8 w - -");
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertNotEquals(new Move(WHITE_QUEEN, G5, G6), pv.get(0));
+
+        MctsTree tree = searchIterator.getTree();
+        int stalemate = MoveUtils.toNativeMove(new Move(WHITE_QUEEN, G5, G6)).intValue();
+        int first = tree.getFirstChild(MctsTree.ROOT);
+        for (int c=first;c<first+tree.getNumChildren(MctsTree.ROOT);c++) {
+            if (tree.getMove(c) == stalemate) {
+                assertTrue(tree.getVisits(c) > 0);
+                assertEquals(0.5, tree.getMeanValue(c), 0.0001);
+            }
+        }
+    }
+
+    @Test
+    public void winsTheQueen() throws Exception {
+        searchIterator.setMaxNodes(1000);
+        searchIterator.setMultiPv(3);
+
+        Board board = new Board("rnb1kbnr/ppp1pppp/8/3q4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq -");
+        Board copy = board.deepCopy();
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertEquals(new Move(WHITE_PAWN, E4, D5, BLACK_QUEEN), pv.get(0));
+        assertTrue(MoveUtils.isLineValid(pv, board));
+        assertEquals(copy, board);
+
+        List<PvLine> lines = searchIterator.getPvLines();
+        assertEquals(3, lines.size());
+        assertEquals(pv, lines.get(0).getPv());
+        for (PvLine line : lines) {
+            assertTrue(MoveUtils.isLineValid(line.getPv(), board));
+        }
+
+        // the root moves are ordered by playouts, and together account for all of them
+        List<RootMove> rootMoves = searchIterator.getRootMoves();
+        assertEquals(pv.get(0), rootMoves.get(0).getMove());
+        long total = 0;
+        for (int i=0;i<rootMoves.size();i++) {
+            total += rootMoves.get(i).getNodes();
+            if (i > 0) {
+                assertTrue(rootMoves.get(i).getNodes() <= rootMoves.get(i-1).getNodes());
+            }
+        }
+        assertEquals(1000, total);
+    }
+
+    @Test
+    public void smallTreeFillsUp() throws Exception {
+        MctsSearchIterator smallTreeIterator = new MctsSearchIterator(100);
+        smallTreeIterator.setNumThreads(1);
+        smallTreeIterator.setPost(false);
+        smallTreeIterator.setMaxNodes(500);
+
+        Board board = new Board();
+        List<Move> pv = smallTreeIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertFalse(pv.isEmpty());
+        assertTrue(MoveUtils.isLineValid(pv, board));
+        assertEquals(500, smallTreeIterator.getPlayouts());
+        assertTrue(smallTreeIterator.getTree().getSize() <= 100);
+    }
+
+    @Test
+    public void maxDepthLimitsTheTree() throws Exception {
+        searchIterator.setMaxNodes(1000);
+        searchIterator.setMaxDepth(1);
+
+        Board board = new Board();
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertEquals(1, pv.size());
+        assertEquals(21, searchIterator.getTree().getSize());
+    }
+
+    @Test
+    public void multipleThreads() throws Exception {
+        searchIterator.setNumThreads(3);
+        searchIterator.setMaxNodes(1000);
+
+        Board board = new Board("rnb1kbnr/ppp1pppp/8/3q4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq -");
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertEquals(new Move(WHITE_PAWN, E4, D5, BLACK_QUEEN), pv.get(0));
+        assertEquals(1000, searchIterator.getPlayouts());
+
+        // no virtual loss is left behind
+        MctsTree tree = searchIterator.getTree();
+        long childVisits = 0;
+        int first = tree.getFirstChild(MctsTree.ROOT);
+        for (int c=first;c<first+tree.getNumChildren(MctsTree.ROOT);c++) {
+            childVisits += tree.getVisits(c);
+        }
+        assertEquals(1000, childVisits);
+    }
+
+    @Test
+    public void eachThreadHasItsOwnEvaluator() throws Exception {
+        List<Evaluator> created = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong numEvals = new AtomicLong();
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        searchIterator.setEvaluatorFactory(() -> {
+            Eval eval = new Eval(new PawnTranspositionTable(1024 * 1024));
+            Evaluator evaluator = board -> {
+                numEvals.incrementAndGet();
+                threads.add(Thread.currentThread());
+                return eval.evaluateBoard(board);
+            };
+            created.add(evaluator);
+            return evaluator;
+        });
+        searchIterator.setNumThreads(3);
+        searchIterator.setMaxNodes(1000);
+
+        Board board = new Board("rnb1kbnr/ppp1pppp/8/3q4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq -");
+        searchIterator.findPvFuture(board, new ArrayList<>()).get();
+        searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        // created once per thread, and kept for the next search, as are the threads
+        assertEquals(3, created.size());
+        assertTrue(numEvals.get() > 0);
+        assertEquals(3, threads.size());
+    }
+
+    @Test
+    public void scoreConversion() {
+        assertEquals(0.5, MctsSearchIterator.toProbability(0), 0.0001);
+        assertTrue(MctsSearchIterator.toProbability(100) > 0.6);
+        assertEquals(100, MctsSearchIterator.toScore(MctsSearchIterator.toProbability(100)));
+        assertEquals(-250, MctsSearchIterator.toScore(MctsSearchIterator.toProbability(-250)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.jamesswafford.chess4j.search;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MctsTreeTest {
+
+    MctsTree tree = new MctsTree(8);
+
+    @Test
+    public void newTreeHasAnUnexpandedRoot() {
+        assertEquals(8, tree.getCapacity());
+        assertEquals(1, tree.getSize());
+        assertFalse(tree.isExpanded(MctsTree.ROOT));
+        assertEquals(0, tree.getNumChildren(MctsTree.ROOT));
+        assertEquals(-1, tree.getMostVisitedChild(MctsTree.ROOT));
+        assertEquals(0.5, tree.getMeanValue(MctsTree.ROOT), 0.0);
+    }
+
+    @Test
+    public void expand() {
+        assertTrue(tree.tryClaim(MctsTree.ROOT));
+        assertFalse(tree.tryClaim(MctsTree.ROOT));
+        assertTrue(tree.expand(MctsTree.ROOT, new int[] { 11, 22, 33 }, 3));
+
+        assertTrue(tree.isExpanded(MctsTree.ROOT));
+        assertEquals(4, tree.getSize());
+        assertEquals(3, tree.getNumChildren(MctsTree.ROOT));
+        int first = tree.getFirstChild(MctsTree.ROOT);
+        assertEquals(11, tree.getMove(first));
+        assertEquals(33, tree.getMove(first + 2));
+        assertFalse(tree.isExpanded(first));
+    }
+
+    @Test
+    public void expandFailsWhenFull() {
+        tree.tryClaim(MctsTree.ROOT);
+        assertFalse(tree.expand(MctsTree.ROOT, new int[8], 8));
+
+        // the node is left unexpanded, for later playouts to evaluate rather than try again
+        assertFalse(tree.isExpanded(MctsTree.ROOT));
+        assertFalse(tree.isTerminal(MctsTree.ROOT));
+        assertFalse(tree.tryClaim(MctsTree.ROOT));
+        assertTrue(tree.isFull());
+        assertEquals(8, tree.getSize());
+    }
+
+    @Test
+    public void markTerminal() {
+        tree.tryClaim(MctsTree.ROOT);
+        tree.markTerminal(MctsTree.ROOT);
+
+        assertTrue(tree.isTerminal(MctsTree.ROOT));
+        assertFalse(tree.isExpanded(MctsTree.ROOT));
+        assertFalse(tree.tryClaim(MctsTree.ROOT));
+    }
+
+    @Test
+    public void virtualLoss() {
+        tree.tryClaim(MctsTree.ROOT);
+        tree.expand(MctsTree.ROOT, new int[] { 1, 2 }, 2);
+        int child = tree.getFirstChild(MctsTree.ROOT);
+
+        tree.addVirtualLoss(child, 3);
+        assertEquals(3, tree.getVisits(child));
+        assertEquals(0.0, tree.getMeanValue(child), 0.0);
+
+        tree.update(child, MctsTree.VALUE_SCALE, 3);
+        assertEquals(1, tree.getVisits(child));
+        assertEquals(1.0, tree.getMeanValue(child), 0.0);
+        assertEquals(child, tree.getMostVisitedChild(MctsTree.ROOT));
+    }
+
+    @Test
+    public void reset() {
+        tree.tryClaim(MctsTree.ROOT);
+        tree.expand(MctsTree.ROOT, new int[] { 1, 2 }, 2);
+        tree.update(MctsTree.ROOT, MctsTree.VALUE_SCALE, 0);
+
+        tree.reset();
+
+        assertEquals(1, tree.getSize());
+        assertFalse(tree.isExpanded(MctsTree.ROOT));
+        assertEquals(0, tree.getVisits(MctsTree.ROOT));
+        assertTrue(tree.tryClaim(MctsTree.ROOT));
+    }
+}
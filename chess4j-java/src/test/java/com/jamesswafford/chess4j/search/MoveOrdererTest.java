@@ -46,6 +46,27 @@ public class MoveOrdererTest {
         assertEquals(HASH_MOVE, mo.getNextMoveOrderStage());
     }
 
+    @Test
+    public void quietChecksAfterCaptures() {
+        // Qxa4 is the only capture and Qd8 the only quiet check
+        Board board = new Board("6k1/5ppp/8/8/p7/8/5PPP/3Q2K1 w - -");
+        MoveOrderer mo = new MoveOrderer(board, moveGenerator, moveScorer, null, null, null, null, null,
+                false, true);
+
+        assertEquals(new Move(WHITE_QUEEN, D1, A4, BLACK_PAWN), mo.selectNextMove());
+
+        Set<Move> checks = new HashSet<>();
+        Move mv;
+        while ((mv = mo.selectNextMove()) != null) {
+            assertEquals(QUIET_CHECKS, mo.getNextMoveOrderStage());
+            assertNull(mv.captured());
+            checks.add(mv);
+        }
+        assertEquals(new HashSet<>(moveGenerator.generatePseudoLegalQuietChecks(board)), checks);
+        assertEquals(1, checks.size());
+        assertTrue(checks.contains(new Move(WHITE_QUEEN, D1, D8)));
+    }
+
     @Test
     public void noPvThenHash() {
         Board board = new Board("1R6/1brk2p1/4p2p/p1P1Pp2/P7/6P1/1P4P1/2R3K1 w - -");
@@ -144,7 +165,7 @@ public class MoveOrdererTest {
 
         // create two captures.  these aren't really captures but it doesn't matter.
         Move e3d4 = new Move(WHITE_PAWN, E3, D4, BLACK_PAWN);
-        Move d4b6 = new Move(WHITE_BISHOP, D4, B6, BLACK_KNIGHT);
+        Move d4b6 = new Move(WHITE_BISHOP, D4, B6, BLACK_ROOK);
 
         // and one promotion
         Move a7a8 = new Move(WHITE_PAWN, A7, A8, null, WHITE_QUEEN);
@@ -194,11 +215,7 @@ public class MoveOrdererTest {
         MoveOrderer mo = new MoveOrderer(board, moveGenerator, moveScorer, null, null, b3b7, f6e7,
                 true);
 
-        // first two moves should be the captures Rxa3 and Rxb2
-        assertNotNull(mo.selectNextMove().captured());
-        assertNotNull(mo.selectNextMove().captured());
-
-        // the next move should be our first killer
+        // the captures Rxa3 and Rxb2 both lose material, so the first move should be our first killer
         assertEquals(b3b7, mo.selectNextMove());
 
         // and then our second killer
@@ -210,7 +227,7 @@ public class MoveOrdererTest {
 
         // the killers shouldn't be selected again
         Move nextMv = mo.selectNextMove();
-        while(nextMv != null) {
+        while(mo.getNextMoveOrderStage() == REMAINING) {
             assertNotEquals(b3b7, nextMv);
             assertNotEquals(f6e7, nextMv);
             assertTrue(noncaps.contains(nextMv));
@@ -220,6 +237,11 @@ public class MoveOrdererTest {
 
         // and all noncaps should have been selected
         assertTrue(selectedNonCaps.containsAll(noncaps));
+
+        // followed by the two losing captures
+        assertNotNull(nextMv.captured());
+        assertNotNull(mo.selectNextMove().captured());
+        assertNull(mo.selectNextMove());
     }
 
     @Test
@@ -279,6 +301,105 @@ public class MoveOrdererTest {
         assertEquals(moves2, moves);
     }
 
+    @Test
+    public void nonCapturesPlayedInScoreOrder() {
+        Board board = new Board();
+
+        List<Move> noncaps = moveGenerator.generatePseudoLegalNonCaptures(board);
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        Move g1f3 = new Move(WHITE_KNIGHT, G1, F3);
+        Move d2d4 = new Move(WHITE_PAWN, D2, D4);
+        assertTrue(noncaps.contains(e2e4));
+        assertTrue(noncaps.contains(g1f3));
+        assertTrue(noncaps.contains(d2d4));
+
+        HistoryTable historyTable = new HistoryTable();
+        historyTable.addHistory(e2e4, 2);
+        historyTable.addHistory(g1f3, 5);
+        historyTable.addHistory(d2d4, 3);
+
+        MoveOrderer mo = new MoveOrderer(board, moveGenerator, moveScorer, historyTable::getHistoryScore,
+                null, null, null, null, true);
+
+        assertEquals(g1f3, mo.selectNextMove());
+        assertEquals(d2d4, mo.selectNextMove());
+        assertEquals(e2e4, mo.selectNextMove());
+
+        // followed by the rest
+        List<Move> remaining = new ArrayList<>(noncaps);
+        remaining.removeAll(Arrays.asList(e2e4, g1f3, d2d4));
+        List<Move> selected = new ArrayList<>();
+        Move nextMv;
+        while ((nextMv = mo.selectNextMove()) != null) {
+            selected.add(nextMv);
+        }
+        assertEquals(remaining.size(), selected.size());
+        assertTrue(selected.containsAll(remaining));
+    }
+
+    @Test
+    public void losingCapturesAfterNonCaptures() {
+        // Qxb6 loses the queen for a pawn.  Nxe5 wins a pawn.
+        Board board = new Board("4k3/p7/1p6/4p3/8/5N2/8/1Q2K3 w - -");
+
+        Move b1b6 = new Move(WHITE_QUEEN, B1, B6, BLACK_PAWN);
+        Move f3e5 = new Move(WHITE_KNIGHT, F3, E5, BLACK_PAWN);
+        List<Move> noncaps = moveGenerator.generatePseudoLegalNonCaptures(board);
+
+        MoveOrderer mo = new MoveOrderer(board, moveGenerator, moveScorer, null, null, null, null,
+                true);
+
+        assertEquals(f3e5, mo.selectNextMove());
+
+        // then all the non-captures
+        for (int i=0;i<noncaps.size();i++) {
+            Move nextMv = mo.selectNextMove();
+            assertTrue(noncaps.contains(nextMv));
+            assertEquals(REMAINING, mo.getNextMoveOrderStage());
+        }
+
+        // and finally the losing capture
+        assertEquals(b1b6, mo.selectNextMove());
+        assertEquals(LOSING_CAPTURES, mo.getNextMoveOrderStage());
+        assertNull(mo.selectNextMove());
+    }
+
+    @Test
+    public void losingCapturesWithoutNonCaptures() {
+        Board board = new Board("4k3/p7/1p6/4p3/8/5N2/8/1Q2K3 w - -");
+
+        Move b1b6 = new Move(WHITE_QUEEN, B1, B6, BLACK_PAWN);
+        Move f3e5 = new Move(WHITE_KNIGHT, F3, E5, BLACK_PAWN);
+
+        MoveOrderer mo = new MoveOrderer(board, moveGenerator, moveScorer, null, null, null, null,
+                false);
+
+        assertEquals(f3e5, mo.selectNextMove());
+        assertEquals(CAPTURES_PROMOS, mo.getNextMoveOrderStage());
+        assertEquals(b1b6, mo.selectNextMove());
+        assertEquals(LOSING_CAPTURES, mo.getNextMoveOrderStage());
+        assertNull(mo.selectNextMove());
+    }
+
+    @Test
+    public void losingCapturesNotDeferred() {
+        Board board = new Board("4k3/p7/1p6/4p3/8/5N2/8/1Q2K3 w - -");
+
+        Move b1b6 = new Move(WHITE_QUEEN, B1, B6, BLACK_PAWN);
+        Move f3e5 = new Move(WHITE_KNIGHT, F3, E5, BLACK_PAWN);
+
+        MoveOrderer mo = new MoveOrderer(board, moveGenerator, moveScorer, null, null, null, null,
+                true);
+        mo.setDeferLosingCaptures(false);
+
+        // the losing capture is played with the others, before the non-captures
+        assertEquals(f3e5, mo.selectNextMove());
+        assertEquals(b1b6, mo.selectNextMove());
+        assertEquals(CAPTURES_PROMOS, mo.getNextMoveOrderStage());
+        assertNull(mo.selectNextMove().captured());
+        assertEquals(REMAINING, mo.getNextMoveOrderStage());
+    }
+
     @Test
     public void movesAreNotRepeated() {
 
@@ -0,0 +1,66 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.hash.TTHolder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jamesswafford.chess4j.Constants.INFINITY;
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
+import static org.junit.Assert.*;
+
+public class MtdfSearchIteratorTest {
+
+    MtdfSearchIterator searchIterator;
+
+    @Before
+    public void setUp() {
+        TTHolder.getInstance().clearTables();
+        searchIterator = new MtdfSearchIterator();
+        searchIterator.setEarlyExitOk(false);
+        searchIterator.setPost(false);
+    }
+
+    @Test
+    public void findsMate() throws Exception {
+
+        searchIterator.setMaxDepth(4);
+
+        Board board = new Board("6k1/5ppp/8/8/8/8/5PPP/3Q2K1 w - -");
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertEquals(new Move(WHITE_QUEEN, D1, D8), pv.get(0));
+        assertEquals(1, searchIterator.getIterations());
+        assertTrue(searchIterator.getPasses() >= searchIterator.getIterations());
+        assertEquals(searchIterator.getIterations(), searchIterator.getPvSearches());
+    }
+
+    @Test
+    public void convergesOnTheFullWidthScore() {
+
+        Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+
+        AlphaBetaSearch search = new AlphaBetaSearch();
+        int score = search.search(board, new SearchParameters(3, -INFINITY, INFINITY));
+
+        // whether the first guess is good or far off, the iterator should end up in the same place
+        for (int guess : new int[] { score, score + 300, score - 300 }) {
+            TTHolder.getInstance().clearTables();
+            AlphaBetaSearch mtdSearch = new AlphaBetaSearch();
+            searchIterator.setSearch(mtdSearch);
+            int mtdScore = searchIterator.searchToDepth(board, new ArrayList<>(), 3, guess,
+                    SearchOptions.builder().build());
+            assertEquals(score, mtdScore);
+            assertFalse(mtdSearch.getPv().isEmpty());
+        }
+
+        assertEquals(3, searchIterator.getIterations());
+        assertEquals(3, searchIterator.getPvSearches());
+        assertTrue(searchIterator.getMaxPasses() > 2);
+    }
+}
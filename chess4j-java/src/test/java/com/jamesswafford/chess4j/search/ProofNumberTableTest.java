@@ -0,0 +1,82 @@
+package com.jamesswafford.chess4j.search;
+
+import org.junit.Test;
+
+import static com.jamesswafford.chess4j.search.ProofNumberTable.INFINITE;
+import static org.junit.Assert.*;
+
+public class ProofNumberTableTest {
+
+    ProofNumberTable table = new ProofNumberTable(32 * 1024);
+
+    @Test
+    public void storeAndFind() {
+        assertEquals(1024, table.getCapacity());
+        assertEquals(-1, table.find(12345L, 3));
+
+        table.store(12345L, 3, 2, 7, 40, 0);
+        int slot = table.find(12345L, 3);
+        assertNotEquals(-1, slot);
+        assertEquals(2, table.getPn(slot));
+        assertEquals(7, table.getDn(slot));
+        assertEquals(40, table.getWork(slot));
+        assertEquals(1, table.getNumEntries());
+
+        // the plies left are part of the key
+        assertEquals(-1, table.find(12345L, 5));
+
+        // storing again updates the entry in place
+        table.store(12345L, 3, 0, INFINITE, 90, 11);
+        slot = table.find(12345L, 3);
+        assertEquals(0, table.getPn(slot));
+        assertEquals(11, table.getProofSize(slot));
+        assertEquals(1, table.getNumEntries());
+    }
+
+    @Test
+    public void fullTableIsCollected() {
+        ProofNumberTable oneBucket = new ProofNumberTable(128);
+        assertEquals(4, oneBucket.getCapacity());
+
+        oneBucket.store(1L, 1, 1, 1, 50, 0);
+        oneBucket.store(2L, 1, 1, 1, 10, 0);
+        oneBucket.store(3L, 1, 1, 1, 30, 0);
+        oneBucket.store(4L, 1, 1, 1, 40, 0);
+        assertEquals(4, oneBucket.getNumEntries());
+
+        // a full table is collected before anything is replaced; half the entries fall below 32 nodes
+        oneBucket.store(5L, 1, 1, 1, 20, 0);
+        assertEquals(1, oneBucket.getNumGcs());
+        assertEquals(-1, oneBucket.find(2L, 1));
+        assertEquals(-1, oneBucket.find(3L, 1));
+        assertNotEquals(-1, oneBucket.find(1L, 1));
+        assertNotEquals(-1, oneBucket.find(4L, 1));
+        assertNotEquals(-1, oneBucket.find(5L, 1));
+        assertEquals(3, oneBucket.getNumEntries());
+        assertEquals(0, oneBucket.getNumReplaced());
+    }
+
+    @Test
+    public void gcRemovesSmallSubtrees() {
+        for (int i=0;i<100;i++) {
+            table.store(i, 1, 1, 1, i < 50 ? 1 : 1000, 0);
+        }
+        assertEquals(100, table.getNumEntries());
+
+        table.gc();
+
+        assertEquals(50, table.getNumEntries());
+        assertEquals(50, table.getNumCollected());
+        for (int i=0;i<100;i++) {
+            assertEquals(i < 50, table.find(i, 1) == -1);
+        }
+    }
+
+    @Test
+    public void clear() {
+        table.store(12345L, 3, 2, 7, 40, 0);
+        table.clear();
+        assertEquals(-1, table.find(12345L, 3));
+        assertEquals(0, table.getNumEntries());
+    }
+}
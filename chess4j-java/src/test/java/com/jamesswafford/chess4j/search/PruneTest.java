@@ -15,6 +15,37 @@ import static com.jamesswafford.chess4j.eval.EvalMaterial.*;
 
 public class PruneTest {
 
+    @Test
+    public void futility() {
+        assertTrue(Prune.isFutile(0, PAWN_VAL*2, 1));
+        assertFalse(Prune.isFutile(1, PAWN_VAL*2, 1));
+        assertFalse(Prune.isFutile(0, PAWN_VAL*2, 2));
+        assertTrue(Prune.isFutile(0, PAWN_VAL*5, 2));
+        assertFalse(Prune.isFutile(0, PAWN_VAL*5, 3));
+
+        // never around mate scores
+        assertFalse(Prune.isFutile(0, CHECKMATE-10, 1));
+    }
+
+    @Test
+    public void reverseFutility() {
+        assertTrue(Prune.reverseFutility(Prune.REVERSE_FUTILITY_MARGIN, 0, 1));
+        assertFalse(Prune.reverseFutility(Prune.REVERSE_FUTILITY_MARGIN-1, 0, 1));
+        assertFalse(Prune.reverseFutility(Prune.REVERSE_FUTILITY_MARGIN, 0, 2));
+        assertTrue(Prune.reverseFutility(Prune.REVERSE_FUTILITY_MARGIN*3, 0, 3));
+        assertFalse(Prune.reverseFutility(QUEEN_VAL*5, 0, 4));
+        assertFalse(Prune.reverseFutility(CHECKMATE, CHECKMATE-10, 1));
+    }
+
+    @Test
+    public void razor() {
+        assertTrue(Prune.razor(0, Prune.RAZOR_MARGIN, 1));
+        assertTrue(Prune.razor(0, Prune.RAZOR_MARGIN, 2));
+        assertFalse(Prune.razor(1, Prune.RAZOR_MARGIN, 2));
+        assertFalse(Prune.razor(0, Prune.RAZOR_MARGIN, 3));
+        assertFalse(Prune.razor(0, -CHECKMATE+10, 1));
+    }
+
     @Test
     public void testInitialPosition() {
 
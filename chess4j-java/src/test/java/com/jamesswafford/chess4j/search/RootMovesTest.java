@@ -0,0 +1,91 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Knight.WHITE_KNIGHT;
+import static com.jamesswafford.chess4j.pieces.Pawn.WHITE_PAWN;
+import static org.junit.Assert.*;
+
+public class RootMovesTest {
+
+    Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+    Move d2d4 = new Move(WHITE_PAWN, D2, D4);
+    Move c2c4 = new Move(WHITE_PAWN, C2, C4);
+    Move g1f3 = new Move(WHITE_KNIGHT, G1, F3);
+
+    RootMoves rootMoves;
+
+    @Before
+    public void setUp() {
+        rootMoves = new RootMoves(Arrays.asList(e2e4, d2d4, c2c4, g1f3));
+    }
+
+    @Test
+    public void initialOrderIsKept() {
+        assertFalse(rootMoves.isOrdered());
+        assertEquals(Arrays.asList(e2e4, d2d4, c2c4, g1f3), rootMoves.getMoves());
+        assertEquals(-1, rootMoves.getNodeShare(e2e4), 0.0);
+    }
+
+    @Test
+    public void sortBestMoveThenFailHighsThenNodes() {
+        rootMoves.record(e2e4, 1000, 20, true, false);
+        rootMoves.record(d2d4, 300, 20, false, false);
+        rootMoves.record(c2c4, 100, 25, true, true);
+        rootMoves.record(g1f3, 600, 25, false, false);
+
+        rootMoves.sort(c2c4);
+        assertTrue(rootMoves.isOrdered());
+        assertEquals(Arrays.asList(c2c4, e2e4, g1f3, d2d4), rootMoves.getMoves());
+
+        // next iteration: g1f3 beats c2c4, so follows the new best move
+        rootMoves.record(c2c4, 500, 25, true, false);
+        rootMoves.record(e2e4, 200, 25, false, false);
+        rootMoves.record(g1f3, 100, 30, true, true);
+        rootMoves.record(d2d4, 300, 30, false, false);
+
+        rootMoves.sort(d2d4);
+        assertEquals(Arrays.asList(d2d4, g1f3, c2c4, e2e4), rootMoves.getMoves());
+    }
+
+    @Test
+    public void rootMoveHistory() {
+        rootMoves.record(e2e4, 1000, 20, true, true);
+        rootMoves.record(e2e4, 3000, 10, true, true);
+        rootMoves.record(e2e4, 2000, 40, false, false);
+
+        RootMove rootMove = rootMoves.getRootMove(e2e4).orElseThrow();
+        assertEquals(2000, rootMove.getNodes());
+        assertEquals(40, rootMove.getScore());
+        assertFalse(rootMove.isExact());
+        assertEquals(20, rootMove.getBestScore());
+        assertEquals(2, rootMove.getFailHighs());
+        assertFalse(rootMove.isFailedHigh());
+    }
+
+    @Test
+    public void nodeShare() {
+        rootMoves.record(e2e4, 600, 20, true, false);
+        rootMoves.record(d2d4, 200, 10, false, false);
+        rootMoves.record(c2c4, 200, 10, false, false);
+
+        assertEquals(1000, rootMoves.getTotalNodes());
+        assertEquals(0.6, rootMoves.getNodeShare(e2e4), 0.0001);
+        assertEquals(0.0, rootMoves.getNodeShare(g1f3), 0.0001);
+    }
+
+    @Test
+    public void snapshotIsACopy() {
+        rootMoves.record(e2e4, 600, 20, true, false);
+        RootMove copy = rootMoves.snapshot().get(0);
+
+        rootMoves.record(e2e4, 900, 30, true, false);
+        assertEquals(600, copy.getNodes());
+        assertEquals(900, rootMoves.getRootMove(e2e4).orElseThrow().getNodes());
+    }
+}
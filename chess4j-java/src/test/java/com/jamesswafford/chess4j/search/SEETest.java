@@ -13,6 +13,7 @@ import static org.junit.Assert.*;
 
 import static com.jamesswafford.chess4j.pieces.Pawn.*;
 import static com.jamesswafford.chess4j.pieces.Knight.*;
+import static com.jamesswafford.chess4j.pieces.Bishop.*;
 import static com.jamesswafford.chess4j.pieces.Rook.*;
 import static com.jamesswafford.chess4j.pieces.Queen.*;
 import static com.jamesswafford.chess4j.board.squares.Square.*;
@@ -224,6 +225,73 @@ public class SEETest {
 
     }
 
+    @Test
+    public void testSeeMoveNonCapturesAndPromotions() throws Exception {
+        testCaseSeeMove("6rr/6pk/p1Qp1b1p/2n5/1B3p2/5p2/P1P2P2/4RK1R w - -","Re8",-ROOK_VAL);
+        testCaseSeeMove("7r/5qpk/2Qp1b1p/1N1r3n/BB3p2/5p2/P1P2P2/4RK1R w - -","Re8",-ROOK_VAL);
+        testCaseSeeMove("6RR/4bP2/8/8/5r2/3K4/5p2/4k3 w - -",
+                new Move(WHITE_PAWN, F7, F8, null, WHITE_QUEEN), BISHOP_VAL-PAWN_VAL);
+        testCaseSeeMove("6RR/4bP2/8/8/5r2/3K4/5p2/4k3 w - -",
+                new Move(WHITE_PAWN, F7, F8, null, WHITE_KNIGHT), KNIGHT_VAL-PAWN_VAL);
+        testCaseSeeMove("7k/5P2/8/8/8/8/8/K7 w - -",
+                new Move(WHITE_PAWN, F7, F8, null, WHITE_QUEEN), QUEEN_VAL-PAWN_VAL);
+        testCaseSeeMove("7k/5P2/8/8/8/8/8/K7 w - -",
+                new Move(WHITE_PAWN, F7, F8, null, WHITE_BISHOP), BISHOP_VAL-PAWN_VAL);
+        testCaseSeeMove("7R/4bP2/8/8/1q6/3K4/5p2/4k3 w - -",
+                new Move(WHITE_PAWN, F7, F8, null, WHITE_ROOK), -PAWN_VAL);
+    }
+
+    @Test
+    public void testSeeMoveEnPassant() throws Exception {
+        testCaseSeeMove("7k/8/8/3pP3/8/8/7K/8 w - d6",
+                new Move(WHITE_PAWN, E5, D6, BLACK_PAWN, true), PAWN_VAL);
+
+        // the rook behind the captured pawn recaptures
+        testCaseSeeMove("7k/8/8/3pP3/8/8/7K/3r4 w - d6",
+                new Move(WHITE_PAWN, E5, D6, BLACK_PAWN, true), 0);
+    }
+
+    @Test
+    public void testSeeMoveKingCannotCaptureDefendedPiece() throws Exception {
+        // Rxd5 Kxd5?? is illegal as the bishop on b3 defends d5
+        testCaseSeeMove("8/8/8/3pk3/8/1B1R4/2K5/8 w - -","Rxd5",PAWN_VAL);
+
+        // likewise with the queen defending d5 from behind the rook
+        testCaseSeeMove("8/8/8/3pk3/8/3R4/2K5/3Q4 w - -","Rxd5",PAWN_VAL);
+
+        // with nothing defending d5, the king recaptures
+        testCaseSeeMove("8/8/8/3pk3/8/3R4/2K5/8 w - -","Rxd5",PAWN_VAL-ROOK_VAL);
+    }
+
+    @Test
+    public void testSeeAtLeast() throws Exception {
+        // Bxc6 loses a bishop for a pawn
+        Board board = new Board("8/pp6/2pkp3/4bp2/2R3b1/2P5/PP4B1/1K6 w - -");
+        Board copy = board.deepCopy();
+        Move bxc6 = new MoveParser().parseMove("Bxc6", board);
+        assertTrue(SEE.seeAtLeast(board, bxc6, PAWN_VAL-BISHOP_VAL));
+        assertFalse(SEE.seeAtLeast(board, bxc6, PAWN_VAL-BISHOP_VAL+1));
+        assertFalse(SEE.seeAtLeast(board, bxc6, 0));
+
+        // the board should not be changed
+        assertEquals(copy, board);
+
+        // Rxc5 wins a bishop
+        board = new Board("2r4k/2r4p/p7/2b2p1b/4pP2/1BR5/P1R3PP/2Q4K w - -");
+        Move rxc5 = new MoveParser().parseMove("Rxc5", board);
+        assertTrue(SEE.seeAtLeast(board, rxc5, 0));
+        assertTrue(SEE.seeAtLeast(board, rxc5, BISHOP_VAL));
+        assertFalse(SEE.seeAtLeast(board, rxc5, BISHOP_VAL+1));
+    }
+
+    @Test
+    public void testSeeAtLeastNonCapture() {
+        Board board = new Board();
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        assertTrue(SEE.seeAtLeast(board, e2e4, 0));
+        assertFalse(SEE.seeAtLeast(board, e2e4, 1));
+    }
+
     private void testCaseSEE(String fen,String mv,int score) throws Exception {
         Board board = new Board(fen);
 
@@ -231,10 +299,30 @@ public class SEETest {
         Move move = mp.parseMove(mv, board);
 
         assertTrue(MagicBitboardMoveGenerator.genLegalMoves(board).contains(move));
+
+        // promotions are scored differently by seeMove()
+        if (move.promotion() == null) {
+            assertEquals(score, SEE.seeMove(board, move));
+        }
+
         board.applyMove(move);
 
         int myScore = SEE.see(board, move);
         assertEquals(score, myScore);
     }
 
+    private void testCaseSeeMove(String fen,String mv,int score) throws Exception {
+        Board board = new Board(fen);
+
+        MoveParser mp = new MoveParser();
+        testCaseSeeMove(fen, mp.parseMove(mv, board), score);
+    }
+
+    private void testCaseSeeMove(String fen,Move move,int score) {
+        Board board = new Board(fen);
+
+        assertTrue(MagicBitboardMoveGenerator.genLegalMoves(board).contains(move));
+        assertEquals(score, SEE.seeMove(board, move));
+    }
+
 }
@@ -3,14 +3,16 @@ package com.jamesswafford.chess4j.search;
 import com.jamesswafford.chess4j.board.Board;
 import com.jamesswafford.chess4j.board.Move;
 import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.hash.TTHolder;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
 import com.jamesswafford.chess4j.movegen.MoveGenerator;
+import com.jamesswafford.chess4j.utils.MoveUtils;
 import org.awaitility.Awaitility;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -18,8 +20,9 @@ import static com.jamesswafford.chess4j.Constants.CHECKMATE;
 import static com.jamesswafford.chess4j.Constants.INFINITY;
 import static com.jamesswafford.chess4j.board.squares.Square.*;
 import static com.jamesswafford.chess4j.pieces.Pawn.WHITE_PAWN;
+import static com.jamesswafford.chess4j.pieces.Queen.BLACK_QUEEN;
 import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 public class SearchIteratorImplTest {
@@ -172,6 +175,185 @@ public class SearchIteratorImplTest {
     }
 
 
+    @Test
+    public void iteratorConsultsTimeManager() throws Exception {
+
+        // given an iterator and a board to search
+        Search search = mock(Search.class);
+        searchIterator.setSearch(search);
+        searchIterator.setMaxDepth(0); // no limit
+        searchIterator.setPost(false);
+
+        // and a time manager that allows three iterations
+        TimeManager timeManager = mock(TimeManager.class);
+        when(timeManager.hasTimeLimit()).thenReturn(true);
+        when(timeManager.getHardLimitMs()).thenReturn(10000L);
+        when(timeManager.continueIterating(anyLong())).thenReturn(true, true, false);
+        searchIterator.setTimeManager(timeManager);
+
+        Board board = new Board();
+        List<Undo> undos = new ArrayList<>();
+
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        when(search.getPv()).thenReturn(Collections.singletonList(e2e4));
+        when(search.search(any(), any(), any(), any())).thenReturn(25);
+
+        // when the iterator is invoked
+        searchIterator.findPvFuture(board, undos).get();
+
+        // then the searches are bounded by the hard limit
+        ArgumentCaptor<SearchOptions> optsCaptor = ArgumentCaptor.forClass(SearchOptions.class);
+        verify(search, times(3)).search(eq(board), eq(undos), any(), optsCaptor.capture());
+        SearchOptions opts = optsCaptor.getValue();
+        assertEquals(opts.getStartTime() + 10000, opts.getStopTime());
+
+        // and the time manager saw each completed iteration
+        verify(timeManager, times(1)).startSearch();
+        verify(timeManager, times(3)).iterationComplete(eq(e2e4), eq(25), anyDouble());
+    }
+
+    @Test
+    public void explicitSearchTimeOverridesTimeManager() throws Exception {
+
+        Search search = mock(Search.class);
+        searchIterator.setSearch(search);
+        searchIterator.setMaxDepth(2);
+        searchIterator.setMaxTime(5000);
+        searchIterator.setPost(false);
+
+        TimeManager timeManager = mock(TimeManager.class);
+        when(timeManager.hasTimeLimit()).thenReturn(true);
+        searchIterator.setTimeManager(timeManager);
+
+        Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+        when(search.getPv()).thenReturn(Collections.singletonList(e2e4));
+
+        searchIterator.findPvFuture(new Board(), new ArrayList<>()).get();
+
+        verifyNoInteractions(timeManager);
+    }
+
+    @Test
+    public void ponderHitStartsTheClock() throws Exception {
+
+        searchIterator.setMaxDepth(0); // no limit
+        searchIterator.setMaxTime(100);
+        searchIterator.setPost(false);
+
+        // while pondering the time limit doesn't apply
+        searchIterator.setSkipTimeChecks(true);
+        CompletableFuture<List<Move>> future = searchIterator.findPvFuture(new Board(), new ArrayList<>());
+        Thread.sleep(300);
+        assertFalse(future.isDone());
+
+        // on a ponder hit the search gets its full time from now on
+        long ponderHitTime = System.currentTimeMillis();
+        searchIterator.ponderHit();
+
+        Awaitility.await()
+                .atMost(5, TimeUnit.SECONDS)
+                .pollInterval(1, TimeUnit.MILLISECONDS)
+                .until(future::isDone);
+
+        long duration = System.currentTimeMillis() - ponderHitTime;
+        assertTrue(duration >= 90);
+        assertTrue(duration < 500);
+        assertTrue(future.get().size() > 0);
+    }
+
+    @Test
+    public void multiPv() throws Exception {
+
+        searchIterator.setMaxDepth(4);
+        searchIterator.setMultiPv(3);
+        searchIterator.setPost(false);
+
+        // white can win the queen with exd5, and nothing else comes close
+        Board board = new Board("rnb1kbnr/ppp1pppp/8/3q4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq -");
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        List<PvLine> lines = searchIterator.getPvLines();
+        assertEquals(3, lines.size());
+        assertEquals(pv, lines.get(0).getPv());
+        assertEquals(new Move(WHITE_PAWN, E4, D5, BLACK_QUEEN), pv.get(0));
+
+        Set<Move> rootMoves = new HashSet<>();
+        for (int i=0;i<lines.size();i++) {
+            PvLine line = lines.get(i);
+            assertEquals(4, line.getDepth());
+            assertTrue(MoveUtils.isLineValid(line.getPv(), board));
+            assertTrue(rootMoves.add(line.getPv().get(0)));
+            if (i > 0) {
+                assertTrue(line.getScore() <= lines.get(i-1).getScore());
+            }
+        }
+        assertTrue(lines.get(0).getScore() > lines.get(1).getScore() + 500);
+    }
+
+    @Test
+    public void multiPvLimitedByLegalMoves() throws Exception {
+
+        searchIterator.setMaxDepth(3);
+        searchIterator.setMultiPv(5);
+        searchIterator.setEarlyExitOk(false);
+        searchIterator.setPost(false);
+
+        // the black king has just two moves
+        Board board = new Board("7k/8/8/5Q2/8/8/8/K7 b - -");
+        searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        assertEquals(2, searchIterator.getPvLines().size());
+    }
+
+    @Test
+    public void nodeLimitedIteratorIsRepeatable() throws Exception {
+
+        Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+
+        List<List<Move>> pvs = new ArrayList<>();
+        for (int i=0;i<2;i++) {
+            TTHolder.getInstance().clearTables();
+            SearchIteratorImpl searchIterator = new SearchIteratorImpl();
+            searchIterator.setMaxNodes(50000);
+            searchIterator.setEarlyExitOk(false);
+            searchIterator.setPost(false);
+            pvs.add(searchIterator.findPvFuture(board, new ArrayList<>()).get());
+            assertTrue(searchIterator.isStopped());
+        }
+
+        assertEquals(pvs.get(0), pvs.get(1));
+    }
+
+    @Test
+    public void rootMovesAreOrderedBySubtreeSize() throws Exception {
+
+        searchIterator.setMaxDepth(4);
+        searchIterator.setEarlyExitOk(false);
+        searchIterator.setPost(false);
+
+        Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+        List<Move> pv = searchIterator.findPvFuture(board, new ArrayList<>()).get();
+
+        List<RootMove> rootMoves = searchIterator.getRootMoves();
+        assertEquals(new MagicBitboardMoveGenerator().generateLegalMoves(board).size(), rootMoves.size());
+
+        // the best move goes first, and every move has been searched
+        assertEquals(pv.get(0), rootMoves.get(0).getMove());
+        assertTrue(rootMoves.get(0).isExact());
+        assertTrue(rootMoves.get(0).getBestScore() >= rootMoves.get(0).getScore());
+        assertTrue(rootMoves.stream().allMatch(rm -> rm.getNodes() > 0));
+
+        // then any moves that beat the moves before them, and the rest in order of subtree size
+        int i = 1;
+        while (rootMoves.get(i).isFailedHigh()) {
+            i++;
+        }
+        for (i++;i<rootMoves.size();i++) {
+            assertFalse(rootMoves.get(i).isFailedHigh());
+            assertTrue(rootMoves.get(i-1).getNodes() >= rootMoves.get(i).getNodes());
+        }
+    }
+
     @Test
     public void stoppedIteratorProducesValidLine() {
 
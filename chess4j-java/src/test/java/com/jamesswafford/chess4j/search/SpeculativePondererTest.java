@@ -0,0 +1,107 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.board.Move;
+import com.jamesswafford.chess4j.board.Undo;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.utils.MoveUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Pawn.*;
+import static com.jamesswafford.chess4j.pieces.Queen.WHITE_QUEEN;
+import static org.junit.Assert.*;
+
+public class SpeculativePondererTest {
+
+    SpeculativePonderer ponderer;
+
+    Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+    Move e7e5 = new Move(BLACK_PAWN, E7, E5);
+
+    Board board;
+    List<Undo> undos;
+
+    @Before
+    public void setUp() {
+        ponderer = new SpeculativePonderer(3);
+        board = new Board();
+        undos = new ArrayList<>();
+        undos.add(board.applyMove(e2e4));
+    }
+
+    @Test
+    public void predictedReplyIsRankedFirst() {
+        List<Move> replies = ponderer.rankReplies(board, undos, e7e5);
+
+        assertEquals(3, replies.size());
+        assertEquals(e7e5, replies.get(0));
+        assertEquals(3, replies.stream().distinct().count());
+
+        List<Move> legalMoves = new MagicBitboardMoveGenerator().generateLegalMoves(board);
+        assertTrue(legalMoves.containsAll(replies));
+    }
+
+    @Test
+    public void repliesAreRankedWithoutPrediction() {
+        // black can win the queen with e5xd4, and no other move comes close
+        Board board = new Board("rnbqkbnr/pppp1ppp/8/4p3/3Q4/8/PPP1PPPP/RNB1KBNR b KQkq -");
+        List<Move> replies = ponderer.rankReplies(board, new ArrayList<>(), null);
+
+        assertEquals(3, replies.size());
+        assertEquals(new Move(BLACK_PAWN, E5, D4, WHITE_QUEEN), replies.get(0));
+    }
+
+    @Test
+    public void ponderHitKeepsMatchingSearch() throws Exception {
+        List<Move> replies = ponderer.start(board, undos, e7e5);
+        assertEquals(3, replies.size());
+        assertTrue(ponderer.isPondering(e7e5));
+
+        TimeManager timeManager = new TimeManager();
+        timeManager.setFixedTime(100);
+
+        Optional<CompletableFuture<List<Move>>> search = ponderer.ponderHit(replies.get(1), timeManager);
+        assertTrue(search.isPresent());
+
+        // the search finishes on its own now that it has a time limit
+        List<Move> pv = search.get().get();
+        Board replyBoard = board.deepCopy();
+        replyBoard.applyMove(replies.get(1));
+        assertTrue(pv.size() > 0);
+        assertTrue(MoveUtils.isLineValid(pv, replyBoard));
+
+        assertFalse(ponderer.isPondering(e7e5));
+        assertEquals(1, ponderer.getNumPonders());
+        assertEquals(1, ponderer.getNumPonderHits());
+    }
+
+    @Test
+    public void ponderMissCancelsAllSearches() {
+        List<Move> replies = ponderer.start(board, undos, e7e5);
+
+        Move notPondered = new MagicBitboardMoveGenerator().generateLegalMoves(board).stream()
+                .filter(mv -> !replies.contains(mv))
+                .findFirst()
+                .orElseThrow();
+
+        assertFalse(ponderer.ponderHit(notPondered, null).isPresent());
+        assertFalse(ponderer.isPondering(e7e5));
+        assertEquals(1, ponderer.getNumPonders());
+        assertEquals(0, ponderer.getNumPonderHits());
+        assertEquals(0, ponderer.getTotalTimeSavedMs());
+    }
+
+    @Test
+    public void stopCancelsSearches() {
+        ponderer.start(board, undos, e7e5);
+        ponderer.stop();
+        assertFalse(ponderer.isPondering(e7e5));
+    }
+}
@@ -0,0 +1,163 @@
+package com.jamesswafford.chess4j.search;
+
+import com.jamesswafford.chess4j.board.Move;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.jamesswafford.chess4j.board.squares.Square.*;
+import static com.jamesswafford.chess4j.pieces.Pawn.*;
+import static org.junit.Assert.*;
+
+public class TimeManagerTest {
+
+    TimeManager timeManager;
+
+    Move e2e4 = new Move(WHITE_PAWN, E2, E4);
+    Move d2d4 = new Move(WHITE_PAWN, D2, D4);
+
+    @Before
+    public void setUp() {
+        timeManager = new TimeManager();
+    }
+
+    @Test
+    public void noTimeLimit() {
+        assertFalse(timeManager.hasTimeLimit());
+    }
+
+    @Test
+    public void suddenDeath() {
+        timeManager.setLevel(0, 0);
+        timeManager.setRemainingTime(100000);
+
+        assertTrue(timeManager.hasTimeLimit());
+        assertEquals(0, timeManager.getMovesToGo());
+        assertEquals(4000, timeManager.getSoftLimitMs());
+        assertEquals(16000, timeManager.getHardLimitMs());
+    }
+
+    @Test
+    public void hardLimitIsAShareOfTheRemainingTime() {
+        timeManager.setLevel(0, 10000);
+        timeManager.setRemainingTime(3000);
+
+        assertEquals(2900, timeManager.getSoftLimitMs());
+        assertEquals(2900, timeManager.getHardLimitMs());
+    }
+
+    @Test
+    public void movesToGo() {
+        timeManager.setLevel(40, 0);
+        timeManager.setRemainingTime(60000);
+
+        // 39 moves have been played, so this is the last move before the time control
+        timeManager.setMoveCounter(78);
+        assertEquals(1, timeManager.getMovesToGo());
+        assertEquals(30000, timeManager.getSoftLimitMs());
+        assertEquals(30000, timeManager.getHardLimitMs());
+
+        timeManager.setMoveCounter(80);
+        assertEquals(40, timeManager.getMovesToGo());
+        assertEquals(1463, timeManager.getSoftLimitMs());
+    }
+
+    @Test
+    public void fixedTime() {
+        timeManager.setFixedTime(5000);
+
+        assertTrue(timeManager.isFixedTime());
+        assertEquals(5000, timeManager.getSoftLimitMs());
+        assertEquals(5000, timeManager.getHardLimitMs());
+
+        // an unstable search does not change a fixed time per move
+        timeManager.startSearch();
+        timeManager.iterationComplete(e2e4, 0);
+        timeManager.iterationComplete(d2d4, -200);
+        assertEquals(5000, timeManager.getAdjustedSoftLimitMs());
+        assertTrue(timeManager.continueIterating(4999));
+        assertFalse(timeManager.continueIterating(5000));
+
+        // the clock wins if there is less time left than the fixed time
+        timeManager.setRemainingTime(3000);
+        assertEquals(2900, timeManager.getHardLimitMs());
+
+        // setting a time control clears the fixed time
+        timeManager.setLevel(0, 0);
+        assertFalse(timeManager.isFixedTime());
+    }
+
+    @Test
+    public void pvChangeAndScoreDropExtendTheSearch() {
+        timeManager.setLevel(0, 0);
+        timeManager.setRemainingTime(100000);
+        timeManager.startSearch();
+
+        timeManager.iterationComplete(e2e4, 10);
+        assertEquals(4000, timeManager.getAdjustedSoftLimitMs());
+
+        // new best move
+        timeManager.iterationComplete(d2d4, 10);
+        assertEquals(6000, timeManager.getAdjustedSoftLimitMs());
+
+        // same move but the score is falling
+        timeManager.iterationComplete(d2d4, -40);
+        assertEquals(7500, timeManager.getAdjustedSoftLimitMs());
+
+        // and falling fast
+        timeManager.iterationComplete(d2d4, -200);
+        assertEquals(9000, timeManager.getAdjustedSoftLimitMs());
+        assertTrue(timeManager.continueIterating(8999));
+        assertFalse(timeManager.continueIterating(9000));
+    }
+
+    @Test
+    public void adjustedLimitNeverExceedsHardLimit() {
+        timeManager.setLevel(0, 0);
+        timeManager.setRemainingTime(100000);
+        timeManager.startSearch();
+
+        for (int i=0;i<20;i++) {
+            timeManager.iterationComplete(i % 2 == 0 ? e2e4 : d2d4, -100 * i);
+            assertTrue(timeManager.getAdjustedSoftLimitMs() <= timeManager.getHardLimitMs());
+        }
+    }
+
+    @Test
+    public void bestMoveNodeShareScalesTheSearch() {
+        timeManager.setLevel(0, 0);
+        timeManager.setRemainingTime(100000);
+        timeManager.startSearch();
+
+        // the alternatives took most of the effort to refute
+        timeManager.iterationComplete(e2e4, 10, 0.3);
+        assertEquals(5000, timeManager.getAdjustedSoftLimitMs());
+
+        // unknown
+        timeManager.iterationComplete(e2e4, 10, -1);
+        assertEquals(4000, timeManager.getAdjustedSoftLimitMs());
+
+        // the best move took nearly all of it
+        timeManager.iterationComplete(e2e4, 10, 0.95);
+        assertEquals(3000, timeManager.getAdjustedSoftLimitMs());
+    }
+
+    @Test
+    public void easyMoveShortensTheSearch() {
+        timeManager.setLevel(0, 0);
+        timeManager.setRemainingTime(100000);
+        timeManager.startSearch();
+
+        for (int i=1;i<TimeManager.EASY_MOVE_ITERATIONS;i++) {
+            timeManager.iterationComplete(e2e4, 25);
+        }
+        assertEquals(4000, timeManager.getAdjustedSoftLimitMs());
+
+        timeManager.iterationComplete(e2e4, 25);
+        assertEquals(2000, timeManager.getAdjustedSoftLimitMs());
+        assertFalse(timeManager.continueIterating(2500));
+
+        // a new search starts over
+        timeManager.startSearch();
+        assertEquals(4000, timeManager.getAdjustedSoftLimitMs());
+    }
+}
@@ -0,0 +1,97 @@
+package com.jamesswafford.chess4j.tuner;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.eval.EvalFeatures;
+import com.jamesswafford.chess4j.eval.EvalParameters;
+import com.jamesswafford.chess4j.movegen.MagicBitboardMoveGenerator;
+import com.jamesswafford.chess4j.search.SEE;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.jamesswafford.chess4j.pieces.Queen.BLACK_QUEEN;
+import static org.junit.Assert.*;
+
+public class LabelledPositionReaderTest {
+
+    @Test
+    public void setPosReadsTheResult() {
+        Board board = new Board();
+
+        assertEquals(1.0, LabelledPositionReader.setPos(board,
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - c9 \"1-0\";"), 0);
+        assertEquals(new Board("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq -"), board);
+
+        assertEquals(0.5, LabelledPositionReader.setPos(board,
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - c9 \"1/2-1/2\";"), 0);
+        assertEquals(0.0, LabelledPositionReader.setPos(board,
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - id \"x\"; result \"0-1\";"), 0);
+        assertEquals(1.0, LabelledPositionReader.setPos(board, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1 [1.0]"), 0);
+        assertEquals(0.5, LabelledPositionReader.setPos(board, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - [0.5]"), 0);
+        assertEquals(new Board("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -"), board);
+
+        assertTrue(Double.isNaN(LabelledPositionReader.setPos(board,
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - bm Rxf4;")));
+    }
+
+    @Test
+    public void resolveWinsTheHangingQueen() {
+        Board board = new Board("4k3/8/8/3q4/4P3/8/8/4K3 w - -");
+        LabelledPositionReader.resolve(board);
+
+        assertEquals(new Board("4k3/8/8/3P4/8/8/8/4K3 b - -"), board);
+        assertEquals(0, board.getNumPieces(BLACK_QUEEN));
+    }
+
+    @Test
+    public void resolveLeavesAQuietPosition() {
+        Board board = new Board("r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w KQkq -");
+        Board quiet = board.deepCopy();
+        LabelledPositionReader.resolve(quiet);
+        assertEquals(board, quiet);
+
+        // Nxh4 wins the queen, after which nothing more can be won
+        Board resolved = new Board("rnb1kbnr/pppp1ppp/8/4p3/4P2q/5N2/PPPP1PPP/RNBQKB1R w KQkq -");
+        LabelledPositionReader.resolve(resolved);
+        assertEquals(0, resolved.getNumPieces(BLACK_QUEEN));
+        assertTrue(MagicBitboardMoveGenerator.genPseudoLegalMoves(resolved, true, false).stream()
+                .noneMatch(m -> SEE.seeMove(resolved, m) > 0));
+    }
+
+    @Test
+    public void readSkipsBadLines() throws Exception {
+        Path path = Files.createTempFile("chess4j", ".epd");
+        try {
+            Files.write(path, Arrays.asList(
+                    "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - c9 \"1-0\";",
+                    "",
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - [0.5]",
+                    // in check
+                    "rnbqkbnr/ppppp2p/5p2/6pQ/4P3/8/PPPP1PPP/RNB1KBNR b KQkq - c9 \"1-0\";",
+                    // no result
+                    "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - bm Rxf4;",
+                    "not a position",
+                    "4k3/8/8/3q4/4P3/8/8/4K3 w - - [0.0]"));
+
+            LabelledPositionReader reader = new LabelledPositionReader(new ForkJoinPool(2));
+            TuningPositions positions = reader.read(path);
+
+            assertEquals(3, positions.size());
+            assertEquals(3, reader.getNumSkipped());
+            assertEquals(1.0, positions.getResult(0), 0);
+            assertEquals(0.5, positions.getResult(1), 0);
+            assertEquals(0.0, positions.getResult(2), 0);
+
+            // the last was resolved to the position after exd5
+            double[] weights = new double[EvalParameters.size()];
+            double[] coefficients = new double[EvalParameters.size()];
+            int material = EvalFeatures.extract(new Board("4k3/8/8/3P4/8/8/8/4K3 b - -"), coefficients);
+            assertEquals(material, positions.evaluate(2, weights), 0);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.jamesswafford.chess4j.tuner;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.eval.EvalFeatures;
+import com.jamesswafford.chess4j.eval.EvalParameters;
+import com.jamesswafford.chess4j.io.EPDParser;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TexelTunerTest {
+
+    @After
+    public void tearDown() {
+        EvalParameters.reset();
+    }
+
+    private static double[] toDoubles(int[] values) {
+        double[] doubles = new double[values.length];
+        for (int i=0;i<values.length;i++) {
+            doubles[i] = values[i];
+        }
+        return doubles;
+    }
+
+    /*
+     * The WAC positions, labelled by a "teacher" that thinks a passed pawn is worth a lot more than the
+     * evaluation does: a win for whoever is ahead by its reckoning, a draw if neither is.
+     */
+    private static TuningPositions getPositions(int copies) throws Exception {
+        File epdFile = new File(TexelTunerTest.class.getResource("/suites/wac.epd").getFile());
+        List<Board> boards = new ArrayList<>();
+        for (String line : Files.readAllLines(epdFile.toPath(), Charset.defaultCharset())) {
+            if (!line.isBlank()) {
+                Board board = new Board();
+                EPDParser.setPos(board, line);
+                boards.add(board);
+            }
+        }
+
+        int[] teacher = EvalParameters.getValues();
+        teacher[EvalParameters.indexOf("PASSED_PAWN")] = 150;
+
+        TuningPositions positions = new TuningPositions();
+        double[] coefficients = new double[EvalParameters.size()];
+        for (int i=0;i<copies;i++) {
+            for (Board board : boards) {
+                int material = EvalFeatures.extract(board, coefficients);
+                double score = EvalFeatures.score(material, coefficients, teacher);
+                double result = score > 50 ? 1.0 : score < -50 ? 0.0 : 0.5;
+                positions.add(result, material, coefficients);
+            }
+        }
+        return positions;
+    }
+
+    @Test
+    public void fitKReducesTheError() throws Exception {
+        TexelTuner tuner = new TexelTuner(new ForkJoinPool(2), getPositions(1));
+        double[] weights = toDoubles(EvalParameters.getValues());
+
+        tuner.setK(1.0);
+        double error = tuner.error(weights);
+        double k = tuner.fitK(weights);
+
+        assertEquals(k, tuner.getK(), 0);
+        assertTrue(k > 0);
+        assertTrue(tuner.error(weights) <= error);
+    }
+
+    @Test
+    public void errorIsTheSameOnAnyNumberOfThreads() throws Exception {
+        // enough positions to be split across the threads
+        TuningPositions positions = getPositions(30);
+        double[] weights = toDoubles(EvalParameters.getValues());
+
+        double error = new TexelTuner(new ForkJoinPool(1), positions).error(weights);
+        assertEquals(error, new TexelTuner(new ForkJoinPool(4), positions).error(weights), 1e-12);
+    }
+
+    @Test
+    public void tuneReducesTheError() throws Exception {
+        TexelTuner tuner = new TexelTuner(new ForkJoinPool(2), getPositions(1));
+        int[] initial = EvalParameters.getValues();
+        tuner.fitK(toDoubles(initial));
+        double error = tuner.error(toDoubles(initial));
+
+        int[] tuned = tuner.tune(initial, 200);
+
+        assertTrue(tuner.error(toDoubles(tuned)) < error);
+        assertTrue(tuned[EvalParameters.indexOf("PASSED_PAWN")] > initial[EvalParameters.indexOf("PASSED_PAWN")]);
+    }
+
+    @Test
+    public void tuneFileSavesParametersTheEvaluationCanLoad() throws Exception {
+        Path positionsFile = Files.createTempFile("chess4j", ".epd");
+        Path paramsFile = Files.createTempFile("chess4j", ".params");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (String fen : TuningPositionsTest.FENS) {
+                lines.add(fen + " c9 \"1/2-1/2\";");
+            }
+            Files.write(positionsFile, lines);
+
+            TexelTuner.tuneFile(positionsFile.toString(), paramsFile.toString(), 20, 2);
+            int[] tuned = EvalParameters.getValues();
+
+            EvalParameters.reset();
+            EvalParameters.load(paramsFile);
+            assertArrayEquals(tuned, EvalParameters.getValues());
+        } finally {
+            Files.delete(positionsFile);
+            Files.delete(paramsFile);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.jamesswafford.chess4j.tuner;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.eval.EvalFeatures;
+import com.jamesswafford.chess4j.eval.EvalParameters;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TuningPositionsTest {
+
+    static final String[] FENS = {
+            Board.INITIAL_POS,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+            "r1bq1rk1/pp2nppp/2n1p3/3pP3/1b1P4/2NB1N2/PP3PPP/R1BQ1RK1 w - -",
+            "6k1/4R1P1/5P2/5K1p/7r/8/8/8 w - -"
+    };
+
+    private static double[] randomWeights(long seed) {
+        Random random = new Random(seed);
+        double[] weights = new double[EvalParameters.size()];
+        for (int i=0;i<weights.length;i++) {
+            weights[i] = random.nextDouble() * 100 - 50;
+        }
+        return weights;
+    }
+
+    private static double dot(int material, double[] coefficients, double[] weights) {
+        double score = material;
+        for (int i=0;i<coefficients.length;i++) {
+            score += coefficients[i] * weights[i];
+        }
+        return score;
+    }
+
+    @Test
+    public void evaluateMatchesTheFeatures() {
+        TuningPositions positions = new TuningPositions();
+        double[] weights = randomWeights(1);
+        double[] coefficients = new double[EvalParameters.size()];
+        double[] expected = new double[FENS.length];
+        for (int i=0;i<FENS.length;i++) {
+            int material = EvalFeatures.extract(new Board(FENS[i]), coefficients);
+            expected[i] = dot(material, coefficients, weights);
+            positions.add(i % 3 / 2.0, material, coefficients);
+        }
+
+        assertEquals(FENS.length, positions.size());
+        for (int i=0;i<FENS.length;i++) {
+            assertEquals(expected[i], positions.evaluate(i, weights), 1e-3);
+            assertEquals(i % 3 / 2.0, positions.getResult(i), 0);
+        }
+    }
+
+    @Test
+    public void addToGradientAddsTheCoefficients() {
+        double[] coefficients = new double[EvalParameters.size()];
+        int material = EvalFeatures.extract(new Board(FENS[3]), coefficients);
+        TuningPositions positions = new TuningPositions();
+        positions.add(1.0, material, coefficients);
+
+        double[] gradient = new double[EvalParameters.size()];
+        positions.addToGradient(0, 2.0, gradient);
+        for (int i=0;i<gradient.length;i++) {
+            assertEquals(EvalParameters.getName(i), 2.0 * coefficients[i], gradient[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void addAllAppends() {
+        double[] weights = randomWeights(2);
+        double[] coefficients = new double[EvalParameters.size()];
+        TuningPositions all = new TuningPositions();
+        TuningPositions first = new TuningPositions();
+        TuningPositions second = new TuningPositions();
+        // enough positions for the arrays to grow
+        for (int i=0;i<3000;i++) {
+            int material = EvalFeatures.extract(new Board(FENS[i % FENS.length]), coefficients);
+            double result = i % 3 / 2.0;
+            all.add(result, material, coefficients);
+            (i < 1300 ? first : second).add(result, material, coefficients);
+        }
+
+        TuningPositions combined = new TuningPositions();
+        combined.addAll(first);
+        combined.addAll(second);
+
+        assertEquals(all.size(), combined.size());
+        for (int i=0;i<all.size();i++) {
+            assertEquals(all.getResult(i), combined.getResult(i), 0);
+            assertEquals(all.evaluate(i, weights), combined.evaluate(i, weights), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.jamesswafford.chess4j.utils;
+
+import com.jamesswafford.chess4j.board.Board;
+import com.jamesswafford.chess4j.eval.Eval;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EvalBatchTest {
+
+    private static List<String> getWacFens() throws Exception {
+        File epdFile = new File(EvalBatchTest.class.getResource("/suites/wac.epd").getFile());
+        List<String> fens = new ArrayList<>();
+        for (String line : Files.readAllLines(epdFile.toPath(), Charset.defaultCharset())) {
+            if (!line.isBlank()) {
+                // just the position, not the operations
+                fens.add(String.join(" ", Arrays.asList(line.split(" ")).subList(0, 4)));
+            }
+        }
+        return fens;
+    }
+
+    @Test
+    public void scoresMatchTheEvaluationInOrder() throws Exception {
+        List<String> fens = new ArrayList<>();
+        // enough to be spread over the threads in a few chunks
+        while (fens.size() <= EvalBatch.CHUNK_SIZE * 3) {
+            fens.addAll(getWacFens());
+        }
+
+        List<EvalBatch.Result> results;
+        try (EvalBatch batch = new EvalBatch(3, 0)) {
+            results = batch.evaluate(fens);
+        }
+
+        assertEquals(fens.size(), results.size());
+        for (int i=0;i<fens.size();i++) {
+            EvalBatch.Result result = results.get(i);
+            assertEquals(fens.get(i), result.getFen());
+            assertTrue(result.isValid());
+            assertEquals(Eval.eval(new Board(fens.get(i))), result.getScore());
+            assertFalse(result.getMove().isPresent());
+        }
+    }
+
+    @Test
+    public void invalidPositionsAreCounted() throws Exception {
+        List<String> fens = Arrays.asList(
+                "4k3/8/4P3/8/8/8/8/4K3 w - -",
+                "not a position",
+                "",
+                "4k3/8/4P3/8/8/8/8/4K3 b - -");
+
+        List<EvalBatch.Result> results = new ArrayList<>();
+        EvalBatch.Summary summary;
+        try (EvalBatch batch = new EvalBatch(2, 0)) {
+            summary = batch.evaluate(fens, results::add);
+        }
+
+        assertEquals(3, summary.getNumPositions());
+        assertEquals(1, summary.getNumInvalid());
+        assertTrue(results.get(0).isValid());
+        assertFalse(results.get(1).isValid());
+        assertEquals(-results.get(0).getScore(), results.get(2).getScore());
+    }
+
+    @Test
+    public void searchFindsTheBestMove() throws Exception {
+        // white wins the queen
+        String fen = "3qk3/8/8/8/8/8/8/3RK3 w - -";
+
+        // after others, so nothing of their searches is carried over
+        List<String> fens = new ArrayList<>(getWacFens().subList(0, 20));
+        fens.add(fen);
+
+        List<EvalBatch.Result> results;
+        try (EvalBatch batch = new EvalBatch(1, 2)) {
+            results = batch.evaluate(fens);
+        }
+
+        for (EvalBatch.Result result : results) {
+            assertTrue(result.getMove().isPresent());
+        }
+        EvalBatch.Result result = results.get(results.size() - 1);
+        assertTrue(result.getScore() > Eval.eval(new Board(fen)));
+        assertEquals("d1d8", result.getMove().get().toString());
+    }
+
+    @Test
+    public void writesALinePerPosition() throws Exception {
+        Path fenFile = Files.createTempFile("chess4j", ".fen");
+        try {
+            Files.write(fenFile, Arrays.asList("4k3/8/4P3/8/8/8/8/4K3 w - -", "bad\"fen"));
+
+            StringWriter jsonl = new StringWriter();
+            StringWriter csv = new StringWriter();
+            try (EvalBatch batch = new EvalBatch(2, 0)) {
+                batch.evaluate(fenFile, jsonl, EvalBatch.Format.JSONL);
+                batch.evaluate(fenFile, csv, EvalBatch.Format.CSV);
+            }
+            int score = Eval.eval(new Board("4k3/8/4P3/8/8/8/8/4K3 w - -"));
+
+            assertEquals("{\"fen\":\"4k3/8/4P3/8/8/8/8/4K3 w - -\",\"score\":" + score + "}\n"
+                    + "{\"fen\":\"bad\\\"fen\",\"score\":null}\n", jsonl.toString());
+            assertEquals("fen,score\n"
+                    + "4k3/8/4P3/8/8/8/8/4K3 w - -," + score + "\n"
+                    + "bad\"fen,\n", csv.toString());
+        } finally {
+            Files.delete(fenFile);
+        }
+    }
+}